@@ -18,10 +18,12 @@ package com.okta.oidc.example;
 import android.net.Uri;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
+import com.okta.oidc.net.AsyncOktaHttpClient;
 import com.okta.oidc.net.ConnectionParameters;
-import com.okta.oidc.net.OktaHttpClient;
+import com.okta.oidc.net.OktaHttpResponse;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,18 +33,19 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.Call;
-import okhttp3.Callback;
 import okhttp3.FormBody;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 
 /**
- * A OktaHttpClient implementation using OkHttpClient.
+ * A OktaHttpClient implementation using OkHttpClient. Requests made with
+ * {@link #enqueue(Uri, ConnectionParameters, Callback)} don't block a thread.
  */
-public class OkHttp implements OktaHttpClient {
+public class OkHttp implements AsyncOktaHttpClient {
     private static final int CONNECTION_TIMEOUT_MS = 15_000;
     private static final int READ_TIMEOUT_MS = 10_000;
 
@@ -110,7 +113,7 @@ public class OkHttp implements OktaHttpClient {
         Request request = buildRequest(uri, param);
         mCall = sOkHttpClient.newCall(request);
         final CountDownLatch latch = new CountDownLatch(1);
-        mCall.enqueue(new Callback() {
+        mCall.enqueue(new okhttp3.Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
                 mException = e;
@@ -133,6 +136,26 @@ public class OkHttp implements OktaHttpClient {
         return null;
     }
 
+    @NonNull
+    @Override
+    public PendingRequest enqueue(@NonNull Uri uri, @NonNull ConnectionParameters param,
+                                  @NonNull Callback callback) {
+        Request request = buildRequest(uri, param);
+        Call call = sOkHttpClient.newCall(request);
+        call.enqueue(new okhttp3.Callback() {
+            @Override
+            public void onFailure(Call failed, IOException e) {
+                callback.onFailure(e);
+            }
+
+            @Override
+            public void onResponse(Call completed, Response response) {
+                callback.onResponse(new OkHttpResponse(response));
+            }
+        });
+        return call::cancel;
+    }
+
     @Override
     public void cleanUp() {
         //NO-OP
@@ -184,4 +207,48 @@ public class OkHttp implements OktaHttpClient {
         }
         return null;
     }
+
+    /**
+     * The response of a request made with {@link #enqueue(Uri, ConnectionParameters, Callback)}.
+     */
+    private static final class OkHttpResponse implements OktaHttpResponse {
+        private final Response mResponse;
+
+        OkHttpResponse(Response response) {
+            mResponse = response;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return mResponse.code();
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return mResponse.headers().toMultimap();
+        }
+
+        @Override
+        public String getResponseMessage() {
+            return mResponse.message();
+        }
+
+        @Override
+        public int getContentLength() {
+            ResponseBody body = mResponse.body();
+            return body == null ? -1 : (int) body.contentLength();
+        }
+
+        @Nullable
+        @Override
+        public InputStream getContent() {
+            ResponseBody body = mResponse.body();
+            return body == null ? null : body.byteStream();
+        }
+
+        @Override
+        public void disconnect() {
+            mResponse.close();
+        }
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package android.os;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Stands in for the framework class, which reads system properties through native methods
+ * that only exist on a device. Properties are read from the build.prop of the android-all
+ * jar and can be overridden with java system properties, e.g.
+ * {@code -Dro.build.version.sdk=23}.
+ */
+public class SystemProperties {
+    private static final Properties PROPERTIES = load();
+
+    private SystemProperties() {
+    }
+
+    private static Properties load() {
+        Properties properties = new Properties();
+        try (InputStream in = SystemProperties.class.getClassLoader()
+                .getResourceAsStream("build.prop")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read build.prop", e);
+        }
+        return properties;
+    }
+
+    public static String get(String key) {
+        return get(key, "");
+    }
+
+    public static String get(String key, String def) {
+        return System.getProperty(key, PROPERTIES.getProperty(key, def));
+    }
+
+    public static int getInt(String key, int def) {
+        try {
+            return Integer.parseInt(get(key));
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    public static long getLong(String key, long def) {
+        try {
+            return Long.parseLong(get(key));
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean def) {
+        String value = get(key);
+        if (value.isEmpty()) {
+            return def;
+        }
+        return "1".equals(value) || "y".equals(value) || "yes".equals(value) ||
+                "on".equals(value) || "true".equals(value);
+    }
+}
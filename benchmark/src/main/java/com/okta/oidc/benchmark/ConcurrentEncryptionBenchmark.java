@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.benchmark;
+
+import com.okta.oidc.storage.RecordCodec;
+import com.okta.oidc.storage.security.EncryptionManager;
+import com.okta.oidc.storage.security.SoftwareEncryptionManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encryption of a token response by one encryption manager shared by several threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentEncryptionBenchmark {
+    @Param({"true", "false"})
+    public boolean envelope;
+
+    private EncryptionManager mManager;
+    private byte[] mRecord;
+    private String mEncryptedRecord;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        mManager = new SoftwareEncryptionManager(envelope);
+        mRecord = RecordCodec.encode(Samples.tokenResponse());
+        mEncryptedRecord = mManager.encryptBytes(mRecord);
+    }
+
+    @Benchmark
+    public String encryptRecord() throws GeneralSecurityException {
+        return mManager.encryptBytes(mRecord);
+    }
+
+    @Benchmark
+    public byte[] decryptRecord() throws GeneralSecurityException {
+        return mManager.decryptBytes(mEncryptedRecord);
+    }
+}
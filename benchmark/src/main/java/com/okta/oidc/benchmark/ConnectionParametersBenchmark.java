@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.benchmark;
+
+import com.okta.oidc.net.ConnectionParameters;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Form encoding of the parameters of a code exchange.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConnectionParametersBenchmark {
+    private ConnectionParameters mParameters;
+
+    @Setup
+    public void setUp() {
+        mParameters = new ConnectionParameters.ParameterBuilder()
+                .setRequestMethod(ConnectionParameters.RequestMethod.POST)
+                .setPostParameter("client_id", Samples.CLIENT_ID)
+                .setPostParameter("redirect_uri", Samples.REDIRECT_URI)
+                .setPostParameter("grant_type", "authorization_code")
+                .setPostParameter("code", "9ZeJTXeG5YTnTkA9sMsS")
+                .setPostParameter("code_verifier",
+                        "EOyt_R8aVqqJ5ha4k_p5DLHSGT6M1SNHw1gMo1UHIZ0crxbjl6ZbHSKu3ZqP6-vQ")
+                .setPostParameter("nonce", "b5ecd0ab-4d2f-4ded-8b80-51f9df4e2b74")
+                .create();
+    }
+
+    @Benchmark
+    public byte[] getEncodedPostParameters() {
+        return mParameters.getEncodedPostParameters();
+    }
+}
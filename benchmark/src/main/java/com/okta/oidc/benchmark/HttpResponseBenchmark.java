@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.benchmark;
+
+import com.okta.oidc.net.HttpResponse;
+import com.okta.oidc.net.request.ProviderConfiguration;
+import com.okta.oidc.net.response.TokenResponse;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of response bodies by {@link HttpResponse}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpResponseBenchmark {
+    private static final Map<String, List<String>> HEADERS = Collections.singletonMap(
+            "Content-Type", Collections.singletonList("application/json"));
+
+    private byte[] mTokenResponse;
+    private byte[] mProviderConfiguration;
+
+    @Setup
+    public void setUp() {
+        mTokenResponse = Samples.tokenResponse().getBytes(StandardCharsets.UTF_8);
+        mProviderConfiguration = Samples.providerConfiguration()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static HttpResponse response(byte[] body) {
+        return new HttpResponse(200, HEADERS, body.length, "OK",
+                new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public JSONObject tokenResponseAsJsonObject() throws IOException, JSONException {
+        return response(mTokenResponse).asJson();
+    }
+
+    @Benchmark
+    public TokenResponse tokenResponse() throws IOException, JSONException {
+        return response(mTokenResponse).asJson(TokenResponse.ADAPTER);
+    }
+
+    @Benchmark
+    public ProviderConfiguration providerConfiguration() throws IOException, JSONException {
+        return response(mProviderConfiguration).asJson(ProviderConfiguration.ADAPTER);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.benchmark;
+
+import com.okta.oidc.net.request.ProviderConfiguration;
+import com.okta.oidc.net.request.web.WebRequest;
+import com.okta.oidc.net.response.JsonWebKeySet;
+import com.okta.oidc.net.response.TokenResponse;
+import com.okta.oidc.net.response.web.WebResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restore of each {@link com.okta.oidc.storage.Persistable} from the data it persists.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RestoreBenchmark {
+    private String mTokenResponse;
+    private String mProviderConfiguration;
+    private String mWebRequest;
+    private String mWebResponse;
+    private String mJsonWebKeySet;
+
+    @Setup
+    public void setUp() {
+        mTokenResponse = TokenResponse.RESTORE.restore(Samples.tokenResponse()).persist();
+        mProviderConfiguration = ProviderConfiguration.RESTORE
+                .restore(Samples.providerConfiguration()).persist();
+        mWebRequest = Samples.authorizeRequest();
+        mWebResponse = Samples.authorizeResponse();
+        mJsonWebKeySet = JsonWebKeySet.RESTORE.restore(Samples.jsonWebKeySet()).persist();
+    }
+
+    @Benchmark
+    public TokenResponse tokenResponse() {
+        return TokenResponse.RESTORE.restore(mTokenResponse);
+    }
+
+    @Benchmark
+    public ProviderConfiguration providerConfiguration() {
+        return ProviderConfiguration.RESTORE.restore(mProviderConfiguration);
+    }
+
+    @Benchmark
+    public WebRequest webRequest() {
+        return WebRequest.RESTORE.restore(mWebRequest);
+    }
+
+    @Benchmark
+    public WebResponse webResponse() {
+        return WebResponse.RESTORE.restore(mWebResponse);
+    }
+
+    @Benchmark
+    public JsonWebKeySet jsonWebKeySet() {
+        return JsonWebKeySet.RESTORE.restore(mJsonWebKeySet);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.benchmark;
+
+import android.net.Uri;
+import android.util.Base64;
+
+import com.okta.oidc.net.request.web.AuthorizeRequest;
+import com.okta.oidc.net.response.web.AuthorizeResponse;
+import com.okta.oidc.util.AuthorizationException;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Data shaped like the responses of an Okta org, shared by the benchmarks.
+ */
+final class Samples {
+    static final String ISSUER = "https://samples.okta.com/oauth2/default";
+    static final String CLIENT_ID = "0oa1bmdz8fgXbO5ja0h8";
+    static final String REDIRECT_URI = "com.okta.samples:/callback";
+    static final String KEY_ID = "Xb65oX4RnJQsKPhb0x7jeJvKt0zdBs5fB6CK-8BsvIA";
+
+    private static final int BASE64_FLAGS = Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP;
+    //same data on every run so results are comparable.
+    private static final Random RANDOM = new Random(42);
+
+    private Samples() {
+    }
+
+    private static String base64Url(byte[] data) {
+        return Base64.encodeToString(data, BASE64_FLAGS);
+    }
+
+    private static String randomBase64Url(int length) {
+        byte[] data = new byte[length];
+        RANDOM.nextBytes(data);
+        return base64Url(data);
+    }
+
+    static String idToken() {
+        try {
+            long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+            JSONObject header = new JSONObject()
+                    .put("kid", KEY_ID)
+                    .put("alg", "RS256");
+            JSONObject claims = new JSONObject()
+                    .put("sub", "00uiz0htbaJHcUtfW0h7")
+                    .put("name", "John Doe")
+                    .put("email", "john.doe@samples.okta.com")
+                    .put("ver", 1)
+                    .put("iss", ISSUER)
+                    .put("aud", CLIENT_ID)
+                    .put("iat", now)
+                    .put("exp", now + TimeUnit.HOURS.toSeconds(1))
+                    .put("jti", "ID.ceR8RqeNqKO6eLbCHhaQWMRuvBV4lfMDFEpfC1hfCmM")
+                    .put("amr", new JSONArray().put("pwd").put("mfa"))
+                    .put("idp", "00oiz0dm4dNVsfKMW0h7")
+                    .put("nonce", randomBase64Url(16))
+                    .put("preferred_username", "john.doe@samples.okta.com")
+                    .put("auth_time", now)
+                    .put("at_hash", randomBase64Url(16));
+            return base64Url(header.toString().getBytes(StandardCharsets.UTF_8)) + "." +
+                    base64Url(claims.toString().getBytes(StandardCharsets.UTF_8)) + "." +
+                    randomBase64Url(256);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String tokenResponse() {
+        try {
+            return new JSONObject()
+                    .put("token_type", "Bearer")
+                    .put("expires_in", 3600)
+                    //Okta access tokens are JWTs of about the same size.
+                    .put("access_token", idToken())
+                    .put("scope", "openid profile email offline_access")
+                    .put("refresh_token", randomBase64Url(32))
+                    .put("id_token", idToken())
+                    .toString();
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String providerConfiguration() {
+        try {
+            JSONObject json = new JSONObject()
+                    .put("issuer", ISSUER)
+                    .put("authorization_endpoint", ISSUER + "/v1/authorize")
+                    .put("token_endpoint", ISSUER + "/v1/token")
+                    .put("userinfo_endpoint", ISSUER + "/v1/userinfo")
+                    .put("registration_endpoint", ISSUER + "/v1/clients")
+                    .put("jwks_uri", ISSUER + "/v1/keys")
+                    .put("introspection_endpoint", ISSUER + "/v1/introspect")
+                    .put("revocation_endpoint", ISSUER + "/v1/revoke")
+                    .put("end_session_endpoint", ISSUER + "/v1/logout")
+                    .put("request_parameter_supported", true);
+            json.put("response_types_supported", array("code", "id_token", "code id_token",
+                    "code token", "id_token token", "code id_token token"));
+            json.put("response_modes_supported", array("query", "fragment", "form_post",
+                    "okta_post_message"));
+            json.put("grant_types_supported", array("authorization_code", "implicit",
+                    "refresh_token", "password"));
+            json.put("subject_types_supported", array("public"));
+            json.put("id_token_signing_alg_values_supported", array("RS256"));
+            json.put("scopes_supported", array("openid", "profile", "email", "address",
+                    "phone", "offline_access", "groups"));
+            json.put("token_endpoint_auth_methods_supported", array("client_secret_basic",
+                    "client_secret_post", "client_secret_jwt", "private_key_jwt", "none"));
+            json.put("claims_supported", array("iss", "ver", "sub", "aud", "iat", "exp", "jti",
+                    "auth_time", "amr", "idp", "nonce", "name", "nickname", "preferred_username",
+                    "given_name", "middle_name", "family_name", "email", "email_verified",
+                    "profile", "zoneinfo", "locale", "address", "phone_number", "picture",
+                    "website", "gender", "birthdate", "updated_at", "at_hash", "c_hash"));
+            json.put("code_challenge_methods_supported", array("S256"));
+            json.put("introspection_endpoint_auth_methods_supported",
+                    array("client_secret_basic", "client_secret_post", "client_secret_jwt",
+                            "private_key_jwt", "none"));
+            json.put("revocation_endpoint_auth_methods_supported",
+                    array("client_secret_basic", "client_secret_post", "client_secret_jwt",
+                            "private_key_jwt", "none"));
+            json.put("request_object_signing_alg_values_supported",
+                    array("HS256", "HS384", "HS512", "RS256", "RS384", "RS512", "ES256",
+                            "ES384", "ES512"));
+            return json.toString();
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static JSONArray array(String... values) {
+        JSONArray array = new JSONArray();
+        for (String value : values) {
+            array.put(value);
+        }
+        return array;
+    }
+
+    static String jsonWebKeySet() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            JSONArray keys = new JSONArray();
+            for (int i = 0; i < 2; i++) {
+                RSAPublicKey key = (RSAPublicKey) generator.generateKeyPair().getPublic();
+                keys.put(new JSONObject()
+                        .put("kty", "RSA")
+                        .put("alg", "RS256")
+                        .put("kid", i == 0 ? KEY_ID : randomBase64Url(32))
+                        .put("use", "sig")
+                        .put("e", base64Url(unsigned(key.getPublicExponent())))
+                        .put("n", base64Url(unsigned(key.getModulus()))));
+            }
+            return new JSONObject()
+                    .put("keys", keys)
+                    .put("jwks_uri", ISSUER + "/v1/keys")
+                    .toString();
+        } catch (NoSuchAlgorithmException | JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] trimmed = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, trimmed, 0, trimmed.length);
+            return trimmed;
+        }
+        return bytes;
+    }
+
+    static String authorizeRequest() {
+        try {
+            return new AuthorizeRequest.Builder()
+                    .clientId(CLIENT_ID)
+                    .redirectUri(REDIRECT_URI)
+                    .scope("openid", "profile", "email", "offline_access")
+                    .authorizeEndpoint(ISSUER + "/v1/authorize")
+                    .create()
+                    .persist();
+        } catch (AuthorizationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String authorizeResponse() {
+        return AuthorizeResponse.fromUri(Uri.parse(REDIRECT_URI).buildUpon()
+                .appendQueryParameter("code", randomBase64Url(32))
+                .appendQueryParameter("state", randomBase64Url(16))
+                .build())
+                .persist();
+    }
+}
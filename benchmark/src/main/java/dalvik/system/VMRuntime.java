@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package dalvik.system;
+
+/**
+ * Stands in for the framework class so {@link android.os.Build} can be initialized outside
+ * of the Android runtime.
+ */
+public final class VMRuntime {
+    private static final VMRuntime RUNTIME = new VMRuntime();
+
+    private VMRuntime() {
+    }
+
+    public static VMRuntime getRuntime() {
+        return RUNTIME;
+    }
+
+    public boolean is64Bit() {
+        return System.getProperty("os.arch", "").contains("64");
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc;
+
+import android.util.Base64;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+
+import com.okta.oidc.net.OktaHttpClient;
+import com.okta.oidc.net.request.HttpRequestBuilder;
+import com.okta.oidc.net.request.JwksRequest;
+import com.okta.oidc.net.request.ProviderConfiguration;
+import com.okta.oidc.net.request.TokenRequest;
+import com.okta.oidc.net.response.JsonWebKeySet;
+import com.okta.oidc.storage.OktaRepository;
+import com.okta.oidc.util.AuthorizationException;
+
+import java.math.BigInteger;
+import java.net.SocketTimeoutException;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.okta.oidc.util.AuthorizationException.GeneralErrors.ID_TOKEN_VALIDATION_ERROR;
+import static com.okta.oidc.util.AuthorizationException.GeneralErrors.NETWORK_ERROR;
+
+/**
+ * @hide Verifies ID Token signatures with the keys published at the jwks_uri of the provider.
+ * Keys are parsed once and kept by kid. The key set is persisted so a restarted app verifies
+ * without a network request. A token signed with a kid the cache doesn't know refreshes the
+ * key set: concurrent callers wait for the same request, and refreshes are rate limited so
+ * tokens with made up kids can't make the library flood the provider. The token request waits
+ * for the key set, so a fetch that takes longer than a few seconds is canceled.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public class JsonWebKeyCache {
+    private static final String TAG = JsonWebKeyCache.class.getSimpleName();
+    private static final String KEY_TYPE_RSA = "RSA";
+    private static final String ALGORITHM_RS256 = "RS256";
+    private static final String USE_SIGNATURE = "sig";
+    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+    @VisibleForTesting
+    static final long MIN_REFRESH_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+    @VisibleForTesting
+    static final long FETCH_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(5);
+
+    //Signature instances are not thread safe, each thread keeps its own verifier.
+    private static final ThreadLocal<Signature> VERIFIER = new ThreadLocal<>();
+
+    private final OktaState mOktaState;
+    @Nullable
+    private final SharedExecutor mSharedExecutor;
+    private final long mFetchTimeoutMs;
+    private final Object mLock = new Object();
+    private volatile Keys mKeys;
+    private boolean mRestored;
+    private FutureTask<Keys> mRefresh;
+    private long mLastRefreshMs;
+
+    /*
+     * The parsed keys of one key set. Immutable so readers never take the lock.
+     */
+    private static final class Keys {
+        final String mJwksUri;
+        final Map<String, PublicKey> mKeys;
+
+        Keys(String jwksUri, Map<String, PublicKey> keys) {
+            mJwksUri = jwksUri;
+            mKeys = keys;
+        }
+
+        boolean isFrom(String jwksUri) {
+            return mJwksUri != null && mJwksUri.equals(jwksUri);
+        }
+
+        @Nullable
+        PublicKey find(@Nullable String kid) {
+            if (kid == null) {
+                //a token without kid can only be matched if the provider has a single key.
+                return mKeys.size() == 1 ? mKeys.values().iterator().next() : null;
+            }
+            return mKeys.get(kid);
+        }
+    }
+
+    JsonWebKeyCache(@NonNull OktaState oktaState) {
+        this(oktaState, null, FETCH_TIMEOUT_MS);
+    }
+
+    /*
+     * The fetch is canceled on the scheduler of the shared executor, the default one if null.
+     */
+    JsonWebKeyCache(@NonNull OktaState oktaState, @Nullable SharedExecutor sharedExecutor,
+                    long fetchTimeoutMs) {
+        mOktaState = oktaState;
+        mSharedExecutor = sharedExecutor;
+        mFetchTimeoutMs = fetchTimeoutMs;
+    }
+
+    /**
+     * Verifies the signature of the ID Token returned by a token request. The key set is only
+     * fetched if none of the cached keys matches the kid of the token.
+     *
+     * @param idToken the ID Token.
+     * @param request the token request that returned it.
+     * @param client  the client used to fetch the key set.
+     * @throws AuthorizationException if the signature is invalid, no key matches or the key
+     *                                set can't be fetched.
+     */
+    public void verify(@NonNull OktaIdToken idToken, @NonNull TokenRequest request,
+                       @NonNull OktaHttpClient client) throws AuthorizationException {
+        String jwksUri = request.getProviderConfiguration().jwks_uri;
+        String kid = idToken.getHeader().kid;
+        PublicKey key = find(jwksUri, kid);
+        if (key == null) {
+            Keys keys = refresh(request, client);
+            key = keys == null ? null : keys.find(kid);
+        }
+        if (key == null) {
+            throw AuthorizationException.fromTemplate(ID_TOKEN_VALIDATION_ERROR,
+                    AuthorizationException.TokenValidationError.SIGNING_KEY_NOT_FOUND);
+        }
+        if (!verify(idToken, key)) {
+            throw AuthorizationException.fromTemplate(ID_TOKEN_VALIDATION_ERROR,
+                    AuthorizationException.TokenValidationError.INVALID_SIGNATURE);
+        }
+    }
+
+    @Nullable
+    private PublicKey find(String jwksUri, String kid) {
+        Keys keys = restoredKeys();
+        return keys != null && keys.isFrom(jwksUri) ? keys.find(kid) : null;
+    }
+
+    @Nullable
+    private Keys restoredKeys() {
+        Keys keys = mKeys;
+        if (keys != null) {
+            return keys;
+        }
+        synchronized (mLock) {
+            if (!mRestored) {
+                mRestored = true;
+                try {
+                    JsonWebKeySet keySet = mOktaState.getJsonWebKeySet();
+                    if (keySet != null && mKeys == null) {
+                        mKeys = parse(keySet);
+                    }
+                } catch (OktaRepository.EncryptionException e) {
+                    Log.w(TAG, "Unable to restore the json web key set", e);
+                }
+            }
+            return mKeys;
+        }
+    }
+
+    /*
+     * Fetches the key set unless another thread is already doing it, in which case the result
+     * of that fetch is used. A key set from the same uri is fetched at most once per
+     * MIN_REFRESH_INTERVAL_MS, the keys in use are returned instead.
+     */
+    @Nullable
+    private Keys refresh(TokenRequest request, OktaHttpClient client)
+            throws AuthorizationException {
+        String jwksUri = request.getProviderConfiguration().jwks_uri;
+        FutureTask<Keys> task;
+        boolean owner = false;
+        synchronized (mLock) {
+            task = mRefresh;
+            if (task == null) {
+                Keys keys = mKeys;
+                long now = System.currentTimeMillis();
+                if (keys != null && keys.isFrom(jwksUri)
+                        && now - mLastRefreshMs < MIN_REFRESH_INTERVAL_MS) {
+                    return keys;
+                }
+                mLastRefreshMs = now;
+                task = new FutureTask<>(() -> fetch(request, client));
+                mRefresh = task;
+                owner = true;
+            }
+        }
+        if (owner) {
+            try {
+                task.run();
+            } finally {
+                synchronized (mLock) {
+                    mRefresh = null;
+                }
+            }
+        }
+        try {
+            Keys keys = task.get();
+            return keys.isFrom(jwksUri) ? keys : null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AuthorizationException) {
+                throw (AuthorizationException) e.getCause();
+            }
+            throw AuthorizationException.fromTemplate(NETWORK_ERROR, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw AuthorizationException.fromTemplate(NETWORK_ERROR, e);
+        }
+    }
+
+    private Keys fetch(TokenRequest request, OktaHttpClient client)
+            throws AuthorizationException {
+        ProviderConfiguration configuration = request.getProviderConfiguration();
+        JwksRequest jwksRequest = HttpRequestBuilder.newJwksRequest()
+                .providerConfiguration(configuration)
+                .config(request.getConfig())
+                .createRequest();
+        //set before the request is canceled, the canceled request can fail first.
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> timeout = scheduleTimeout(() -> {
+            timedOut.set(true);
+            jwksRequest.cancelRequest();
+        });
+        JsonWebKeySet keySet;
+        try {
+            keySet = jwksRequest.executeRequest(client);
+        } catch (AuthorizationException e) {
+            if (timedOut.get()) {
+                throw AuthorizationException.fromTemplate(NETWORK_ERROR,
+                        new SocketTimeoutException("Timed out fetching the json web key set"));
+            }
+            throw e;
+        } finally {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+        Keys keys = parse(keySet);
+        mKeys = keys;
+        try {
+            mOktaState.save(keySet);
+        } catch (OktaRepository.EncryptionException e) {
+            Log.w(TAG, "Unable to persist the json web key set", e);
+        }
+        return keys;
+    }
+
+    @Nullable
+    private ScheduledFuture<?> scheduleTimeout(Runnable cancel) {
+        SharedExecutor executor = mSharedExecutor != null ? mSharedExecutor
+                : SharedExecutor.getDefault();
+        try {
+            return executor.getScheduler().schedule(cancel, mFetchTimeoutMs,
+                    TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            //the executor was shut down, the fetch is only bounded by the client timeouts.
+            return null;
+        }
+    }
+
+    /*
+     * Keys that can't be used to verify RS256 signatures are skipped.
+     */
+    private static Keys parse(JsonWebKeySet keySet) {
+        Map<String, PublicKey> keys = new HashMap<>();
+        KeyFactory factory = null;
+        for (JsonWebKeySet.JsonWebKey key : keySet.getKeys()) {
+            if (key.getKeyId() == null || !KEY_TYPE_RSA.equals(key.getKeyType())
+                    || key.getUse() != null && !USE_SIGNATURE.equals(key.getUse())
+                    || key.getAlgorithm() != null && !ALGORITHM_RS256.equals(key.getAlgorithm())
+                    || key.getModulus() == null || key.getExponent() == null) {
+                continue;
+            }
+            try {
+                if (factory == null) {
+                    factory = KeyFactory.getInstance(KEY_TYPE_RSA);
+                }
+                keys.put(key.getKeyId(), factory.generatePublic(new RSAPublicKeySpec(
+                        unsignedInteger(key.getModulus()), unsignedInteger(key.getExponent()))));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                Log.w(TAG, "Skipping invalid json web key " + key.getKeyId(), e);
+            }
+        }
+        return new Keys(keySet.getJwksUri(), Collections.unmodifiableMap(keys));
+    }
+
+    private static BigInteger unsignedInteger(String value) {
+        return new BigInteger(1, Base64.decode(value, Base64.URL_SAFE));
+    }
+
+    private static boolean verify(OktaIdToken idToken, PublicKey key)
+            throws AuthorizationException {
+        try {
+            Signature verifier = VERIFIER.get();
+            if (verifier == null) {
+                verifier = Signature.getInstance(SIGNATURE_ALGORITHM);
+                VERIFIER.set(verifier);
+            }
+            verifier.initVerify(key);
+            idToken.updateSigningInput(verifier);
+            return verifier.verify(idToken.getSignatureBytes());
+        } catch (GeneralSecurityException e) {
+            throw AuthorizationException.fromTemplate(ID_TOKEN_VALIDATION_ERROR, e);
+        }
+    }
+}
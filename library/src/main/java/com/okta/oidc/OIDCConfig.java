@@ -23,14 +23,15 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RawRes;
+import androidx.annotation.RestrictTo;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.SerializedName;
 import com.okta.oidc.clients.AuthClient;
 import com.okta.oidc.clients.SyncAuthClient;
 import com.okta.oidc.clients.sessions.SessionClient;
 import com.okta.oidc.clients.sessions.SyncSessionClient;
+import com.okta.oidc.util.GsonUtil;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -73,6 +74,7 @@ public class OIDCConfig {
     private boolean mIsOAuth2Configuration;
     private CustomConfiguration mCustomConfiguration;
     private final OktaIdToken.Validator idTokenValidator;
+    private boolean mVerifyIdTokenSignature;
 
     private OIDCConfig(AccountInfo account, OktaIdToken.Validator idTokenValidator) {
         mAccount = account;
@@ -133,6 +135,25 @@ public class OIDCConfig {
         }
     }
 
+    /**
+     * @hide The host of the authorization server, from the discovery uri or the token
+     * endpoint of the custom configuration.
+     *
+     * @return the host or null if it isn't known.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @Nullable
+    public String getAuthorizationServerHost() {
+        Uri discoveryUri = getDiscoveryUri();
+        if (discoveryUri != null) {
+            return discoveryUri.getHost();
+        }
+        if (mCustomConfiguration != null && mCustomConfiguration.getTokenEndpoint() != null) {
+            return Uri.parse(mCustomConfiguration.getTokenEndpoint()).getHost();
+        }
+        return null;
+    }
+
     /**
      * Check to see if the configuration is from OAuth2 or OpenID Connect.
      *
@@ -171,6 +192,15 @@ public class OIDCConfig {
         return idTokenValidator;
     }
 
+    /**
+     * Returns true if the signature of ID Tokens is verified with the keys of the provider.
+     *
+     * @return true if the signature is verified.
+     */
+    public boolean isIdTokenSignatureVerified() {
+        return mVerifyIdTokenSignature;
+    }
+
     private static class AccountInfo {
         @SerializedName("client_id")
         String mClientId;
@@ -220,6 +250,7 @@ public class OIDCConfig {
         private CustomConfiguration mCustomConfiguration;
         private OktaIdToken.Validator mIdTokenValidator =
                 new OktaIdToken.DefaultValidator(System::currentTimeMillis);
+        private boolean mVerifyIdTokenSignature;
 
         /**
          * Instantiates a new Builder.
@@ -237,6 +268,7 @@ public class OIDCConfig {
             mAccountInfo.validate(mCustomConfiguration != null);
             OIDCConfig config = new OIDCConfig(mAccountInfo, mIdTokenValidator);
             config.mCustomConfiguration = mCustomConfiguration;
+            config.mVerifyIdTokenSignature = mVerifyIdTokenSignature;
             return config;
         }
 
@@ -327,6 +359,19 @@ public class OIDCConfig {
             return this;
         }
 
+        /**
+         * Verify the signature of ID Tokens with the keys published at the jwks_uri of the
+         * provider. The keys are cached and persisted, they are only fetched again when a
+         * token is signed with a key that isn't cached. Disabled by default.
+         *
+         * @param verify true to verify the signature.
+         * @return current builder
+         */
+        public Builder verifyIdTokenSignature(boolean verify) {
+            mVerifyIdTokenSignature = verify;
+            return this;
+        }
+
         /**
          * Sets the resource id of the configuration file in JSON format.
          *
@@ -355,8 +400,7 @@ public class OIDCConfig {
 
         private void readConfiguration(@NonNull final JSONObject jsonObject)
                 throws JsonSyntaxException {
-            Gson gson = new Gson();
-            mAccountInfo = gson.fromJson(jsonObject.toString(), AccountInfo.class);
+            mAccountInfo = GsonUtil.getGson().fromJson(jsonObject.toString(), AccountInfo.class);
         }
     }
 }
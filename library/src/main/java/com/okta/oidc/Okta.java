@@ -136,7 +136,7 @@ public class Okta {
         @Override
         public WebAuthClient create() {
             super.withAuthenticationClientFactory(new WebAuthClientFactory(mCallbackExecutor,
-                    customTabOptions, mSupportedBrowsers));
+                    getSharedExecutor(), customTabOptions, mSupportedBrowsers));
             return createAuthClient();
         }
     }
@@ -228,7 +228,8 @@ public class Okta {
         @Override
         public SyncWebAuthClient create() {
             super.withAuthenticationClientFactory(
-                    new SyncWebAuthClientFactory(customTabOptions, mSupportedBrowsers));
+                    new SyncWebAuthClientFactory(getSharedExecutor(), customTabOptions,
+                            mSupportedBrowsers));
             return createAuthClient();
         }
     }
@@ -264,7 +265,7 @@ public class Okta {
         @Override
         public AuthClient create() {
             super.withAuthenticationClientFactory(
-                    new AuthClientFactoryImpl(this.mCallbackExecutor));
+                    new AuthClientFactoryImpl(this.mCallbackExecutor, getSharedExecutor()));
             return createAuthClient();
         }
     }
@@ -286,7 +287,8 @@ public class Okta {
          */
         @Override
         public SyncAuthClient create() {
-            super.withAuthenticationClientFactory(new SyncAuthClientFactory());
+            super.withAuthenticationClientFactory(
+                    new SyncAuthClientFactory(getSharedExecutor()));
             return createAuthClient();
         }
     }
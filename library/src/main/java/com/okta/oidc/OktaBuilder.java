@@ -21,6 +21,8 @@ import androidx.annotation.NonNull;
 
 import com.okta.oidc.clients.ClientFactory;
 import com.okta.oidc.net.HttpClientImpl;
+import com.okta.oidc.net.NetworkEventListener;
+import com.okta.oidc.net.RetryPolicy;
 import com.okta.oidc.net.OktaHttpClient;
 import com.okta.oidc.storage.OktaStorage;
 import com.okta.oidc.storage.SharedPreferenceStorage;
@@ -39,6 +41,18 @@ public abstract class OktaBuilder<A, T extends OktaBuilder<A, T>> {
      * The connection factory.
      */
     private OktaHttpClient mClient;
+    /**
+     * The listener of network events of the default OktaHttpClient.
+     */
+    private NetworkEventListener mNetworkEventListener;
+    /**
+     * The retry policy of the default OktaHttpClient.
+     */
+    private RetryPolicy mRetryPolicy;
+    /**
+     * The executor of background work, null to use the default shared executor.
+     */
+    private SharedExecutor mSharedExecutor;
     /**
      * The oidc config.
      */
@@ -108,6 +122,56 @@ public abstract class OktaBuilder<A, T extends OktaBuilder<A, T>> {
         return toThis();
     }
 
+    /**
+     * Sets a listener of the phases of the network requests made by the default OktaHttpClient,
+     * e.g. to report request timings to an APM tool. Ignored when a custom client is set with
+     * {@link #withOktaHttpClient(OktaHttpClient)}, such a client reports events to the listener
+     * it returns from {@link OktaHttpClient#getEventListener()}.
+     *
+     * @param listener the network event listener
+     * @return current builder
+     */
+    public T withNetworkEventListener(NetworkEventListener listener) {
+        mNetworkEventListener = listener;
+        return toThis();
+    }
+
+    /**
+     * Retries requests made by the default OktaHttpClient that failed with a transient error,
+     * like a dropped connection or a 503 response. Requests aren't retried by default. Ignored
+     * when a custom client is set with {@link #withOktaHttpClient(OktaHttpClient)}, such a
+     * client uses the policy it returns from {@link OktaHttpClient#getRetryPolicy()}.
+     *
+     * @param retryPolicy the retry policy
+     * @return current builder
+     */
+    public T withRetryPolicy(RetryPolicy retryPolicy) {
+        mRetryPolicy = retryPolicy;
+        return toThis();
+    }
+
+    /**
+     * Sets the threads that run the background work of the client. By default all clients
+     * share {@link SharedExecutor#getDefault()}, so building more clients doesn't add threads.
+     *
+     * @param sharedExecutor the executor
+     * @return current builder
+     */
+    public T withSharedExecutor(SharedExecutor sharedExecutor) {
+        mSharedExecutor = sharedExecutor;
+        return toThis();
+    }
+
+    /**
+     * Gets the executor of background work set with
+     * {@link #withSharedExecutor(SharedExecutor)}, or the default shared executor.
+     *
+     * @return the executor
+     */
+    protected SharedExecutor getSharedExecutor() {
+        return mSharedExecutor != null ? mSharedExecutor : SharedExecutor.getDefault();
+    }
+
     /**
      * Sets the context.
      *
@@ -184,12 +248,16 @@ public abstract class OktaBuilder<A, T extends OktaBuilder<A, T>> {
     @SuppressWarnings("WeakerAccess")
     protected A createAuthClient() {
         if (mClient == null) {
-            mClient = new HttpClientImpl();
+            HttpClientImpl client = new HttpClientImpl();
+            client.setEventListener(mNetworkEventListener);
+            client.setRetryPolicy(mRetryPolicy);
+            mClient = client;
         }
         // By default we enable encryption for all our clients. To change this behaviour, create
         // your own Builder.
         if (mEncryptionManager == null) {
-            mEncryptionManager = new DefaultEncryptionManager(mContext);
+            mEncryptionManager = new DefaultEncryptionManager(mContext, false,
+                    getSharedExecutor().getExecutor(SharedExecutor.Priority.DEFAULT));
         }
         if (mStorage == null) {
             mStorage = new SharedPreferenceStorage(mContext);
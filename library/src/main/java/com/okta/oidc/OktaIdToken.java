@@ -20,24 +20,35 @@ import android.text.TextUtils;
 import android.util.Base64;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import com.okta.oidc.net.params.GrantTypes;
 import com.okta.oidc.net.request.ProviderConfiguration;
 import com.okta.oidc.net.request.TokenRequest;
 import com.okta.oidc.util.AuthorizationException;
+import com.okta.oidc.util.GsonUtil;
+import com.okta.oidc.util.ModelAdapter;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -54,7 +65,11 @@ import static com.okta.oidc.util.AuthorizationException.GeneralErrors.ID_TOKEN_V
  */
 @SuppressWarnings("unused")
 public class OktaIdToken {
-    private static final int NUMBER_OF_SECTIONS = 3;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final Gson ID_TOKEN_GSON = GsonUtil.getGson().newBuilder()
+            .registerTypeAdapterFactory(ArrayTypeAdapter.CREATE)
+            .create();
 
     /**
      * The interface Clock.
@@ -82,25 +97,37 @@ public class OktaIdToken {
         void validate(OktaIdToken oktaIdToken) throws AuthorizationException;
     }
 
+    /*
+     * The token is kept encoded, sections are decoded on first access. The offsets index the
+     * claims and signature sections in mToken.
+     */
+    private final byte[] mToken;
+    private final int mClaimsStart;
+    private final int mSignatureStart;
+    private final int mSignatureEnd;
+
     /**
-     * The header of a idToken.
+     * The header of a idToken, decoded on first access.
      * {@link Header}
      */
     @VisibleForTesting
-    Header mHeader;
+    volatile Header mHeader;
 
     /**
-     * The claims section of a idToken.
+     * The claims section of a idToken, decoded on first access.
      * {@link Claims}
      */
     @VisibleForTesting
-    Claims mClaims;
+    volatile Claims mClaims;
 
     /**
-     * The signature of a idToken.
+     * The signature of a idToken, decoded on first access.
      */
     @VisibleForTesting
-    String mSignature;
+    volatile byte[] mSignature;
+
+    //the claims needed for validation, read without materializing the other claims.
+    private volatile BaseClaims mBaseClaims;
 
     private static final Long MILLIS_PER_SECOND = 1000L;
     private static final int SECONDS_IN_ONE_MINUTE = 60;
@@ -267,28 +294,50 @@ public class OktaIdToken {
         public List<String> groups;
     }
 
-    private OktaIdToken(Header header, Claims claims, String signature) {
-        mHeader = header;
-        mClaims = claims;
-        mSignature = signature;
+    private static final class BaseClaims {
+        List<String> aud;
+        int exp;
+        int iat;
+        int auth_time;
+        String iss;
+        String nonce;
+    }
+
+    private OktaIdToken(byte[] token, int claimsStart, int signatureStart, int signatureEnd) {
+        mToken = token;
+        mClaimsStart = claimsStart;
+        mSignatureStart = signatureStart;
+        mSignatureEnd = signatureEnd;
     }
 
     /**
      * Get the header claims. {@link Header}
      *
      * @return the header
+     * @throws IllegalArgumentException if the header section can't be decoded.
      */
     public Header getHeader() {
-        return mHeader;
+        Header header = mHeader;
+        if (header == null) {
+            header = fromJson(0, mClaimsStart - 1, Header.class);
+            mHeader = header;
+        }
+        return header;
     }
 
     /**
      * Get the payload claims. {@link Claims}
      *
      * @return the claims
+     * @throws IllegalArgumentException if the claims section can't be decoded.
      */
     public Claims getClaims() {
-        return mClaims;
+        Claims claims = mClaims;
+        if (claims == null) {
+            claims = fromJson(mClaimsStart, mSignatureStart - 1, Claims.class);
+            mClaims = claims;
+        }
+        return claims;
     }
 
     /**
@@ -298,7 +347,174 @@ public class OktaIdToken {
      * @see "ID Token Signature <https://developer.okta.com/docs/api/resources/oidc/#id-token-signature>"
      */
     public String getSignature() {
-        return mSignature;
+        return new String(signature());
+    }
+
+    /**
+     * Get the signature bytes.
+     *
+     * @return a copy of the decoded signature.
+     */
+    @NonNull
+    public byte[] getSignatureBytes() {
+        return signature().clone();
+    }
+
+    /**
+     * Get the issuer, the "iss" claim.
+     *
+     * @return the issuer.
+     */
+    @Nullable
+    public String getIssuer() {
+        return baseClaims().iss;
+    }
+
+    /**
+     * Get the audience, the "aud" claim.
+     *
+     * @return the audience, a single audience is returned as a list of one element.
+     */
+    @Nullable
+    public List<String> getAudience() {
+        return baseClaims().aud;
+    }
+
+    /**
+     * Get the nonce, the "nonce" claim.
+     *
+     * @return the nonce.
+     */
+    @Nullable
+    public String getNonce() {
+        return baseClaims().nonce;
+    }
+
+    /**
+     * Get the expiration time, the "exp" claim.
+     *
+     * @return the expiration time in seconds since the epoch.
+     */
+    public int getExpiration() {
+        return baseClaims().exp;
+    }
+
+    /**
+     * Get the issued at time, the "iat" claim.
+     *
+     * @return the issued at time in seconds since the epoch.
+     */
+    public int getIssuedAt() {
+        return baseClaims().iat;
+    }
+
+    private byte[] signature() {
+        byte[] signature = mSignature;
+        if (signature == null) {
+            signature = decode(mSignatureStart, mSignatureEnd);
+            mSignature = signature;
+        }
+        return signature;
+    }
+
+    /*
+     * Feeds the JWS signing input, the encoded header and claims sections, to the verifier.
+     */
+    void updateSigningInput(Signature verifier) throws SignatureException {
+        verifier.update(mToken, 0, mSignatureStart - 1);
+    }
+
+    private byte[] decode(int start, int end) {
+        return Base64.decode(mToken, start, end - start, Base64.URL_SAFE);
+    }
+
+    private Reader reader(int start, int end) {
+        return new InputStreamReader(new ByteArrayInputStream(decode(start, end)), UTF_8);
+    }
+
+    private <T> T fromJson(int start, int end, Class<T> type) {
+        try {
+            T value = ID_TOKEN_GSON.fromJson(reader(start, end), type);
+            if (value == null) {
+                throw new IllegalArgumentException("IdToken section is empty");
+            }
+            return value;
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("IdToken section is not valid json", e);
+        }
+    }
+
+    private BaseClaims baseClaims() {
+        BaseClaims claims = mBaseClaims;
+        if (claims == null) {
+            claims = readBaseClaims();
+            mBaseClaims = claims;
+        }
+        return claims;
+    }
+
+    private BaseClaims readBaseClaims() {
+        Claims full = mClaims;
+        BaseClaims claims = new BaseClaims();
+        if (full != null) {
+            claims.aud = full.aud;
+            claims.exp = full.exp;
+            claims.iat = full.iat;
+            claims.auth_time = full.auth_time;
+            claims.iss = full.iss;
+            claims.nonce = full.nonce;
+            return claims;
+        }
+        JsonReader in = new JsonReader(reader(mClaimsStart, mSignatureStart - 1));
+        in.setLenient(true);
+        try {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "aud":
+                        claims.aud = readAudience(in);
+                        break;
+                    case "exp":
+                        claims.exp = ModelAdapter.readInt(in, 0);
+                        break;
+                    case "iat":
+                        claims.iat = ModelAdapter.readInt(in, 0);
+                        break;
+                    case "auth_time":
+                        claims.auth_time = ModelAdapter.readInt(in, 0);
+                        break;
+                    case "iss":
+                        claims.iss = ModelAdapter.readString(in);
+                        break;
+                    case "nonce":
+                        claims.nonce = ModelAdapter.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            return claims;
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new IllegalArgumentException("IdToken claims are not valid json", e);
+        }
+    }
+
+    private static List<String> readAudience(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token != BEGIN_ARRAY) {
+            return Collections.singletonList(ModelAdapter.readString(in));
+        }
+        List<String> audience = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            audience.add(ModelAdapter.readString(in));
+        }
+        in.endArray();
+        return audience;
     }
 
     /**
@@ -312,18 +528,20 @@ public class OktaIdToken {
         final OIDCConfig config = request.getConfig();
         ProviderConfiguration providerConfig = request.getProviderConfiguration();
 
-        if (!"RS256".equals(mHeader.alg)) {
+        String alg = getHeader().alg;
+        if (!"RS256".equals(alg)) {
             throw AuthorizationException.fromTemplate(ID_TOKEN_VALIDATION_ERROR,
                     AuthorizationException.TokenValidationError
-                            .createNotSupportedAlgorithmException(mHeader.alg));
+                            .createNotSupportedAlgorithmException(alg));
         }
+        BaseClaims claims = baseClaims();
         if (providerConfig.issuer != null) {
-            if (!mClaims.iss.equals(providerConfig.issuer)) {
+            if (!claims.iss.equals(providerConfig.issuer)) {
                 throw AuthorizationException.fromTemplate(ID_TOKEN_VALIDATION_ERROR,
                         AuthorizationException.TokenValidationError.ISSUER_MISMATCH);
             }
 
-            Uri issuerUri = Uri.parse(mClaims.iss);
+            Uri issuerUri = Uri.parse(claims.iss);
             if (!issuerUri.getScheme().equals("https")) {
                 throw AuthorizationException.fromTemplate(ID_TOKEN_VALIDATION_ERROR,
                         AuthorizationException.TokenValidationError.ISSUER_NOT_HTTPS_URL);
@@ -342,7 +560,7 @@ public class OktaIdToken {
         }
 
         String clientId = config.getClientId();
-        if (!this.mClaims.aud.contains(clientId)) {
+        if (!claims.aud.contains(clientId)) {
             throw AuthorizationException.fromTemplate(ID_TOKEN_VALIDATION_ERROR,
                     AuthorizationException.TokenValidationError.AUDIENCE_MISMATCH);
         }
@@ -351,13 +569,13 @@ public class OktaIdToken {
 
         if (GrantTypes.AUTHORIZATION_CODE.equals(request.getGrantType())) {
             String expectedNonce = request.getNonce();
-            if (!TextUtils.equals(mClaims.nonce, expectedNonce)) {
+            if (!TextUtils.equals(claims.nonce, expectedNonce)) {
                 throw AuthorizationException.fromTemplate(ID_TOKEN_VALIDATION_ERROR,
                         AuthorizationException.TokenValidationError.NONCE_MISMATCH);
             }
         }
 
-        if (request.getMaxAge() != null && mClaims.auth_time <= 0) {
+        if (request.getMaxAge() != null && claims.auth_time <= 0) {
             throw AuthorizationException.fromTemplate(ID_TOKEN_VALIDATION_ERROR,
                     AuthorizationException.TokenValidationError.AUTH_TIME_MISSING);
         }
@@ -388,12 +606,12 @@ public class OktaIdToken {
          */
         @Override public void validate(OktaIdToken oktaIdToken) throws AuthorizationException {
             long nowInSeconds = clock.getCurrentTimeMillis() / MILLIS_PER_SECOND;
-            if (nowInSeconds > oktaIdToken.mClaims.exp) {
+            if (nowInSeconds > oktaIdToken.getExpiration()) {
                 throw AuthorizationException.fromTemplate(ID_TOKEN_VALIDATION_ERROR,
                         AuthorizationException.TokenValidationError.ID_TOKEN_EXPIRED);
             }
 
-            if (Math.abs(nowInSeconds - oktaIdToken.mClaims.iat) > TEN_MINUTES_IN_SECONDS) {
+            if (Math.abs(nowInSeconds - oktaIdToken.getIssuedAt()) > TEN_MINUTES_IN_SECONDS) {
                 throw AuthorizationException.fromTemplate(ID_TOKEN_VALIDATION_ERROR,
                         AuthorizationException.TokenValidationError.createWrongTokenIssuedTime(
                                 TEN_MINUTES_IN_SECONDS.intValue() / SECONDS_IN_ONE_MINUTE));
@@ -402,27 +620,26 @@ public class OktaIdToken {
     }
 
     /**
-     * Parses a JSON Web Token (JWT).
+     * Parses a JSON Web Token (JWT). Only the structure of the token is checked here, the
+     * sections are decoded when they are first accessed.
      *
      * @param token the based64 encoded idToken
      * @return the okta id token
      * @throws IllegalArgumentException the illegal argument exception
      */
     public static OktaIdToken parseIdToken(@NonNull String token) throws IllegalArgumentException {
-        String[] sections = token.split("\\.");
-        if (sections.length < NUMBER_OF_SECTIONS) {
+        int headerEnd = token.indexOf('.');
+        int claimsEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+        int signatureEnd = claimsEnd < 0 ? -1 : token.indexOf('.', claimsEnd + 1);
+        if (signatureEnd < 0) {
+            signatureEnd = token.length();
+        }
+        if (headerEnd <= 0 || claimsEnd < 0 || signatureEnd == claimsEnd + 1) {
             throw new IllegalArgumentException("IdToken missing header, claims or" +
                     " signature section");
         }
-        Gson gson = new GsonBuilder().registerTypeAdapterFactory(ArrayTypeAdapter.CREATE).create();
-        //decode header
-        String headerSection = new String(Base64.decode(sections[0], Base64.URL_SAFE));
-        Header header = gson.fromJson(headerSection, Header.class);
-        //decode claims
-        String claimsSection = new String(Base64.decode(sections[1], Base64.URL_SAFE));
-        Claims claims = gson.fromJson(claimsSection, Claims.class);
-        String signature = new String(Base64.decode(sections[2], Base64.URL_SAFE));
-        return new OktaIdToken(header, claims, signature);
+        return new OktaIdToken(token.getBytes(US_ASCII), headerEnd + 1, claimsEnd + 1,
+                signatureEnd);
     }
 
     /*
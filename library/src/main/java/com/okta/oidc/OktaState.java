@@ -15,17 +15,22 @@
 
 package com.okta.oidc;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
 import com.okta.oidc.clients.State;
 import com.okta.oidc.net.request.ProviderConfiguration;
 import com.okta.oidc.net.request.web.WebRequest;
+import com.okta.oidc.net.response.JsonWebKeySet;
 import com.okta.oidc.net.response.TokenResponse;
 import com.okta.oidc.storage.OktaRepository;
 import com.okta.oidc.storage.OktaRepository.EncryptionException;
 import com.okta.oidc.storage.Persistable;
 import com.okta.oidc.storage.security.EncryptionManager;
 
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
 import static com.okta.oidc.clients.State.IDLE;
 
 /**
@@ -37,8 +42,19 @@ public class OktaState {
 
     private State currentState;
 
+    private JsonWebKeyCache mKeyCache;
+
+    private final SharedExecutor mSharedExecutor;
+
+    private final Set<Runnable> mTokenListeners = new CopyOnWriteArraySet<>();
+
     public OktaState(OktaRepository mOktaRepository) {
+        this(mOktaRepository, null);
+    }
+
+    public OktaState(OktaRepository mOktaRepository, @Nullable SharedExecutor sharedExecutor) {
         this.mOktaRepo = mOktaRepository;
+        this.mSharedExecutor = sharedExecutor;
         this.currentState = IDLE;
     }
 
@@ -54,6 +70,23 @@ public class OktaState {
         return mOktaRepo.get(ProviderConfiguration.RESTORE);
     }
 
+    public JsonWebKeySet getJsonWebKeySet() throws EncryptionException {
+        return mOktaRepo.get(JsonWebKeySet.RESTORE);
+    }
+
+    /**
+     * Gets the cache of the keys that sign the ID Tokens, shared by the clients of this state.
+     *
+     * @return the key cache.
+     */
+    public synchronized JsonWebKeyCache getJsonWebKeyCache() {
+        if (mKeyCache == null) {
+            mKeyCache = new JsonWebKeyCache(this, mSharedExecutor,
+                    JsonWebKeyCache.FETCH_TIMEOUT_MS);
+        }
+        return mKeyCache;
+    }
+
     public WebRequest getAuthorizeRequest() throws EncryptionException {
         return mOktaRepo.get(WebRequest.RESTORE);
     }
@@ -68,14 +101,51 @@ public class OktaState {
 
     public void save(Persistable persistable) throws EncryptionException {
         mOktaRepo.save(persistable);
+        onChanged(persistable.getKey());
     }
 
     public void delete(Persistable persistable) {
         mOktaRepo.delete(persistable);
+        onChanged(persistable.getKey());
     }
 
     public void delete(String key) {
         mOktaRepo.delete(key);
+        onChanged(key);
+    }
+
+    public void deleteAll(String... keys) {
+        mOktaRepo.deleteAll(keys);
+        for (String key : keys) {
+            onChanged(key);
+        }
+    }
+
+    /**
+     * Adds a listener that is called after the tokens were saved or deleted through this state,
+     * on the thread that changed them.
+     *
+     * @param listener the listener.
+     */
+    public void addTokenListener(Runnable listener) {
+        mTokenListeners.add(listener);
+    }
+
+    public void removeTokenListener(Runnable listener) {
+        mTokenListeners.remove(listener);
+    }
+
+    private void onChanged(String key) {
+        if (TokenResponse.RESTORE.getKey().equals(key)) {
+            for (Runnable listener : mTokenListeners) {
+                listener.run();
+            }
+        }
+    }
+
+    public void migrateTo(EncryptionManager encryptionManager, String... keys)
+            throws EncryptionException {
+        mOktaRepo.migrateTo(encryptionManager, keys);
     }
 
     public void setEncryptionManager(EncryptionManager encryptionManager) {
@@ -18,35 +18,40 @@ package com.okta.oidc;
 import android.os.Handler;
 import android.os.Looper;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 
-import java.util.HashSet;
-import java.util.Iterator;
+import com.okta.oidc.SharedExecutor.Priority;
+
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.TimeUnit;
 
 import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP;
 
 /**
- * @hide Executor Service that runs tasks on worker thread
+ * @hide Executor Service that runs tasks on the threads of a {@link SharedExecutor}
  * call back on ui thread or specified executor.
  */
 @RestrictTo(LIBRARY_GROUP)
 public class RequestDispatcher extends AbstractExecutorService {
-    private static final int MAX_THREADS = 3;
-    private boolean mShutdown = false;
-    //executor used to run async network requests. only single thread
-    private ExecutorService mExecutorService = Executors.newSingleThreadExecutor();
+    private volatile boolean mShutdown = false;
+
+    //executor shared by all clients, it isn't shut down with the dispatcher.
+    private final SharedExecutor mSharedExecutor;
 
-    //executor used to run async requests not related to networking.
-    private ExecutorService mTaskExecutor = Executors.newFixedThreadPool(MAX_THREADS);
+    //host of the authorization server, limits the requests made to it at the same time.
+    private final String mHost;
 
     //callback executor provide by app for callbacks
     private Executor mCallbackExecutor;
@@ -54,9 +59,21 @@ public class RequestDispatcher extends AbstractExecutorService {
     //main handler for callbacks on main thread.
     private Handler mHandler;
 
-    private Set<Future> mExecutorServiceTasks = new HashSet<>();
+    //tasks in flight, a task removes itself when it completes.
+    private final TaskRegistry mTasks = new TaskRegistry();
 
     public RequestDispatcher(Executor callbackExecutor) {
+        this(callbackExecutor, SharedExecutor.getDefault());
+    }
+
+    public RequestDispatcher(Executor callbackExecutor, SharedExecutor sharedExecutor) {
+        this(callbackExecutor, sharedExecutor, null);
+    }
+
+    public RequestDispatcher(Executor callbackExecutor, SharedExecutor sharedExecutor,
+                             @Nullable String host) {
+        mSharedExecutor = sharedExecutor;
+        mHost = host;
         if (callbackExecutor == null) {
             mHandler = new Handler(Looper.getMainLooper());
         } else {
@@ -73,15 +90,6 @@ public class RequestDispatcher extends AbstractExecutorService {
             ((ExecutorService) mCallbackExecutor).shutdown();
             mCallbackExecutor = null;
         }
-        if (mExecutorService != null) {
-            mExecutorService.shutdown();
-            mExecutorService = null;
-        }
-        if (mTaskExecutor != null) {
-            mTaskExecutor.shutdown();
-            mTaskExecutor = null;
-        }
-
         mShutdown = true;
     }
 
@@ -89,15 +97,36 @@ public class RequestDispatcher extends AbstractExecutorService {
         if (mHandler != null) {
             mHandler.removeCallbacksAndMessages(null);
         }
+        mTasks.cancelAll();
+    }
 
-        if (mExecutorServiceTasks != null && !mExecutorServiceTasks.isEmpty()) {
-            Iterator<Future> executorIterator = mExecutorServiceTasks.iterator();
-            while (executorIterator.hasNext()) {
-                executorIterator.next().cancel(true);
-                executorIterator.remove();
-            }
-            mExecutorServiceTasks.clear();
-        }
+    /**
+     * Cancels the tasks of a group that are running or waiting to run.
+     *
+     * @param group the group the tasks were submitted with.
+     * @return the number of tasks that were canceled.
+     */
+    public int cancelTasks(@NonNull Object group) {
+        return mTasks.cancel(group);
+    }
+
+    /**
+     * Gets the number of submitted tasks that are running or waiting to run.
+     *
+     * @return the number of tasks in flight.
+     */
+    public int getInFlightCount() {
+        return mTasks.getInFlightCount();
+    }
+
+    /**
+     * Gets the number of submitted tasks of a group that are running or waiting to run.
+     *
+     * @param group the group the tasks were submitted with.
+     * @return the number of tasks of the group in flight.
+     */
+    public int getInFlightCount(@NonNull Object group) {
+        return mTasks.getInFlightCount(group);
     }
 
     @Override
@@ -132,19 +161,99 @@ public class RequestDispatcher extends AbstractExecutorService {
     }
 
     @Override
-    public Future<?> submit(Runnable task) {
-        Future<?> future = super.submit(task);
-        mExecutorServiceTasks.add(future);
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new TrackedTask<>(Executors.callable(runnable, value), null);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new TrackedTask<>(callable, null);
+    }
+
+    /**
+     * Submits a network request to the authorization server.
+     *
+     * @param task     the request.
+     * @param priority the priority of the request.
+     * @return the future of the request.
+     */
+    public Future<?> submit(Runnable task, Priority priority) {
+        return submit(task, priority, mHost);
+    }
+
+    /**
+     * Submits a task.
+     *
+     * @param task     the task.
+     * @param priority the priority of the task.
+     * @param host     the host the task talks to, null if it isn't limited per host.
+     * @return the future of the task.
+     */
+    public Future<?> submit(Runnable task, Priority priority, @Nullable String host) {
+        return submit(task, priority, host, null);
+    }
+
+    /**
+     * Submits a task that can be canceled together with the other tasks of its group.
+     *
+     * @param task     the task.
+     * @param priority the priority of the task.
+     * @param host     the host the task talks to, null if it isn't limited per host.
+     * @param group    the group of the task, null if it doesn't belong to a group.
+     * @return the future of the task.
+     * @see #cancelTasks(Object)
+     */
+    public Future<?> submit(Runnable task, Priority priority, @Nullable String host,
+                            @Nullable Object group) {
+        RunnableFuture<Void> future = new TrackedTask<>(Executors.callable(task, null), group);
+        execute(future, priority, host);
         return future;
     }
 
     @Override
     public void execute(Runnable command) {
-        mTaskExecutor.execute(command);
+        execute(command, Priority.DEFAULT, null);
+    }
+
+    private void execute(Runnable command, Priority priority, @Nullable String host) {
+        if (mShutdown) {
+            throw new RejectedExecutionException("RequestDispatcher is shut down");
+        }
+        if (command instanceof TrackedTask) {
+            ((TrackedTask<?>) command).register();
+        }
+        try {
+            mSharedExecutor.execute(command, priority, host);
+        } catch (RejectedExecutionException ex) {
+            if (command instanceof TrackedTask) {
+                mTasks.remove((TrackedTask<?>) command);
+            }
+            throw ex;
+        }
     }
 
     public void runTask(Runnable runnable) {
-        mExecutorServiceTasks.add(mTaskExecutor.submit(runnable));
+        //cancels run ahead of queued requests.
+        submit(runnable, Priority.INTERACTIVE, null);
+    }
+
+    //registered before it is queued, so it can't complete before it was added.
+    private class TrackedTask<T> extends FutureTask<T> {
+        private final Object mGroup;
+
+        TrackedTask(Callable<T> callable, @Nullable Object group) {
+            super(callable);
+            mGroup = group;
+        }
+
+        void register() {
+            mTasks.add(this, mGroup);
+        }
+
+        @Override
+        protected void done() {
+            mTasks.remove(this);
+        }
     }
 
     @VisibleForTesting(otherwise = VisibleForTesting.NONE)
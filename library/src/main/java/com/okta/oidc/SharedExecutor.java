@@ -0,0 +1,495 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc;
+
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import com.okta.oidc.util.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The threads that run the background work of Okta clients: network requests, token
+ * revocation, configuration revalidation and scheduled work like token refresh and request
+ * retries. All clients share {@link #getDefault()} unless another one is set with
+ * {@link OktaBuilder#withSharedExecutor(SharedExecutor)}.
+ * <p>
+ * The number of worker threads is bounded, tasks beyond it wait in a queue. Idle threads
+ * are stopped after 30 seconds, so an app that isn't signing in or refreshing holds no
+ * threads. The threads run at background priority.
+ * <p>
+ * Waiting tasks are started by {@link Priority}, first in first out within a priority, so
+ * a sign-in or refresh the user waits for isn't queued behind background work. The number of
+ * tasks talking to one host at the same time is limited, by default one worker is always
+ * left for other hosts. A task whose host is at the limit is passed over, not the ones
+ * behind it.
+ */
+public final class SharedExecutor {
+    /**
+     * The default maximum number of worker threads.
+     */
+    public static final int DEFAULT_MAX_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static SharedExecutor sDefault;
+    //set on a worker thread while it runs a task.
+    private static final ThreadLocal<Boolean> sRunningTask = new ThreadLocal<>();
+
+    /**
+     * The order in which waiting tasks are started.
+     */
+    public enum Priority {
+        /**
+         * Work the user waits for, like sign-in, sign-out and token refresh.
+         */
+        INTERACTIVE,
+        /**
+         * Requests made by the app, like user info, introspection and authorized requests.
+         */
+        DEFAULT,
+        /**
+         * Work nobody waits for, like token revocation, configuration revalidation and
+         * prefetching.
+         */
+        BACKGROUND
+    }
+
+    private final ThreadPoolExecutor mWorkers;
+    private final ScheduledThreadPoolExecutor mScheduler;
+    private final int mMaxThreads;
+    private final int mMaxTasksPerHost;
+
+    //guarded by mReady.
+    private final List<ArrayDeque<Task>> mReady = new ArrayList<>();
+    private final Map<String, Integer> mRunningPerHost = new HashMap<>();
+    private final QueueStats[] mQueueStats = new QueueStats[Priority.values().length];
+    private int mRunning;
+    private boolean mShutdown;
+
+    /**
+     * Creates an executor with {@link #DEFAULT_MAX_THREADS} worker threads.
+     */
+    public SharedExecutor() {
+        this(DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * Creates an executor that leaves one worker for other hosts when a host is busy.
+     *
+     * @param maxThreads the maximum number of worker threads.
+     */
+    public SharedExecutor(int maxThreads) {
+        this(maxThreads, Math.max(1, maxThreads - 1));
+    }
+
+    /**
+     * Creates an executor.
+     *
+     * @param maxThreads      the maximum number of worker threads.
+     * @param maxTasksPerHost the maximum number of tasks that talk to one host at a time.
+     */
+    public SharedExecutor(int maxThreads, int maxTasksPerHost) {
+        Preconditions.checkArgument(maxThreads > 0, "maxThreads must be positive");
+        Preconditions.checkArgument(maxTasksPerHost > 0, "maxTasksPerHost must be positive");
+        mMaxThreads = maxThreads;
+        mMaxTasksPerHost = maxTasksPerHost;
+        mWorkers = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new Workers("okta-worker"));
+        mWorkers.allowCoreThreadTimeOut(true);
+        mScheduler = new ScheduledThreadPoolExecutor(1, new Workers("okta-scheduler"));
+        mScheduler.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        mScheduler.allowCoreThreadTimeOut(true);
+        mScheduler.setRemoveOnCancelPolicy(true);
+        for (int i = 0; i < mQueueStats.length; i++) {
+            mReady.add(new ArrayDeque<>());
+            mQueueStats[i] = new QueueStats();
+        }
+    }
+
+    /**
+     * Gets the executor shared by clients that don't have one set. A new one is created if
+     * it was shut down.
+     *
+     * @return the default executor.
+     */
+    @NonNull
+    public static synchronized SharedExecutor getDefault() {
+        if (sDefault == null || sDefault.isShutdown()) {
+            sDefault = new SharedExecutor();
+        }
+        return sDefault;
+    }
+
+    /**
+     * @hide Runs a task on a worker thread.
+     *
+     * @param command  the task.
+     * @param priority the priority of the task.
+     * @param host     the host the task talks to, null if it isn't limited per host.
+     * @throws RejectedExecutionException if the executor is shut down.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public void execute(@NonNull Runnable command, @NonNull Priority priority,
+                        @Nullable String host) {
+        synchronized (mReady) {
+            if (mShutdown) {
+                throw new RejectedExecutionException("SharedExecutor is shut down");
+            }
+            mReady.get(priority.ordinal()).add(new Task(command, priority, host));
+        }
+        promote();
+    }
+
+    /**
+     * @hide An executor that runs tasks with a priority and without a host.
+     *
+     * @param priority the priority of the tasks.
+     * @return the executor.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @NonNull
+    public Executor getExecutor(@NonNull Priority priority) {
+        return command -> execute(command, priority, null);
+    }
+
+    /**
+     * @hide The executor of delayed tasks. The tasks must be short, longer work is handed to
+     * {@link #execute(Runnable, Priority, String)}.
+     *
+     * @return the scheduler.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @NonNull
+    public ScheduledExecutorService getScheduler() {
+        return mScheduler;
+    }
+
+    /*
+     * Hands waiting tasks to the workers while there are free workers and tasks whose host
+     * isn't at the limit.
+     */
+    private void promote() {
+        List<Task> start = new ArrayList<>();
+        boolean terminate;
+        synchronized (mReady) {
+            while (mRunning < mMaxThreads) {
+                Task task = pollReady();
+                if (task == null) {
+                    break;
+                }
+                mRunning++;
+                if (task.mHost != null) {
+                    Integer running = mRunningPerHost.get(task.mHost);
+                    mRunningPerHost.put(task.mHost, running == null ? 1 : running + 1);
+                }
+                mQueueStats[task.mPriority.ordinal()].record(System.nanoTime()
+                        - task.mQueuedAtNanos);
+                start.add(task);
+            }
+            terminate = mShutdown && mRunning == 0 && start.isEmpty();
+        }
+        for (Task task : start) {
+            mWorkers.execute(task);
+        }
+        if (terminate) {
+            mWorkers.shutdown();
+        }
+    }
+
+    private Task pollReady() {
+        for (ArrayDeque<Task> lane : mReady) {
+            Iterator<Task> iterator = lane.iterator();
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
+                Integer running = task.mHost == null ? null : mRunningPerHost.get(task.mHost);
+                if (running == null || running < mMaxTasksPerHost) {
+                    iterator.remove();
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void finished(Task task) {
+        synchronized (mReady) {
+            mRunning--;
+            if (task.mHost != null) {
+                int running = mRunningPerHost.get(task.mHost) - 1;
+                if (running == 0) {
+                    mRunningPerHost.remove(task.mHost);
+                } else {
+                    mRunningPerHost.put(task.mHost, running);
+                }
+            }
+        }
+        promote();
+    }
+
+    /**
+     * @hide Checks if the current thread is a worker thread of a shared executor running a
+     * task.
+     *
+     * @return true if called from a task.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public static boolean isRunningTask() {
+        return sRunningTask.get() != null;
+    }
+
+    /**
+     * Gets the maximum number of worker threads.
+     *
+     * @return the maximum number of worker threads.
+     */
+    public int getMaxThreads() {
+        return mMaxThreads;
+    }
+
+    /**
+     * Gets the maximum number of tasks that talk to one host at the same time.
+     *
+     * @return the maximum number of tasks per host.
+     */
+    public int getMaxTasksPerHost() {
+        return mMaxTasksPerHost;
+    }
+
+    /**
+     * Gets the number of threads that are currently alive, including the scheduler thread.
+     *
+     * @return the number of threads.
+     */
+    public int getThreadCount() {
+        return mWorkers.getPoolSize() + mScheduler.getPoolSize();
+    }
+
+    /**
+     * Gets the number of tasks that were handed to a worker thread and didn't finish yet.
+     *
+     * @return the number of running tasks.
+     */
+    public int getActiveCount() {
+        synchronized (mReady) {
+            return mRunning;
+        }
+    }
+
+    /**
+     * Gets the number of tasks waiting for a worker thread.
+     *
+     * @return the queue depth.
+     */
+    public int getQueueDepth() {
+        synchronized (mReady) {
+            int depth = 0;
+            for (ArrayDeque<Task> lane : mReady) {
+                depth += lane.size();
+            }
+            return depth;
+        }
+    }
+
+    /**
+     * Gets the number of tasks of a priority waiting for a worker thread.
+     *
+     * @param priority the priority.
+     * @return the queue depth of the priority.
+     */
+    public int getQueueDepth(@NonNull Priority priority) {
+        synchronized (mReady) {
+            return mReady.get(priority.ordinal()).size();
+        }
+    }
+
+    /**
+     * Gets how long the oldest waiting task of a priority has been waiting.
+     *
+     * @param priority the priority.
+     * @param unit     the unit of the result.
+     * @return the age of the oldest waiting task, 0 if no task is waiting.
+     */
+    public long getOldestQueuedAge(@NonNull Priority priority, @NonNull TimeUnit unit) {
+        synchronized (mReady) {
+            Task oldest = mReady.get(priority.ordinal()).peek();
+            return oldest == null ? 0
+                    : unit.convert(System.nanoTime() - oldest.mQueuedAtNanos,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Gets the average time tasks of a priority waited for a worker thread.
+     *
+     * @param priority the priority.
+     * @param unit     the unit of the result.
+     * @return the average wait, 0 if no task of the priority was started.
+     */
+    public long getAverageQueueTime(@NonNull Priority priority, @NonNull TimeUnit unit) {
+        synchronized (mReady) {
+            QueueStats stats = mQueueStats[priority.ordinal()];
+            return stats.mStarted == 0 ? 0
+                    : unit.convert(stats.mTotalWaitNanos / stats.mStarted,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Gets the longest time a task of a priority waited for a worker thread.
+     *
+     * @param priority the priority.
+     * @param unit     the unit of the result.
+     * @return the longest wait, 0 if no task of the priority was started.
+     */
+    public long getMaxQueueTime(@NonNull Priority priority, @NonNull TimeUnit unit) {
+        synchronized (mReady) {
+            return unit.convert(mQueueStats[priority.ordinal()].mMaxWaitNanos,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Gets the number of delayed tasks waiting to run.
+     *
+     * @return the number of scheduled tasks.
+     */
+    public int getScheduledCount() {
+        return mScheduler.getQueue().size();
+    }
+
+    /**
+     * Gets the approximate number of tasks that were run by the worker threads.
+     *
+     * @return the number of completed tasks.
+     */
+    public long getCompletedTaskCount() {
+        return mWorkers.getCompletedTaskCount();
+    }
+
+    /**
+     * Stops accepting tasks. Tasks that were already submitted still run, pending delayed
+     * tasks are dropped. Clients that use this executor can't make requests afterwards.
+     */
+    public void shutdown() {
+        mScheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        mScheduler.shutdown();
+        synchronized (mReady) {
+            mShutdown = true;
+        }
+        //stops the workers right away if nothing is running.
+        promote();
+    }
+
+    /**
+     * Checks if {@link #shutdown()} was called.
+     *
+     * @return true if the executor is shut down.
+     */
+    public boolean isShutdown() {
+        synchronized (mReady) {
+            return mShutdown;
+        }
+    }
+
+    /**
+     * Waits for the tasks to finish after {@link #shutdown()}.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit    the unit of timeout.
+     * @return true if all tasks finished, false if the timeout elapsed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return mWorkers.awaitTermination(timeout, unit)
+                && mScheduler.awaitTermination(deadline - System.nanoTime(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    private final class Task implements Runnable {
+        private final Runnable mCommand;
+        private final Priority mPriority;
+        private final String mHost;
+        private final long mQueuedAtNanos = System.nanoTime();
+
+        Task(Runnable command, Priority priority, String host) {
+            mCommand = command;
+            mPriority = priority;
+            mHost = host;
+        }
+
+        @Override
+        public void run() {
+            sRunningTask.set(Boolean.TRUE);
+            try {
+                mCommand.run();
+            } finally {
+                sRunningTask.remove();
+                finished(this);
+            }
+        }
+    }
+
+    private static class QueueStats {
+        private long mStarted;
+        private long mTotalWaitNanos;
+        private long mMaxWaitNanos;
+
+        void record(long waitNanos) {
+            mStarted++;
+            mTotalWaitNanos += waitNanos;
+            mMaxWaitNanos = Math.max(mMaxWaitNanos, waitNanos);
+        }
+    }
+
+    private static class Workers implements ThreadFactory {
+        private final String mName;
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        Workers(String name) {
+            mName = name;
+        }
+
+        //the threads run network and storage work, never anything that draws the UI.
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, mName + "-" + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
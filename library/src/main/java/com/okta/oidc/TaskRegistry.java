@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+
+package com.okta.oidc;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP;
+
+/**
+ * @hide Keeps track of the tasks that are in flight. Tasks are dropped as soon as they
+ * complete, so the registry only ever holds running or queued tasks. A task can belong to a
+ * group, all tasks of a group can be canceled at once.
+ */
+@RestrictTo(LIBRARY_GROUP)
+public final class TaskRegistry {
+    //ConcurrentHashMap doesn't allow null values, tasks without a group map to this.
+    private static final Object NO_GROUP = new Object();
+
+    private final Map<Future<?>, Object> mTasks = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a task to the registry. It has to be removed when it completes.
+     *
+     * @param task  the task.
+     * @param group the group of the task, null if it doesn't belong to a group.
+     */
+    public void add(@NonNull Future<?> task, @Nullable Object group) {
+        mTasks.put(task, group == null ? NO_GROUP : group);
+    }
+
+    /**
+     * Removes a task from the registry.
+     *
+     * @param task the task.
+     */
+    public void remove(@NonNull Future<?> task) {
+        mTasks.remove(task);
+    }
+
+    /**
+     * Cancels the tasks of a group.
+     *
+     * @param group the group.
+     * @return the number of tasks that were canceled.
+     */
+    public int cancel(@NonNull Object group) {
+        return cancel(group, true);
+    }
+
+    /**
+     * Cancels all tasks.
+     *
+     * @return the number of tasks that were canceled.
+     */
+    public int cancelAll() {
+        return cancel(null, false);
+    }
+
+    private int cancel(@Nullable Object group, boolean inGroup) {
+        int canceled = 0;
+        Iterator<Map.Entry<Future<?>, Object>> iterator = mTasks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Future<?>, Object> entry = iterator.next();
+            if (inGroup && !entry.getValue().equals(group)) {
+                continue;
+            }
+            iterator.remove();
+            if (entry.getKey().cancel(true)) {
+                canceled++;
+            }
+        }
+        return canceled;
+    }
+
+    /**
+     * Gets the number of tasks that are running or waiting to run.
+     *
+     * @return the number of tasks in flight.
+     */
+    public int getInFlightCount() {
+        return mTasks.size();
+    }
+
+    /**
+     * Gets the number of tasks of a group that are running or waiting to run.
+     *
+     * @param group the group.
+     * @return the number of tasks of the group in flight.
+     */
+    public int getInFlightCount(@NonNull Object group) {
+        int count = 0;
+        for (Object taskGroup : mTasks.values()) {
+            if (taskGroup.equals(group)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -109,6 +109,15 @@ public class Tokens {
         return mExpiresIn;
     }
 
+    /**
+     * The time in milliseconds since epoch when the access token expires.
+     *
+     * @return expiration time, or a negative value if unknown.
+     */
+    public long getExpiresAt() {
+        return mExpiresAt;
+    }
+
     /**
      * List of scopes.
      *
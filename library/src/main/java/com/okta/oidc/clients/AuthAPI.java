@@ -24,8 +24,10 @@ import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 
+import com.okta.oidc.CustomConfiguration;
 import com.okta.oidc.OIDCConfig;
 import com.okta.oidc.OktaState;
+import com.okta.oidc.SharedExecutor;
 import com.okta.oidc.Tokens;
 import com.okta.oidc.clients.sessions.SyncSessionClient;
 import com.okta.oidc.net.OktaHttpClient;
@@ -45,6 +47,14 @@ import com.okta.oidc.util.AuthorizationException;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.net.InetAddress;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -68,6 +78,7 @@ import static com.okta.oidc.util.AuthorizationException.TYPE_ENCRYPTION_ERROR;
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 public class AuthAPI {
     private static final String TAG = "AuthClientImpl";
+    private static final long WARM_UP_BUDGET_MS = 10_000;
     protected OktaState mOktaState;
     protected OIDCConfig mOidcConfig;
     protected OktaHttpClient mHttpClient;
@@ -75,17 +86,27 @@ public class AuthAPI {
     protected int mSignOutStatus;
 
     protected AtomicBoolean mCancel = new AtomicBoolean();
+    private final AtomicBoolean mRevalidating = new AtomicBoolean();
+    private final AtomicBoolean mWarmingUp = new AtomicBoolean();
     protected AtomicReference<WeakReference<BaseRequest>> mCurrentRequest =
             new AtomicReference<>(new WeakReference<>(null));
+    //session client revoking tokens on sign out.
+    private volatile SyncSessionClient mRevokingClient;
+    //runs revalidation and the parallel revoke request.
+    protected final Executor mBackgroundExecutor;
+    private final ScheduledExecutorService mScheduler;
 
     protected AuthAPI(OIDCConfig oidcConfig,
                       Context context,
                       OktaStorage oktaStorage,
                       EncryptionManager encryptionManager,
                       boolean requireHardwareBackedKeyStore,
-                      boolean cacheMode) {
+                      boolean cacheMode,
+                      SharedExecutor sharedExecutor) {
+        mBackgroundExecutor = sharedExecutor.getExecutor(SharedExecutor.Priority.BACKGROUND);
+        mScheduler = sharedExecutor.getScheduler();
         mOktaState = new OktaState(new OktaRepository(oktaStorage, context, encryptionManager,
-                requireHardwareBackedKeyStore, cacheMode));
+                requireHardwareBackedKeyStore, cacheMode), sharedExecutor);
         mOidcConfig = oidcConfig;
     }
 
@@ -100,6 +121,8 @@ public class AuthAPI {
                     mCurrentRequest.set(new WeakReference<>(request));
                     config = request.executeRequest(mHttpClient);
                     mOktaState.save(config);
+                } else if (config.isExpired()) {
+                    revalidateConfiguration(config);
                 }
             } else {
                 config = new ProviderConfiguration(mOidcConfig.getCustomConfiguration());
@@ -111,10 +134,122 @@ public class AuthAPI {
         }
     }
 
+    /*
+     * A stale configuration is still used for the current flow while it is revalidated in the
+     * background, the result is used from the next flow on. Only one revalidation runs at a
+     * time and a failed one is retried on next use.
+     */
+    private void revalidateConfiguration(ProviderConfiguration stale) {
+        if (!mRevalidating.compareAndSet(false, true)) {
+            return;
+        }
+        mBackgroundExecutor.execute(() -> {
+            try {
+                mOktaState.save(configurationRequest(stale).executeRequest(mHttpClient));
+            } catch (AuthorizationException | OktaRepository.EncryptionException e) {
+                Log.w(TAG, "Failed to revalidate provider configuration", e);
+            } finally {
+                mRevalidating.set(false);
+            }
+        });
+    }
+
+    /**
+     * Prepares the network for the first request to the authorization server in the
+     * background: resolves its host, fetches a missing provider configuration or revalidates a
+     * stale one, otherwise preconnects with the http client. Gives up after ten seconds. Only
+     * one warm up runs at a time.
+     */
+    public void warmUp() {
+        if (!mWarmingUp.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            mBackgroundExecutor.execute(() -> {
+                try {
+                    warmUp(System.currentTimeMillis() + WARM_UP_BUDGET_MS);
+                } finally {
+                    mWarmingUp.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            mWarmingUp.set(false);
+        }
+    }
+
+    private void warmUp(long deadline) {
+        Uri uri = mOidcConfig.getDiscoveryUri();
+        CustomConfiguration custom = mOidcConfig.getCustomConfiguration();
+        if (uri == null && custom != null && custom.getTokenEndpoint() != null) {
+            uri = Uri.parse(custom.getTokenEndpoint());
+        }
+        if (uri == null || uri.getHost() == null) {
+            return;
+        }
+        try {
+            //fills the DNS cache the connections are made with.
+            InetAddress.getAllByName(uri.getHost());
+            if (mOidcConfig.getDiscoveryUri() != null && warmUpConfiguration(uri, deadline)) {
+                //the configuration request leaves its connection in the pool.
+                return;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining > 0) {
+                mHttpClient.preconnect(uri, (int) remaining);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to warm up", e);
+        }
+    }
+
+    //returns true if the configuration was requested.
+    private boolean warmUpConfiguration(Uri discoveryUri, long deadline)
+            throws AuthorizationException, OktaRepository.EncryptionException {
+        ProviderConfiguration config = mOktaState.getProviderConfiguration();
+        boolean matches = config != null && discoveryUri.toString().contains(config.issuer);
+        if (matches && !config.isExpired()) {
+            return false;
+        }
+        if (deadline - System.currentTimeMillis() <= 0) {
+            return true;
+        }
+        if (!matches) {
+            mOktaState.save(requestConfiguration(configurationRequest(), deadline));
+        } else if (mRevalidating.compareAndSet(false, true)) {
+            //revalidated here rather than queued, so it stays within the budget.
+            try {
+                mOktaState.save(requestConfiguration(configurationRequest(config), deadline));
+            } finally {
+                mRevalidating.set(false);
+            }
+        }
+        return true;
+    }
+
+    //cancels the request if it is still running at the deadline.
+    private ProviderConfiguration requestConfiguration(ConfigurationRequest request,
+                                                       long deadline)
+            throws AuthorizationException {
+        Future<?> timeout = mScheduler.schedule(request::cancelRequest,
+                deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        try {
+            return request.executeRequest(mHttpClient);
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
     @VisibleForTesting(otherwise = VisibleForTesting.PACKAGE_PRIVATE)
     public ConfigurationRequest configurationRequest() throws AuthorizationException {
+        return configurationRequest(null);
+    }
+
+    @VisibleForTesting(otherwise = VisibleForTesting.PACKAGE_PRIVATE)
+    public ConfigurationRequest configurationRequest(ProviderConfiguration cached)
+            throws AuthorizationException {
         return HttpRequestBuilder.newConfigurationRequest()
                 .config(mOidcConfig)
+                .cachedConfiguration(cached)
                 .createRequest();
     }
 
@@ -155,6 +290,7 @@ public class AuthAPI {
                 .config(mOidcConfig)
                 .authRequest(authorizeRequest)
                 .authResponse(response)
+                .keyCache(mOktaState.getJsonWebKeyCache())
                 .createRequest();
     }
 
@@ -170,10 +306,13 @@ public class AuthAPI {
 
     public void cancel() {
         mCancel.set(true);
-        mHttpClient.cancel();
         if (mCurrentRequest.get().get() != null) {
             mCurrentRequest.get().get().cancelRequest();
         }
+        SyncSessionClient revoking = mRevokingClient;
+        if (revoking != null) {
+            revoking.cancel();
+        }
     }
 
     /*
@@ -187,25 +326,30 @@ public class AuthAPI {
         }
     }
 
-    private int revoke(SyncSessionClient client, int tokenType) {
+    private int revoke(SyncSessionClient client, String token, int tokenType) {
         try {
-            Tokens tokens = client.getTokens();
-            if (tokens != null) {
-                client.revokeToken(tokenType == REVOKE_ACCESS_TOKEN ? tokens.getAccessToken()
-                        : tokens.getRefreshToken());
-            }
+            client.revokeToken(token);
             return 0;
         } catch (AuthorizationException e) {
             Log.w(TAG, "Revoke token failure", e);
-            int status = tokenType == REVOKE_ACCESS_TOKEN ? FAILED_REVOKE_ACCESS_TOKEN
-                    : FAILED_REVOKE_REFRESH_TOKEN;
-            if (e.type == TYPE_ENCRYPTION_ERROR) {
-                status |= TOKEN_DECRYPT;
-            }
-            return status;
+            return revokeFailure(e, tokenType);
         }
     }
 
+    private int revokeFailure(AuthorizationException e, int tokenTypes) {
+        int status = 0;
+        if ((tokenTypes & REVOKE_ACCESS_TOKEN) == REVOKE_ACCESS_TOKEN) {
+            status |= FAILED_REVOKE_ACCESS_TOKEN;
+        }
+        if ((tokenTypes & REVOKE_REFRESH_TOKEN) == REVOKE_REFRESH_TOKEN) {
+            status |= FAILED_REVOKE_REFRESH_TOKEN;
+        }
+        if (e != null && e.type == TYPE_ENCRYPTION_ERROR) {
+            status |= TOKEN_DECRYPT;
+        }
+        return status;
+    }
+
     protected void removeTokens(SyncSessionClient client) {
         if ((mSignOutFlags & REMOVE_TOKENS) == REMOVE_TOKENS) {
             if ((mSignOutStatus & FAILED_REVOKE_REFRESH_TOKEN) == 0 &&
@@ -217,18 +361,75 @@ public class AuthAPI {
         }
     }
 
+    /*
+     * Tokens are decrypted once. If the http client supports concurrent requests both revoke
+     * requests are sent at the same time, the access token on a worker thread and the refresh
+     * token on the calling thread, otherwise one after another. Cancel cancels the requests
+     * of the session client.
+     */
     protected void revokeTokens(SyncSessionClient client) throws IOException {
-        if ((mSignOutFlags & REVOKE_ACCESS_TOKEN) == REVOKE_ACCESS_TOKEN) {
-            mSignOutStatus |= revoke(client, REVOKE_ACCESS_TOKEN);
+        int tokenTypes = mSignOutFlags & (REVOKE_ACCESS_TOKEN | REVOKE_REFRESH_TOKEN);
+        if (tokenTypes == 0) {
+            checkIfCanceled();
+            return;
         }
         checkIfCanceled();
-
-        if ((mSignOutFlags & REVOKE_REFRESH_TOKEN) == REVOKE_REFRESH_TOKEN) {
-            mSignOutStatus |= revoke(client, REVOKE_REFRESH_TOKEN);
+        Tokens tokens;
+        try {
+            tokens = client.getTokens();
+        } catch (AuthorizationException e) {
+            Log.w(TAG, "Revoke token failure", e);
+            mSignOutStatus |= revokeFailure(e, tokenTypes);
+            checkIfCanceled();
+            return;
+        }
+        if (tokens != null) {
+            mRevokingClient = client;
+            try {
+                sendRevokes(client, tokens, tokenTypes);
+            } finally {
+                mRevokingClient = null;
+            }
         }
         checkIfCanceled();
     }
 
+    private void sendRevokes(SyncSessionClient client, Tokens tokens, int tokenTypes)
+            throws IOException {
+        if (tokenTypes == (REVOKE_ACCESS_TOKEN | REVOKE_REFRESH_TOKEN)
+                && mHttpClient.supportsConcurrentRequests()) {
+            FutureTask<Integer> accessToken = new FutureTask<>(() ->
+                    revoke(client, tokens.getAccessToken(), REVOKE_ACCESS_TOKEN));
+            mBackgroundExecutor.execute(accessToken);
+            int status = revoke(client, tokens.getRefreshToken(), REVOKE_REFRESH_TOKEN);
+            mSignOutStatus |= status | awaitRevoke(accessToken, REVOKE_ACCESS_TOKEN);
+            return;
+        }
+        if ((tokenTypes & REVOKE_ACCESS_TOKEN) == REVOKE_ACCESS_TOKEN) {
+            mSignOutStatus |= revoke(client, tokens.getAccessToken(), REVOKE_ACCESS_TOKEN);
+            checkIfCanceled();
+        }
+        if ((tokenTypes & REVOKE_REFRESH_TOKEN) == REVOKE_REFRESH_TOKEN) {
+            mSignOutStatus |= revoke(client, tokens.getRefreshToken(), REVOKE_REFRESH_TOKEN);
+        }
+    }
+
+    private int awaitRevoke(FutureTask<Integer> future, int tokenType) {
+        try {
+            //runs the revoke here if all worker threads are busy, this thread may be one of
+            //them. A no-op if the revoke already started.
+            future.run();
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return revokeFailure(null, tokenType);
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Revoke token failure", e.getCause());
+            return revokeFailure(null, tokenType);
+        }
+    }
+
     @RestrictTo(TESTS)
     public int getSignOutFlags() {
         return mSignOutFlags;
@@ -21,6 +21,7 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
 import com.okta.oidc.OIDCConfig;
+import com.okta.oidc.SharedExecutor;
 import com.okta.oidc.net.OktaHttpClient;
 import com.okta.oidc.storage.OktaStorage;
 import com.okta.oidc.storage.security.EncryptionManager;
@@ -33,9 +34,11 @@ import java.util.concurrent.Executor;
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 public class AuthClientFactoryImpl implements ClientFactory<AuthClient> {
     private Executor mCallbackExecutor;
+    private SharedExecutor mSharedExecutor;
 
-    public AuthClientFactoryImpl(@Nullable Executor executor) {
+    public AuthClientFactoryImpl(@Nullable Executor executor, SharedExecutor sharedExecutor) {
         mCallbackExecutor = executor;
+        mSharedExecutor = sharedExecutor;
     }
 
     @Override
@@ -48,6 +51,6 @@ public class AuthClientFactoryImpl implements ClientFactory<AuthClient> {
                                    boolean cacheMode) {
         return new AuthClientImpl(mCallbackExecutor, oidcConfig, context, oktaStorage,
                 encryptionManager, httpClient, requireHardwareBackedKeyStore,
-                cacheMode);
+                cacheMode, mSharedExecutor);
     }
 }
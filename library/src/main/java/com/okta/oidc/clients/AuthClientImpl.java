@@ -16,7 +16,6 @@
 package com.okta.oidc.clients;
 
 import android.content.Context;
-import android.os.Process;
 
 import androidx.annotation.AnyThread;
 
@@ -25,6 +24,8 @@ import com.okta.oidc.OIDCConfig;
 import com.okta.oidc.RequestCallback;
 import com.okta.oidc.RequestDispatcher;
 import com.okta.oidc.ResultCallback;
+import com.okta.oidc.SharedExecutor;
+import com.okta.oidc.SharedExecutor.Priority;
 import com.okta.oidc.clients.sessions.SessionClient;
 import com.okta.oidc.clients.sessions.SessionClientFactoryImpl;
 import com.okta.oidc.net.OktaHttpClient;
@@ -49,14 +50,16 @@ class AuthClientImpl implements AuthClient {
                    EncryptionManager encryptionManager,
                    OktaHttpClient httpClient,
                    boolean requireHardwareBackedKeyStore,
-                   boolean cacheMode) {
-        mSyncNativeAuthClient = new SyncAuthClientFactory().createClient(oidcConfig, context,
-                oktaStorage, encryptionManager, httpClient,
+                   boolean cacheMode,
+                   SharedExecutor sharedExecutor) {
+        mSyncNativeAuthClient = new SyncAuthClientFactory(sharedExecutor).createClient(
+                oidcConfig, context, oktaStorage, encryptionManager, httpClient,
                 requireHardwareBackedKeyStore, cacheMode);
 
-        mSessionImpl = new SessionClientFactoryImpl(executor)
+        String host = oidcConfig.getAuthorizationServerHost();
+        mSessionImpl = new SessionClientFactoryImpl(executor, sharedExecutor, host)
                 .createClient(mSyncNativeAuthClient.getSessionClient());
-        mDispatcher = new RequestDispatcher(executor);
+        mDispatcher = new RequestDispatcher(executor, sharedExecutor, host);
     }
 
     @Override
@@ -65,7 +68,6 @@ class AuthClientImpl implements AuthClient {
                        final RequestCallback<Result, AuthorizationException> cb) {
         cancelFuture();
         mFutureTask = mDispatcher.submit(() -> {
-            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
             Result result = mSyncNativeAuthClient.signIn(sessionToken, payload);
             if (result.isSuccess()) {
                 mDispatcher.submitResults(() -> {
@@ -81,7 +83,7 @@ class AuthClientImpl implements AuthClient {
                     }
                 });
             }
-        });
+        }, Priority.INTERACTIVE);
     }
 
     @Override
@@ -97,6 +99,11 @@ class AuthClientImpl implements AuthClient {
         getSessionClient().migrateTo(manager);
     }
 
+    @Override
+    public void warmUp() {
+        mSyncNativeAuthClient.warmUp();
+    }
+
     @Override
     public SessionClient getSessionClient() {
         return mSessionImpl;
@@ -116,7 +123,7 @@ class AuthClientImpl implements AuthClient {
                     callback.onSuccess(status);
                 }
             });
-        });
+        }, Priority.INTERACTIVE);
     }
 
     private void cancelFuture() {
@@ -82,4 +82,19 @@ public interface BaseAuth<S> {
      * @return the session client
      */
     S getSessionClient();
+
+    /**
+     * Prepares the network for the first request to the authorization server, so a sign in or
+     * token refresh made right after app start doesn't wait for DNS, TCP and TLS. The host
+     * of the authorization server is resolved, a missing or stale provider configuration is
+     * fetched and otherwise {@link com.okta.oidc.net.OktaHttpClient#preconnect} prepares a
+     * connection without sending a request.
+     * <p>
+     * Returns immediately, the work is done in the background and gives up after a few
+     * seconds. The default client completes a TLS handshake the next request can resume.
+     * Call it when the client is created, for example in {@code Application.onCreate()}.
+     * The default implementation does nothing.
+     */
+    default void warmUp() {
+    }
 }
@@ -18,6 +18,7 @@ package com.okta.oidc.clients;
 import android.content.Context;
 
 import com.okta.oidc.OIDCConfig;
+import com.okta.oidc.SharedExecutor;
 import com.okta.oidc.net.OktaHttpClient;
 import com.okta.oidc.storage.OktaStorage;
 import com.okta.oidc.storage.security.EncryptionManager;
@@ -26,6 +27,16 @@ import com.okta.oidc.storage.security.EncryptionManager;
  * Client factory to build a synchronous authentication client.
  */
 public class SyncAuthClientFactory implements ClientFactory<SyncAuthClient> {
+    private final SharedExecutor mSharedExecutor;
+
+    public SyncAuthClientFactory() {
+        this(SharedExecutor.getDefault());
+    }
+
+    public SyncAuthClientFactory(SharedExecutor sharedExecutor) {
+        mSharedExecutor = sharedExecutor;
+    }
+
     @Override
     public SyncAuthClientImpl createClient(OIDCConfig oidcConfig,
                                            Context context,
@@ -35,6 +46,6 @@ public class SyncAuthClientFactory implements ClientFactory<SyncAuthClient> {
                                            boolean requireHardwareBackedKeyStore,
                                            boolean cacheMode) {
         return new SyncAuthClientImpl(oidcConfig, context, oktaStorage, encryptionManager,
-                httpClient, requireHardwareBackedKeyStore, cacheMode);
+                httpClient, requireHardwareBackedKeyStore, cacheMode, mSharedExecutor);
     }
 }
@@ -23,6 +23,7 @@ import androidx.annotation.WorkerThread;
 
 import com.okta.oidc.AuthenticationPayload;
 import com.okta.oidc.OIDCConfig;
+import com.okta.oidc.SharedExecutor;
 import com.okta.oidc.clients.sessions.SyncSessionClient;
 import com.okta.oidc.clients.sessions.SyncSessionClientFactoryImpl;
 import com.okta.oidc.net.OktaHttpClient;
@@ -51,9 +52,10 @@ class SyncAuthClientImpl extends AuthAPI implements SyncAuthClient {
                        EncryptionManager encryptionManager,
                        OktaHttpClient httpClient,
                        boolean requireHardwareBackedKeyStore,
-                       boolean cacheMode) {
+                       boolean cacheMode,
+                       SharedExecutor sharedExecutor) {
         super(oidcConfig, context, oktaStorage, encryptionManager,
-                requireHardwareBackedKeyStore, cacheMode);
+                requireHardwareBackedKeyStore, cacheMode, sharedExecutor);
         mHttpClient = httpClient;
         sessionClient = new SyncSessionClientFactoryImpl()
                 .createClient(oidcConfig, mOktaState, httpClient);
@@ -30,6 +30,7 @@ import com.okta.oidc.util.AuthorizationException;
 import org.json.JSONObject;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is the client for Okta OpenID Connect & OAuth 2.0 APIs. You can get the client when
@@ -208,6 +209,50 @@ public interface SessionClient extends BaseSessionClient {
      */
     void refreshToken(RequestCallback<Tokens, AuthorizationException> cb);
 
+    /**
+     * Starts refreshing tokens in the background ahead of the access token expiry, so callers
+     * don't have to wait for a refresh when they need the tokens. The refresh is made skew
+     * before the access token expires, moved earlier by a random amount up to jitter.
+     * A foreground {@link #refreshToken(RequestCallback)} made while a background refresh is
+     * running receives the result of the background refresh.
+     * Tokens without a refresh token are not refreshed. A failed refresh is retried every
+     * minute until the access token expires. It can be started before signing in, the first
+     * refresh is planned when the tokens of the sign in are saved.
+     * Example usage:
+     * {@code
+     * <pre>
+     * client.startAutoRefresh(5, 1, TimeUnit.MINUTES,
+     *     new RequestCallback<Tokens, AuthorizationException>() {
+     *         @Override
+     *         public void onSuccess(@NonNull Tokens result) {
+     *             //tokens were refreshed in the background.
+     *         }
+     *
+     *         @Override
+     *         public void onError(String error, AuthorizationException exception) {
+     *             //handle refresh failure
+     *         }
+     *     });
+     * </pre>
+     * }
+     *
+     * @param skew   how long before expiry the tokens are refreshed.
+     * @param jitter the maximum random time the refresh is moved earlier by.
+     * @param unit   the unit of skew and jitter.
+     * @param cb     optional RequestCallback notified of every background refresh.
+     *               The default implementation does nothing, tokens of clients that don't
+     *               support background refresh are only refreshed on request.
+     */
+    default void startAutoRefresh(long skew, long jitter, @NonNull TimeUnit unit,
+                                  @Nullable RequestCallback<Tokens, AuthorizationException> cb) {
+    }
+
+    /**
+     * Stops refreshing tokens in the background. The default implementation does nothing.
+     */
+    default void stopAutoRefresh() {
+    }
+
     /**
      * Gets tokens {@link Tokens}.
      *
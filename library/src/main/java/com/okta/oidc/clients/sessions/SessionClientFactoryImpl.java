@@ -15,8 +15,11 @@
 
 package com.okta.oidc.clients.sessions;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
+import com.okta.oidc.SharedExecutor;
+
 import java.util.concurrent.Executor;
 
 /**
@@ -25,12 +28,17 @@ import java.util.concurrent.Executor;
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 public class SessionClientFactoryImpl {
     private Executor executor;
+    private SharedExecutor sharedExecutor;
+    private String host;
 
-    public SessionClientFactoryImpl(Executor executor) {
+    public SessionClientFactoryImpl(Executor executor, SharedExecutor sharedExecutor,
+                                    @Nullable String host) {
         this.executor = executor;
+        this.sharedExecutor = sharedExecutor;
+        this.host = host;
     }
 
     public SessionClient createClient(SyncSessionClient syncSessionClient) {
-        return new SessionClientImpl(executor, syncSessionClient);
+        return new SessionClientImpl(executor, sharedExecutor, host, syncSessionClient);
     }
 }
@@ -16,13 +16,15 @@
 package com.okta.oidc.clients.sessions;
 
 import android.net.Uri;
-import android.os.Process;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.okta.oidc.OktaState;
 import com.okta.oidc.RequestCallback;
 import com.okta.oidc.RequestDispatcher;
+import com.okta.oidc.SharedExecutor;
+import com.okta.oidc.SharedExecutor.Priority;
 import com.okta.oidc.Tokens;
 import com.okta.oidc.net.ConnectionParameters;
 import com.okta.oidc.net.response.IntrospectInfo;
@@ -35,30 +37,51 @@ import org.json.JSONObject;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 class SessionClientImpl implements SessionClient {
     private final SyncSessionClient mSyncSessionClient;
     private final RequestDispatcher mDispatcher;
-    private volatile Future<?> mFutureTask;
     private final List<RequestCallback<Tokens, AuthorizationException>>
             refreshTokenRequestCallbacks;
-    private final Executor serialExecutor = Executors.newSingleThreadExecutor();
+    //requests waiting for the previous request to call back, guarded by itself.
+    private final Queue<SerialTask> mSerialTasks = new PriorityQueue<>();
+    private long mSerialSequence;
+    private boolean mSerialRunning;
+    private final String mHost;
+    private final SharedExecutor mSharedExecutor;
+    private final ScheduledExecutorService mScheduler;
+    private final TokenRefreshScheduler mRefreshScheduler;
+    private final Runnable mTokenListener;
 
-    SessionClientImpl(Executor callbackExecutor, SyncSessionClient syncSessionClient) {
+    SessionClientImpl(Executor callbackExecutor, SharedExecutor sharedExecutor,
+                      @Nullable String host, SyncSessionClient syncSessionClient) {
         mSyncSessionClient = syncSessionClient;
-        mDispatcher = new RequestDispatcher(callbackExecutor);
+        mHost = host;
+        mSharedExecutor = sharedExecutor;
+        mDispatcher = new RequestDispatcher(callbackExecutor, sharedExecutor, host);
         refreshTokenRequestCallbacks = new ArrayList<>();
+        mScheduler = sharedExecutor.getScheduler();
+        mRefreshScheduler = new TokenRefreshScheduler(this, sharedExecutor);
+        mTokenListener = mRefreshScheduler::onTokensChanged;
     }
 
     public void getUserProfile(RequestCallback<UserInfo, AuthorizationException> cb) {
         CallbackWrapper<UserInfo, AuthorizationException> wrapper = new CallbackWrapper<>(cb);
-        executeSerial(wrapper, () -> {
-            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        executeSerial(Priority.DEFAULT, mHost, wrapper, () -> {
+            SyncSessionClientImpl asyncClient = asyncClient();
+            if (asyncClient != null) {
+                asyncClient.getUserProfileAsync(mSharedExecutor, Priority.DEFAULT,
+                        results(wrapper));
+                return;
+            }
             try {
                 UserInfo userInfo = mSyncSessionClient.getUserProfile();
                 mDispatcher.submitResults(() -> wrapper.onSuccess(userInfo));
@@ -74,8 +97,13 @@ class SessionClientImpl implements SessionClient {
     public void introspectToken(String token, String tokenType,
                                 final RequestCallback<IntrospectInfo, AuthorizationException> cb) {
         CallbackWrapper<IntrospectInfo, AuthorizationException> wrapper = new CallbackWrapper<>(cb);
-        executeSerial(wrapper, () -> {
-            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        executeSerial(Priority.DEFAULT, mHost, wrapper, () -> {
+            SyncSessionClientImpl asyncClient = asyncClient();
+            if (asyncClient != null) {
+                asyncClient.introspectTokenAsync(token, tokenType, mSharedExecutor,
+                        Priority.DEFAULT, results(wrapper));
+                return;
+            }
             try {
                 IntrospectInfo introspectInfo = mSyncSessionClient
                         .introspectToken(token, tokenType);
@@ -92,8 +120,13 @@ class SessionClientImpl implements SessionClient {
     public void revokeToken(String token,
                             final RequestCallback<Boolean, AuthorizationException> cb) {
         CallbackWrapper<Boolean, AuthorizationException> wrapper = new CallbackWrapper<>(cb);
-        executeSerial(wrapper, () -> {
-            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        executeSerial(Priority.BACKGROUND, mHost, wrapper, () -> {
+            SyncSessionClientImpl asyncClient = asyncClient();
+            if (asyncClient != null) {
+                asyncClient.revokeTokenAsync(token, mSharedExecutor, Priority.BACKGROUND,
+                        results(wrapper));
+                return;
+            }
             try {
                 Boolean isRevoke = mSyncSessionClient.revokeToken(token);
                 mDispatcher.submitResults(() -> wrapper.onSuccess(isRevoke));
@@ -119,45 +152,84 @@ class SessionClientImpl implements SessionClient {
             refreshTokenRequestCallbacks.add(wrapper);
         }
         if (isEmpty) {
-            executeSerial(wrapper, () -> {
-                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            executeSerial(Priority.INTERACTIVE, mHost, wrapper, () -> {
+                SyncSessionClientImpl asyncClient = asyncClient();
+                if (asyncClient != null) {
+                    asyncClient.refreshTokenAsync(mSharedExecutor, Priority.INTERACTIVE,
+                            refreshResults());
+                    return;
+                }
                 try {
                     Tokens result = mSyncSessionClient.refreshToken();
-                    mDispatcher.submitResults(() -> {
-                        synchronized (refreshTokenRequestCallbacks) {
-                            for (RequestCallback<Tokens, AuthorizationException> callback
-                                    : refreshTokenRequestCallbacks) {
-                                callback.onSuccess(result);
-                            }
-                            refreshTokenRequestCallbacks.clear();
-                        }
-                    });
+                    refreshResults().onSuccess(result);
                 } catch (AuthorizationException ae) {
-                    mDispatcher.submitResults(() -> {
-                        synchronized (refreshTokenRequestCallbacks) {
-                            for (RequestCallback<Tokens, AuthorizationException> callback
-                                    : refreshTokenRequestCallbacks) {
-                                callback.onError(ae.error, ae);
-                            }
-                            refreshTokenRequestCallbacks.clear();
-                        }
-                    });
+                    refreshResults().onError(ae.error, ae);
                 } catch (Exception ex) {
-                    mDispatcher.submitResults(() -> {
-                        synchronized (refreshTokenRequestCallbacks) {
-                            for (RequestCallback<Tokens, AuthorizationException> callback
-                                    : refreshTokenRequestCallbacks) {
-                                callback.onError(ex.getMessage(),
-                                        new AuthorizationException(ex.getMessage(), ex));
-                            }
-                            refreshTokenRequestCallbacks.clear();
-                        }
-                    });
+                    refreshResults().onError(ex.getMessage(),
+                            new AuthorizationException(ex.getMessage(), ex));
                 }
             });
         }
     }
 
+    //hands the result of a refresh to all callbacks waiting for it.
+    private RequestCallback<Tokens, AuthorizationException> refreshResults() {
+        return new RequestCallback<Tokens, AuthorizationException>() {
+            @Override
+            public void onSuccess(@NonNull Tokens result) {
+                mDispatcher.submitResults(() -> {
+                    synchronized (refreshTokenRequestCallbacks) {
+                        for (RequestCallback<Tokens, AuthorizationException> callback
+                                : refreshTokenRequestCallbacks) {
+                            callback.onSuccess(result);
+                        }
+                        refreshTokenRequestCallbacks.clear();
+                    }
+                    mRefreshScheduler.onTokensChanged();
+                });
+            }
+
+            @Override
+            public void onError(String error, AuthorizationException exception) {
+                mDispatcher.submitResults(() -> {
+                    synchronized (refreshTokenRequestCallbacks) {
+                        for (RequestCallback<Tokens, AuthorizationException> callback
+                                : refreshTokenRequestCallbacks) {
+                            callback.onError(error, exception);
+                        }
+                        refreshTokenRequestCallbacks.clear();
+                    }
+                });
+            }
+        };
+    }
+
+    /*
+     * The session client that sends requests without a worker waiting for the response or
+     * for a retry, null if the session client isn't ours and only has blocking calls.
+     */
+    @Nullable
+    private SyncSessionClientImpl asyncClient() {
+        return mSyncSessionClient instanceof SyncSessionClientImpl
+                ? (SyncSessionClientImpl) mSyncSessionClient : null;
+    }
+
+    //hands the result of an asynchronous request to the callback executor.
+    private <T> RequestCallback<T, AuthorizationException> results(
+            RequestCallback<T, AuthorizationException> callback) {
+        return new RequestCallback<T, AuthorizationException>() {
+            @Override
+            public void onSuccess(@NonNull T result) {
+                mDispatcher.submitResults(() -> callback.onSuccess(result));
+            }
+
+            @Override
+            public void onError(String error, AuthorizationException exception) {
+                mDispatcher.submitResults(() -> callback.onError(error, exception));
+            }
+        };
+    }
+
     @Override
     public Tokens getTokens() throws AuthorizationException {
         return mSyncSessionClient.getTokens();
@@ -169,8 +241,13 @@ class SessionClientImpl implements SessionClient {
                                   @NonNull ConnectionParameters.RequestMethod method,
                                   final RequestCallback<JSONObject, AuthorizationException> cb) {
         CallbackWrapper<JSONObject, AuthorizationException> wrapper = new CallbackWrapper<>(cb);
-        executeSerial(wrapper, () -> {
-            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        executeSerial(Priority.DEFAULT, uri.getHost(), wrapper, () -> {
+            SyncSessionClientImpl asyncClient = asyncClient();
+            if (asyncClient != null) {
+                asyncClient.authorizedRequestAsync(uri, properties, postParameters, method,
+                        mSharedExecutor, Priority.DEFAULT, results(wrapper));
+                return;
+            }
             try {
                 JSONObject result = mSyncSessionClient
                         .authorizedRequest(uri, properties, postParameters, method);
@@ -190,13 +267,40 @@ class SessionClientImpl implements SessionClient {
 
     public void clear() {
         mSyncSessionClient.clear();
+        mRefreshScheduler.onTokensChanged();
+    }
+
+    @Override
+    public void startAutoRefresh(long skew, long jitter, @NonNull TimeUnit unit,
+                                 @Nullable RequestCallback<Tokens, AuthorizationException> cb) {
+        mRefreshScheduler.start(skew, jitter, unit, cb);
+        //tokens saved when signing in, or by another client of the state, plan the refresh.
+        OktaState state = oktaState();
+        if (state != null) {
+            state.addTokenListener(mTokenListener);
+        }
+    }
+
+    @Override
+    public void stopAutoRefresh() {
+        OktaState state = oktaState();
+        if (state != null) {
+            state.removeTokenListener(mTokenListener);
+        }
+        mRefreshScheduler.stop();
+    }
+
+    @Nullable
+    private OktaState oktaState() {
+        SyncSessionClientImpl client = asyncClient();
+        return client != null ? client.getOktaState() : null;
     }
 
     @Override
     public void cancel() {
         mDispatcher.runTask(() -> {
             mSyncSessionClient.cancel();
-            cancelFuture();
+            cancelRequests();
         });
     }
 
@@ -205,24 +309,75 @@ class SessionClientImpl implements SessionClient {
         mSyncSessionClient.migrateTo(manager);
     }
 
-    private void cancelFuture() {
-        if (mFutureTask != null && (!mFutureTask.isDone() || !mFutureTask.isCancelled())) {
-            mFutureTask.cancel(true);
+    //requests of this session are submitted as one group.
+    private void cancelRequests() {
+        mDispatcher.cancelTasks(this);
+    }
+
+    /*
+     * Requests run one at a time, the next one is started when the previous one called back.
+     * No thread waits in between. Waiting requests start by priority, so a refresh isn't
+     * queued behind user info or revoke calls. A request that never calls back releases the
+     * queue after CallbackWrapper.MAX_WAIT_MINUTES.
+     */
+    private void executeSerial(Priority priority, @Nullable String host,
+                               CallbackWrapper<?, AuthorizationException> callback,
+                               Runnable runnable) {
+        Runnable start = () -> {
+            cancelRequests();
+            callback.whenDone(this::runNextSerial, mScheduler);
+            try {
+                mDispatcher.submit(runnable, priority, host, this);
+            } catch (RejectedExecutionException ex) {
+                mDispatcher.submitResults(() -> callback.onError(ex.getMessage(),
+                        new AuthorizationException(ex.getMessage(), ex)));
+            }
+        };
+        synchronized (mSerialTasks) {
+            if (mSerialRunning) {
+                mSerialTasks.add(new SerialTask(start, priority, mSerialSequence++));
+                return;
+            }
+            mSerialRunning = true;
         }
+        start.run();
     }
 
-    private void executeSerial(CallbackWrapper<?, ?> callback, Runnable runnable) {
-        serialExecutor.execute(() -> {
-            cancelFuture();
-            mFutureTask = mDispatcher.submit(runnable);
-            callback.waitForCallback();
-        });
+    private void runNextSerial() {
+        SerialTask next;
+        synchronized (mSerialTasks) {
+            next = mSerialTasks.poll();
+            mSerialRunning = next != null;
+        }
+        if (next != null) {
+            next.mStart.run();
+        }
+    }
+
+    private static class SerialTask implements Comparable<SerialTask> {
+        private final Runnable mStart;
+        private final Priority mPriority;
+        private final long mSequence;
+
+        SerialTask(Runnable start, Priority priority, long sequence) {
+            mStart = start;
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        @Override
+        public int compareTo(SerialTask other) {
+            int byPriority = mPriority.compareTo(other.mPriority);
+            return byPriority != 0 ? byPriority : Long.compare(mSequence, other.mSequence);
+        }
     }
 
     private static class CallbackWrapper<T, U extends Exception> implements RequestCallback<T, U> {
         private static final int MAX_WAIT_MINUTES = 5;
         private final RequestCallback<T, U> delegate;
-        private final CountDownLatch latch = new CountDownLatch(1);
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile Runnable onDone;
+        private volatile Future<?> timeout;
 
         CallbackWrapper(RequestCallback<T, U> delegate) {
             this.delegate = delegate;
@@ -230,21 +385,31 @@ class SessionClientImpl implements SessionClient {
 
         @Override public void onSuccess(@NonNull T result) {
             delegate.onSuccess(result);
-            latch.countDown();
+            done();
         }
 
         @Override public void onError(String error, U exception) {
             delegate.onError(error, exception);
-            latch.countDown();
+            done();
         }
 
-        boolean waitForCallback() {
-            try {
-                return latch.await(MAX_WAIT_MINUTES, TimeUnit.MINUTES);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        void whenDone(Runnable next, ScheduledExecutorService scheduler) {
+            onDone = next;
+            timeout = scheduler.schedule(this::done, MAX_WAIT_MINUTES, TimeUnit.MINUTES);
+        }
+
+        private void done() {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            Future<?> pending = timeout;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            Runnable next = onDone;
+            if (next != null) {
+                next.run();
             }
-            return false;
         }
     }
 }
@@ -22,6 +22,9 @@ import androidx.annotation.Nullable;
 
 import com.okta.oidc.OIDCConfig;
 import com.okta.oidc.OktaState;
+import com.okta.oidc.RequestCallback;
+import com.okta.oidc.SharedExecutor;
+import com.okta.oidc.SharedExecutor.Priority;
 import com.okta.oidc.Tokens;
 import com.okta.oidc.net.ConnectionParameters;
 import com.okta.oidc.net.OktaHttpClient;
@@ -34,6 +37,7 @@ import com.okta.oidc.net.request.RefreshTokenRequest;
 import com.okta.oidc.net.request.RevokeTokenRequest;
 import com.okta.oidc.net.request.web.WebRequest;
 import com.okta.oidc.net.response.IntrospectInfo;
+import com.okta.oidc.net.response.JsonWebKeySet;
 import com.okta.oidc.net.response.TokenResponse;
 import com.okta.oidc.net.response.UserInfo;
 import com.okta.oidc.storage.OktaRepository;
@@ -42,9 +46,10 @@ import com.okta.oidc.util.AuthorizationException;
 
 import org.json.JSONObject;
 
-import java.lang.ref.WeakReference;
+import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.okta.oidc.clients.State.IDLE;
 import static com.okta.oidc.storage.OktaRepository.EncryptionException.INVALID_KEYS_ERROR;
@@ -53,8 +58,9 @@ class SyncSessionClientImpl implements SyncSessionClient {
     private OIDCConfig mOidcConfig;
     private OktaState mOktaState;
     OktaHttpClient mHttpClient;
-    private AtomicReference<WeakReference<BaseRequest>> mCurrentRequest =
-            new AtomicReference<>(new WeakReference<>(null));
+    //requests in flight, cancel only cancels these and not other requests of the http client.
+    private final Set<BaseRequest> mRequests =
+            Collections.newSetFromMap(new ConcurrentHashMap<>());
 
     SyncSessionClientImpl(OIDCConfig oidcConfig, OktaState oktaState,
                           OktaHttpClient httpClient) {
@@ -91,8 +97,7 @@ class SyncSessionClientImpl implements SyncSessionClient {
             TokenResponse tokenResponse = mOktaState.getTokenResponse();
             AuthorizedRequest request = createAuthorizedRequest(uri, properties, postParameters,
                     method, providerConfiguration, tokenResponse);
-            mCurrentRequest.set(new WeakReference<>(request));
-            return request.executeRequest(mHttpClient);
+            return execute(request);
         } catch (OktaRepository.EncryptionException e) {
             throw AuthorizationException.EncryptionErrors.byEncryptionException(e);
         }
@@ -119,9 +124,7 @@ class SyncSessionClientImpl implements SyncSessionClient {
             ProviderConfiguration providerConfiguration = mOktaState.getProviderConfiguration();
             TokenResponse tokenResponse = mOktaState.getTokenResponse();
             AuthorizedRequest request = userProfileRequest(providerConfiguration, tokenResponse);
-            JSONObject userInfo = request.executeRequest(mHttpClient);
-            mCurrentRequest.set(new WeakReference<>(request));
-            return new UserInfo(userInfo);
+            return new UserInfo(execute(request));
         } catch (OktaRepository.EncryptionException e) {
             throw AuthorizationException.EncryptionErrors.byEncryptionException(e);
         }
@@ -143,8 +146,7 @@ class SyncSessionClientImpl implements SyncSessionClient {
         try {
             IntrospectRequest request = introspectTokenRequest(token, tokenType,
                     mOktaState.getProviderConfiguration());
-            mCurrentRequest.set(new WeakReference<>(request));
-            return request.executeRequest(mHttpClient);
+            return execute(request);
         } catch (OktaRepository.EncryptionException e) {
             throw AuthorizationException.EncryptionErrors.byEncryptionException(e);
         }
@@ -164,8 +166,7 @@ class SyncSessionClientImpl implements SyncSessionClient {
         try {
             RevokeTokenRequest request = revokeTokenRequest(token,
                     mOktaState.getProviderConfiguration());
-            mCurrentRequest.set(new WeakReference<>(request));
-            return request.executeRequest(mHttpClient);
+            return execute(request);
         } catch (OktaRepository.EncryptionException e) {
             throw AuthorizationException.EncryptionErrors.byEncryptionException(e);
         }
@@ -178,6 +179,7 @@ class SyncSessionClientImpl implements SyncSessionClient {
                 .tokenResponse(tokenResponse)
                 .providerConfiguration(providerConfiguration)
                 .config(mOidcConfig)
+                .keyCache(mOktaState.getJsonWebKeyCache())
                 .createRequest();
     }
 
@@ -186,8 +188,7 @@ class SyncSessionClientImpl implements SyncSessionClient {
         try {
             RefreshTokenRequest request = refreshTokenRequest(mOktaState.getProviderConfiguration(),
                     mOktaState.getTokenResponse());
-            mCurrentRequest.set(new WeakReference<>(request));
-            TokenResponse tokenResponse = request.executeRequest(mHttpClient);
+            TokenResponse tokenResponse = execute(request);
             mOktaState.save(tokenResponse);
             return new Tokens(tokenResponse);
         } catch (OktaRepository.EncryptionException e) {
@@ -234,35 +235,140 @@ class SyncSessionClientImpl implements SyncSessionClient {
 
     @Override
     public void clear() {
-        mOktaState.delete(ProviderConfiguration.RESTORE.getKey());
-        mOktaState.delete(TokenResponse.RESTORE.getKey());
-        mOktaState.delete(WebRequest.RESTORE.getKey());
+        mOktaState.deleteAll(ProviderConfiguration.RESTORE.getKey(),
+                TokenResponse.RESTORE.getKey(), WebRequest.RESTORE.getKey(),
+                JsonWebKeySet.RESTORE.getKey());
         mOktaState.setCurrentState(IDLE);
     }
 
+    void getUserProfileAsync(SharedExecutor executor, Priority priority,
+                             RequestCallback<UserInfo, AuthorizationException> callback) {
+        executeAsync(executor, priority, () -> userProfileRequest(
+                mOktaState.getProviderConfiguration(), mOktaState.getTokenResponse()),
+                UserInfo::new, callback);
+    }
+
+    void introspectTokenAsync(String token, String tokenType, SharedExecutor executor,
+                              Priority priority,
+                              RequestCallback<IntrospectInfo, AuthorizationException> callback) {
+        executeAsync(executor, priority, () -> introspectTokenRequest(token, tokenType,
+                mOktaState.getProviderConfiguration()), result -> result, callback);
+    }
+
+    void revokeTokenAsync(String token, SharedExecutor executor, Priority priority,
+                          RequestCallback<Boolean, AuthorizationException> callback) {
+        executeAsync(executor, priority, () -> revokeTokenRequest(token,
+                mOktaState.getProviderConfiguration()), result -> result, callback);
+    }
+
+    void refreshTokenAsync(SharedExecutor executor, Priority priority,
+                           RequestCallback<Tokens, AuthorizationException> callback) {
+        executeAsync(executor, priority, () -> refreshTokenRequest(
+                mOktaState.getProviderConfiguration(), mOktaState.getTokenResponse()),
+                tokenResponse -> {
+                    mOktaState.save(tokenResponse);
+                    return new Tokens(tokenResponse);
+                }, callback);
+    }
+
+    void authorizedRequestAsync(@NonNull Uri uri, @Nullable Map<String, String> properties,
+                                @Nullable Map<String, String> postParameters,
+                                @NonNull ConnectionParameters.RequestMethod method,
+                                SharedExecutor executor, Priority priority,
+                                RequestCallback<JSONObject, AuthorizationException> callback) {
+        executeAsync(executor, priority, () -> createAuthorizedRequest(uri, properties,
+                postParameters, method, mOktaState.getProviderConfiguration(),
+                mOktaState.getTokenResponse()), result -> result, callback);
+    }
+
+    /*
+     * Sends the request without a thread waiting for the response or for a retry, see
+     * BaseRequest.executeRequestAsync. The request is created on the calling thread, the
+     * result is completed on the thread the response is delivered on.
+     */
+    private <T, R> void executeAsync(SharedExecutor executor, Priority priority,
+                                     RequestFactory<T> factory, Completion<T, R> completion,
+                                     RequestCallback<R, AuthorizationException> callback) {
+        BaseRequest<T, AuthorizationException> request;
+        try {
+            request = factory.create();
+        } catch (AuthorizationException e) {
+            callback.onError(e.error, e);
+            return;
+        } catch (OktaRepository.EncryptionException e) {
+            AuthorizationException ae = AuthorizationException.EncryptionErrors
+                    .byEncryptionException(e);
+            callback.onError(ae.error, ae);
+            return;
+        } catch (RuntimeException e) {
+            callback.onError(e.getMessage(), new AuthorizationException(e.getMessage(), e));
+            return;
+        }
+        mRequests.add(request);
+        request.executeRequestAsync(mHttpClient, executor, priority,
+                new RequestCallback<T, AuthorizationException>() {
+                    @Override
+                    public void onSuccess(@NonNull T result) {
+                        mRequests.remove(request);
+                        R completed;
+                        try {
+                            completed = completion.complete(result);
+                        } catch (AuthorizationException e) {
+                            callback.onError(e.error, e);
+                            return;
+                        } catch (OktaRepository.EncryptionException e) {
+                            AuthorizationException ae = AuthorizationException.EncryptionErrors
+                                    .byEncryptionException(e);
+                            callback.onError(ae.error, ae);
+                            return;
+                        } catch (RuntimeException e) {
+                            callback.onError(e.getMessage(),
+                                    new AuthorizationException(e.getMessage(), e));
+                            return;
+                        }
+                        callback.onSuccess(completed);
+                    }
+
+                    @Override
+                    public void onError(String error, AuthorizationException exception) {
+                        mRequests.remove(request);
+                        callback.onError(error, exception);
+                    }
+                });
+    }
+
+    private interface RequestFactory<T> {
+        BaseRequest<T, AuthorizationException> create()
+                throws AuthorizationException, OktaRepository.EncryptionException;
+    }
+
+    private interface Completion<T, R> {
+        R complete(T result) throws AuthorizationException, OktaRepository.EncryptionException;
+    }
+
+    private <T> T execute(BaseRequest<T, AuthorizationException> request)
+            throws AuthorizationException {
+        mRequests.add(request);
+        try {
+            return request.executeRequest(mHttpClient);
+        } finally {
+            mRequests.remove(request);
+        }
+    }
+
     @Override
     public void cancel() {
-        mHttpClient.cancel();
-        if (mCurrentRequest.get().get() != null) {
-            mCurrentRequest.get().get().cancelRequest();
+        for (BaseRequest request : mRequests) {
+            request.cancelRequest();
         }
     }
 
     @Override
     public void migrateTo(EncryptionManager manager) throws AuthorizationException {
         try {
-            final ProviderConfiguration providerConfiguration =
-                    mOktaState.getProviderConfiguration();
-            final TokenResponse tokenResponse = mOktaState.getTokenResponse();
-            final WebRequest authorizedRequest = mOktaState.getAuthorizeRequest();
-
-            clear();
-
-            mOktaState.setEncryptionManager(manager);
-
-            mOktaState.save(providerConfiguration);
-            mOktaState.save(tokenResponse);
-            mOktaState.save(authorizedRequest);
+            mOktaState.migrateTo(manager, ProviderConfiguration.RESTORE.getKey(),
+                    TokenResponse.RESTORE.getKey(), WebRequest.RESTORE.getKey(),
+                    JsonWebKeySet.RESTORE.getKey());
         } catch (OktaRepository.EncryptionException e) {
             throw AuthorizationException.EncryptionErrors.byEncryptionException(e);
         }
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.clients.sessions;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.okta.oidc.RequestCallback;
+import com.okta.oidc.SharedExecutor;
+import com.okta.oidc.Tokens;
+import com.okta.oidc.util.AuthorizationException;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes tokens of a {@link SessionClient} ahead of the access token expiry. Refreshes go
+ * through {@link SessionClient#refreshToken(RequestCallback)} so a foreground refresh made at
+ * the same time joins the background one instead of making a second request.
+ */
+class TokenRefreshScheduler {
+    private static final long RETRY_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final SessionClient mSessionClient;
+    private final Random mRandom = new Random();
+    private final ScheduledExecutorService mScheduler;
+    private final Executor mExecutor;
+    private boolean mStarted;
+    private ScheduledFuture<?> mScheduled;
+    private long mSkewMs;
+    private long mJitterMs;
+    private RequestCallback<Tokens, AuthorizationException> mCallback;
+
+    TokenRefreshScheduler(SessionClient sessionClient) {
+        this(sessionClient, SharedExecutor.getDefault());
+    }
+
+    TokenRefreshScheduler(SessionClient sessionClient, SharedExecutor sharedExecutor) {
+        mSessionClient = sessionClient;
+        mScheduler = sharedExecutor.getScheduler();
+        mExecutor = sharedExecutor.getExecutor(SharedExecutor.Priority.BACKGROUND);
+    }
+
+    synchronized void start(long skew, long jitter, @NonNull TimeUnit unit,
+                            @Nullable RequestCallback<Tokens, AuthorizationException> cb) {
+        mSkewMs = unit.toMillis(Math.max(skew, 0));
+        mJitterMs = unit.toMillis(Math.max(jitter, 0));
+        mCallback = cb;
+        mStarted = true;
+        schedule(this::plan, 0);
+    }
+
+    synchronized void stop() {
+        mStarted = false;
+        cancelScheduled();
+        mCallback = null;
+    }
+
+    synchronized boolean isStarted() {
+        return mStarted;
+    }
+
+    /**
+     * Called when tokens were refreshed, saved or cleared so the next refresh is planned from
+     * the current tokens.
+     */
+    synchronized void onTokensChanged() {
+        if (mStarted) {
+            schedule(this::plan, 0);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized long getScheduledDelay(TimeUnit unit) {
+        if (mScheduled == null || mScheduled.isDone()) {
+            return -1;
+        }
+        return mScheduled.getDelay(unit);
+    }
+
+    //the scheduler thread is shared, reading the tokens runs on a worker thread.
+    private synchronized void schedule(Runnable task, long delayMs) {
+        if (!mStarted) {
+            return;
+        }
+        if (mScheduled != null) {
+            mScheduled.cancel(false);
+        }
+        mScheduled = mScheduler.schedule(() -> mExecutor.execute(task), delayMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void cancelScheduled() {
+        if (mScheduled != null) {
+            mScheduled.cancel(false);
+            mScheduled = null;
+        }
+    }
+
+    private static boolean canRefresh(Tokens tokens) {
+        return tokens != null && tokens.getRefreshToken() != null && tokens.getExpiresAt() > 0;
+    }
+
+    /*
+     * The refresh is due skew before expiry, moved earlier by a random part of jitter so
+     * clients that signed in at the same time don't refresh at the same time. It is never
+     * earlier than half of the token lifetime, so a large skew can't cause a refresh loop.
+     */
+    private synchronized long refreshDelay(Tokens tokens) {
+        long jitter = mJitterMs > 0 ? (long) (mRandom.nextDouble() * mJitterMs) : 0;
+        return Math.max(0, tokens.getExpiresAt() - refreshAhead(tokens, mSkewMs + jitter)
+                - System.currentTimeMillis());
+    }
+
+    private synchronized boolean isDue(Tokens tokens) {
+        return tokens.getExpiresAt() - refreshAhead(tokens, mSkewMs + mJitterMs)
+                <= System.currentTimeMillis();
+    }
+
+    private static long refreshAhead(Tokens tokens, long ahead) {
+        return Math.min(ahead, TimeUnit.SECONDS.toMillis(tokens.getExpiresIn()) / 2);
+    }
+
+    private Tokens readTokens() {
+        try {
+            return mSessionClient.getTokens();
+        } catch (AuthorizationException e) {
+            return null;
+        }
+    }
+
+    private void plan() {
+        Tokens tokens = readTokens();
+        if (canRefresh(tokens)) {
+            schedule(this::refresh, refreshDelay(tokens));
+        } else {
+            cancelScheduled();
+        }
+    }
+
+    private void refresh() {
+        Tokens tokens = readTokens();
+        if (!canRefresh(tokens) || !isDue(tokens)) {
+            //tokens were cleared or refreshed without going through this client.
+            plan();
+            return;
+        }
+        mSessionClient.refreshToken(new RequestCallback<Tokens, AuthorizationException>() {
+            @Override
+            public void onSuccess(@NonNull Tokens result) {
+                //the next refresh is planned by onTokensChanged.
+                RequestCallback<Tokens, AuthorizationException> cb = getCallback();
+                if (cb != null) {
+                    cb.onSuccess(result);
+                }
+            }
+
+            @Override
+            public void onError(String error, AuthorizationException exception) {
+                RequestCallback<Tokens, AuthorizationException> cb = getCallback();
+                if (cb != null) {
+                    cb.onError(error, exception);
+                }
+                schedule(TokenRefreshScheduler.this::retry, RETRY_DELAY_MS);
+            }
+        });
+    }
+
+    private void retry() {
+        Tokens tokens = readTokens();
+        //once the access token expired the app has to refresh or sign in again itself.
+        if (tokens != null && !tokens.isAccessTokenExpired()) {
+            refresh();
+        }
+    }
+
+    private synchronized RequestCallback<Tokens, AuthorizationException> getCallback() {
+        return mCallback;
+    }
+}
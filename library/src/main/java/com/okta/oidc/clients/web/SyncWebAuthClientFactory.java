@@ -21,6 +21,7 @@ import androidx.annotation.Nullable;
 
 import com.okta.oidc.CustomTabOptions;
 import com.okta.oidc.OIDCConfig;
+import com.okta.oidc.SharedExecutor;
 import com.okta.oidc.clients.ClientFactory;
 import com.okta.oidc.net.OktaHttpClient;
 import com.okta.oidc.storage.OktaStorage;
@@ -29,9 +30,17 @@ import com.okta.oidc.storage.security.EncryptionManager;
 public class SyncWebAuthClientFactory implements ClientFactory<SyncWebAuthClient> {
     private CustomTabOptions mCustomTabOptions;
     private String[] mSupportedBrowsers;
+    private final SharedExecutor mSharedExecutor;
 
     public SyncWebAuthClientFactory(CustomTabOptions customTabOptions,
                                     @Nullable String... supportedBrowsers) {
+        this(SharedExecutor.getDefault(), customTabOptions, supportedBrowsers);
+    }
+
+    public SyncWebAuthClientFactory(SharedExecutor sharedExecutor,
+                                    CustomTabOptions customTabOptions,
+                                    @Nullable String... supportedBrowsers) {
+        mSharedExecutor = sharedExecutor;
         mCustomTabOptions = customTabOptions;
         mSupportedBrowsers = supportedBrowsers;
     }
@@ -45,7 +54,7 @@ public class SyncWebAuthClientFactory implements ClientFactory<SyncWebAuthClient
                                           boolean requireHardwareBackedKeyStore,
                                           boolean cacheMode) {
         return new SyncWebAuthClientImpl(oidcConfig, context, oktaStorage, encryptionManager,
-                httpClient, requireHardwareBackedKeyStore, cacheMode,
+                httpClient, requireHardwareBackedKeyStore, cacheMode, mSharedExecutor,
                 mCustomTabOptions, mSupportedBrowsers);
     }
 }
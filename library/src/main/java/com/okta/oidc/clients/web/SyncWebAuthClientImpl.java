@@ -42,6 +42,7 @@ import com.okta.oidc.AuthenticationResultHandler.StateResult;
 import com.okta.oidc.CustomTabOptions;
 import com.okta.oidc.OIDCConfig;
 import com.okta.oidc.OktaRedirectActivity;
+import com.okta.oidc.SharedExecutor;
 import com.okta.oidc.clients.AuthAPI;
 import com.okta.oidc.clients.State;
 import com.okta.oidc.clients.sessions.SyncSessionClient;
@@ -95,10 +96,11 @@ class SyncWebAuthClientImpl extends AuthAPI implements SyncWebAuthClient {
                           OktaHttpClient httpClient,
                           boolean requireHardwareBackedKeyStore,
                           boolean cacheMode,
+                          SharedExecutor sharedExecutor,
                           CustomTabOptions customTabOptions,
                           String... supportedBrowsers) {
         super(oidcConfig, context, oktaStorage, encryptionManager, requireHardwareBackedKeyStore,
-                cacheMode);
+                cacheMode, sharedExecutor);
         mSupportedBrowsers = supportedBrowsers;
         mCustomTabOptions = customTabOptions;
         mHttpClient = httpClient;
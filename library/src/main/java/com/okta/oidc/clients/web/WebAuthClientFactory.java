@@ -22,6 +22,7 @@ import androidx.annotation.RestrictTo;
 
 import com.okta.oidc.CustomTabOptions;
 import com.okta.oidc.OIDCConfig;
+import com.okta.oidc.SharedExecutor;
 import com.okta.oidc.clients.ClientFactory;
 import com.okta.oidc.net.OktaHttpClient;
 import com.okta.oidc.storage.OktaStorage;
@@ -34,11 +35,14 @@ public class WebAuthClientFactory implements ClientFactory<WebAuthClient> {
     private Executor mCallbackExecutor;
     private CustomTabOptions mCustomTabOptions;
     private String[] mSupportedBrowser;
+    private SharedExecutor mSharedExecutor;
 
     public WebAuthClientFactory(@Nullable Executor callbackExecutor,
+                                SharedExecutor sharedExecutor,
                                 CustomTabOptions customTabOptions,
                                 @Nullable String... supportedBrowser) {
         mCallbackExecutor = callbackExecutor;
+        mSharedExecutor = sharedExecutor;
         mCustomTabOptions = customTabOptions;
         mSupportedBrowser = supportedBrowser;
     }
@@ -53,6 +57,6 @@ public class WebAuthClientFactory implements ClientFactory<WebAuthClient> {
                                       boolean cacheMode) {
         return new WebAuthClientImpl(mCallbackExecutor, oidcConfig, context, oktaStorage,
                 encryptionManager, httpClient, requireHardwareBackedKeyStore, cacheMode,
-                mCustomTabOptions, mSupportedBrowser);
+                mSharedExecutor, mCustomTabOptions, mSupportedBrowser);
     }
 }
@@ -18,7 +18,6 @@ package com.okta.oidc.clients.web;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
-import android.os.Process;
 
 import androidx.annotation.AnyThread;
 import androidx.annotation.NonNull;
@@ -30,6 +29,8 @@ import com.okta.oidc.OIDCConfig;
 import com.okta.oidc.RequestCallback;
 import com.okta.oidc.RequestDispatcher;
 import com.okta.oidc.ResultCallback;
+import com.okta.oidc.SharedExecutor;
+import com.okta.oidc.SharedExecutor.Priority;
 import com.okta.oidc.clients.sessions.SessionClient;
 import com.okta.oidc.clients.sessions.SessionClientFactoryImpl;
 import com.okta.oidc.net.OktaHttpClient;
@@ -58,14 +59,17 @@ class WebAuthClientImpl implements WebAuthClient {
                       OktaHttpClient httpClient,
                       boolean requireHardwareBackedKeyStore,
                       boolean cacheMode,
+                      SharedExecutor sharedExecutor,
                       CustomTabOptions customTabOptions,
                       String... supportedBrowsers) {
-        mSyncAuthClient = new SyncWebAuthClientFactory(customTabOptions, supportedBrowsers)
+        mSyncAuthClient = new SyncWebAuthClientFactory(sharedExecutor, customTabOptions,
+                supportedBrowsers)
                 .createClient(oidcConfig, context, oktaStorage, encryptionManager,
                         httpClient, requireHardwareBackedKeyStore, cacheMode);
-        mSessionImpl = new SessionClientFactoryImpl(executor)
+        mSessionImpl = new SessionClientFactoryImpl(executor, sharedExecutor,
+                oidcConfig.getAuthorizationServerHost())
                 .createClient(mSyncAuthClient.getSessionClient());
-        mDispatcher = new RequestDispatcher(executor);
+        mDispatcher = new RequestDispatcher(executor, sharedExecutor);
     }
 
     private void registerActivityLifeCycle(@NonNull final Activity activity) {
@@ -144,7 +148,6 @@ class WebAuthClientImpl implements WebAuthClient {
         }
         final AuthenticationPayload finalPayload = payload;
         mFutureTask = mDispatcher.submit(() -> {
-            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
             try {
                 Result result = mSyncAuthClient.signIn(activity, finalPayload);
                 processSignInResult(result);
@@ -155,7 +158,7 @@ class WebAuthClientImpl implements WebAuthClient {
                     }
                 });
             }
-        });
+        }, Priority.INTERACTIVE, null);
     }
 
     private void processSignInResult(Result result) {
@@ -194,7 +197,7 @@ class WebAuthClientImpl implements WebAuthClient {
                     }
                 });
             }
-        });
+        }, Priority.INTERACTIVE, null);
     }
 
     private void processSignOutResult(Result result) {
@@ -221,6 +224,11 @@ class WebAuthClientImpl implements WebAuthClient {
         mSyncAuthClient.handleActivityResult(requestCode, resultCode, data);
     }
 
+    @Override
+    public void warmUp() {
+        mSyncAuthClient.warmUp();
+    }
+
     @Override
     public SessionClient getSessionClient() {
         return mSessionImpl;
@@ -242,7 +250,7 @@ class WebAuthClientImpl implements WebAuthClient {
                     callback.onSuccess(status);
                 }
             });
-        });
+        }, Priority.INTERACTIVE, null);
     }
 
     private void cancelFuture() {
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.net;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+
+/**
+ * An {@link OktaHttpClient} that can make requests without blocking a thread while waiting
+ * for the response, e.g. backed by OkHttp's {@code Call.enqueue}. Requests made through
+ * {@link #enqueue(Uri, ConnectionParameters, Callback)} don't hold a library thread, so many
+ * of them can be in flight at the same time and they are canceled without interrupting a
+ * thread.
+ */
+public interface AsyncOktaHttpClient extends OktaHttpClient {
+    /**
+     * Receives the outcome of a request. Exactly one of the methods is called, on any thread.
+     */
+    interface Callback {
+        /**
+         * Called when the response headers were received. The body is read from
+         * {@link OktaHttpResponse#getContent()} and the response is disconnected by the
+         * library.
+         *
+         * @param response the response.
+         */
+        void onResponse(@NonNull OktaHttpResponse response);
+
+        /**
+         * Called when the request failed or was canceled.
+         *
+         * @param exception the cause of the failure.
+         */
+        void onFailure(@NonNull Exception exception);
+    }
+
+    /**
+     * A request that was started by {@link #enqueue(Uri, ConnectionParameters, Callback)}.
+     */
+    interface PendingRequest {
+        /**
+         * Cancels the request. The callback is called with a failure unless the request has
+         * already completed.
+         */
+        void cancel();
+    }
+
+    /**
+     * Starts a request and returns without waiting for the response. The response must not
+     * depend on the state of the client, so concurrent requests can be made with one client.
+     *
+     * @param uri      uri for the connection.
+     * @param param    connection parameters.
+     * @param callback receives the response or the failure.
+     * @return the started request.
+     */
+    @NonNull
+    PendingRequest enqueue(@NonNull Uri uri, @NonNull ConnectionParameters param,
+                           @NonNull Callback callback);
+
+    /**
+     * Starts a request and reports the phases of the connection to call. Called instead of
+     * {@link #enqueue(Uri, ConnectionParameters, Callback)} when {@link #getEventListener()}
+     * returns a listener. The default implementation calls
+     * {@link #enqueue(Uri, ConnectionParameters, Callback)}, so
+     * {@link NetworkEventListener#connectEnd(NetworkCall)} isn't reported.
+     *
+     * @param uri      uri for the connection.
+     * @param param    connection parameters.
+     * @param call     the call that tracks the request.
+     * @param callback receives the response or the failure.
+     * @return the started request.
+     */
+    @NonNull
+    default PendingRequest enqueue(@NonNull Uri uri, @NonNull ConnectionParameters param,
+                                   @NonNull NetworkCall call, @NonNull Callback callback) {
+        return enqueue(uri, param, callback);
+    }
+}
@@ -19,32 +19,58 @@ import android.net.Uri;
 import android.os.Build;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 
 import com.okta.oidc.net.request.TLSSocketFactory;
 
 import java.io.DataOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.net.URL;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
 
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 public class HttpClientImpl implements OktaHttpClient {
     private static final int CONNECTION_TIMEOUT_MS = 15_000;
     private static final int READ_TIMEOUT_MS = 10_000;
+    private static final String HTTPS_SCHEME = "https";
+    private static final int HTTPS_PORT = 443;
+    /*
+     * Upper bound of unread response bytes discarded on close so the socket can be reused.
+     * Anything bigger is cheaper to throw away than to read.
+     */
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
 
     private HttpURLConnection mUrlConnection;
+    //connections in flight and the parameters of the request they were opened for.
+    private final Map<HttpURLConnection, ConnectionParameters> mActiveConnections =
+            new ConcurrentHashMap<>();
+    //sockets of preconnect calls in flight.
+    private final Set<Socket> mPreconnects =
+            Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private SSLSocketFactory mTlsSocketFactory;
 
     private final int connectionTimeoutMs;
     private final int readTimeoutMs;
+    private volatile NetworkEventListener mEventListener;
+    private volatile RetryPolicy mRetryPolicy;
 
     public HttpClientImpl() {
         this(CONNECTION_TIMEOUT_MS, READ_TIMEOUT_MS);
@@ -61,26 +87,45 @@ public class HttpClientImpl implements OktaHttpClient {
      * This method enable these TLS versions on API < 20.
      * */
     private void enableTlsV1_2(HttpURLConnection urlConnection) {
-        try {
-            ((HttpsURLConnection) urlConnection)
-                    .setSSLSocketFactory(new TLSSocketFactory());
-        } catch (NoSuchAlgorithmException | KeyManagementException e) {
-            throw new RuntimeException("Cannot create SSLContext.", e);
+        ((HttpsURLConnection) urlConnection).setSSLSocketFactory(sslSocketFactory());
+    }
+
+    /*
+     * All TLS connections of the client are made with one factory, so they share its session
+     * cache and the platform can reuse pooled connections between them.
+     */
+    private synchronized SSLSocketFactory sslSocketFactory() {
+        if (Build.VERSION.SDK_INT > Build.VERSION_CODES.LOLLIPOP) {
+            return HttpsURLConnection.getDefaultSSLSocketFactory();
         }
+        if (mTlsSocketFactory == null) {
+            try {
+                mTlsSocketFactory = new TLSSocketFactory();
+            } catch (NoSuchAlgorithmException | KeyManagementException e) {
+                throw new RuntimeException("Cannot create SSLContext.", e);
+            }
+        }
+        return mTlsSocketFactory;
     }
 
-    @VisibleForTesting
-    protected HttpURLConnection openConnection(URL url, ConnectionParameters params)
-            throws IOException {
+    private HttpURLConnection newConnection(URL url, int connectionTimeoutMs,
+                                            int readTimeoutMs) throws IOException {
         HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        if (mUrlConnection instanceof HttpsURLConnection &&
+        if (conn instanceof HttpsURLConnection &&
                 Build.VERSION.SDK_INT <= Build.VERSION_CODES.LOLLIPOP) {
-            enableTlsV1_2(mUrlConnection);
+            enableTlsV1_2(conn);
         }
 
         conn.setConnectTimeout(connectionTimeoutMs);
         conn.setReadTimeout(readTimeoutMs);
         conn.setInstanceFollowRedirects(false);
+        return conn;
+    }
+
+    @VisibleForTesting
+    protected HttpURLConnection openConnection(URL url, ConnectionParameters params)
+            throws IOException {
+        HttpURLConnection conn = newConnection(url, connectionTimeoutMs, readTimeoutMs);
 
         Map<String, String> requestProperties = params.requestProperties();
         if (requestProperties != null) {
@@ -111,13 +156,119 @@ public class HttpClientImpl implements OktaHttpClient {
 
         mUrlConnection = openConnection(new URL(uri.toString()), params);
         mUrlConnection.connect();
+        return getInputStream(mUrlConnection);
+    }
+
+    @Override
+    public boolean supportsConcurrentRequests() {
+        return true;
+    }
+
+    @NonNull
+    @Override
+    public HttpResponse execute(@NonNull Uri uri, @NonNull ConnectionParameters params)
+            throws Exception {
+        return send(uri, params, null);
+    }
+
+    @NonNull
+    @Override
+    public HttpResponse execute(@NonNull Uri uri, @NonNull ConnectionParameters params,
+                                @NonNull NetworkCall call) throws Exception {
+        return send(uri, params, call);
+    }
+
+    private HttpResponse send(Uri uri, ConnectionParameters params, @Nullable NetworkCall call)
+            throws Exception {
+        HttpURLConnection conn = openConnection(new URL(uri.toString()), params);
+        mActiveConnections.put(conn, params);
         try {
-            return mUrlConnection.getInputStream();
+            conn.connect();
+            if (call != null) {
+                call.connectEnd();
+            }
+            InputStream stream = getInputStream(conn);
+            return new HttpResponse(conn.getResponseCode(), conn.getHeaderFields(),
+                    conn.getContentLength(), conn.getResponseMessage(), stream,
+                    () -> mActiveConnections.remove(conn));
+        } catch (Exception e) {
+            mActiveConnections.remove(conn);
+            throw e;
+        }
+    }
+
+    /*
+     * Connects and completes the TLS handshake without sending a request, so the provider sees
+     * no HTTP traffic. HttpURLConnection can't take over a socket it didn't open, the socket is
+     * closed again and the next request finds the host in the DNS cache and can resume the TLS
+     * session cached by the socket factory instead of making a full handshake.
+     */
+    @Override
+    public void preconnect(@NonNull Uri uri, int timeoutMs) throws Exception {
+        String host = uri.getHost();
+        if (!HTTPS_SCHEME.equals(uri.getScheme()) || host == null) {
+            return;
+        }
+        int port = uri.getPort() == -1 ? HTTPS_PORT : uri.getPort();
+        Socket socket = new Socket();
+        mPreconnects.add(socket);
+        try {
+            socket.connect(new InetSocketAddress(host, port),
+                    Math.min(timeoutMs, connectionTimeoutMs));
+            socket.setSoTimeout(Math.min(timeoutMs, readTimeoutMs));
+            SSLSocket sslSocket = (SSLSocket) sslSocketFactory()
+                    .createSocket(socket, host, port, true);
+            try {
+                sslSocket.startHandshake();
+                if (!HttpsURLConnection.getDefaultHostnameVerifier()
+                        .verify(host, sslSocket.getSession())) {
+                    throw new SSLPeerUnverifiedException("Hostname " + host + " not verified");
+                }
+            } finally {
+                sslSocket.close();
+            }
+        } finally {
+            mPreconnects.remove(socket);
+            socket.close();
+        }
+    }
+
+    private InputStream getInputStream(HttpURLConnection conn) throws IOException {
+        InputStream stream;
+        try {
+            stream = conn.getInputStream();
         } catch (IOException e) {
-            return mUrlConnection.getErrorStream();
+            stream = conn.getErrorStream();
         }
+        return drainOnClose(stream);
     }
 
+    /*
+     * Closing the stream reads the remaining bytes first. The platform only keeps a connection
+     * alive for the next request once its response body was fully consumed.
+     */
+    static InputStream drainOnClose(InputStream stream) {
+        if (stream == null) {
+            return null;
+        }
+        return new FilterInputStream(stream) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    byte[] buffer = new byte[4096];
+                    int drained = 0;
+                    int read;
+                    while (drained < MAX_DRAIN_BYTES && (read = in.read(buffer)) != -1) {
+                        drained += read;
+                    }
+                } catch (IOException e) {
+                    //NO-OP connection can't be reused
+                } finally {
+                    super.close();
+                }
+            }
+        };
+    }
 
     @Override
     public void cleanUp() {
@@ -129,6 +280,28 @@ public class HttpClientImpl implements OktaHttpClient {
         if (mUrlConnection != null) {
             mUrlConnection.disconnect();
         }
+        for (HttpURLConnection conn : mActiveConnections.keySet()) {
+            conn.disconnect();
+        }
+        mActiveConnections.clear();
+        for (Socket socket : mPreconnects) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //the preconnect fails either way.
+            }
+        }
+    }
+
+    @Override
+    public void cancel(@NonNull ConnectionParameters params) {
+        for (Map.Entry<HttpURLConnection, ConnectionParameters> entry
+                : mActiveConnections.entrySet()) {
+            if (entry.getValue() == params) {
+                entry.getKey().disconnect();
+                mActiveConnections.remove(entry.getKey());
+            }
+        }
     }
 
     @Override
@@ -171,8 +344,43 @@ public class HttpClientImpl implements OktaHttpClient {
         return null;
     }
 
+    /**
+     * Sets the listener of the network events of requests made with this client.
+     *
+     * @param listener the listener, null to stop reporting events.
+     */
+    public void setEventListener(@Nullable NetworkEventListener listener) {
+        mEventListener = listener;
+    }
+
+    @Nullable
+    @Override
+    public NetworkEventListener getEventListener() {
+        return mEventListener;
+    }
+
+    /**
+     * Sets the policy used to retry requests made with this client.
+     *
+     * @param retryPolicy the retry policy, null to not retry requests.
+     */
+    public void setRetryPolicy(@Nullable RetryPolicy retryPolicy) {
+        mRetryPolicy = retryPolicy;
+    }
+
+    @Nullable
+    @Override
+    public RetryPolicy getRetryPolicy() {
+        return mRetryPolicy;
+    }
+
     @VisibleForTesting
     public HttpURLConnection getUrlConnection() {
         return mUrlConnection;
     }
+
+    @VisibleForTesting
+    int getActiveConnectionCount() {
+        return mActiveConnections.size();
+    }
 }
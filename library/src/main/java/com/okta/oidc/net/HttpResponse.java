@@ -15,34 +15,47 @@
 
 package com.okta.oidc.net;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.StringWriter;
-import java.io.Writer;
+import java.io.Reader;
 import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 /**
+ * The response of a single request made with {@link OktaHttpClient}, decoded by the library.
+ *
  * @hide
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY)
-public final class HttpResponse {
+public final class HttpResponse implements OktaHttpResponse {
     private static final String TAG = HttpResponse.class.getSimpleName();
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
     private final int mStatusCode;
     private final Map<String, List<String>> mHeaders;
     private final int mLength;
     private final OktaHttpClient mHttpClient;
+    private final String mResponseMessage;
+    private final OktaHttpResponse mSource;
+    private final Runnable mRelease;
     private InputStream mInputStream;
+    private NetworkCall mCall;
 
     /**
      * HttpResponse for empty response body.
@@ -51,7 +64,7 @@ public final class HttpResponse {
      * @param headers    response headers
      */
     public HttpResponse(int statusCode, Map<String, List<String>> headers) {
-        this(statusCode, headers, -1, null, null);
+        this(statusCode, headers, -1, (InputStream) null, null);
     }
 
     /**
@@ -69,61 +82,285 @@ public final class HttpResponse {
         mHeaders = headers;
         mLength = length;
         mHttpClient = client;
+        mResponseMessage = null;
+        mSource = null;
+        mRelease = null;
         mInputStream = inputStream;
     }
 
+    /**
+     * Constructor for a HttpResponse that doesn't depend on the state of the client that made
+     * the request.
+     *
+     * @param statusCode      HTTP status code of the response
+     * @param headers         response headers
+     * @param length          the length of the response.
+     * @param responseMessage the HTTP status message
+     * @param inputStream     the response body
+     */
+    public HttpResponse(
+            int statusCode, Map<String, List<String>> headers,
+            int length, String responseMessage, InputStream inputStream) {
+        this(statusCode, headers, length, responseMessage, inputStream, null);
+    }
+
+    /**
+     * Constructor for a HttpResponse that releases the connection of the request when it is
+     * disconnected, whether or not the body was read.
+     *
+     * @param statusCode      HTTP status code of the response
+     * @param headers         response headers
+     * @param length          the length of the response.
+     * @param responseMessage the HTTP status message
+     * @param inputStream     the response body
+     * @param release         releases the connection, may be null.
+     */
+    HttpResponse(
+            int statusCode, Map<String, List<String>> headers, int length,
+            String responseMessage, InputStream inputStream, @Nullable Runnable release) {
+        mStatusCode = statusCode;
+        mHeaders = headers;
+        mLength = length;
+        mHttpClient = null;
+        mResponseMessage = responseMessage;
+        mSource = null;
+        mRelease = release;
+        mInputStream = inputStream;
+    }
+
+    private HttpResponse(OktaHttpResponse source) {
+        mStatusCode = source.getStatusCode();
+        mHeaders = source.getHeaders();
+        mLength = source.getContentLength();
+        mHttpClient = null;
+        mResponseMessage = null;
+        mSource = source;
+        mRelease = null;
+        mInputStream = source.getContent();
+    }
+
+    /**
+     * Gets a HttpResponse for the response of a custom client.
+     *
+     * @param response the response returned by the client.
+     * @return response if it is a HttpResponse, otherwise a HttpResponse that reads it.
+     */
+    @NonNull
+    public static HttpResponse of(@NonNull OktaHttpResponse response) {
+        if (response instanceof HttpResponse) {
+            return (HttpResponse) response;
+        }
+        return new HttpResponse(response);
+    }
+
+    @Override
     public int getStatusCode() {
         return mStatusCode;
     }
 
+    @NonNull
+    @Override
     public Map<String, List<String>> getHeaders() {
+        if (mHeaders == null) {
+            return Collections.emptyMap();
+        }
         return Collections.unmodifiableMap(mHeaders);
     }
 
     public String getHeaderField(String field) {
-        return mHttpClient.getHeader(field);
+        if (mHttpClient != null) {
+            return mHttpClient.getHeader(field);
+        }
+        if (mHeaders == null || field == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> entry : mHeaders.entrySet()) {
+            List<String> values = entry.getValue();
+            if (field.equalsIgnoreCase(entry.getKey()) && values != null && !values.isEmpty()) {
+                return values.get(values.size() - 1);
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public String getResponseMessage() throws IOException {
+        if (mHttpClient != null) {
+            return mHttpClient.getResponseMessage();
+        }
+        if (mSource != null) {
+            return mSource.getResponseMessage();
+        }
+        return mResponseMessage;
     }
 
+    @Override
     public int getContentLength() {
         return mLength;
     }
 
     @Nullable
+    @Override
     public InputStream getContent() {
         return mInputStream;
     }
 
+    @Override
     public void disconnect() {
         if (mHttpClient != null) {
             mHttpClient.cleanUp();
         }
-        if (mInputStream != null) {
-            try {
-                mInputStream.close();
-            } catch (IOException ioe) {
-                //NO-OP
+        try {
+            if (mInputStream != null) {
+                try {
+                    mInputStream.close();
+                } catch (IOException ioe) {
+                    //NO-OP
+                }
+            }
+            if (mSource != null) {
+                mSource.disconnect();
+            }
+        } finally {
+            if (mRelease != null) {
+                mRelease.run();
             }
         }
+        if (mCall != null) {
+            mCall.requestEnd();
+        }
     }
 
     public JSONObject asJson() throws IOException, JSONException {
         if (mStatusCode < HttpURLConnection.HTTP_OK ||
                 mStatusCode >= HttpURLConnection.HTTP_MULT_CHOICE) {
-            throw new HttpStatusCodeException(mStatusCode, mHttpClient.getResponseMessage());
+            throw new HttpStatusCodeException(mStatusCode, getResponseMessage());
         }
-        return getJsonObjectFromResponseInputStream(getContent());
+        return readJsonObject();
     }
 
     public JSONObject asJsonWithErrorDescription() throws IOException, JSONException {
         if (mStatusCode < HttpURLConnection.HTTP_OK ||
                 mStatusCode >= HttpURLConnection.HTTP_MULT_CHOICE) {
             try {
-                return getJsonObjectFromResponseInputStream(getContent());
+                return readJsonObject();
             } catch (Exception any) {
-                throw new HttpStatusCodeException(mStatusCode, mHttpClient.getResponseMessage());
+                throw new HttpStatusCodeException(mStatusCode, getResponseMessage());
             }
         }
-        return getJsonObjectFromResponseInputStream(getContent());
+        return readJsonObject();
+    }
+
+    /**
+     * Decodes a successful response body directly from the response stream.
+     *
+     * @param adapter the adapter of the response type.
+     * @param <T>     the response type.
+     * @return the decoded response.
+     * @throws IOException   if the status code isn't 2xx or the body can't be read.
+     * @throws JSONException if the body isn't valid json for the type.
+     */
+    @NonNull
+    public <T> T asJson(@NonNull TypeAdapter<T> adapter) throws IOException, JSONException {
+        if (mStatusCode < HttpURLConnection.HTTP_OK ||
+                mStatusCode >= HttpURLConnection.HTTP_MULT_CHOICE) {
+            throw new HttpStatusCodeException(mStatusCode, getResponseMessage());
+        }
+        return readJson(adapter);
+    }
+
+    /**
+     * Decodes the response body directly from the response stream. Unlike
+     * {@link #asJson(TypeAdapter)} the body of an unsuccessful response is decoded as well so
+     * the caller can read the error it describes.
+     *
+     * @param adapter the adapter of the response type.
+     * @param <T>     the response type.
+     * @return the decoded response.
+     * @throws IOException   if the body can't be read or decoded for an unsuccessful response.
+     * @throws JSONException if the body isn't valid json for the type.
+     */
+    @NonNull
+    public <T> T asJsonWithErrorDescription(@NonNull TypeAdapter<T> adapter)
+            throws IOException, JSONException {
+        if (mStatusCode < HttpURLConnection.HTTP_OK ||
+                mStatusCode >= HttpURLConnection.HTTP_MULT_CHOICE) {
+            try {
+                return readJson(adapter);
+            } catch (Exception any) {
+                throw new HttpStatusCodeException(mStatusCode, getResponseMessage());
+            }
+        }
+        return readJson(adapter);
+    }
+
+    /**
+     * Reports the progress of the response body to call.
+     *
+     * @param call the request of this response.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void observe(@NonNull NetworkCall call) {
+        mCall = call;
+        mInputStream = call.observeBody(mInputStream);
+    }
+
+    private JSONObject readJsonObject() throws IOException, JSONException {
+        NetworkCall call = mCall;
+        if (call == null) {
+            return getJsonObjectFromResponseInputStream(getContent());
+        }
+        try {
+            JSONObject json = getJsonObjectFromResponseInputStream(getContent());
+            call.responseParsed();
+            return json;
+        } catch (IOException | JSONException | RuntimeException e) {
+            call.requestFailed(e);
+            throw e;
+        }
+    }
+
+    private <T> T readJson(TypeAdapter<T> adapter) throws IOException, JSONException {
+        NetworkCall call = mCall;
+        if (call == null) {
+            return readJson(getContent(), adapter);
+        }
+        try {
+            T result = readJson(getContent(), adapter);
+            call.responseParsed();
+            return result;
+        } catch (IOException | JSONException | RuntimeException e) {
+            call.requestFailed(e);
+            throw e;
+        }
+    }
+
+    /*
+     * Single pass over the stream, parse failures are reported as JSONException like the
+     * org.json based methods do.
+     */
+    private static <T> T readJson(InputStream inputStream, TypeAdapter<T> adapter)
+            throws IOException, JSONException {
+        if (inputStream == null) {
+            throw new IOException("Input stream must not be null");
+        }
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, UTF_8));
+        reader.setLenient(true);
+        T result;
+        try {
+            result = adapter.read(reader);
+        } catch (MalformedJsonException | EOFException | JsonParseException
+                | IllegalStateException | NumberFormatException e) {
+            JSONException exception = new JSONException(e.getMessage());
+            exception.initCause(e);
+            throw exception;
+        }
+        if (result == null) {
+            throw new JSONException("Response body is null");
+        }
+        return result;
     }
 
     private static JSONObject getJsonObjectFromResponseInputStream(
@@ -132,13 +369,13 @@ public final class HttpResponse {
         if (inputStream == null) {
             throw new IOException("Input stream must not be null");
         }
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        Writer writer = new StringWriter();
-        String line = reader.readLine();
-        while (line != null) {
-            writer.write(line);
-            line = reader.readLine();
+        Reader reader = new InputStreamReader(inputStream, UTF_8);
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[4096];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            builder.append(buffer, 0, read);
         }
-        return new JSONObject(writer.toString());
+        return new JSONObject(builder.toString());
     }
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.net;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import com.okta.oidc.net.params.RequestType;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A network request reported to a {@link NetworkEventListener}. The status code and the number
+ * of bytes transferred are filled in as the request progresses.
+ */
+public final class NetworkCall {
+    private final NetworkEventListener mListener;
+    private final RequestType mRequestType;
+    private final Uri mUri;
+    private final long mCreatedAtNanos;
+    private volatile int mStatusCode = -1;
+    private volatile long mBytesSent;
+    private volatile long mBytesReceived;
+    private final AtomicBoolean mBodyEnded = new AtomicBoolean();
+    private final AtomicBoolean mEnded = new AtomicBoolean();
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public NetworkCall(@NonNull NetworkEventListener listener, @Nullable RequestType requestType,
+                       @NonNull Uri uri, long createdAtNanos) {
+        mListener = listener;
+        mRequestType = requestType;
+        mUri = uri;
+        mCreatedAtNanos = createdAtNanos;
+    }
+
+    /**
+     * Gets the type of the request.
+     *
+     * @return the request type.
+     */
+    @Nullable
+    public RequestType getRequestType() {
+        return mRequestType;
+    }
+
+    /**
+     * Gets the uri of the request.
+     *
+     * @return the uri.
+     */
+    @NonNull
+    public Uri getUri() {
+        return mUri;
+    }
+
+    /**
+     * Gets when the request was built, in {@link System#nanoTime()} time.
+     *
+     * @return the time the request was built.
+     */
+    public long getCreatedAtNanos() {
+        return mCreatedAtNanos;
+    }
+
+    /**
+     * Gets the HTTP status code of the response.
+     *
+     * @return the status code, -1 until the response starts.
+     */
+    public int getStatusCode() {
+        return mStatusCode;
+    }
+
+    /**
+     * Gets the number of bytes of the request body.
+     *
+     * @return the number of bytes sent.
+     */
+    public long getBytesSent() {
+        return mBytesSent;
+    }
+
+    /**
+     * Gets the number of bytes of the response body read so far.
+     *
+     * @return the number of bytes received.
+     */
+    public long getBytesReceived() {
+        return mBytesReceived;
+    }
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void requestStart(long bytesSent) {
+        mBytesSent = bytesSent;
+        mListener.requestStart(this);
+    }
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void connectStart() {
+        mListener.connectStart(this);
+    }
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void connectEnd() {
+        mListener.connectEnd(this);
+    }
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void responseStart(int statusCode) {
+        mStatusCode = statusCode;
+        mListener.responseStart(this);
+    }
+
+    /**
+     * Counts the bytes read from a response body and reports the end of the body when it is
+     * read to the end or closed.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    @Nullable
+    public InputStream observeBody(@Nullable InputStream body) {
+        if (body == null) {
+            return null;
+        }
+        return new FilterInputStream(body) {
+            @Override
+            public int read() throws IOException {
+                int read = super.read();
+                if (read == -1) {
+                    responseBodyEnd();
+                } else {
+                    mBytesReceived++;
+                }
+                return read;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read == -1) {
+                    responseBodyEnd();
+                } else {
+                    mBytesReceived += read;
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                mBytesReceived += skipped;
+                return skipped;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    responseBodyEnd();
+                }
+            }
+        };
+    }
+
+    private void responseBodyEnd() {
+        if (mBodyEnded.compareAndSet(false, true)) {
+            mListener.responseBodyEnd(this);
+        }
+    }
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void responseParsed() {
+        //the parser may stop before the end of the stream.
+        responseBodyEnd();
+        mListener.responseParsed(this);
+    }
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void requestFailed(@NonNull Exception exception) {
+        if (!mEnded.get()) {
+            mListener.requestFailed(this, exception);
+        }
+    }
+
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void requestEnd() {
+        if (mEnded.compareAndSet(false, true)) {
+            mListener.requestEnd(this);
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "NetworkCall{type=" + mRequestType + ", uri=" + mUri +
+                ", status=" + mStatusCode + "}";
+    }
+}
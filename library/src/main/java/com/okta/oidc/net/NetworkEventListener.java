@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.net;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Listener of the phases of network requests made by the library, e.g. to measure where time
+ * goes in a sign in. Events of a request are reported on the thread that runs it, in this
+ * order:
+ * <ol>
+ * <li>{@link #requestStart(NetworkCall)}</li>
+ * <li>{@link #connectStart(NetworkCall)}</li>
+ * <li>{@link #connectEnd(NetworkCall)}</li>
+ * <li>{@link #responseStart(NetworkCall)}</li>
+ * <li>{@link #responseBodyEnd(NetworkCall)}</li>
+ * <li>{@link #responseParsed(NetworkCall)}</li>
+ * <li>{@link #requestEnd(NetworkCall)}</li>
+ * </ol>
+ * Events that don't apply to a request are skipped, {@link #requestFailed(NetworkCall,
+ * Exception)} can be reported at any point before {@link #requestEnd(NetworkCall)}.
+ * Methods should return quickly, they run on the request thread. Set the listener with
+ * {@link com.okta.oidc.OktaBuilder#withNetworkEventListener(NetworkEventListener)} or return
+ * it from {@link OktaHttpClient#getEventListener()}.
+ */
+public abstract class NetworkEventListener {
+    /**
+     * The request is about to be sent. {@link NetworkCall#getCreatedAtNanos()} tells when it
+     * was built, the difference is the time it waited to be run.
+     *
+     * @param call the request.
+     */
+    public void requestStart(@NonNull NetworkCall call) {
+    }
+
+    /**
+     * The client starts to connect to the server.
+     *
+     * @param call the request.
+     */
+    public void connectStart(@NonNull NetworkCall call) {
+    }
+
+    /**
+     * The connection is established and the request is sent. Only reported by clients that
+     * support it, such as the default client.
+     *
+     * @param call the request.
+     */
+    public void connectEnd(@NonNull NetworkCall call) {
+    }
+
+    /**
+     * The first byte of the response is received, the status code is known.
+     *
+     * @param call the request.
+     */
+    public void responseStart(@NonNull NetworkCall call) {
+    }
+
+    /**
+     * The response body is read or closed, the number of bytes received is known.
+     *
+     * @param call the request.
+     */
+    public void responseBodyEnd(@NonNull NetworkCall call) {
+    }
+
+    /**
+     * The response body is parsed.
+     *
+     * @param call the request.
+     */
+    public void responseParsed(@NonNull NetworkCall call) {
+    }
+
+    /**
+     * The request failed.
+     *
+     * @param call      the request.
+     * @param exception the reason of the failure.
+     */
+    public void requestFailed(@NonNull NetworkCall call, @NonNull Exception exception) {
+    }
+
+    /**
+     * The request is done and its connection released.
+     *
+     * @param call the request.
+     */
+    public void requestEnd(@NonNull NetworkCall call) {
+    }
+}
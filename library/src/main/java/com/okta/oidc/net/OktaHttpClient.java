@@ -40,6 +40,96 @@ public interface OktaHttpClient {
     @Nullable
     InputStream connect(@NonNull Uri uri, @NonNull ConnectionParameters param) throws Exception;
 
+    /**
+     * Execute a request and return a response scoped to it. Status, headers and body are read
+     * from the returned {@link OktaHttpResponse} instead of the client, so implementations that
+     * override this method can serve several requests at the same time.
+     * <p>
+     * The default implementation calls {@link #connect(Uri, ConnectionParameters)} and reads
+     * the result back from the client while holding the client's lock, so requests made with
+     * clients that don't override this method run one at a time. Implementations that override
+     * this method should return true from {@link #supportsConcurrentRequests()}.
+     *
+     * @param uri   uri for the connection.
+     * @param param parameters for the connection.
+     * @return the response, callers must call {@link OktaHttpResponse#disconnect()} when done.
+     * @throws Exception the exception indicating failure case.
+     */
+    @NonNull
+    default OktaHttpResponse execute(@NonNull Uri uri, @NonNull ConnectionParameters param)
+            throws Exception {
+        synchronized (this) {
+            InputStream stream = connect(uri, param);
+            return new HttpResponse(getResponseCode(), getHeaderFields(), getContentLength(),
+                    stream, this);
+        }
+    }
+
+    /**
+     * Checks if {@link #execute(Uri, ConnectionParameters)} returns responses scoped to the
+     * request, so a request can be made while the response of another one is still read. The
+     * default implementation returns false, the client's state is then shared by all requests
+     * until {@link #cleanUp()} and requests are made one after another.
+     *
+     * @return true if the client can serve several requests at the same time.
+     */
+    default boolean supportsConcurrentRequests() {
+        return false;
+    }
+
+    /**
+     * Execute a request and report the phases of the connection to call. Called instead of
+     * {@link #execute(Uri, ConnectionParameters)} when {@link #getEventListener()} returns a
+     * listener. The default implementation calls {@link #execute(Uri, ConnectionParameters)},
+     * so {@link NetworkEventListener#connectEnd(NetworkCall)} isn't reported.
+     *
+     * @param uri   uri for the connection.
+     * @param param parameters for the connection.
+     * @param call  the request reported to the listener.
+     * @return the response, callers must call {@link OktaHttpResponse#disconnect()} when done.
+     * @throws Exception the exception indicating failure case.
+     */
+    @NonNull
+    default OktaHttpResponse execute(@NonNull Uri uri, @NonNull ConnectionParameters param,
+                                     @NonNull NetworkCall call) throws Exception {
+        return execute(uri, param);
+    }
+
+    /**
+     * Gets the listener of the network events of requests made with this client. Events are
+     * only tracked when a listener is returned.
+     *
+     * @return the listener, null if events aren't reported.
+     */
+    @Nullable
+    default NetworkEventListener getEventListener() {
+        return null;
+    }
+
+    /**
+     * Gets the policy used to retry requests made with this client that failed with a
+     * transient error.
+     *
+     * @return the retry policy, null if requests aren't retried.
+     */
+    @Nullable
+    default RetryPolicy getRetryPolicy() {
+        return null;
+    }
+
+    /**
+     * Prepare a connection to the host of uri for the next request, so that request doesn't
+     * wait for the TCP and TLS handshake, for example by opening a connection the client keeps
+     * alive. Implementations must not send a request, the authorization server would see
+     * traffic the app didn't make. The default implementation does nothing.
+     *
+     * @param uri       uri of the host to connect to.
+     * @param timeoutMs the maximum time the connection may take.
+     * @throws Exception the exception indicating failure case.
+     */
+    default void preconnect(@NonNull Uri uri, int timeoutMs) throws Exception {
+    }
+
     /**
      * Clean up any resources in OktaHttpClient.
      */
@@ -50,6 +140,16 @@ public interface OktaHttpClient {
      */
     void cancel();
 
+    /**
+     * Attempt to cancel the connection of the request made with params. Other requests made
+     * with this client aren't affected. The default implementation calls {@link #cancel()}.
+     *
+     * @param params parameters of the request to cancel.
+     */
+    default void cancel(@NonNull ConnectionParameters params) {
+        cancel();
+    }
+
     /**
      * Gets header fields.
      *
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.net;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The response of a single request made with {@link OktaHttpClient}. Implemented by custom
+ * clients whose responses don't depend on the state of the client.
+ */
+public interface OktaHttpResponse {
+    /**
+     * Gets the HTTP status code.
+     *
+     * @return the status code, -1 if none can be discerned.
+     */
+    int getStatusCode();
+
+    /**
+     * Gets the response headers.
+     *
+     * @return the header fields.
+     */
+    @Nullable
+    Map<String, List<String>> getHeaders();
+
+    /**
+     * Gets the Http status message.
+     *
+     * @return the response message.
+     * @throws IOException the exception indicating connection error.
+     */
+    @Nullable
+    String getResponseMessage() throws IOException;
+
+    /**
+     * Gets content length.
+     *
+     * @return the content length, -1 if it isn't known.
+     */
+    int getContentLength();
+
+    /**
+     * Gets the response body.
+     *
+     * @return the body, null if the response has none.
+     */
+    @Nullable
+    InputStream getContent();
+
+    /**
+     * Releases the connection of the response. Called by the library once it is done with
+     * the response, whether or not the body was read.
+     */
+    void disconnect();
+}
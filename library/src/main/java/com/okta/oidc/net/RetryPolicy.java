@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.net;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import com.okta.oidc.util.Preconditions;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retries requests that failed with a transient error. Set it on
+ * {@link com.okta.oidc.OktaBuilder#withRetryPolicy(RetryPolicy)}.
+ * <p>
+ * The delay before a retry is picked at random between zero and an exponentially growing
+ * bound, capped at the max delay, so clients that failed at the same time don't retry at the
+ * same time. A {@code Retry-After} header on a 429 or 503 response is honored instead, the
+ * request isn't retried if the server asks to wait longer than the max delay.
+ * <p>
+ * No thread waits for the retries of the token refresh, user info, introspect, revoke and
+ * authorized requests of a {@link com.okta.oidc.clients.sessions.SessionClient}, they are
+ * scheduled on the {@link com.okta.oidc.SharedExecutor}. Other requests made by the
+ * asynchronous clients, like the ones of a sign in, block a worker of the shared executor
+ * while they wait. These requests are only retried if the delay is at most the max blocking
+ * delay, 1 second by default, a longer delay fails the request instead of holding the worker.
+ * Requests made with the synchronous clients wait on the calling thread up to the max delay.
+ * <p>
+ * Requests that change state on the server, like the authorization code exchange or a refresh
+ * with refresh token rotation, are only retried when the server didn't get them: when the
+ * connection couldn't be made or the server answered 429 or 503. Other requests are also
+ * retried on any I/O error and on 408, 500, 502 and 504.
+ */
+public final class RetryPolicy {
+    private static final int DEFAULT_MAX_RETRIES = 2;
+    private static final long DEFAULT_BASE_DELAY_MS = 500;
+    private static final long DEFAULT_MAX_DELAY_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final long DEFAULT_MAX_BLOCKING_DELAY_MS = TimeUnit.SECONDS.toMillis(1);
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final String HTTP_DATE = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private final int mMaxRetries;
+    private final long mBaseDelayMs;
+    private final long mMaxDelayMs;
+    private final long mMaxBlockingDelayMs;
+    private final Random mRandom = new Random();
+
+    /**
+     * Creates a policy that retries up to 2 times, starting with a delay of up to 500
+     * milliseconds and waiting at most 10 seconds.
+     */
+    public RetryPolicy() {
+        this(DEFAULT_MAX_RETRIES, DEFAULT_BASE_DELAY_MS, DEFAULT_MAX_DELAY_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a policy.
+     *
+     * @param maxRetries the maximum number of retries of a request.
+     * @param baseDelay  the bound of the delay before the first retry, doubled on every retry.
+     * @param maxDelay   the maximum delay before a retry.
+     * @param timeUnit   the unit of baseDelay and maxDelay.
+     */
+    public RetryPolicy(int maxRetries, long baseDelay, long maxDelay,
+                       @NonNull TimeUnit timeUnit) {
+        this(maxRetries, timeUnit.toMillis(baseDelay), timeUnit.toMillis(maxDelay),
+                DEFAULT_MAX_BLOCKING_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a policy with a max blocking delay, see {@link #getMaxBlockingDelayMs()}.
+     *
+     * @param maxRetries       the maximum number of retries of a request.
+     * @param baseDelay        the bound of the delay before the first retry, doubled on every
+     *                         retry.
+     * @param maxDelay         the maximum delay before a retry.
+     * @param maxBlockingDelay the maximum delay a shared worker waits before a retry, zero to
+     *                         not retry blocking requests on the workers after a delay.
+     * @param timeUnit         the unit of the delays.
+     */
+    public RetryPolicy(int maxRetries, long baseDelay, long maxDelay, long maxBlockingDelay,
+                       @NonNull TimeUnit timeUnit) {
+        Preconditions.checkArgument(maxRetries >= 0, "maxRetries must not be negative");
+        Preconditions.checkArgument(baseDelay > 0, "baseDelay must be greater than zero");
+        Preconditions.checkArgument(maxDelay >= baseDelay,
+                "maxDelay must not be less than baseDelay");
+        Preconditions.checkArgument(maxBlockingDelay >= 0,
+                "maxBlockingDelay must not be negative");
+        mMaxRetries = maxRetries;
+        mBaseDelayMs = timeUnit.toMillis(baseDelay);
+        mMaxDelayMs = timeUnit.toMillis(maxDelay);
+        mMaxBlockingDelayMs = timeUnit.toMillis(maxBlockingDelay);
+    }
+
+    /**
+     * Gets the maximum number of retries of a request.
+     *
+     * @return the max retries.
+     */
+    public int getMaxRetries() {
+        return mMaxRetries;
+    }
+
+    /**
+     * Gets the bound in milliseconds of the delay before the first retry.
+     *
+     * @return the base delay.
+     */
+    public long getBaseDelayMs() {
+        return mBaseDelayMs;
+    }
+
+    /**
+     * Gets the maximum delay in milliseconds before a retry.
+     *
+     * @return the max delay.
+     */
+    public long getMaxDelayMs() {
+        return mMaxDelayMs;
+    }
+
+    /**
+     * Gets the maximum delay in milliseconds a blocking request made on a worker of the
+     * {@link com.okta.oidc.SharedExecutor} waits before a retry. The request isn't retried if
+     * the delay is longer, so a worker isn't held while other requests wait for it.
+     *
+     * @return the max blocking delay.
+     */
+    public long getMaxBlockingDelayMs() {
+        return mMaxBlockingDelayMs;
+    }
+
+    /**
+     * Gets the delay before retrying a request that failed with an I/O error.
+     *
+     * @param retry      the number of retries made so far.
+     * @param exception  the error.
+     * @param idempotent if the request can be repeated without changing the result.
+     * @return the delay in milliseconds, -1 if the request must not be retried.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public long retryDelayMs(int retry, IOException exception, boolean idempotent) {
+        if (retry >= mMaxRetries || !(idempotent || isNotSent(exception))) {
+            return -1;
+        }
+        return backoffMs(retry);
+    }
+
+    /**
+     * Gets the delay before retrying a request that got an error response.
+     *
+     * @param retry      the number of retries made so far.
+     * @param statusCode the status code of the response.
+     * @param retryAfter the Retry-After header of the response.
+     * @param idempotent if the request can be repeated without changing the result.
+     * @return the delay in milliseconds, -1 if the request must not be retried.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public long retryDelayMs(int retry, int statusCode, @Nullable String retryAfter,
+                             boolean idempotent) {
+        if (retry >= mMaxRetries || !isRetryable(statusCode, idempotent)) {
+            return -1;
+        }
+        if (retryAfter != null && (statusCode == HTTP_TOO_MANY_REQUESTS
+                || statusCode == HttpURLConnection.HTTP_UNAVAILABLE)) {
+            long delayMs = parseRetryAfterMs(retryAfter, System.currentTimeMillis());
+            if (delayMs >= 0) {
+                return delayMs <= mMaxDelayMs ? delayMs : -1;
+            }
+        }
+        return backoffMs(retry);
+    }
+
+    //full jitter: a random delay up to the capped exponential bound.
+    private long backoffMs(int retry) {
+        long bound = mBaseDelayMs << Math.min(retry, Long.numberOfLeadingZeros(mBaseDelayMs) - 1);
+        return (long) (mRandom.nextDouble() * Math.min(bound, mMaxDelayMs));
+    }
+
+    /*
+     * The server never saw a request whose connection couldn't be made, so even a code
+     * exchange can be sent again.
+     */
+    private static boolean isNotSent(IOException exception) {
+        return exception instanceof ConnectException
+                || exception instanceof NoRouteToHostException
+                || exception instanceof UnknownHostException;
+    }
+
+    private static boolean isRetryable(int statusCode, boolean idempotent) {
+        switch (statusCode) {
+            case HTTP_TOO_MANY_REQUESTS:
+            case HttpURLConnection.HTTP_UNAVAILABLE:
+                return true;
+            case HttpURLConnection.HTTP_CLIENT_TIMEOUT:
+            case HttpURLConnection.HTTP_INTERNAL_ERROR:
+            case HttpURLConnection.HTTP_BAD_GATEWAY:
+            case HttpURLConnection.HTTP_GATEWAY_TIMEOUT:
+                return idempotent;
+            default:
+                return false;
+        }
+    }
+
+    /*
+     * Retry-After is either a number of seconds or an HTTP date.
+     */
+    static long parseRetryAfterMs(String retryAfter, long nowMs) {
+        String value = retryAfter.trim();
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(Long.parseLong(value), 0));
+        } catch (NumberFormatException ex) {
+            //not a number of seconds.
+        }
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            Date date = format.parse(value);
+            return Math.max(date.getTime() - nowMs, 0);
+        } catch (ParseException ex) {
+            return -1;
+        }
+    }
+}
@@ -54,4 +54,9 @@ public enum RequestType {
      * Not using chrome custom tabs.
      */
     AUTHORIZE,
+
+    /**
+     * Json web key set request type.
+     */
+    JWKS,
 }
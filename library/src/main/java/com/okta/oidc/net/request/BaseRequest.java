@@ -18,20 +18,34 @@ package com.okta.oidc.net.request;
 import android.net.Uri;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 
+import com.okta.oidc.RequestCallback;
+import com.okta.oidc.SharedExecutor;
+import com.okta.oidc.net.AsyncOktaHttpClient;
 import com.okta.oidc.net.ConnectionParameters;
 import com.okta.oidc.net.HttpResponse;
+import com.okta.oidc.net.NetworkCall;
+import com.okta.oidc.net.NetworkEventListener;
 import com.okta.oidc.net.OktaHttpClient;
+import com.okta.oidc.net.OktaHttpResponse;
+import com.okta.oidc.net.RetryPolicy;
 import com.okta.oidc.net.params.RequestType;
 import com.okta.oidc.util.AuthorizationException;
 import com.okta.oidc.util.Preconditions;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.HttpURLConnection;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @hide
@@ -42,10 +56,23 @@ public abstract class BaseRequest<T, U extends AuthorizationException>
     RequestType mRequestType;
     private static final String HTTPS_SCHEME = "https";
     private static final int HTTP_CONTINUE = 100;
+    private static final String RETRY_AFTER = "Retry-After";
     private volatile boolean mCanceled;
     @VisibleForTesting(otherwise = VisibleForTesting.PACKAGE_PRIVATE)
     public ConnectionParameters mConnParams;
     private HttpResponse mResponse;
+    //client of the blocking request being sent, so a cancel disconnects only this request.
+    private volatile OktaHttpClient mSendingClient;
+    private final long mCreatedAtNanos = System.nanoTime();
+    //state of an asynchronous request, guarded by this.
+    private AsyncOktaHttpClient.PendingRequest mPendingRequest;
+    private ScheduledFuture<?> mPendingRetry;
+    private Runnable mRetry;
+    private HttpResponse mAsyncResponse;
+    private Exception mAsyncFailure;
+    //executor of an asynchronous request, set before the first attempt.
+    private SharedExecutor mAsyncExecutor;
+    private SharedExecutor.Priority mAsyncPriority;
     protected Uri mUri;
 
     public BaseRequest() {
@@ -55,27 +82,126 @@ public abstract class BaseRequest<T, U extends AuthorizationException>
     protected HttpResponse openConnection(OktaHttpClient client) throws Exception {
         Preconditions.checkArgument(HTTPS_SCHEME.equals(mUri.getScheme()),
                 "only https connections are permitted");
-        InputStream stream = client.connect(mUri, mConnParams);
+        HttpResponse asyncResponse = takeAsyncResult();
+        if (asyncResponse != null) {
+            return asyncResponse;
+        }
+        RetryPolicy retryPolicy = client.getRetryPolicy();
+        if (retryPolicy == null) {
+            return send(client);
+        }
+        for (int retry = 0; ; retry++) {
+            HttpResponse response;
+            try {
+                response = send(client);
+            } catch (IOException e) {
+                long delayMs = mCanceled ? -1
+                        : blockingRetryDelay(retryPolicy,
+                        retryPolicy.retryDelayMs(retry, e, isIdempotent()));
+                if (delayMs < 0) {
+                    throw e;
+                }
+                awaitRetry(delayMs);
+                continue;
+            }
+            long delayMs = blockingRetryDelay(retryPolicy, retryPolicy.retryDelayMs(retry,
+                    response.getStatusCode(), response.getHeaderField(RETRY_AFTER),
+                    isIdempotent()));
+            if (delayMs < 0) {
+                return response;
+            }
+            close();
+            awaitRetry(delayMs);
+        }
+    }
+
+    /**
+     * If the request can be sent again without changing the result, so it can be retried
+     * after any transient error. By default only GET requests are.
+     *
+     * @return true if the request is idempotent.
+     */
+    protected boolean isIdempotent() {
+        return mConnParams.requestMethod() == ConnectionParameters.RequestMethod.GET;
+    }
+
+    /*
+     * The delay of a blocking retry. A shared worker isn't parked for longer than the max
+     * blocking delay, executeRequestAsync schedules the retries without holding a thread.
+     */
+    private static long blockingRetryDelay(RetryPolicy retryPolicy, long delayMs) {
+        return delayMs > retryPolicy.getMaxBlockingDelayMs() && SharedExecutor.isRunningTask()
+                ? -1 : delayMs;
+    }
+
+    /*
+     * Waits before a retry. Canceling the request ends the wait.
+     */
+    private synchronized void awaitRetry(long delayMs) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        long remainingMs = delayMs;
+        try {
+            while (!mCanceled && remainingMs > 0) {
+                wait(remainingMs);
+                remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Canceled");
+        }
         if (mCanceled) {
             throw new IOException("Canceled");
         }
+    }
+
+    private HttpResponse send(OktaHttpClient client) throws Exception {
+        NetworkEventListener listener = client.getEventListener();
+        NetworkCall call = null;
+        mSendingClient = client;
+        try {
+            if (mCanceled) {
+                throw new IOException("Canceled");
+            }
+            HttpResponse response;
+            if (listener == null) {
+                response = HttpResponse.of(client.execute(mUri, mConnParams));
+            } else {
+                call = new NetworkCall(listener, mRequestType, mUri, mCreatedAtNanos);
+                response = execute(client, call);
+            }
+            return received(response, call);
+        } catch (IOException e) {
+            //a cancel disconnects the request, which fails with a socket error.
+            throw mCanceled ? new IOException("Canceled") : e;
+        } finally {
+            mSendingClient = null;
+        }
+    }
+
+    private HttpResponse received(HttpResponse response, @Nullable NetworkCall call)
+            throws IOException {
+        synchronized (this) {
+            mResponse = response;
+        }
+        if (mCanceled) {
+            IOException canceled = failed(call, new IOException("Canceled"));
+            close();
+            throw canceled;
+        }
 
         boolean keepOpen = false;
         try {
-            int responseCode = client.getResponseCode();
+            int responseCode = response.getStatusCode();
             if (responseCode == -1) {
-                throw new IOException("Invalid response code -1 no code can be discerned");
+                throw failed(call,
+                        new IOException("Invalid response code -1 no code can be discerned"));
             }
 
             if (!hasResponseBody(responseCode)) {
-                mResponse = new HttpResponse(responseCode, client.getHeaderFields());
-            } else {
-                keepOpen = true;
-                mResponse = new HttpResponse(
-                        responseCode, client.getHeaderFields(),
-                        client.getContentLength(), stream, client);
+                return new HttpResponse(responseCode, response.getHeaders());
             }
-            return mResponse;
+            keepOpen = true;
+            return response;
         } finally {
             if (!keepOpen) {
                 close();
@@ -83,10 +209,327 @@ public abstract class BaseRequest<T, U extends AuthorizationException>
         }
     }
 
+    /*
+     * The call ends when the response is disconnected.
+     */
+    private HttpResponse execute(OktaHttpClient client, NetworkCall call) throws Exception {
+        call.requestStart(getRequestBodyLength());
+        call.connectStart();
+        HttpResponse response;
+        try {
+            response = HttpResponse.of(client.execute(mUri, mConnParams, call));
+        } catch (Exception e) {
+            call.requestFailed(e);
+            call.requestEnd();
+            throw e;
+        }
+        call.responseStart(response.getStatusCode());
+        response.observe(call);
+        return response;
+    }
+
+    /**
+     * Executes the request with the default shared executor, see
+     * {@link #executeRequestAsync(OktaHttpClient, SharedExecutor, SharedExecutor.Priority,
+     * RequestCallback)}.
+     *
+     * @param client   the client that makes the request.
+     * @param callback receives the result, exactly once and on any thread.
+     */
+    public void executeRequestAsync(AsyncOktaHttpClient client,
+                                    RequestCallback<T, AuthorizationException> callback) {
+        executeRequestAsync(client, SharedExecutor.getDefault(), SharedExecutor.Priority.DEFAULT,
+                callback);
+    }
+
+    /**
+     * Executes the request without blocking the calling thread. An {@link AsyncOktaHttpClient}
+     * sends it without a thread waiting for the response, a blocking client sends every attempt
+     * as a task of the executor. The outcome is handed to
+     * {@link #executeRequest(OktaHttpClient)} in a task of the executor, so responses are
+     * parsed and errors are reported the same way as for a blocking request.
+     * Retries are scheduled on the executor instead of waited for, and {@link #cancelRequest()}
+     * cancels the request in flight.
+     *
+     * @param client   the client that makes the request.
+     * @param executor the executor of the attempts and retries.
+     * @param priority the priority of the attempts.
+     * @param callback receives the result, exactly once and on any thread.
+     */
+    public void executeRequestAsync(OktaHttpClient client, SharedExecutor executor,
+                                    SharedExecutor.Priority priority,
+                                    RequestCallback<T, AuthorizationException> callback) {
+        Preconditions.checkArgument(HTTPS_SCHEME.equals(mUri.getScheme()),
+                "only https connections are permitted");
+        mAsyncExecutor = executor;
+        mAsyncPriority = priority;
+        enqueue(client, 0, callback);
+    }
+
+    private void enqueue(OktaHttpClient client, int retry,
+                         RequestCallback<T, AuthorizationException> callback) {
+        if (mCanceled) {
+            complete(client, null, new IOException("Canceled"), callback);
+            return;
+        }
+        NetworkEventListener listener = client.getEventListener();
+        NetworkCall call = listener == null ? null
+                : new NetworkCall(listener, mRequestType, mUri, mCreatedAtNanos);
+        AsyncOktaHttpClient.Callback received = new AsyncOktaHttpClient.Callback() {
+            @Override
+            public void onResponse(@NonNull OktaHttpResponse clientResponse) {
+                HttpResponse response = HttpResponse.of(clientResponse);
+                if (call != null) {
+                    call.responseStart(response.getStatusCode());
+                    response.observe(call);
+                }
+                onAsyncResponse(client, retry, call, response, callback);
+            }
+
+            @Override
+            public void onFailure(@NonNull Exception exception) {
+                if (call != null) {
+                    call.requestFailed(exception);
+                    call.requestEnd();
+                }
+                onAsyncFailure(client, retry, exception, callback);
+            }
+        };
+        AsyncOktaHttpClient.PendingRequest pending;
+        try {
+            if (call != null) {
+                call.requestStart(getRequestBodyLength());
+                call.connectStart();
+            }
+            if (!(client instanceof AsyncOktaHttpClient)) {
+                pending = sendOnWorker(client, call, received);
+            } else if (call == null) {
+                pending = ((AsyncOktaHttpClient) client).enqueue(mUri, mConnParams, received);
+            } else {
+                pending = ((AsyncOktaHttpClient) client)
+                        .enqueue(mUri, mConnParams, call, received);
+            }
+        } catch (RuntimeException e) {
+            //the client couldn't start the request, e.g. because of an invalid header.
+            received.onFailure(e);
+            return;
+        }
+        boolean canceled;
+        synchronized (this) {
+            mPendingRequest = pending;
+            canceled = mCanceled;
+        }
+        if (canceled) {
+            pending.cancel();
+        }
+    }
+
+    /*
+     * Every attempt of a blocking client is a task of the executor that ends with the
+     * response, so no worker waits for a retry.
+     */
+    private AsyncOktaHttpClient.PendingRequest sendOnWorker(OktaHttpClient client,
+                                                            @Nullable NetworkCall call,
+                                                            AsyncOktaHttpClient.Callback received) {
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            OktaHttpResponse response;
+            try {
+                response = call == null ? client.execute(mUri, mConnParams)
+                        : client.execute(mUri, mConnParams, call);
+            } catch (Exception e) {
+                received.onFailure(e);
+                return;
+            }
+            received.onResponse(response);
+        }, null);
+        mAsyncExecutor.execute(task, mAsyncPriority, mUri.getHost());
+        return () -> {
+            if (task.cancel(false)) {
+                received.onFailure(new IOException("Canceled"));
+            } else {
+                client.cancel(mConnParams);
+            }
+        };
+    }
+
+    private void onAsyncResponse(OktaHttpClient client, int retry,
+                                 @Nullable NetworkCall call, HttpResponse response,
+                                 RequestCallback<T, AuthorizationException> callback) {
+        HttpResponse checked;
+        try {
+            checked = received(response, call);
+        } catch (IOException e) {
+            onAsyncFailure(client, retry, e, callback);
+            return;
+        }
+        RetryPolicy retryPolicy = client.getRetryPolicy();
+        long delayMs = retryPolicy == null ? -1
+                : retryPolicy.retryDelayMs(retry, checked.getStatusCode(),
+                checked.getHeaderField(RETRY_AFTER), isIdempotent());
+        if (delayMs < 0) {
+            complete(client, checked, null, callback);
+        } else {
+            close();
+            scheduleRetry(client, retry, delayMs, callback);
+        }
+    }
+
+    private void onAsyncFailure(OktaHttpClient client, int retry, Exception exception,
+                                RequestCallback<T, AuthorizationException> callback) {
+        if (mCanceled) {
+            complete(client, null, new IOException("Canceled"), callback);
+            return;
+        }
+        RetryPolicy retryPolicy = client.getRetryPolicy();
+        long delayMs = retryPolicy == null || !(exception instanceof IOException) ? -1
+                : retryPolicy.retryDelayMs(retry, (IOException) exception, isIdempotent());
+        if (delayMs < 0) {
+            complete(client, null, exception, callback);
+        } else {
+            scheduleRetry(client, retry, delayMs, callback);
+        }
+    }
+
+    private void scheduleRetry(OktaHttpClient client, int retry, long delayMs,
+                               RequestCallback<T, AuthorizationException> callback) {
+        Runnable next = () -> enqueue(client, retry + 1, callback);
+        RejectedExecutionException rejected = null;
+        synchronized (this) {
+            mPendingRequest = null;
+            if (!mCanceled) {
+                try {
+                    mPendingRetry = retryScheduler().schedule(next, delayMs,
+                            TimeUnit.MILLISECONDS);
+                    mRetry = next;
+                    return;
+                } catch (RejectedExecutionException e) {
+                    rejected = e;
+                }
+            }
+        }
+        if (rejected != null) {
+            //the executor was shut down.
+            complete(client, null, rejected, callback);
+            return;
+        }
+        //reports the cancel.
+        next.run();
+    }
+
+    /*
+     * Parsing the response can fetch the signing keys and persist tokens, so the outcome of an
+     * asynchronous client is handed back to the executor instead of being parsed on the thread
+     * of the client.
+     */
+    private void complete(OktaHttpClient client, @Nullable HttpResponse response,
+                          @Nullable Exception failure,
+                          RequestCallback<T, AuthorizationException> callback) {
+        if (client instanceof AsyncOktaHttpClient && !SharedExecutor.isRunningTask()) {
+            try {
+                mAsyncExecutor.execute(() -> finish(client, response, failure, callback),
+                        mAsyncPriority, mUri.getHost());
+                return;
+            } catch (RejectedExecutionException e) {
+                //the executor was shut down, finishes on this thread.
+            }
+        }
+        finish(client, response, failure, callback);
+    }
+
+    private void finish(OktaHttpClient client, @Nullable HttpResponse response,
+                        @Nullable Exception failure,
+                        RequestCallback<T, AuthorizationException> callback) {
+        synchronized (this) {
+            mPendingRequest = null;
+            mAsyncResponse = response;
+            mAsyncFailure = failure;
+        }
+        T result;
+        try {
+            result = executeRequest(client);
+        } catch (AuthorizationException e) {
+            callback.onError(e.error, e);
+            return;
+        } catch (RuntimeException e) {
+            callback.onError(e.getMessage(), new AuthorizationException(e.getMessage(), e));
+            return;
+        } finally {
+            takeAsyncResultQuietly();
+        }
+        callback.onSuccess(result);
+    }
+
+    /*
+     * Hands the outcome of an asynchronous request to openConnection, called by executeRequest.
+     */
+    private synchronized HttpResponse takeAsyncResult() throws Exception {
+        HttpResponse response = mAsyncResponse;
+        Exception failure = mAsyncFailure;
+        mAsyncResponse = null;
+        mAsyncFailure = null;
+        if (failure != null) {
+            throw failure;
+        }
+        return response;
+    }
+
+    private synchronized void takeAsyncResultQuietly() {
+        mAsyncResponse = null;
+        mAsyncFailure = null;
+    }
+
+    //delays the retries of asynchronous requests, no thread waits for them.
+    private ScheduledExecutorService retryScheduler() {
+        return mAsyncExecutor.getScheduler();
+    }
+
+    private static IOException failed(@Nullable NetworkCall call, IOException exception) {
+        if (call != null) {
+            call.requestFailed(exception);
+        }
+        return exception;
+    }
+
+    private long getRequestBodyLength() {
+        Map<String, String> postParameters = mConnParams.postParameters();
+        if (postParameters == null || postParameters.isEmpty()) {
+            return 0;
+        }
+        return mConnParams.getEncodedPostParameters().length;
+    }
+
     @Override
     public void cancelRequest() {
         mCanceled = true;
+        OktaHttpClient sending = mSendingClient;
+        if (sending != null) {
+            sending.cancel(mConnParams);
+        }
         close();
+        AsyncOktaHttpClient.PendingRequest pending;
+        Runnable retry = null;
+        synchronized (this) {
+            //wakes up a request waiting to retry.
+            notifyAll();
+            pending = mPendingRequest;
+            mPendingRequest = null;
+            if (mPendingRetry != null && mPendingRetry.cancel(false)) {
+                retry = mRetry;
+            }
+            mPendingRetry = null;
+            mRetry = null;
+        }
+        if (pending != null) {
+            pending.cancel();
+        }
+        if (retry != null) {
+            //reports the cancel without waiting for the retry delay.
+            try {
+                retryScheduler().execute(retry);
+            } catch (RejectedExecutionException e) {
+                retry.run();
+            }
+        }
     }
 
     @Override
@@ -18,16 +18,17 @@ package com.okta.oidc.net.request;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.WorkerThread;
 
-import com.google.gson.Gson;
 import com.okta.oidc.net.ConnectionParameters;
 import com.okta.oidc.net.HttpResponse;
 import com.okta.oidc.net.OktaHttpClient;
 import com.okta.oidc.util.AuthorizationException;
 
 import org.json.JSONException;
-import org.json.JSONObject;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @hide
@@ -35,7 +36,15 @@ import java.io.IOException;
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 public final class ConfigurationRequest extends
         BaseRequest<ProviderConfiguration, AuthorizationException> {
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String ETAG = "ETag";
+    private static final String CACHE_CONTROL = "Cache-Control";
+    private static final String MAX_AGE = "max-age=";
+    //used when the server doesn't say how long the discovery document can be cached.
+    private static final long DEFAULT_MAX_AGE_MS = TimeUnit.DAYS.toMillis(1);
+
     private boolean mIsOAuth2;
+    private ProviderConfiguration mCachedConfiguration;
 
     ConfigurationRequest(HttpRequestBuilder.Configuration b) {
         super();
@@ -44,10 +53,46 @@ public final class ConfigurationRequest extends
         mUri = b.mConfig.getDiscoveryUri().buildUpon()
                 .appendQueryParameter("client_id", b.mConfig.getClientId()).build();
 
-        mConnParams = new ConnectionParameters.ParameterBuilder()
+        mCachedConfiguration = b.mCachedConfiguration;
+        ConnectionParameters.ParameterBuilder params = new ConnectionParameters.ParameterBuilder()
                 .setRequestMethod(ConnectionParameters.RequestMethod.GET)
-                .setRequestType(mRequestType)
-                .create();
+                .setRequestType(mRequestType);
+        if (mCachedConfiguration != null && mCachedConfiguration.getEtag() != null) {
+            params.setRequestProperty(IF_NONE_MATCH, mCachedConfiguration.getEtag());
+        }
+        mConnParams = params.create();
+    }
+
+    /*
+     * Parses the freshness lifetime from the Cache-Control header. A document that must not
+     * be cached is stale right away so it is revalidated on next use.
+     */
+    static long maxAgeMs(String cacheControl) {
+        if (cacheControl == null) {
+            return DEFAULT_MAX_AGE_MS;
+        }
+        for (String directive : cacheControl.split(",")) {
+            String value = directive.trim().toLowerCase(Locale.US);
+            if (value.equals("no-cache") || value.equals("no-store")) {
+                return 0;
+            }
+            if (value.startsWith(MAX_AGE)) {
+                try {
+                    long maxAge = Long.parseLong(value.substring(MAX_AGE.length()).trim());
+                    return TimeUnit.SECONDS.toMillis(Math.max(maxAge, 0));
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return DEFAULT_MAX_AGE_MS;
+    }
+
+    private static void updateCacheState(ProviderConfiguration configuration,
+                                         HttpResponse response, String etag) {
+        String newEtag = response.getHeaderField(ETAG);
+        configuration.setCacheState(newEtag != null ? newEtag : etag,
+                System.currentTimeMillis() + maxAgeMs(response.getHeaderField(CACHE_CONTROL)));
     }
 
     @WorkerThread
@@ -58,11 +103,16 @@ public final class ConfigurationRequest extends
         HttpResponse response = null;
         try {
             response = openConnection(client);
+            if (response.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED
+                    && mCachedConfiguration != null) {
+                ProviderConfiguration configuration = mCachedConfiguration.copy();
+                updateCacheState(configuration, response, mCachedConfiguration.getEtag());
+                return configuration;
+            }
 
-            JSONObject json = response.asJson();
-            ProviderConfiguration configuration = new Gson()
-                    .fromJson(json.toString(), ProviderConfiguration.class);
+            ProviderConfiguration configuration = response.asJson(ProviderConfiguration.ADAPTER);
             configuration.validate(mIsOAuth2);
+            updateCacheState(configuration, response, null);
             return configuration;
         } catch (IOException ex) {
             exception = new AuthorizationException(ex.getMessage(), ex);
@@ -19,6 +19,7 @@ import android.net.Uri;
 
 import androidx.annotation.RestrictTo;
 
+import com.okta.oidc.JsonWebKeyCache;
 import com.okta.oidc.OIDCConfig;
 import com.okta.oidc.net.ConnectionParameters;
 import com.okta.oidc.net.params.GrantTypes;
@@ -33,6 +34,7 @@ import java.util.Map;
 import static com.okta.oidc.net.params.RequestType.AUTHORIZED;
 import static com.okta.oidc.net.params.RequestType.CONFIGURATION;
 import static com.okta.oidc.net.params.RequestType.INTROSPECT;
+import static com.okta.oidc.net.params.RequestType.JWKS;
 import static com.okta.oidc.net.params.RequestType.PROFILE;
 import static com.okta.oidc.net.params.RequestType.REFRESH_TOKEN;
 import static com.okta.oidc.net.params.RequestType.REVOKE_TOKEN;
@@ -72,6 +74,10 @@ public class HttpRequestBuilder {
         return new Introspect().requestType(INTROSPECT);
     }
 
+    public static Jwks newJwksRequest() {
+        return new Jwks().requestType(JWKS);
+    }
+
     private abstract static class Builder<T extends Builder<T>> {
         OIDCConfig mConfig;
         ProviderConfiguration mProviderConfiguration;
@@ -110,6 +116,8 @@ public class HttpRequestBuilder {
     }
 
     public static class Configuration extends Builder<Configuration> {
+        ProviderConfiguration mCachedConfiguration;
+
         private Configuration() {
         }
 
@@ -118,6 +126,11 @@ public class HttpRequestBuilder {
             return this;
         }
 
+        public Configuration cachedConfiguration(ProviderConfiguration configuration) {
+            mCachedConfiguration = configuration;
+            return this;
+        }
+
         @Override
         public ConfigurationRequest createRequest() throws AuthorizationException {
             validate(true);
@@ -183,6 +196,7 @@ public class HttpRequestBuilder {
         AuthorizeRequest mAuthRequest;
         AuthorizeResponse mAuthResponse;
         String mGrantType;
+        JsonWebKeyCache mKeyCache;
 
         private TokenExchange() {
         }
@@ -210,6 +224,11 @@ public class HttpRequestBuilder {
             return this;
         }
 
+        public TokenExchange keyCache(JsonWebKeyCache keyCache) {
+            mKeyCache = keyCache;
+            return this;
+        }
+
         @Override
         public TokenRequest createRequest() throws AuthorizationException {
             validate(false);
@@ -221,6 +240,7 @@ public class HttpRequestBuilder {
     public static class RefreshToken extends Builder<RefreshToken> {
         TokenResponse mTokenResponse;
         String mGrantType;
+        JsonWebKeyCache mKeyCache;
 
         private RefreshToken() {
         }
@@ -235,6 +255,11 @@ public class HttpRequestBuilder {
             return this;
         }
 
+        public RefreshToken keyCache(JsonWebKeyCache keyCache) {
+            mKeyCache = keyCache;
+            return this;
+        }
+
         @Override
         protected void validate(boolean isConfigurationRequest) throws AuthorizationException {
             super.validate(isConfigurationRequest);
@@ -346,6 +371,30 @@ public class HttpRequestBuilder {
         }
     }
 
+    public static class Jwks extends Builder<Jwks> {
+        private Jwks() {
+        }
+
+        @Override
+        Jwks toThis() {
+            return this;
+        }
+
+        @Override
+        protected void validate(boolean isConfigurationRequest) throws AuthorizationException {
+            super.validate(isConfigurationRequest);
+            if (mProviderConfiguration.jwks_uri == null) {
+                throwException("Missing jwks uri");
+            }
+        }
+
+        @Override
+        public JwksRequest createRequest() throws AuthorizationException {
+            validate(false);
+            return new JwksRequest(this);
+        }
+    }
+
     private static void throwException(String message) throws AuthorizationException {
         throw new AuthorizationException(message,
                 new RuntimeException());
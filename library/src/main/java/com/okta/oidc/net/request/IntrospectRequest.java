@@ -19,7 +19,6 @@ import android.net.Uri;
 
 import androidx.annotation.RestrictTo;
 
-import com.google.gson.Gson;
 import com.okta.oidc.net.ConnectionParameters;
 import com.okta.oidc.net.HttpResponse;
 import com.okta.oidc.net.OktaHttpClient;
@@ -27,7 +26,6 @@ import com.okta.oidc.net.response.IntrospectInfo;
 import com.okta.oidc.util.AuthorizationException;
 
 import org.json.JSONException;
-import org.json.JSONObject;
 
 import java.io.IOException;
 
@@ -51,14 +49,19 @@ public class IntrospectRequest extends
                 .create();
     }
 
+    //introspection only reads the state of the token.
+    @Override
+    protected boolean isIdempotent() {
+        return true;
+    }
+
     @Override
     public IntrospectInfo executeRequest(OktaHttpClient client) throws AuthorizationException {
         AuthorizationException exception = null;
         HttpResponse response = null;
         try {
             response = openConnection(client);
-            JSONObject json = response.asJson();
-            return new Gson().fromJson(json.toString(), IntrospectInfo.class);
+            return response.asJson(IntrospectInfo.ADAPTER);
         } catch (IOException ex) {
             exception = new AuthorizationException(ex.getMessage(), ex);
         } catch (JSONException e) {
@@ -22,9 +22,15 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 
-import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.okta.oidc.CustomConfiguration;
 import com.okta.oidc.storage.Persistable;
+import com.okta.oidc.util.GsonUtil;
+import com.okta.oidc.util.ModelAdapter;
+
+import java.io.IOException;
 
 /**
  * @hide
@@ -81,6 +87,13 @@ public class ProviderConfiguration implements Persistable {
 
     public String[] id_token_signing_alg_values_supported;
 
+    /*
+     * HTTP cache state of the discovery document, persisted with the configuration. A
+     * configuration stored by an older version has no expiry and is revalidated on first use.
+     */
+    private String etag;
+    private long expiresAt = -1;
+
     @VisibleForTesting
     public ProviderConfiguration() {
         //NO-OP
@@ -97,6 +110,54 @@ public class ProviderConfiguration implements Persistable {
         end_session_endpoint = config.getEndSessionEndpoint();
     }
 
+    /**
+     * Sets the HTTP cache state of this configuration.
+     *
+     * @param etag      the entity tag of the discovery document, null if not known.
+     * @param expiresAt the time in milliseconds after which this configuration is stale.
+     */
+    @VisibleForTesting(otherwise = VisibleForTesting.PACKAGE_PRIVATE)
+    public void setCacheState(@Nullable String etag, long expiresAt) {
+        this.etag = etag;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Gets the entity tag of the discovery document this configuration was created from.
+     *
+     * @return the entity tag, null if not known.
+     */
+    @Nullable
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Gets the time this configuration becomes stale.
+     *
+     * @return the time in milliseconds, -1 if not known.
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Checks if this configuration has to be revalidated with the authorization server.
+     *
+     * @return true if the configuration is stale or its freshness is not known.
+     */
+    public boolean isExpired() {
+        return expiresAt < 0 || System.currentTimeMillis() >= expiresAt;
+    }
+
+    /*
+     * Copies this configuration with its cache state, so a revalidated configuration doesn't
+     * change an instance other threads may be reading.
+     */
+    ProviderConfiguration copy() {
+        return GsonUtil.fromJson(ADAPTER, persist());
+    }
+
     void validate(boolean isOAuth2) throws IllegalArgumentException {
         if (TextUtils.isEmpty(authorization_endpoint)) {
             throw new IllegalArgumentException("authorization_endpoint is missing");
@@ -141,7 +202,7 @@ public class ProviderConfiguration implements Persistable {
                 @Override
                 public ProviderConfiguration restore(@Nullable String data) {
                     if (data != null) {
-                        return new Gson().fromJson(data, ProviderConfiguration.class);
+                        return GsonUtil.fromJson(ADAPTER, data);
                     }
                     return null;
                 }
@@ -156,6 +217,134 @@ public class ProviderConfiguration implements Persistable {
 
     @Override
     public String persist() {
-        return new Gson().toJson(this);
+        return GsonUtil.toJson(ADAPTER, this);
     }
+
+    public static final TypeAdapter<ProviderConfiguration> ADAPTER =
+            new ModelAdapter<ProviderConfiguration>() {
+        @NonNull
+        @Override
+        protected ProviderConfiguration create() {
+            return new ProviderConfiguration();
+        }
+
+        @Override
+        protected boolean readMember(@NonNull ProviderConfiguration model, @NonNull String name,
+                                     @NonNull JsonReader in) throws IOException {
+            switch (name) {
+                case "authorization_endpoint":
+                    model.authorization_endpoint = readString(in);
+                    return true;
+                case "claims_supported":
+                    model.claims_supported = readStringArray(in);
+                    return true;
+                case "code_challenge_methods_supported":
+                    model.code_challenge_methods_supported = readStringArray(in);
+                    return true;
+                case "end_session_endpoint":
+                    model.end_session_endpoint = readString(in);
+                    return true;
+                case "grant_types_supported":
+                    model.grant_types_supported = readStringArray(in);
+                    return true;
+                case "introspection_endpoint":
+                    model.introspection_endpoint = readString(in);
+                    return true;
+                case "introspection_endpoint_auth_methods_supported":
+                    model.introspection_endpoint_auth_methods_supported = readStringArray(in);
+                    return true;
+                case "issuer":
+                    model.issuer = readString(in);
+                    return true;
+                case "jwks_uri":
+                    model.jwks_uri = readString(in);
+                    return true;
+                case "registration_endpoint":
+                    model.registration_endpoint = readString(in);
+                    return true;
+                case "request_object_signing_alg_values_supported":
+                    model.request_object_signing_alg_values_supported = readStringArray(in);
+                    return true;
+                case "request_parameter_supported":
+                    model.request_parameter_supported =
+                            readBoolean(in, model.request_parameter_supported);
+                    return true;
+                case "response_modes_supported":
+                    model.response_modes_supported = readStringArray(in);
+                    return true;
+                case "response_types_supported":
+                    model.response_types_supported = readStringArray(in);
+                    return true;
+                case "revocation_endpoint":
+                    model.revocation_endpoint = readString(in);
+                    return true;
+                case "revocation_endpoint_auth_methods_supported":
+                    model.revocation_endpoint_auth_methods_supported = readStringArray(in);
+                    return true;
+                case "scopes_supported":
+                    model.scopes_supported = readStringArray(in);
+                    return true;
+                case "subject_types_supported":
+                    model.subject_types_supported = readStringArray(in);
+                    return true;
+                case "token_endpoint":
+                    model.token_endpoint = readString(in);
+                    return true;
+                case "token_endpoint_auth_methods_supported":
+                    model.token_endpoint_auth_methods_supported = readStringArray(in);
+                    return true;
+                case "userinfo_endpoint":
+                    model.userinfo_endpoint = readString(in);
+                    return true;
+                case "id_token_signing_alg_values_supported":
+                    model.id_token_signing_alg_values_supported = readStringArray(in);
+                    return true;
+                case "etag":
+                    model.etag = readString(in);
+                    return true;
+                case "expiresAt":
+                    model.expiresAt = readLong(in, model.expiresAt);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        protected void writeMembers(@NonNull ProviderConfiguration model, @NonNull JsonWriter out)
+                throws IOException {
+            writeString(out, "authorization_endpoint", model.authorization_endpoint);
+            writeStringArray(out, "claims_supported", model.claims_supported);
+            writeStringArray(out, "code_challenge_methods_supported",
+                    model.code_challenge_methods_supported);
+            writeString(out, "end_session_endpoint", model.end_session_endpoint);
+            writeStringArray(out, "grant_types_supported", model.grant_types_supported);
+            writeString(out, "introspection_endpoint", model.introspection_endpoint);
+            writeStringArray(out, "introspection_endpoint_auth_methods_supported",
+                    model.introspection_endpoint_auth_methods_supported);
+            writeString(out, "issuer", model.issuer);
+            writeString(out, "jwks_uri", model.jwks_uri);
+            writeString(out, "registration_endpoint", model.registration_endpoint);
+            writeStringArray(out, "request_object_signing_alg_values_supported",
+                    model.request_object_signing_alg_values_supported);
+            out.name("request_parameter_supported").value(model.request_parameter_supported);
+            writeStringArray(out, "response_modes_supported", model.response_modes_supported);
+            writeStringArray(out, "response_types_supported", model.response_types_supported);
+            writeString(out, "revocation_endpoint", model.revocation_endpoint);
+            writeStringArray(out, "revocation_endpoint_auth_methods_supported",
+                    model.revocation_endpoint_auth_methods_supported);
+            writeStringArray(out, "scopes_supported", model.scopes_supported);
+            writeStringArray(out, "subject_types_supported", model.subject_types_supported);
+            writeString(out, "token_endpoint", model.token_endpoint);
+            writeStringArray(out, "token_endpoint_auth_methods_supported",
+                    model.token_endpoint_auth_methods_supported);
+            writeString(out, "userinfo_endpoint", model.userinfo_endpoint);
+            writeStringArray(out, "id_token_signing_alg_values_supported",
+                    model.id_token_signing_alg_values_supported);
+            writeString(out, "etag", model.etag);
+            if (model.expiresAt >= 0) {
+                out.name("expiresAt").value(model.expiresAt);
+            }
+        }
+    };
 }
@@ -38,6 +38,7 @@ public class RefreshTokenRequest extends TokenRequest {
         mConfig = b.mConfig;
         refresh_token = b.mTokenResponse.getRefreshToken();
         mProviderConfiguration = b.mProviderConfiguration;
+        mKeyCache = b.mKeyCache;
         mUri = Uri.parse(b.mProviderConfiguration.token_endpoint);
         client_id = b.mConfig.getClientId();
         grant_type = b.mGrantType;
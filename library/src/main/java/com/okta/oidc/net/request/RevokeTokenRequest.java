@@ -46,6 +46,12 @@ public class RevokeTokenRequest extends BaseRequest<Boolean, AuthorizationExcept
                 .create();
     }
 
+    //revoking a token that is already revoked succeeds as well.
+    @Override
+    protected boolean isIdempotent() {
+        return true;
+    }
+
     @Override
     public Boolean executeRequest(OktaHttpClient client) throws AuthorizationException {
         AuthorizationException exception = null;
@@ -22,8 +22,8 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonIOException;
+import com.okta.oidc.JsonWebKeyCache;
 import com.okta.oidc.OIDCConfig;
 import com.okta.oidc.OktaIdToken;
 import com.okta.oidc.net.ConnectionParameters;
@@ -34,7 +34,6 @@ import com.okta.oidc.util.AuthorizationException;
 import com.okta.oidc.util.UriUtil;
 
 import org.json.JSONException;
-import org.json.JSONObject;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -66,6 +65,7 @@ public class TokenRequest extends BaseRequest<TokenResponse, AuthorizationExcept
     private String nonce;
     protected OIDCConfig mConfig;
     protected ProviderConfiguration mProviderConfiguration;
+    protected JsonWebKeyCache mKeyCache;
 
     //if set, used to verify idtoken auth_Time
     private String mMaxAge;
@@ -78,6 +78,7 @@ public class TokenRequest extends BaseRequest<TokenResponse, AuthorizationExcept
         mRequestType = b.mRequestType;
         mConfig = b.mConfig;
         mProviderConfiguration = b.mProviderConfiguration;
+        mKeyCache = b.mKeyCache;
         mUri = Uri.parse(mProviderConfiguration.token_endpoint);
         client_id = b.mConfig.getClientId();
         redirect_uri = b.mConfig.getRedirectUri().toString();
@@ -132,30 +133,30 @@ public class TokenRequest extends BaseRequest<TokenResponse, AuthorizationExcept
         TokenResponse tokenResponse;
         try {
             response = openConnection(client);
-            JSONObject json = response.asJsonWithErrorDescription();
-            if (json.has(AuthorizationException.PARAM_ERROR)) {
-                try {
-                    final String error = json.getString(AuthorizationException.PARAM_ERROR);
-                    throw AuthorizationException.fromOAuthTemplate(
-                            AuthorizationException.TokenRequestErrors.byString(error),
-                            error,
-                            json.optString(AuthorizationException.PARAM_ERROR_DESCRIPTION,
-                                    null),
-                            UriUtil.parseUriIfAvailable(
-                                    json.optString(AuthorizationException.PARAM_ERROR_URI)));
-                } catch (JSONException jsonEx) {
+            tokenResponse = response.asJsonWithErrorDescription(TokenResponse.ADAPTER);
+            if (tokenResponse.hasError()) {
+                final String error = tokenResponse.getError();
+                if (error == null) {
                     throw AuthorizationException.fromTemplate(
                             AuthorizationException.GeneralErrors.JSON_DESERIALIZATION_ERROR,
-                            jsonEx);
+                            new JSONException("error is mapped to a null value"));
                 }
+                String errorUri = tokenResponse.getErrorUri();
+                throw AuthorizationException.fromOAuthTemplate(
+                        AuthorizationException.TokenRequestErrors.byString(error),
+                        error,
+                        tokenResponse.getErrorDescription(),
+                        UriUtil.parseUriIfAvailable(errorUri == null ? "" : errorUri));
             }
-            tokenResponse = new Gson().fromJson(json.toString(), TokenResponse.class);
             tokenResponse.validate();
             tokenResponse.setCreationTime(System.currentTimeMillis());
             if (tokenResponse.getIdToken() != null) {
                 OktaIdToken idToken;
                 try {
                     idToken = OktaIdToken.parseIdToken(tokenResponse.getIdToken());
+                    //the sections are decoded lazily, decode them before the validation.
+                    idToken.getHeader();
+                    idToken.getIssuer();
                 } catch (IllegalArgumentException | JsonIOException ex) {
                     Log.e(TAG, "", ex);
                     throw AuthorizationException.fromTemplate(
@@ -163,6 +164,9 @@ public class TokenRequest extends BaseRequest<TokenResponse, AuthorizationExcept
                             ex);
                 }
                 idToken.validate(this, mConfig.getIdTokenValidator());
+                if (mKeyCache != null && mConfig.isIdTokenSignatureVerified()) {
+                    mKeyCache.verify(idToken, this, client);
+                }
             }
             return tokenResponse;
         } catch (IOException ex) {
@@ -22,7 +22,9 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
-import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.okta.oidc.AuthenticationPayload;
 import com.okta.oidc.OIDCConfig;
 import com.okta.oidc.net.params.ResponseType;
@@ -31,7 +33,10 @@ import com.okta.oidc.net.request.ProviderConfiguration;
 import com.okta.oidc.util.AsciiStringListUtil;
 import com.okta.oidc.util.AuthorizationException;
 import com.okta.oidc.util.CodeVerifierUtil;
+import com.okta.oidc.util.GsonUtil;
+import com.okta.oidc.util.ModelAdapter;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -102,7 +107,7 @@ public class AuthorizeRequest extends WebRequest {
     @Override
     public String persist() {
         mParameters.request_type = "authorize";
-        return new Gson().toJson(mParameters);
+        return GsonUtil.toJson(Parameters.ADAPTER, mParameters);
     }
 
     public static class Parameters {
@@ -114,6 +119,40 @@ public class AuthorizeRequest extends WebRequest {
         Map<String, String> queryParams = new HashMap<>();
         Map<String, String> mPayloadParams;
 
+        static final TypeAdapter<Parameters> ADAPTER = new ModelAdapter<Parameters>() {
+            @NonNull
+            @Override
+            protected Parameters create() {
+                return new Parameters();
+            }
+
+            @Override
+            protected boolean readMember(@NonNull Parameters model, @NonNull String name,
+                                         @NonNull JsonReader in) throws IOException {
+                switch (name) {
+                    case "request_type":
+                        model.request_type = readString(in);
+                        return true;
+                    case "queryParams":
+                        model.queryParams = readStringMap(in);
+                        return true;
+                    case "mPayloadParams":
+                        model.mPayloadParams = readStringMap(in);
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+
+            @Override
+            protected void writeMembers(@NonNull Parameters model, @NonNull JsonWriter out)
+                    throws IOException {
+                writeString(out, "request_type", model.request_type);
+                writeStringMap(out, "queryParams", model.queryParams);
+                writeStringMap(out, "mPayloadParams", model.mPayloadParams);
+            }
+        };
+
         public Uri toUri() {
             Uri.Builder uriBuilder = Uri.parse(queryParams.get(AUTHORIZE_ENDPOINT))
                     .buildUpon();
@@ -22,12 +22,18 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
-import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.okta.oidc.OIDCConfig;
 import com.okta.oidc.net.request.ProviderConfiguration;
 import com.okta.oidc.net.response.TokenResponse;
 import com.okta.oidc.util.AuthorizationException;
 import com.okta.oidc.util.CodeVerifierUtil;
+import com.okta.oidc.util.GsonUtil;
+import com.okta.oidc.util.ModelAdapter;
+
+import java.io.IOException;
 
 /**
  * @hide
@@ -62,7 +68,7 @@ public class LogoutRequest extends WebRequest {
 
     @Override
     public String persist() {
-        return new Gson().toJson(mParameters);
+        return GsonUtil.toJson(Parameters.ADAPTER, mParameters);
     }
 
     static class Parameters {
@@ -75,6 +81,44 @@ public class LogoutRequest extends WebRequest {
         String post_logout_redirect_uri; //required
         String state;
 
+        static final TypeAdapter<Parameters> ADAPTER = new ModelAdapter<Parameters>() {
+            @NonNull
+            @Override
+            protected Parameters create() {
+                return new Parameters();
+            }
+
+            @Override
+            protected boolean readMember(@NonNull Parameters model, @NonNull String name,
+                                         @NonNull JsonReader in) throws IOException {
+                switch (name) {
+                    case "end_session_endpoint":
+                        model.end_session_endpoint = readString(in);
+                        return true;
+                    case "id_token_hint":
+                        model.id_token_hint = readString(in);
+                        return true;
+                    case "post_logout_redirect_uri":
+                        model.post_logout_redirect_uri = readString(in);
+                        return true;
+                    case "state":
+                        model.state = readString(in);
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+
+            @Override
+            protected void writeMembers(@NonNull Parameters model, @NonNull JsonWriter out)
+                    throws IOException {
+                writeString(out, "end_session_endpoint", model.end_session_endpoint);
+                writeString(out, "id_token_hint", model.id_token_hint);
+                writeString(out, "post_logout_redirect_uri", model.post_logout_redirect_uri);
+                writeString(out, "state", model.state);
+            }
+        };
+
         Uri toUri() {
             Uri.Builder uriBuilder = Uri.parse(end_session_endpoint).buildUpon()
                     .appendQueryParameter("id_token_hint", id_token_hint);
@@ -21,8 +21,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
-import com.google.gson.Gson;
 import com.okta.oidc.storage.Persistable;
+import com.okta.oidc.util.GsonUtil;
 
 /**
  * @hide
@@ -48,11 +48,11 @@ public abstract class WebRequest implements Persistable {
         public WebRequest restore(@Nullable String data) {
             if (data != null) {
                 if (data.contains("authorize")) {
-                    return new AuthorizeRequest(new Gson()
-                            .fromJson(data, AuthorizeRequest.Parameters.class));
+                    return new AuthorizeRequest(GsonUtil
+                            .fromJson(AuthorizeRequest.Parameters.ADAPTER, data));
                 } else {
-                    return new LogoutRequest(new Gson()
-                            .fromJson(data, LogoutRequest.Parameters.class));
+                    return new LogoutRequest(GsonUtil
+                            .fromJson(LogoutRequest.Parameters.ADAPTER, data));
                 }
             }
             return null;
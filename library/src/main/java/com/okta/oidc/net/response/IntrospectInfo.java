@@ -15,7 +15,16 @@
 
 package com.okta.oidc.net.response;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.okta.oidc.util.ModelAdapter;
+
+import java.io.IOException;
 
 /**
  * Encapsulates the response properties of the introspect endpoint.
@@ -168,4 +177,84 @@ public final class IntrospectInfo {
     public String getUid() {
         return uid;
     }
+
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static final TypeAdapter<IntrospectInfo> ADAPTER =
+            new ModelAdapter<IntrospectInfo>() {
+        @NonNull
+        @Override
+        protected IntrospectInfo create() {
+            return new IntrospectInfo();
+        }
+
+        @Override
+        protected boolean readMember(@NonNull IntrospectInfo model, @NonNull String name,
+                                     @NonNull JsonReader in) throws IOException {
+            switch (name) {
+                case "active":
+                    model.active = readBoolean(in, model.active);
+                    return true;
+                case "token_type":
+                    model.token_type = readString(in);
+                    return true;
+                case "scope":
+                    model.scope = readString(in);
+                    return true;
+                case "client_id":
+                    model.client_id = readString(in);
+                    return true;
+                case "device_id":
+                    model.device_id = readString(in);
+                    return true;
+                case "username":
+                    model.username = readString(in);
+                    return true;
+                case "nbf":
+                    model.nbf = readInt(in, model.nbf);
+                    return true;
+                case "exp":
+                    model.exp = readInt(in, model.exp);
+                    return true;
+                case "iat":
+                    model.iat = readInt(in, model.iat);
+                    return true;
+                case "sub":
+                    model.sub = readString(in);
+                    return true;
+                case "aud":
+                    model.aud = readString(in);
+                    return true;
+                case "iss":
+                    model.iss = readString(in);
+                    return true;
+                case "jti":
+                    model.jti = readString(in);
+                    return true;
+                case "uid":
+                    model.uid = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        protected void writeMembers(@NonNull IntrospectInfo model, @NonNull JsonWriter out)
+                throws IOException {
+            out.name("active").value(model.active);
+            writeString(out, "token_type", model.token_type);
+            writeString(out, "scope", model.scope);
+            writeString(out, "client_id", model.client_id);
+            writeString(out, "device_id", model.device_id);
+            writeString(out, "username", model.username);
+            out.name("nbf").value(model.nbf);
+            out.name("exp").value(model.exp);
+            out.name("iat").value(model.iat);
+            writeString(out, "sub", model.sub);
+            writeString(out, "aud", model.aud);
+            writeString(out, "iss", model.iss);
+            writeString(out, "jti", model.jti);
+            writeString(out, "uid", model.uid);
+        }
+    };
 }
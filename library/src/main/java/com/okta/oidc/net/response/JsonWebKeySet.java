@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.net.response;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.okta.oidc.storage.Persistable;
+import com.okta.oidc.util.GsonUtil;
+import com.okta.oidc.util.ModelAdapter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @hide The keys published at the jwks_uri of the provider. Persisted together with the uri
+ * they were fetched from so keys of another authorization server are never used.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc7517#section-5">JWK Set Format</a>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public class JsonWebKeySet implements Persistable {
+    private List<JsonWebKey> keys;
+    private String jwks_uri;
+
+    /**
+     * A single key of the set.
+     */
+    public static class JsonWebKey {
+        private String kid;
+        private String kty;
+        private String alg;
+        private String use;
+        private String n;
+        private String e;
+
+        public String getKeyId() {
+            return kid;
+        }
+
+        public String getKeyType() {
+            return kty;
+        }
+
+        public String getAlgorithm() {
+            return alg;
+        }
+
+        public String getUse() {
+            return use;
+        }
+
+        /**
+         * The modulus of a RSA key, base64url encoded.
+         *
+         * @return the modulus.
+         */
+        public String getModulus() {
+            return n;
+        }
+
+        /**
+         * The exponent of a RSA key, base64url encoded.
+         *
+         * @return the exponent.
+         */
+        public String getExponent() {
+            return e;
+        }
+    }
+
+    @NonNull
+    public List<JsonWebKey> getKeys() {
+        return keys == null ? Collections.emptyList() : keys;
+    }
+
+    @Nullable
+    public String getJwksUri() {
+        return jwks_uri;
+    }
+
+    public void setJwksUri(String jwksUri) {
+        jwks_uri = jwksUri;
+    }
+
+    public static final Persistable.Restore<JsonWebKeySet> RESTORE =
+            new Persistable.Restore<JsonWebKeySet>() {
+                private static final String KEY = "JsonWebKeySet";
+
+                @NonNull
+                @Override
+                public String getKey() {
+                    return KEY;
+                }
+
+                @Override
+                public JsonWebKeySet restore(@Nullable String data) {
+                    if (data != null) {
+                        return GsonUtil.fromJson(ADAPTER, data);
+                    }
+                    return null;
+                }
+            };
+
+    @NonNull
+    @Override
+    public String getKey() {
+        return RESTORE.getKey();
+    }
+
+    @Override
+    public String persist() {
+        return GsonUtil.toJson(ADAPTER, this);
+    }
+
+    private static final TypeAdapter<JsonWebKey> KEY_ADAPTER = new ModelAdapter<JsonWebKey>() {
+        @NonNull
+        @Override
+        protected JsonWebKey create() {
+            return new JsonWebKey();
+        }
+
+        @Override
+        protected boolean readMember(@NonNull JsonWebKey model, @NonNull String name,
+                                     @NonNull JsonReader in) throws IOException {
+            switch (name) {
+                case "kid":
+                    model.kid = readString(in);
+                    return true;
+                case "kty":
+                    model.kty = readString(in);
+                    return true;
+                case "alg":
+                    model.alg = readString(in);
+                    return true;
+                case "use":
+                    model.use = readString(in);
+                    return true;
+                case "n":
+                    model.n = readString(in);
+                    return true;
+                case "e":
+                    model.e = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        protected void writeMembers(@NonNull JsonWebKey model, @NonNull JsonWriter out)
+                throws IOException {
+            writeString(out, "kid", model.kid);
+            writeString(out, "kty", model.kty);
+            writeString(out, "alg", model.alg);
+            writeString(out, "use", model.use);
+            writeString(out, "n", model.n);
+            writeString(out, "e", model.e);
+        }
+    };
+
+    public static final TypeAdapter<JsonWebKeySet> ADAPTER = new ModelAdapter<JsonWebKeySet>() {
+        @NonNull
+        @Override
+        protected JsonWebKeySet create() {
+            return new JsonWebKeySet();
+        }
+
+        @Override
+        protected boolean readMember(@NonNull JsonWebKeySet model, @NonNull String name,
+                                     @NonNull JsonReader in) throws IOException {
+            switch (name) {
+                case "keys":
+                    model.keys = readKeys(in);
+                    return true;
+                case "jwks_uri":
+                    model.jwks_uri = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        protected void writeMembers(@NonNull JsonWebKeySet model, @NonNull JsonWriter out)
+                throws IOException {
+            if (model.keys != null) {
+                out.name("keys").beginArray();
+                for (JsonWebKey key : model.keys) {
+                    KEY_ADAPTER.write(out, key);
+                }
+                out.endArray();
+            }
+            writeString(out, "jwks_uri", model.jwks_uri);
+        }
+    };
+
+    private static List<JsonWebKey> readKeys(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<JsonWebKey> keys = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            JsonWebKey key = KEY_ADAPTER.read(in);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        in.endArray();
+        return keys;
+    }
+}
@@ -22,8 +22,14 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 
-import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.okta.oidc.storage.Persistable;
+import com.okta.oidc.util.GsonUtil;
+import com.okta.oidc.util.ModelAdapter;
+
+import java.io.IOException;
 
 /**
  * @hide
@@ -39,6 +45,11 @@ public class TokenResponse implements Persistable {
     private String refresh_token;
     private String id_token;
     private long expiresAt = -1;
+    //the error of a failed token request, read from the response but never persisted.
+    private transient boolean hasError;
+    private transient String error;
+    private transient String error_description;
+    private transient String error_uri;
 
     @VisibleForTesting
     public static final String MISSING_ACCESS_TOKEN_ERROR = "access_token is missing";
@@ -75,6 +86,31 @@ public class TokenResponse implements Persistable {
         return id_token;
     }
 
+    /**
+     * Checks if the response has an error member, see
+     * <a href="https://tools.ietf.org/html/rfc6749#section-5.2">Error Response</a>.
+     *
+     * @return true if the token request failed.
+     */
+    public boolean hasError() {
+        return hasError;
+    }
+
+    @Nullable
+    public String getError() {
+        return error;
+    }
+
+    @Nullable
+    public String getErrorDescription() {
+        return error_description;
+    }
+
+    @Nullable
+    public String getErrorUri() {
+        return error_uri;
+    }
+
     public TokenResponse() {
         //NO-OP
     }
@@ -88,7 +124,7 @@ public class TokenResponse implements Persistable {
 
     public long getExpiresAt() {
         if (expiresAt > 0) {
-            expiresAt += Integer.parseInt(expires_in) * THOUSAND;
+            return expiresAt + Integer.parseInt(expires_in) * THOUSAND;
         }
         return expiresAt;
     }
@@ -118,7 +154,7 @@ public class TokenResponse implements Persistable {
                 @Override
                 public TokenResponse restore(@Nullable String data) {
                     if (data != null) {
-                        return new Gson().fromJson(data, TokenResponse.class);
+                        return GsonUtil.fromJson(ADAPTER, data);
                     }
                     return null;
                 }
@@ -133,6 +169,66 @@ public class TokenResponse implements Persistable {
 
     @Override
     public String persist() {
-        return new Gson().toJson(this);
+        return GsonUtil.toJson(ADAPTER, this);
     }
+
+    public static final TypeAdapter<TokenResponse> ADAPTER = new ModelAdapter<TokenResponse>() {
+        @NonNull
+        @Override
+        protected TokenResponse create() {
+            return new TokenResponse();
+        }
+
+        @Override
+        protected boolean readMember(@NonNull TokenResponse model, @NonNull String name,
+                                     @NonNull JsonReader in) throws IOException {
+            switch (name) {
+                case "access_token":
+                    model.access_token = readString(in);
+                    return true;
+                case "token_type":
+                    model.token_type = readString(in);
+                    return true;
+                case "expires_in":
+                    model.expires_in = readString(in);
+                    return true;
+                case "scope":
+                    model.scope = readString(in);
+                    return true;
+                case "refresh_token":
+                    model.refresh_token = readString(in);
+                    return true;
+                case "id_token":
+                    model.id_token = readString(in);
+                    return true;
+                case "expiresAt":
+                    model.expiresAt = readLong(in, model.expiresAt);
+                    return true;
+                case "error":
+                    model.hasError = true;
+                    model.error = readString(in);
+                    return true;
+                case "error_description":
+                    model.error_description = readString(in);
+                    return true;
+                case "error_uri":
+                    model.error_uri = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        protected void writeMembers(@NonNull TokenResponse model, @NonNull JsonWriter out)
+                throws IOException {
+            writeString(out, "access_token", model.access_token);
+            writeString(out, "token_type", model.token_type);
+            writeString(out, "expires_in", model.expires_in);
+            writeString(out, "scope", model.scope);
+            writeString(out, "refresh_token", model.refresh_token);
+            writeString(out, "id_token", model.id_token);
+            out.name("expiresAt").value(model.expiresAt);
+        }
+    };
 }
@@ -17,11 +17,12 @@ package com.okta.oidc.net.response;
 
 import androidx.annotation.NonNull;
 
-import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.okta.oidc.util.GsonUtil;
 
 import org.json.JSONObject;
 
+import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,6 +33,8 @@ import java.util.Map;
  * User info properties</a>
  */
 public class UserInfo {
+    private static final Type MAP_TYPE = new TypeToken<HashMap<String, Object>>() {
+    }.getType();
     private Map<String, Object> map;
     private JSONObject raw;
 
@@ -45,10 +48,7 @@ public class UserInfo {
         if (raw == null) {
             this.map = new HashMap<>();
         } else {
-            this.map = new Gson().fromJson(
-                    raw.toString(), new TypeToken<HashMap<String, Object>>() {
-                    }.getType()
-            );
+            this.map = GsonUtil.getGson().fromJson(raw.toString(), MAP_TYPE);
         }
     }
 
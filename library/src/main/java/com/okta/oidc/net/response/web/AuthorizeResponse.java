@@ -20,7 +20,13 @@ import android.net.Uri;
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 
-import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.okta.oidc.util.GsonUtil;
+import com.okta.oidc.util.ModelAdapter;
+
+import java.io.IOException;
 
 /**
  * @hide
@@ -112,6 +118,81 @@ public class AuthorizeResponse extends WebResponse {
 
     @Override
     public String persist() {
-        return new Gson().toJson(this);
+        return GsonUtil.toJson(ADAPTER, this);
     }
+
+    public static final TypeAdapter<AuthorizeResponse> ADAPTER =
+            new ModelAdapter<AuthorizeResponse>() {
+        @NonNull
+        @Override
+        protected AuthorizeResponse create() {
+            return new AuthorizeResponse();
+        }
+
+        @Override
+        protected boolean readMember(@NonNull AuthorizeResponse model, @NonNull String name,
+                                     @NonNull JsonReader in) throws IOException {
+            switch (name) {
+                case "request_type":
+                    model.request_type = readString(in);
+                    return true;
+                case "code":
+                    model.code = readString(in);
+                    return true;
+                case "error":
+                    model.error = readString(in);
+                    return true;
+                case "error_description":
+                    model.error_description = readString(in);
+                    return true;
+                case "expires_in":
+                    model.expires_in = readString(in);
+                    return true;
+                case "id_token":
+                    model.id_token = readString(in);
+                    return true;
+                case "scope":
+                    model.scope = readString(in);
+                    return true;
+                case "state":
+                    model.state = readString(in);
+                    return true;
+                case "token_type":
+                    model.token_type = readString(in);
+                    return true;
+                case "iss":
+                    model.iss = readString(in);
+                    return true;
+                case "type_hint":
+                    model.type_hint = readString(in);
+                    return true;
+                case "session_hint":
+                    model.session_hint = readString(in);
+                    return true;
+                case "login_hint":
+                    model.login_hint = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        protected void writeMembers(@NonNull AuthorizeResponse model, @NonNull JsonWriter out)
+                throws IOException {
+            writeString(out, "request_type", model.request_type);
+            writeString(out, "code", model.code);
+            writeString(out, "error", model.error);
+            writeString(out, "error_description", model.error_description);
+            writeString(out, "expires_in", model.expires_in);
+            writeString(out, "id_token", model.id_token);
+            writeString(out, "scope", model.scope);
+            writeString(out, "state", model.state);
+            writeString(out, "token_type", model.token_type);
+            writeString(out, "iss", model.iss);
+            writeString(out, "type_hint", model.type_hint);
+            writeString(out, "session_hint", model.session_hint);
+            writeString(out, "login_hint", model.login_hint);
+        }
+    };
 }
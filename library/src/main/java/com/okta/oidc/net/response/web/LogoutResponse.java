@@ -20,7 +20,13 @@ import android.net.Uri;
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 
-import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.okta.oidc.util.GsonUtil;
+import com.okta.oidc.util.ModelAdapter;
+
+import java.io.IOException;
 
 /**
  * @hide
@@ -51,7 +57,32 @@ public class LogoutResponse extends WebResponse {
 
     @Override
     public String persist() {
-        return new Gson().toJson(this);
+        return GsonUtil.toJson(ADAPTER, this);
     }
 
+    public static final TypeAdapter<LogoutResponse> ADAPTER = new ModelAdapter<LogoutResponse>() {
+        @NonNull
+        @Override
+        protected LogoutResponse create() {
+            return new LogoutResponse();
+        }
+
+        @Override
+        protected boolean readMember(@NonNull LogoutResponse model, @NonNull String name,
+                                     @NonNull JsonReader in) throws IOException {
+            switch (name) {
+                case "state":
+                    model.state = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        protected void writeMembers(@NonNull LogoutResponse model, @NonNull JsonWriter out)
+                throws IOException {
+            writeString(out, "state", model.state);
+        }
+    };
 }
@@ -25,11 +25,18 @@ import androidx.annotation.RestrictTo;
 import com.okta.oidc.storage.security.BaseEncryptionManager;
 import com.okta.oidc.storage.security.EncryptionManager;
 
+import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.security.InvalidParameterException;
 import java.security.ProviderException;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.IllegalBlockSizeException;
 
@@ -49,12 +56,19 @@ public class OktaRepository {
     private static final int MAX_WAIT_TIME_MILLISECONDS_BEFORE_RETRY = 100;
 
     private final OktaStorage storage;
-    private EncryptionManager encryptionManager;
+    private volatile EncryptionManager encryptionManager;
     private boolean requireHardwareBackedKeyStore;
     private boolean cacheMode;
-    final Map<String, String> cacheStorage = new HashMap<>();
+    // Restored objects keyed by hashed key, so cached reads skip decryption and parsing.
+    final Map<String, Persistable> cacheStorage = new ConcurrentHashMap<>();
 
-    private final Object lock = new Object();
+    /*
+     * Reads and writes of the same key are serialized by a per key lock, cached reads don't
+     * take any lock. Encryption managers that aren't thread safe are called one at a time
+     * under cryptoLock.
+     */
+    private final ConcurrentHashMap<String, Object> keyLocks = new ConcurrentHashMap<>();
+    private final Object cryptoLock = new Object();
 
     public OktaRepository(OktaStorage storage, Context context,
                           @Nullable EncryptionManager encryptionManager,
@@ -74,103 +88,119 @@ public class OktaRepository {
         if (persistable == null) {
             return;
         }
-        synchronized (lock) {
-            if (!requireHardwareBackedKeyStore || encryptionManager != null &&
-                    encryptionManager.isHardwareBackedKeyStore()) {
-                String encryptedData;
-                if (android.os.Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    try {
-                        encryptedData = getEncrypted(persistable.persist());
-                        storage.save(getHashed(persistable.getKey()), encryptedData);
-                    } catch (BaseEncryptionManager.OktaUserNotAuthenticateException e) {
-                        String error = "Failed during encrypt data: " + e.getMessage();
-                        throw new EncryptionException(ENCRYPT_ERROR, error, e.getCause());
-                    } catch (IllegalBlockSizeException e) {
-                        String error = "Unable to encrypt " + persistable.getKey() + " the " +
-                                "cipher algorithm may not be supported on this device" +
-                                e.getMessage();
-                        throw new EncryptionException(ILLEGAL_BLOCK_SIZE, error,
-                                e.getCause());
-                    } catch (GeneralSecurityException e) {
-                        throw new EncryptionException(INVALID_KEYS_ERROR, e.getMessage(),
-                                e.getCause());
-                    } catch (InvalidParameterException e) {
-                        throw new EncryptionException(ENCRYPT_ERROR, e.getMessage(),
-                                e.getCause());
-                    }
-                } else {
-                    try {
-                        encryptedData = getEncrypted(persistable.persist());
-                        storage.save(getHashed(persistable.getKey()), encryptedData);
-                    } catch (GeneralSecurityException e) {
-                        throw new EncryptionException(INVALID_KEYS_ERROR, e.getMessage(),
-                                e.getCause());
-                    }
-                }
-            } else {
-                throw new EncryptionException(HARDWARE_BACKED_ERROR,
-                        "Client require hardware backed keystore, " +
-                                "but EncryptionManager doesn't support it.", null);
-            }
+        String key = getHashed(persistable.getKey());
+        synchronized (lockFor(key)) {
+            storage.save(key, encrypt(encryptionManager, persistable.getKey(),
+                    persistable.persist()));
             if (cacheMode) {
-                cacheStorage.put(getHashed(persistable.getKey()),
-                        persistable.persist());
+                cacheStorage.put(key, persistable);
             }
         }
     }
 
+    @SuppressWarnings("unchecked")
     public <T extends Persistable> T get(Persistable.Restore<T> persistable)
             throws EncryptionException {
-        synchronized (lock) {
-            String data;
-            String key = getHashed(persistable.getKey());
-            if (cacheMode && cacheStorage.get(key) != null) {
-                data = cacheStorage.get(key);
-            } else {
-                data = storage.get(key);
-
-                if (android.os.Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    try {
-                        data = getDecrypted(data);
-                    } catch (BaseEncryptionManager.OktaUserNotAuthenticateException e) {
-                        String error = "User not authenticated and try to decrypt data: " +
-                                e.getMessage();
-                        throw new EncryptionException(KEYGUARD_AUTHENTICATION_ERROR, error,
-                                e.getCause());
-                    } catch (IllegalBlockSizeException e) {
-                        String error = "Unable to decrypt " + persistable.getKey() + " the key " +
-                                "used may be invalidated. Please clear data and try again. " +
-                                e.getMessage();
-                        throw new EncryptionException(ILLEGAL_BLOCK_SIZE, error,
-                                e.getCause());
-                    } catch (GeneralSecurityException e) {
-                        throw new EncryptionException(INVALID_KEYS_ERROR, e.getMessage(),
-                                e.getCause());
-                    } catch (InvalidParameterException e) {
-                        throw new EncryptionException(DECRYPT_ERROR, e.getMessage(),
-                                e.getCause());
-                    }
-                } else {
-                    try {
-                        data = getDecrypted(data);
-                    } catch (GeneralSecurityException e) {
-                        throw new EncryptionException(INVALID_KEYS_ERROR, e.getMessage(),
-                                e.getCause());
-                    }
+        String key = getHashed(persistable.getKey());
+        if (cacheMode) {
+            Persistable cached = cacheStorage.get(key);
+            if (cached != null) {
+                return (T) cached;
+            }
+        }
+        synchronized (lockFor(key)) {
+            if (cacheMode) {
+                Persistable cached = cacheStorage.get(key);
+                if (cached != null) {
+                    return (T) cached;
                 }
+            }
+            String data = decrypt(encryptionManager, persistable.getKey(), storage.get(key));
+            T restored = persistable.restore(data);
+            if (cacheMode && restored != null) {
+                cacheStorage.put(key, restored);
+            }
+            return restored;
+        }
+    }
 
-                if (cacheMode) {
-                    cacheStorage.put(key, data);
-                }
+    private String encrypt(EncryptionManager manager, String name, String data)
+            throws EncryptionException {
+        if (requireHardwareBackedKeyStore && (manager == null ||
+                !manager.isHardwareBackedKeyStore())) {
+            throw new EncryptionException(HARDWARE_BACKED_ERROR,
+                    "Client require hardware backed keystore, " +
+                            "but EncryptionManager doesn't support it.", null);
+        }
+        if (android.os.Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            try {
+                return getEncrypted(manager, data);
+            } catch (BaseEncryptionManager.OktaUserNotAuthenticateException e) {
+                String error = "Failed during encrypt data: " + e.getMessage();
+                throw new EncryptionException(ENCRYPT_ERROR, error, e.getCause());
+            } catch (IllegalBlockSizeException e) {
+                String error = "Unable to encrypt " + name + " the " +
+                        "cipher algorithm may not be supported on this device" +
+                        e.getMessage();
+                throw new EncryptionException(ILLEGAL_BLOCK_SIZE, error,
+                        e.getCause());
+            } catch (GeneralSecurityException e) {
+                throw new EncryptionException(INVALID_KEYS_ERROR, e.getMessage(),
+                        e.getCause());
+            } catch (InvalidParameterException e) {
+                throw new EncryptionException(ENCRYPT_ERROR, e.getMessage(),
+                        e.getCause());
+            }
+        } else {
+            try {
+                return getEncrypted(manager, data);
+            } catch (GeneralSecurityException e) {
+                throw new EncryptionException(INVALID_KEYS_ERROR, e.getMessage(),
+                        e.getCause());
+            }
+        }
+    }
+
+    private String decrypt(EncryptionManager manager, String name, String data)
+            throws EncryptionException {
+        if (android.os.Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            try {
+                return getDecrypted(manager, data);
+            } catch (BaseEncryptionManager.OktaUserNotAuthenticateException e) {
+                String error = "User not authenticated and try to decrypt data: " +
+                        e.getMessage();
+                throw new EncryptionException(KEYGUARD_AUTHENTICATION_ERROR, error,
+                        e.getCause());
+            } catch (IllegalBlockSizeException e) {
+                String error = "Unable to decrypt " + name + " the key " +
+                        "used may be invalidated. Please clear data and try again. " +
+                        e.getMessage();
+                throw new EncryptionException(ILLEGAL_BLOCK_SIZE, error,
+                        e.getCause());
+            } catch (GeneralSecurityException e) {
+                throw new EncryptionException(INVALID_KEYS_ERROR, e.getMessage(),
+                        e.getCause());
+            } catch (InvalidParameterException e) {
+                throw new EncryptionException(DECRYPT_ERROR, e.getMessage(),
+                        e.getCause());
+            }
+        } else {
+            try {
+                return getDecrypted(manager, data);
+            } catch (GeneralSecurityException e) {
+                throw new EncryptionException(INVALID_KEYS_ERROR, e.getMessage(),
+                        e.getCause());
             }
-            return persistable.restore(data);
         }
     }
 
     public boolean contains(Persistable.Restore persistable) {
-        synchronized (lock) {
-            String key = getHashed(persistable.getKey());
-            return (cacheMode && cacheStorage.get(key) != null) || storage.get(key) != null;
+        String key = getHashed(persistable.getKey());
+        if (cacheMode && cacheStorage.get(key) != null) {
+            return true;
+        }
+        synchronized (lockFor(key)) {
+            return storage.get(key) != null;
         }
     }
 
@@ -178,8 +208,8 @@ public class OktaRepository {
         if (persistable == null) {
             return;
         }
-        synchronized (lock) {
-            String key = getHashed(persistable.getKey());
+        String key = getHashed(persistable.getKey());
+        synchronized (lockFor(key)) {
             storage.delete(key);
             cacheStorage.remove(key);
         }
@@ -189,40 +219,189 @@ public class OktaRepository {
         if (key == null) {
             return;
         }
-        synchronized (lock) {
-            String hashedKey = getHashed(key);
+        String hashedKey = getHashed(key);
+        synchronized (lockFor(hashedKey)) {
             storage.delete(hashedKey);
             cacheStorage.remove(hashedKey);
         }
     }
 
-    private String getEncrypted(String value) throws GeneralSecurityException {
-        if (encryptionManager == null) {
+    /**
+     * Deletes records with a single write to the storage.
+     *
+     * @param keys the keys of the records.
+     */
+    public void deleteAll(String... keys) {
+        OktaStorage.Batch batch = new OktaStorage.Batch();
+        for (String key : keys) {
+            if (key != null) {
+                batch.delete(getHashed(key));
+            }
+        }
+        withKeyLocks(batch.getOperations().keySet(), () -> {
+            storage.apply(batch);
+            for (String key : batch.getOperations().keySet()) {
+                cacheStorage.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Encrypts records again with another encryption manager and makes it the manager of
+     * this repository. The records are written with a single write to the storage.
+     *
+     * @param manager the new encryption manager.
+     * @param keys    the keys of the records, records that aren't stored are skipped.
+     * @throws EncryptionException if a record can't be decrypted or encrypted, nothing is
+     *                             written then.
+     */
+    public void migrateTo(EncryptionManager manager, String... keys) throws EncryptionException {
+        EncryptionManager current = encryptionManager;
+        Map<String, String> oldKeys = new LinkedHashMap<>();
+        Map<String, String> newKeys = new LinkedHashMap<>();
+        Set<String> locked = new HashSet<>();
+        for (String key : keys) {
+            oldKeys.put(key, getHashed(current, key));
+            newKeys.put(key, getHashed(manager, key));
+        }
+        locked.addAll(oldKeys.values());
+        locked.addAll(newKeys.values());
+        withKeyLocks(locked, () -> {
+            OktaStorage.Batch batch = new OktaStorage.Batch();
+            for (String key : keys) {
+                String oldKey = oldKeys.get(key);
+                String newKey = newKeys.get(key);
+                String data = storage.get(oldKey);
+                if (data == null) {
+                    continue;
+                }
+                batch.delete(oldKey);
+                batch.save(newKey, encrypt(manager, key, decrypt(current, key, data)));
+            }
+            storage.apply(batch);
+            encryptionManager = manager;
+            for (String key : keys) {
+                Persistable cached = cacheStorage.remove(oldKeys.get(key));
+                if (cached != null) {
+                    cacheStorage.put(newKeys.get(key), cached);
+                }
+            }
+        });
+    }
+
+    private interface LockedAction<E extends Exception> {
+        void run() throws E;
+    }
+
+    /*
+     * Takes the locks of several keys in a fixed order, so two batches can't deadlock.
+     */
+    private <E extends Exception> void withKeyLocks(Collection<String> keys,
+                                                    LockedAction<E> action) throws E {
+        withKeyLocks(new TreeSet<>(keys).iterator(), action);
+    }
+
+    private <E extends Exception> void withKeyLocks(Iterator<String> keys,
+                                                    LockedAction<E> action) throws E {
+        if (!keys.hasNext()) {
+            action.run();
+            return;
+        }
+        synchronized (lockFor(keys.next())) {
+            withKeyLocks(keys, action);
+        }
+    }
+
+    private Object lockFor(String key) {
+        Object keyLock = keyLocks.get(key);
+        if (keyLock == null) {
+            Object newLock = new Object();
+            keyLock = keyLocks.putIfAbsent(key, newLock);
+            if (keyLock == null) {
+                keyLock = newLock;
+            }
+        }
+        return keyLock;
+    }
+
+    /*
+     * Persisted json is encoded to a compact binary record before it is encrypted by managers
+     * that encrypt raw bytes, other managers encrypt the json. Records saved by older versions
+     * as json are still read. Without an encryption manager the json is stored as is.
+     */
+    private String getEncrypted(EncryptionManager manager, String value)
+            throws GeneralSecurityException {
+        if (manager == null) {
             return value;
         }
+        if (manager.isThreadSafe()) {
+            return encrypt(manager, value);
+        }
+        synchronized (cryptoLock) {
+            return encrypt(manager, value);
+        }
+    }
+
+    private String encrypt(EncryptionManager manager, String value)
+            throws GeneralSecurityException {
+        byte[] record = manager.isBinarySupported() ? RecordCodec.encode(value) : null;
         try {
-            return encryptionManager.encrypt(value);
+            return record != null ? manager.encryptBytes(record) : manager.encrypt(value);
         } catch (ProviderException | GeneralSecurityException ex) {
             sleep();
-            return encryptionManager.encrypt(value);
+            return record != null ? manager.encryptBytes(record) : manager.encrypt(value);
         }
     }
 
-    private String getDecrypted(String value) throws GeneralSecurityException {
-        if (encryptionManager == null) {
+    private String getDecrypted(EncryptionManager manager, String value)
+            throws GeneralSecurityException {
+        if (manager == null) {
             return value;
         }
+        byte[] record;
+        if (manager.isThreadSafe()) {
+            record = decrypt(manager, value);
+        } else {
+            synchronized (cryptoLock) {
+                record = decrypt(manager, value);
+            }
+        }
         try {
-            return encryptionManager.decrypt(value);
+            return RecordCodec.decode(record);
+        } catch (IOException e) {
+            throw new GeneralSecurityException("Unable to decode record", e);
+        }
+    }
+
+    /*
+     * Managers without binary support may still hold records written as text encoded binary
+     * by an earlier version, RecordCodec.fromText reads both.
+     */
+    private byte[] decrypt(EncryptionManager manager, String value)
+            throws GeneralSecurityException {
+        try {
+            return decryptRecord(manager, value);
         } catch (ProviderException | GeneralSecurityException ex) {
             sleep();
-            return encryptionManager.decrypt(value);
+            return decryptRecord(manager, value);
         }
     }
 
+    private static byte[] decryptRecord(EncryptionManager manager, String value)
+            throws GeneralSecurityException {
+        if (manager.isBinarySupported()) {
+            return manager.decryptBytes(value);
+        }
+        return RecordCodec.fromText(manager.decrypt(value));
+    }
+
     private String getHashed(String value) {
+        return getHashed(encryptionManager, value);
+    }
+
+    private static String getHashed(EncryptionManager manager, String value) {
         try {
-            return encryptionManager.getHashed(value);
+            return manager.getHashed(value);
         } catch (Exception ex) {
             Log.d(TAG, "getHashed: ", ex);
             return value;
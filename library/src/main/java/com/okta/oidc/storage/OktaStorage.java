@@ -18,6 +18,10 @@ package com.okta.oidc.storage;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * The interface Okta storage.
  */
@@ -47,4 +51,75 @@ public interface OktaStorage {
      * @param key the key
      */
     void delete(@NonNull String key);
+
+    /**
+     * Apply a batch of saves and deletes. Storages that write to disk should write the batch
+     * at once, so clearing or migrating several records costs a single write.
+     * The default implementation applies the operations one by one.
+     *
+     * @param batch the batch
+     */
+    default void apply(@NonNull Batch batch) {
+        for (Map.Entry<String, String> operation : batch.getOperations().entrySet()) {
+            if (operation.getValue() != null) {
+                save(operation.getKey(), operation.getValue());
+            } else {
+                delete(operation.getKey());
+            }
+        }
+    }
+
+    /**
+     * Saves and deletes applied together by {@link #apply(Batch)}. A later operation on a key
+     * replaces an earlier one.
+     */
+    final class Batch {
+        private final Map<String, String> mOperations = new LinkedHashMap<>();
+
+        /**
+         * Save the data.
+         *
+         * @param key   the key
+         * @param value the value
+         * @return the batch
+         */
+        @NonNull
+        public Batch save(@NonNull String key, @NonNull String value) {
+            mOperations.remove(key);
+            mOperations.put(key, value);
+            return this;
+        }
+
+        /**
+         * Delete the data.
+         *
+         * @param key the key
+         * @return the batch
+         */
+        @NonNull
+        public Batch delete(@NonNull String key) {
+            mOperations.remove(key);
+            mOperations.put(key, null);
+            return this;
+        }
+
+        /**
+         * Get the operations in the order they were added.
+         *
+         * @return the value to save by key, a null value is a delete.
+         */
+        @NonNull
+        public Map<String, String> getOperations() {
+            return Collections.unmodifiableMap(mOperations);
+        }
+
+        /**
+         * Check if the batch has no operations.
+         *
+         * @return true if empty
+         */
+        public boolean isEmpty() {
+            return mOperations.isEmpty();
+        }
+    }
 }
@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.storage;
+
+import android.util.Base64;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @hide Compact binary encoding of persisted records. {@link Persistable#persist()} returns
+ * json, the json is encoded to binary before it is encrypted so fewer bytes go through the
+ * keystore. The encoding is lossless and the json is restored before
+ * {@link Persistable.Restore#restore(String)} is called.
+ *
+ * <p>A record starts with a marker and a version byte, followed by a json object as a
+ * length-prefixed list of members. Known member names are written as an index in
+ * {@link #NAMES}, strings made of base64url segments, like tokens, are stored decoded.
+ * Data that doesn't start with a marker is read as legacy json.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public final class RecordCodec {
+    private static final byte MARKER_RECORD = 0x01;
+    //text that isn't a json object is stored as is after this marker.
+    private static final byte MARKER_TEXT = 0x02;
+    //binary data in text form, for encryption managers that only encrypt strings.
+    private static final char TEXT_BINARY_PREFIX = '\u0001';
+    @VisibleForTesting
+    static final byte VERSION = 1;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_TRUE = 1;
+    private static final int TYPE_FALSE = 2;
+    private static final int TYPE_STRING = 3;
+    private static final int TYPE_LONG = 4;
+    private static final int TYPE_NUMBER = 5;
+    private static final int TYPE_OBJECT = 6;
+    private static final int TYPE_ARRAY = 7;
+    private static final int TYPE_BASE64URL = 8;
+
+    //shorter strings aren't worth the decoding attempt.
+    private static final int MIN_BASE64URL_LENGTH = 16;
+    private static final int BASE64URL_FLAGS =
+            Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP;
+
+    /*
+     * Member names written as their index + 1, 0 is followed by the name. Part of the format:
+     * names can only be appended, existing records refer to the current indexes.
+     */
+    private static final String[] NAMES = {
+            //TokenResponse
+            "access_token", "token_type", "expires_in", "scope", "refresh_token", "id_token",
+            "expiresAt",
+            //ProviderConfiguration
+            "authorization_endpoint", "claims_supported", "code_challenge_methods_supported",
+            "end_session_endpoint", "grant_types_supported", "introspection_endpoint",
+            "introspection_endpoint_auth_methods_supported", "issuer", "jwks_uri",
+            "registration_endpoint", "request_object_signing_alg_values_supported",
+            "request_parameter_supported", "response_modes_supported",
+            "response_types_supported", "revocation_endpoint",
+            "revocation_endpoint_auth_methods_supported", "scopes_supported",
+            "subject_types_supported", "token_endpoint", "token_endpoint_auth_methods_supported",
+            "userinfo_endpoint", "id_token_signing_alg_values_supported",
+            //web requests and responses
+            "request_type", "queryParams", "mPayloadParams", "authorize_endpoint", "client_id",
+            "code_challenge", "code_challenge_method", "display", "idp_scope", "idp",
+            "login_hint", "max_age", "nonce", "prompt", "redirect_uri", "response_type",
+            "response_mode", "request", "sessionToken", "state", "code_verifier",
+            "id_token_hint", "post_logout_redirect_uri", "code", "error", "error_description",
+            //JsonWebKeySet
+            "keys", "kid", "kty", "alg", "use", "n", "e",
+            //ProviderConfiguration cache state
+            "etag"
+    };
+    private static final Map<String, Integer> NAME_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < NAMES.length; i++) {
+            NAME_INDEX.put(NAMES[i], i + 1);
+        }
+    }
+
+    private RecordCodec() {
+        throw new IllegalStateException("This type is not intended to be instantiated");
+    }
+
+    /**
+     * Encodes persisted data. Json objects are encoded to a binary record, other text is kept.
+     *
+     * @param data the persisted data.
+     * @return the encoded data, null if data is null.
+     */
+    @Nullable
+    public static byte[] encode(@Nullable String data) {
+        if (data == null) {
+            return null;
+        }
+        Output out = new Output(data.length());
+        try {
+            JsonReader in = new JsonReader(new StringReader(data));
+            if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                out.write(MARKER_RECORD);
+                out.write(VERSION);
+                writeObject(in, out);
+                if (in.peek() == JsonToken.END_DOCUMENT) {
+                    return out.toByteArray();
+                }
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            //not a single json object, stored as text.
+        }
+        out.reset();
+        out.write(MARKER_TEXT);
+        out.write(data.getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes data written by {@link #encode(String)}, data without a marker is read as text.
+     *
+     * @param data the encoded data.
+     * @return the persisted data, null if data is null.
+     * @throws IOException if a binary record is truncated or has an unknown version.
+     */
+    @Nullable
+    public static String decode(@Nullable byte[] data) throws IOException {
+        if (data == null) {
+            return null;
+        }
+        if (data.length == 0 || data[0] != MARKER_RECORD && data[0] != MARKER_TEXT) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        if (data[0] == MARKER_TEXT) {
+            return new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+        }
+        Input in = new Input(data, 1);
+        int version = in.read();
+        if (version != VERSION) {
+            throw new IOException("Unsupported record version " + version);
+        }
+        StringWriter writer = new StringWriter(data.length * 2);
+        JsonWriter out = new JsonWriter(writer);
+        readObject(in, out);
+        out.flush();
+        if (in.hasRemaining()) {
+            throw new IOException("Unexpected data after record");
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Converts binary data to text, the inverse of {@link #fromText(String)}.
+     *
+     * @param data the binary data.
+     * @return the text, null if data is null.
+     */
+    @Nullable
+    public static String toText(@Nullable byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return TEXT_BINARY_PREFIX + Base64.encodeToString(data, Base64.NO_WRAP);
+    }
+
+    /**
+     * Converts text written by {@link #toText(byte[])} back to binary data. Other text, like
+     * legacy json, is returned as UTF-8 bytes.
+     *
+     * @param text the text.
+     * @return the binary data, null if text is null.
+     */
+    @Nullable
+    public static byte[] fromText(@Nullable String text) {
+        if (text == null) {
+            return null;
+        }
+        if (!text.isEmpty() && text.charAt(0) == TEXT_BINARY_PREFIX) {
+            return Base64.decode(text.substring(1), Base64.NO_WRAP);
+        }
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeObject(JsonReader in, Output out) throws IOException {
+        Output members = new Output(64);
+        int count = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            Integer index = NAME_INDEX.get(name);
+            if (index != null) {
+                members.writeVarint(index);
+            } else {
+                members.writeVarint(0);
+                members.writeString(name);
+            }
+            writeValue(in, members);
+            count++;
+        }
+        in.endObject();
+        out.writeVarint(count);
+        out.write(members);
+    }
+
+    private static void writeArray(JsonReader in, Output out) throws IOException {
+        Output values = new Output(64);
+        int count = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            writeValue(in, values);
+            count++;
+        }
+        in.endArray();
+        out.writeVarint(count);
+        out.write(values);
+    }
+
+    private static void writeValue(JsonReader in, Output out) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                out.write(TYPE_NULL);
+                break;
+            case BOOLEAN:
+                out.write(in.nextBoolean() ? TYPE_TRUE : TYPE_FALSE);
+                break;
+            case NUMBER:
+                String number = in.nextString();
+                Long value = parseLong(number);
+                if (value != null) {
+                    out.write(TYPE_LONG);
+                    out.writeVarint((value << 1) ^ (value >> 63));
+                } else {
+                    out.write(TYPE_NUMBER);
+                    out.writeString(number);
+                }
+                break;
+            case STRING:
+                writeString(in.nextString(), out);
+                break;
+            case BEGIN_OBJECT:
+                out.write(TYPE_OBJECT);
+                writeObject(in, out);
+                break;
+            case BEGIN_ARRAY:
+                out.write(TYPE_ARRAY);
+                writeArray(in, out);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected " + in.peek());
+        }
+    }
+
+    //only numbers that are written back the same way are stored as a long.
+    private static Long parseLong(String number) {
+        try {
+            long value = Long.parseLong(number);
+            return Long.toString(value).equals(number) ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(String value, Output out) {
+        byte[][] segments = decodeBase64Url(value);
+        if (segments != null) {
+            out.write(TYPE_BASE64URL);
+            out.writeVarint(segments.length);
+            for (byte[] segment : segments) {
+                out.writeVarint(segment.length);
+                out.write(segment);
+            }
+        } else {
+            out.write(TYPE_STRING);
+            out.writeString(value);
+        }
+    }
+
+    /*
+     * Decodes strings made of '.' separated base64url segments, null if any segment doesn't
+     * encode back to the same text.
+     */
+    private static byte[][] decodeBase64Url(String value) {
+        if (value.length() < MIN_BASE64URL_LENGTH) {
+            return null;
+        }
+        int count = 1;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                count++;
+            } else if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9'
+                    || c == '-' || c == '_')) {
+                return null;
+            }
+        }
+        byte[][] segments = new byte[count][];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = value.indexOf('.', start);
+            if (end < 0) {
+                end = value.length();
+            }
+            String segment = value.substring(start, end);
+            try {
+                segments[i] = Base64.decode(segment, BASE64URL_FLAGS);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            if (!segment.equals(Base64.encodeToString(segments[i], BASE64URL_FLAGS))) {
+                return null;
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static void readObject(Input in, JsonWriter out) throws IOException {
+        int count = in.readCount();
+        out.beginObject();
+        for (int i = 0; i < count; i++) {
+            int index = in.readCount();
+            if (index == 0) {
+                out.name(in.readString());
+            } else if (index <= NAMES.length) {
+                out.name(NAMES[index - 1]);
+            } else {
+                throw new IOException("Unknown member name " + index);
+            }
+            readValue(in, out);
+        }
+        out.endObject();
+    }
+
+    private static void readValue(Input in, JsonWriter out) throws IOException {
+        int type = in.read();
+        switch (type) {
+            case TYPE_NULL:
+                out.nullValue();
+                break;
+            case TYPE_TRUE:
+                out.value(true);
+                break;
+            case TYPE_FALSE:
+                out.value(false);
+                break;
+            case TYPE_STRING:
+                out.value(in.readString());
+                break;
+            case TYPE_LONG:
+                long zigzag = in.readVarint();
+                out.value((zigzag >>> 1) ^ -(zigzag & 1));
+                break;
+            case TYPE_NUMBER:
+                out.jsonValue(in.readString());
+                break;
+            case TYPE_OBJECT:
+                readObject(in, out);
+                break;
+            case TYPE_ARRAY:
+                int count = in.readCount();
+                out.beginArray();
+                for (int i = 0; i < count; i++) {
+                    readValue(in, out);
+                }
+                out.endArray();
+                break;
+            case TYPE_BASE64URL:
+                int segments = in.readCount();
+                StringBuilder value = new StringBuilder();
+                for (int i = 0; i < segments; i++) {
+                    if (i > 0) {
+                        value.append('.');
+                    }
+                    value.append(Base64.encodeToString(in.readBytes(), BASE64URL_FLAGS));
+                }
+                out.value(value.toString());
+                break;
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+        Output(int size) {
+            super(size);
+        }
+
+        @Override
+        public void write(byte[] bytes) {
+            write(bytes, 0, bytes.length);
+        }
+
+        void write(Output other) {
+            write(other.buf, 0, other.count);
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            write(bytes);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] mData;
+        private int mPosition;
+
+        Input(byte[] data, int position) {
+            mData = data;
+            mPosition = position;
+        }
+
+        boolean hasRemaining() {
+            return mPosition < mData.length;
+        }
+
+        int read() throws IOException {
+            if (mPosition >= mData.length) {
+                throw new EOFException("Truncated record");
+            }
+            return mData[mPosition++] & 0xFF;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        int readCount() throws IOException {
+            long count = readVarint();
+            if (count < 0 || count > mData.length) {
+                throw new IOException("Malformed record length " + count);
+            }
+            return (int) count;
+        }
+
+        byte[] readBytes() throws IOException {
+            int length = readCount();
+            if (length > mData.length - mPosition) {
+                throw new EOFException("Truncated record");
+            }
+            byte[] bytes = new byte[length];
+            System.arraycopy(mData, mPosition, bytes, 0, length);
+            mPosition += length;
+            return bytes;
+        }
+
+        String readString() throws IOException {
+            int length = readCount();
+            if (length > mData.length - mPosition) {
+                throw new EOFException("Truncated record");
+            }
+            String value = new String(mData, mPosition, length, StandardCharsets.UTF_8);
+            mPosition += length;
+            return value;
+        }
+    }
+}
@@ -23,6 +23,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
+import java.util.Map;
+
 import static android.content.Context.MODE_PRIVATE;
 
 /**
@@ -72,4 +74,20 @@ public class SharedPreferenceStorage implements OktaStorage {
     public void delete(@NonNull String key) {
         prefs.edit().remove(key).commit();
     }
+
+    @Override
+    public void apply(@NonNull Batch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        SharedPreferences.Editor editor = prefs.edit();
+        for (Map.Entry<String, String> operation : batch.getOperations().entrySet()) {
+            if (operation.getValue() != null) {
+                editor.putString(operation.getKey(), operation.getValue());
+            } else {
+                editor.remove(operation.getKey());
+            }
+        }
+        editor.commit();
+    }
 }
@@ -17,6 +17,7 @@ package com.okta.oidc.storage.security;
 
 import android.content.Context;
 import android.os.Build;
+import android.os.Looper;
 import android.security.keystore.StrongBoxUnavailableException;
 import android.security.keystore.UserNotAuthenticatedException;
 import android.util.Base64;
@@ -24,8 +25,10 @@ import android.util.Base64;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.InvalidParameterException;
@@ -39,14 +42,26 @@ import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.ProviderException;
 import java.security.PublicKey;
+import java.security.SecureRandom;
 import java.security.cert.Certificate;
 import java.security.spec.MGF1ParameterSpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.OAEPParameterSpec;
 import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
 
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 public abstract class BaseEncryptionManager implements EncryptionManager {
@@ -69,8 +84,43 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
     private static final int CHUNK_SIZE = (int) (((RSA_KEY_SIZE / 8) - 11) * 0.5);
     private static final String CHUNK_SEPARATOR = ",";
 
+    // Envelope format: "2:" + RSA wrapped AES data key + ":" + (GCM iv || ciphertext).
+    // The prefix can't appear in the chunked format because ':' isn't a Base64 character.
+    private static final String ENVELOPE_PREFIX = "2:";
+    private static final String ENVELOPE_SEPARATOR = ":";
+    // Binary data, records encoded by RecordCodec, is encrypted without a text encoding:
+    // "3:" + envelope of the bytes, "4:" + chunks of the bytes.
+    private static final String BINARY_ENVELOPE_PREFIX = "3:";
+    private static final String BINARY_CHUNKS_PREFIX = "4:";
+    private static final String DATA_KEY_ALGORITHM = "AES";
+    private static final String DATA_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int DATA_KEY_SIZE = 256;
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 128;
+    // from https://code.google.com/p/android/issues/detail?id=197719
+    private static final OAEPParameterSpec OAEP_SPEC = new OAEPParameterSpec("SHA-256", "MGF1",
+            MGF1ParameterSpec.SHA1, PSource.PSpecified.DEFAULT);
+
     protected KeyStore mKeyStore;
-    protected Cipher mCipher;
+    protected volatile Cipher mCipher;
+
+    private boolean mEnvelopeEncryption;
+    private final SecureRandom mRandom = new SecureRandom();
+    private volatile DataKey mDataKey;
+    // Cipher instances aren't thread safe, concurrent operations each use a pooled cipher.
+    private final CipherPool mCiphers = new CipherPool(() -> createCipher(mTransformationString));
+    private final CipherPool mDataCiphers = new CipherPool(() -> createCipher(DATA_TRANSFORMATION));
+    private final Object mCipherLock = new Object();
+    // Key store lookups are binder calls on a device. The keys of an alias don't change until
+    // they are removed or recreated, so they are looked up once per alias.
+    private final Map<String, PublicKey> mPublicKeys = new ConcurrentHashMap<>();
+    private final Map<String, PrivateKey> mPrivateKeys = new ConcurrentHashMap<>();
+
+    // Preparation of the key store started by prepareInBackground, null once it succeeded.
+    private volatile FutureTask<Boolean> mPreparation;
+    // Starts the preparation again after it failed, guarded by this.
+    private Runnable mRestartPreparation;
+    private boolean mPreparationFailed;
 
     private long initCipherStart = System.currentTimeMillis();
 
@@ -81,6 +131,7 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
 
     protected boolean prepare(Context context, boolean initCipher) {
         // Create KeyStore
+        clearKeys();
         try {
             mKeyStore = createKeyStore();
             if (mKeyStore == null) {
@@ -107,6 +158,118 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
         return true;
     }
 
+    /**
+     * Loads the key store and generates the keys on the executor. Generating an RSA key pair in
+     * secure hardware can take seconds, operations that use the keys wait until it completes.
+     *
+     * @param context    context
+     * @param initCipher true to create the cipher with the keys.
+     * @param executor   the executor to prepare on.
+     */
+    synchronized void prepareInBackground(Context context, boolean initCipher,
+                                          Executor executor) {
+        FutureTask<Boolean> preparation = new FutureTask<>(() -> prepare(context, initCipher));
+        mPreparation = preparation;
+        mPreparationFailed = false;
+        mRestartPreparation = () -> prepareInBackground(context, initCipher, executor);
+        try {
+            executor.execute(preparation);
+        } catch (RejectedExecutionException e) {
+            new Thread(preparation, "okta-key-preparation").start();
+        }
+    }
+
+    /*
+     * Waits for prepareInBackground, the main thread never generates keys itself but waits as
+     * long as the generation takes. A background thread runs a preparation that didn't start
+     * yet, so workers of a busy executor can't all wait for a task queued behind them. A failed
+     * preparation is thrown once, the next operation starts it again.
+     */
+    void awaitPrepared() {
+        FutureTask<Boolean> preparation = currentPreparation();
+        if (preparation == null) {
+            return;
+        }
+        if (!isMainThread()) {
+            preparation.run();
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    preparation.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (CancellationException e) {
+            //discarded by removeKeys or recreateKeys, which replace the keys.
+            return;
+        } catch (ExecutionException e) {
+            preparationDone(preparation, true);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Failed prepare keys", e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        preparationDone(preparation, false);
+    }
+
+    private synchronized FutureTask<Boolean> currentPreparation() {
+        if (mPreparationFailed && mRestartPreparation != null) {
+            mRestartPreparation.run();
+        }
+        return mPreparation;
+    }
+
+    private synchronized void preparationDone(FutureTask<Boolean> preparation, boolean failed) {
+        if (mPreparation == preparation) {
+            mPreparation = null;
+            mPreparationFailed = failed;
+        }
+    }
+
+    /*
+     * Drops the background preparation, the keys it prepares are about to be replaced. A
+     * preparation that is already running is waited for and its failure ignored.
+     */
+    private void discardPreparation() {
+        FutureTask<Boolean> preparation;
+        synchronized (this) {
+            preparation = mPreparation;
+            mPreparation = null;
+            mPreparationFailed = false;
+            mRestartPreparation = null;
+        }
+        if (preparation == null || preparation.cancel(false)) {
+            return;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                preparation.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException | CancellationException e) {
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean isMainThread() {
+        Looper main = Looper.getMainLooper();
+        return main != null && main.getThread() == Thread.currentThread();
+    }
+
     private void generateKeys(Context context) {
         // Check if exist instead generate new private and public keys
         try {
@@ -174,6 +337,8 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
     }
 
     private void deleteInvalidKey(String keyAlias) {
+        mPublicKeys.remove(keyAlias);
+        mPrivateKeys.remove(keyAlias);
         if (mKeyStore != null) {
             try {
                 mKeyStore.deleteEntry(keyAlias);
@@ -183,19 +348,48 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
         }
     }
 
-    private boolean initCipher(String keyAlias, int mode) throws GeneralSecurityException {
+    private void initCipher(Cipher cipher, String keyAlias, int mode)
+            throws GeneralSecurityException {
         switch (mode) {
             case Cipher.ENCRYPT_MODE:
-                initEncodeCipher(keyAlias, mode);
+                initEncodeCipher(cipher, keyAlias, mode);
                 break;
 
             case Cipher.DECRYPT_MODE:
-                initDecodeCipher(keyAlias, mode);
+                initDecodeCipher(cipher, keyAlias, mode);
                 break;
             default:
-                return false; //this cipher is only for encode\decode
+                //this cipher is only for encode\decode
+                throw new InvalidParameterException("Unsupported cipher mode " + mode);
+        }
+    }
+
+    private interface CipherOperation<T> {
+        T run(Cipher cipher) throws GeneralSecurityException;
+    }
+
+    /*
+     * Runs an operation with a cipher initialized with the key store key. Operations take a
+     * cipher from the pool so they can run at the same time. When user authentication is
+     * required the cipher could be the one the user authenticated, see setCipher, so these
+     * operations use mCipher one at a time.
+     */
+    private <T> T withKeyStoreCipher(int mode, CipherOperation<T> operation)
+            throws GeneralSecurityException {
+        if (mIsAuthenticateUserRequired) {
+            synchronized (mCipherLock) {
+                Cipher cipher = mCipher;
+                initCipher(cipher, mKeyAlias, mode);
+                return operation.run(cipher);
+            }
+        }
+        Cipher cipher = mCiphers.acquire();
+        try {
+            initCipher(cipher, mKeyAlias, mode);
+            return operation.run(cipher);
+        } finally {
+            mCiphers.release(cipher);
         }
-        return true;
     }
 
     private String getUserNotAuthenticatedMessage(Cipher cipher) {
@@ -207,10 +401,11 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
         return errorMessage;
     }
 
-    private void initDecodeCipher(String keyAlias, int mode) throws GeneralSecurityException {
-        PrivateKey key = (PrivateKey) mKeyStore.getKey(keyAlias, null);
+    private void initDecodeCipher(Cipher cipher, String keyAlias, int mode)
+            throws GeneralSecurityException {
+        PrivateKey key = getPrivateKey(keyAlias);
         try {
-            mCipher.init(mode, key);
+            cipher.init(mode, key);
         } catch (InvalidKeyException e) {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
                 if (e instanceof UserNotAuthenticatedException) {
@@ -218,11 +413,40 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
                             getUserNotAuthenticatedMessage(mCipher), e);
                 }
             }
+            //the key could be permanently invalidated, look it up again next time.
+            mPrivateKeys.remove(keyAlias);
             throw e;
         }
     }
 
-    private void initEncodeCipher(String keyAlias, int mode) throws GeneralSecurityException {
+    private PrivateKey getPrivateKey(String keyAlias) throws GeneralSecurityException {
+        PrivateKey key = mPrivateKeys.get(keyAlias);
+        if (key == null) {
+            key = (PrivateKey) mKeyStore.getKey(keyAlias, null);
+            if (key != null) {
+                mPrivateKeys.put(keyAlias, key);
+            }
+        }
+        return key;
+    }
+
+    private void initEncodeCipher(Cipher cipher, String keyAlias, int mode)
+            throws GeneralSecurityException {
+        PublicKey unrestricted = getPublicKey(keyAlias);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !mIsStrongBoxBacked) {
+            // This workaround of using the OAEP spec is not compatible when strong box is used.
+            // Currently the only device is the PIXEL 3.
+            cipher.init(mode, unrestricted, OAEP_SPEC);
+        } else {
+            cipher.init(mode, unrestricted);
+        }
+    }
+
+    private PublicKey getPublicKey(String keyAlias) throws GeneralSecurityException {
+        PublicKey cached = mPublicKeys.get(keyAlias);
+        if (cached != null) {
+            return cached;
+        }
         Certificate certificate = mKeyStore.getCertificate(keyAlias);
         if (certificate == null) {
             KeyStore.PrivateKeyEntry entry =
@@ -240,28 +464,22 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
         // from https://developer.android.com/reference/android/security/keystore/KeyGenParameterSpec.html#known-issues
         PublicKey unrestricted = KeyFactory.getInstance(key.getAlgorithm())
                 .generatePublic(new X509EncodedKeySpec(key.getEncoded()));
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !mIsStrongBoxBacked) {
-            // from https://code.google.com/p/android/issues/detail?id=197719
-            // This workaround of using the OAEP spec is not compatible when strong box is used.
-            // Currently the only device is the PIXEL 3.
-            OAEPParameterSpec spec = new OAEPParameterSpec("SHA-256", "MGF1",
-                    MGF1ParameterSpec.SHA1, PSource.PSpecified.DEFAULT);
-
-            mCipher.init(mode, unrestricted, spec);
-        } else {
-            mCipher.init(mode, unrestricted);
-        }
+        mPublicKeys.put(keyAlias, unrestricted);
+        return unrestricted;
     }
 
     @Override
     public String encrypt(String inputString) throws GeneralSecurityException {
+        awaitPrepared();
         if (inputString != null && inputString.length() > 0) {
             if (mCipher == null) {
                 throw new InvalidParameterException(
                         "Cipher is null. Please initialize proper cipher");
             }
-            if (initCipher(mKeyAlias, Cipher.ENCRYPT_MODE)) {
+            if (mEnvelopeEncryption) {
+                return encryptEnvelope(inputString);
+            }
+            return withKeyStoreCipher(Cipher.ENCRYPT_MODE, cipher -> {
                 StringBuilder encryptedBuilder = new StringBuilder();
                 int chunkStart = 0;
                 while (chunkStart < inputString.length()) {
@@ -270,7 +488,7 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
                             chunkStart,
                             chunkEnd < inputString.length() ? chunkEnd : inputString.length()
                     ).getBytes();
-                    byte[] bytes = mCipher.doFinal(chunk);
+                    byte[] bytes = cipher.doFinal(chunk);
                     chunkStart = chunkEnd;
                     encryptedBuilder.append(Base64.encodeToString(bytes, Base64.NO_WRAP));
                     if (chunkStart < inputString.length()) {
@@ -278,42 +496,207 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
                     }
                 }
                 return encryptedBuilder.toString();
-            }
+            });
         }
         return inputString;
     }
 
     @Override
     public String decrypt(String encryptedString) throws GeneralSecurityException {
+        awaitPrepared();
         try {
             if (encryptedString != null && encryptedString.length() > 0) {
                 if (mCipher == null) {
                     throw new InvalidParameterException(
                             "Cipher is null. Please initialize proper cipher");
                 }
-                if (initCipher(mKeyAlias, Cipher.DECRYPT_MODE)) {
+                if (encryptedString.startsWith(ENVELOPE_PREFIX)) {
+                    return decryptEnvelope(encryptedString);
+                }
+                return withKeyStoreCipher(Cipher.DECRYPT_MODE, cipher -> {
                     StringBuilder decryptedBuilder = new StringBuilder();
                     String[] chunks = encryptedString.split(CHUNK_SEPARATOR);
                     for (String chunk : chunks) {
                         byte[] bytes = Base64.decode(chunk, Base64.NO_WRAP);
-                        decryptedBuilder.append(new String(mCipher.doFinal(bytes)));
+                        decryptedBuilder.append(new String(cipher.doFinal(bytes)));
                     }
                     return decryptedBuilder.toString();
-                }
+                });
             }
             return encryptedString;
         } catch (IllegalBlockSizeException e) {
-            // We generate keys using UserAuthenticationValidityDurationSeconds parameter.
-            // We decrypt data by chunk. This exception could be if this validity duration ended
-            // during decryption. In this reason we check cause exception and provide valid
-            // exception to user space
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
-                    && e.getCause() instanceof UserNotAuthenticatedException) {
-                throw new OktaUserNotAuthenticateException(
-                        getUserNotAuthenticatedMessage(mCipher), e);
+            throw decryptFailure(e);
+        }
+    }
+
+    /*
+     * We generate keys using UserAuthenticationValidityDurationSeconds parameter.
+     * We decrypt data by chunk. This exception could be if this validity duration ended
+     * during decryption. In this reason we check cause exception and provide valid
+     * exception to user space
+     */
+    private GeneralSecurityException decryptFailure(IllegalBlockSizeException e) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                && e.getCause() instanceof UserNotAuthenticatedException) {
+            return new OktaUserNotAuthenticateException(
+                    getUserNotAuthenticatedMessage(mCipher), e);
+        }
+        return e;
+    }
+
+    @Override
+    public String encryptBytes(byte[] data) throws GeneralSecurityException {
+        awaitPrepared();
+        if (data != null && data.length > 0) {
+            if (mCipher == null) {
+                throw new InvalidParameterException(
+                        "Cipher is null. Please initialize proper cipher");
             }
-            throw e;
+            if (mEnvelopeEncryption) {
+                return BINARY_ENVELOPE_PREFIX + sealEnvelope(data);
+            }
+            return withKeyStoreCipher(Cipher.ENCRYPT_MODE, cipher -> {
+                StringBuilder encryptedBuilder = new StringBuilder(BINARY_CHUNKS_PREFIX);
+                for (int chunkStart = 0; chunkStart < data.length; chunkStart += CHUNK_SIZE) {
+                    if (chunkStart > 0) {
+                        encryptedBuilder.append(CHUNK_SEPARATOR);
+                    }
+                    byte[] bytes = cipher.doFinal(data, chunkStart,
+                            Math.min(CHUNK_SIZE, data.length - chunkStart));
+                    encryptedBuilder.append(Base64.encodeToString(bytes, Base64.NO_WRAP));
+                }
+                return encryptedBuilder.toString();
+            });
+        }
+        return EncryptionManager.super.encryptBytes(data);
+    }
+
+    @Override
+    public byte[] decryptBytes(String encryptedString) throws GeneralSecurityException {
+        awaitPrepared();
+        try {
+            if (encryptedString != null && (encryptedString.startsWith(BINARY_ENVELOPE_PREFIX)
+                    || encryptedString.startsWith(BINARY_CHUNKS_PREFIX))) {
+                if (mCipher == null) {
+                    throw new InvalidParameterException(
+                            "Cipher is null. Please initialize proper cipher");
+                }
+                String body = encryptedString.substring(BINARY_ENVELOPE_PREFIX.length());
+                if (encryptedString.startsWith(BINARY_ENVELOPE_PREFIX)) {
+                    return openEnvelope(body);
+                }
+                return withKeyStoreCipher(Cipher.DECRYPT_MODE, cipher -> {
+                    ByteArrayOutputStream decrypted = new ByteArrayOutputStream(body.length());
+                    for (String chunk : body.split(CHUNK_SEPARATOR)) {
+                        byte[] bytes = cipher.doFinal(Base64.decode(chunk, Base64.NO_WRAP));
+                        decrypted.write(bytes, 0, bytes.length);
+                    }
+                    return decrypted.toByteArray();
+                });
+            }
+        } catch (IllegalBlockSizeException e) {
+            throw decryptFailure(e);
+        }
+        return EncryptionManager.super.decryptBytes(encryptedString);
+    }
+
+    private String encryptEnvelope(String inputString) throws GeneralSecurityException {
+        return ENVELOPE_PREFIX + sealEnvelope(inputString.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String sealEnvelope(byte[] data) throws GeneralSecurityException {
+        DataKey dataKey = mDataKey;
+        if (dataKey == null) {
+            KeyGenerator generator = KeyGenerator.getInstance(DATA_KEY_ALGORITHM);
+            generator.init(DATA_KEY_SIZE, mRandom);
+            SecretKey key = generator.generateKey();
+            String wrappedKey = withKeyStoreCipher(Cipher.ENCRYPT_MODE, cipher ->
+                    Base64.encodeToString(cipher.doFinal(key.getEncoded()), Base64.NO_WRAP));
+            dataKey = new DataKey(key, wrappedKey);
+            retainDataKey(dataKey);
+        }
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        mRandom.nextBytes(iv);
+        byte[] encrypted;
+        Cipher cipher = mDataCiphers.acquire();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, dataKey.mKey,
+                    new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            cipher.updateAAD(dataKey.mWrappedKey.getBytes(StandardCharsets.UTF_8));
+            encrypted = cipher.doFinal(data);
+        } finally {
+            mDataCiphers.release(cipher);
+        }
+        byte[] payload = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, payload, 0, iv.length);
+        System.arraycopy(encrypted, 0, payload, iv.length, encrypted.length);
+        return dataKey.mWrappedKey + ENVELOPE_SEPARATOR +
+                Base64.encodeToString(payload, Base64.NO_WRAP);
+    }
+
+    private String decryptEnvelope(String encryptedString) throws GeneralSecurityException {
+        return new String(openEnvelope(encryptedString.substring(ENVELOPE_PREFIX.length())),
+                StandardCharsets.UTF_8);
+    }
+
+    private byte[] openEnvelope(String envelope) throws GeneralSecurityException {
+        String[] parts = envelope.split(ENVELOPE_SEPARATOR);
+        if (parts.length != 2) {
+            throw new GeneralSecurityException("Invalid envelope format");
+        }
+        String wrappedKey = parts[0];
+        DataKey dataKey = mDataKey;
+        if (dataKey == null || !wrappedKey.equals(dataKey.mWrappedKey)) {
+            SecretKey key = withKeyStoreCipher(Cipher.DECRYPT_MODE, cipher ->
+                    new SecretKeySpec(cipher.doFinal(Base64.decode(wrappedKey, Base64.NO_WRAP)),
+                            DATA_KEY_ALGORITHM));
+            dataKey = new DataKey(key, wrappedKey);
+            retainDataKey(dataKey);
         }
+        byte[] payload = Base64.decode(parts[1], Base64.NO_WRAP);
+        if (payload.length <= GCM_IV_LENGTH) {
+            throw new GeneralSecurityException("Invalid envelope format");
+        }
+        Cipher cipher = mDataCiphers.acquire();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, dataKey.mKey,
+                    new GCMParameterSpec(GCM_TAG_LENGTH, payload, 0, GCM_IV_LENGTH));
+            cipher.updateAAD(wrappedKey.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(payload, GCM_IV_LENGTH, payload.length - GCM_IV_LENGTH);
+        } finally {
+            mDataCiphers.release(cipher);
+        }
+    }
+
+    /*
+     * The unwrapped data key is kept for the lifetime of the manager so only the first
+     * decrypt needs a keystore operation. Keys that require user authentication are never
+     * retained, otherwise the data would stay readable after the validity duration ends.
+     */
+    private void retainDataKey(DataKey dataKey) {
+        if (!mIsAuthenticateUserRequired) {
+            mDataKey = dataKey;
+        }
+    }
+
+    private void clearDataKey() {
+        mDataKey = null;
+    }
+
+    private void clearKeys() {
+        mPublicKeys.clear();
+        mPrivateKeys.clear();
+    }
+
+    /**
+     * Enables envelope encryption. Data is encrypted with an AES-GCM data key which is
+     * wrapped by the key store key, instead of running RSA over every chunk of the data.
+     * Data in either format can always be decrypted.
+     *
+     * @param envelopeEncryption true to encrypt new data with envelope encryption.
+     */
+    void setEnvelopeEncryption(boolean envelopeEncryption) {
+        mEnvelopeEncryption = envelopeEncryption;
     }
 
     @Override
@@ -324,11 +707,22 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
         return toHex(result);
     }
 
+    @Override
+    public boolean isBinarySupported() {
+        return true;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public abstract boolean isHardwareBackedKeyStore();
 
     @Override
     public void recreateCipher() {
+        awaitPrepared();
         try {
             mCipher = createCipher(mTransformationString);
         } catch (GeneralSecurityException e) {
@@ -339,21 +733,27 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
 
     @Override
     public void removeKeys() {
+        discardPreparation();
+        clearDataKey();
         deleteInvalidKey(mKeyAlias);
     }
 
     @Override
     public void recreateKeys(Context context) {
+        discardPreparation();
+        clearDataKey();
         prepare(context, false);
     }
 
     @Override
     public void setCipher(Cipher cipher) {
+        awaitPrepared();
         mCipher = cipher;
     }
 
     @Override
     public Cipher getCipher() {
+        awaitPrepared();
         return mCipher;
     }
 
@@ -365,6 +765,16 @@ public abstract class BaseEncryptionManager implements EncryptionManager {
         return (System.currentTimeMillis() - initCipherStart) / MS_TO_SECOND;
     }
 
+    private static final class DataKey {
+        private final SecretKey mKey;
+        private final String mWrappedKey;
+
+        DataKey(SecretKey key, String wrappedKey) {
+            mKey = key;
+            mWrappedKey = wrappedKey;
+        }
+    }
+
     public static class OktaUserNotAuthenticateException extends InvalidKeyException {
         OktaUserNotAuthenticateException(String message, Throwable cause) {
             super(message, cause);
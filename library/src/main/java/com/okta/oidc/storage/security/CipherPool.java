@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.storage.security;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+
+/**
+ * A small pool of ciphers of one transformation. A {@link Cipher} can't be used by two
+ * threads at the same time and creating one looks up a provider, so each operation takes
+ * a cipher from the pool and releases it when done. The cipher has to be initialized
+ * before every use.
+ */
+class CipherPool {
+    private static final int DEFAULT_MAX_IDLE = 4;
+
+    interface Factory {
+        Cipher create() throws GeneralSecurityException;
+    }
+
+    private final Factory mFactory;
+    private final int mMaxIdle;
+    private final ConcurrentLinkedQueue<Cipher> mIdle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger mIdleCount = new AtomicInteger();
+
+    CipherPool(Factory factory) {
+        this(factory, DEFAULT_MAX_IDLE);
+    }
+
+    CipherPool(Factory factory, int maxIdle) {
+        mFactory = factory;
+        mMaxIdle = maxIdle;
+    }
+
+    Cipher acquire() throws GeneralSecurityException {
+        Cipher cipher = mIdle.poll();
+        if (cipher != null) {
+            mIdleCount.decrementAndGet();
+            return cipher;
+        }
+        cipher = mFactory.create();
+        if (cipher == null) {
+            throw new GeneralSecurityException("Cipher is null");
+        }
+        return cipher;
+    }
+
+    void release(Cipher cipher) {
+        //ciphers over the limit were created for a burst of operations, let them go.
+        if (mIdleCount.incrementAndGet() <= mMaxIdle) {
+            mIdle.offer(cipher);
+        } else {
+            mIdleCount.decrementAndGet();
+        }
+    }
+
+    int getIdleCount() {
+        return mIdleCount.get();
+    }
+}
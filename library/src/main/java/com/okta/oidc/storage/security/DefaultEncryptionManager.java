@@ -17,14 +17,24 @@ package com.okta.oidc.storage.security;
 
 import android.content.Context;
 
+import androidx.annotation.Nullable;
+
+import com.okta.oidc.SharedExecutor;
+
 import java.io.UnsupportedEncodingException;
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Executor;
 
 import javax.crypto.Cipher;
 
 /**
  * A implementation of {@link EncryptionManager}.
+ * <p>
+ * The keys are prepared in the background. An operation called before they are ready waits
+ * for them, on the main thread too: keys are never generated on the main thread, but it can
+ * be blocked for as long as the generation takes, seconds on some devices. If the preparation
+ * fails the operation throws the failure and the next operation prepares the keys again.
  */
 public class DefaultEncryptionManager implements EncryptionManager {
     private static final String KEY_STORE = "AndroidKeyStore";
@@ -32,13 +42,45 @@ public class DefaultEncryptionManager implements EncryptionManager {
     private final EncryptionManager mEncryptionManager;
 
     /**
-     * Constructor requires a context.
+     * Constructor requires a context. The keys are loaded or generated in the background,
+     * the first encrypt or decrypt waits until they are ready.
      *
      * @param context context
      */
     public DefaultEncryptionManager(Context context) {
+        this(context, false);
+    }
+
+    /**
+     * Constructor requires a context and whether to use envelope encryption. With envelope
+     * encryption data is encrypted with an AES-GCM key that is wrapped by the key store,
+     * so a single key store operation is needed per session instead of one per chunk of data.
+     * Data encrypted in either mode can be decrypted. To convert existing data to envelope
+     * encryption pass this manager to
+     * {@link com.okta.oidc.clients.sessions.BaseSessionClient#migrateTo(EncryptionManager)}.
+     *
+     * @param context            context
+     * @param envelopeEncryption true to encrypt new data with envelope encryption.
+     */
+    public DefaultEncryptionManager(Context context, boolean envelopeEncryption) {
+        this(context, envelopeEncryption, SharedExecutor.getDefault()
+                .getExecutor(SharedExecutor.Priority.DEFAULT));
+    }
+
+    /**
+     * Constructor requires a context, whether to use envelope encryption and the executor the
+     * keys are prepared on. Generating a key pair in secure hardware can take seconds on some
+     * devices, preparing the keys on an executor keeps it off the thread that builds the client.
+     *
+     * @param context            context
+     * @param envelopeEncryption true to encrypt new data with envelope encryption.
+     * @param prepareExecutor    the executor to prepare the keys on, null to prepare them
+     *                           in the constructor.
+     */
+    public DefaultEncryptionManager(Context context, boolean envelopeEncryption,
+                                    @Nullable Executor prepareExecutor) {
         mEncryptionManager = EncryptionManagerFactory.createEncryptionManager(context, KEY_STORE,
-                KEY_ALIAS, false, -1, true);
+                KEY_ALIAS, false, -1, true, envelopeEncryption, prepareExecutor);
     }
 
     @Override
@@ -51,6 +93,26 @@ public class DefaultEncryptionManager implements EncryptionManager {
         return mEncryptionManager.decrypt(value);
     }
 
+    @Override
+    public String encryptBytes(byte[] value) throws GeneralSecurityException {
+        return mEncryptionManager.encryptBytes(value);
+    }
+
+    @Override
+    public byte[] decryptBytes(String value) throws GeneralSecurityException {
+        return mEncryptionManager.decryptBytes(value);
+    }
+
+    @Override
+    public boolean isBinarySupported() {
+        return mEncryptionManager.isBinarySupported();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return mEncryptionManager.isThreadSafe();
+    }
+
     @Override
     public String getHashed(String value) throws NoSuchAlgorithmException,
             UnsupportedEncodingException {
@@ -18,6 +18,7 @@ package com.okta.oidc.storage.security;
 import android.content.Context;
 
 import com.okta.oidc.storage.OktaStorage;
+import com.okta.oidc.storage.RecordCodec;
 
 import java.io.UnsupportedEncodingException;
 import java.security.GeneralSecurityException;
@@ -49,6 +50,52 @@ public interface EncryptionManager {
      */
     String decrypt(String value) throws GeneralSecurityException;
 
+    /**
+     * encrypts binary data. Only called for managers that return true from
+     * {@link #isBinarySupported()}. The default implementation encrypts a text encoding of the
+     * data with {@link #encrypt(String)}.
+     *
+     * @param value value as bytes.
+     * @return encrypted value.
+     * @throws GeneralSecurityException if has problems with algorithms used.
+     */
+    default String encryptBytes(byte[] value) throws GeneralSecurityException {
+        return encrypt(RecordCodec.toText(value));
+    }
+
+    /**
+     * decrypts a value encrypted by {@link #encryptBytes(byte[])} or
+     * {@link #encrypt(String)}. A value encrypted as a string is returned as UTF-8 bytes.
+     *
+     * @param value encrypted value as a string.
+     * @return decrypted value.
+     * @throws GeneralSecurityException if has problems with algorithms used.
+     */
+    default byte[] decryptBytes(String value) throws GeneralSecurityException {
+        return RecordCodec.fromText(decrypt(value));
+    }
+
+    /**
+     * if {@link #encryptBytes(byte[])} encrypts the raw bytes. Persisted data is encoded to a
+     * compact binary record only for such managers, other managers encrypt the json with
+     * {@link #encrypt(String)}.
+     *
+     * @return true if the manager encrypts binary data without a text encoding.
+     */
+    default boolean isBinarySupported() {
+        return false;
+    }
+
+    /**
+     * if encrypt and decrypt can be called by several threads at the same time. Calls to a
+     * manager that isn't thread safe are made one at a time.
+     *
+     * @return true if the manager is thread safe.
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
     /**
      * generates SHA-2 hash.
      *
@@ -36,8 +36,8 @@ class EncryptionManagerAPI18 extends BaseEncryptionManager {
     private static final int RSA_CALENDAR_MAX_YEARS = 100;
     private static final int RSA_CALENDAR_HOURS_OFFSET = -26;
 
-    EncryptionManagerAPI18(Context context, String keyStoreName, String keyAlias,
-                           boolean initCipherOnCreate, boolean isAuthenticateUserRequired) {
+    EncryptionManagerAPI18(String keyStoreName, String keyAlias,
+                           boolean isAuthenticateUserRequired) {
         super(keyStoreName, keyAlias);
         this.mKeyStoreAlgorithm = "RSA";
         this.mBlockMode = "ECB";
@@ -45,8 +45,6 @@ class EncryptionManagerAPI18 extends BaseEncryptionManager {
         this.mTransformationString = mKeyStoreAlgorithm + "/" + mBlockMode + "/"
                 + mEncryptionPadding;
         this.mIsAuthenticateUserRequired = isAuthenticateUserRequired;
-
-        prepare(context, initCipherOnCreate);
     }
 
     @Override
@@ -94,6 +92,7 @@ class EncryptionManagerAPI18 extends BaseEncryptionManager {
 
     @Override
     public boolean isValidKeys() {
+        awaitPrepared();
         try {
             PrivateKey key = (PrivateKey) mKeyStore.getKey(mKeyAlias, null);
             return key != null;
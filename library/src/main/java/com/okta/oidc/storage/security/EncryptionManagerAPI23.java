@@ -48,10 +48,9 @@ class EncryptionManagerAPI23 extends BaseEncryptionManager {
 
     private final int mValidityDurationSeconds;
 
-    EncryptionManagerAPI23(Context context, String keyStoreName, String keyAlias,
+    EncryptionManagerAPI23(String keyStoreName, String keyAlias,
                            boolean isAuthenticateUserRequired,
-                           int userAuthenticationValidityDurationSeconds,
-                           boolean initCipherOnCreate) {
+                           int userAuthenticationValidityDurationSeconds) {
         super(keyStoreName, keyAlias);
         this.mKeyStoreAlgorithm = KeyProperties.KEY_ALGORITHM_RSA;
         this.mBlockMode = BLOCK_MODE_ECB;
@@ -66,7 +65,6 @@ class EncryptionManagerAPI23 extends BaseEncryptionManager {
             userAuthenticationValidityDurationSeconds = 0;
         }
         this.mValidityDurationSeconds = userAuthenticationValidityDurationSeconds;
-        prepare(context, initCipherOnCreate);
     }
 
     @Override
@@ -121,6 +119,7 @@ class EncryptionManagerAPI23 extends BaseEncryptionManager {
 
     @Override
     public boolean isHardwareBackedKeyStore() {
+        awaitPrepared();
         boolean isHardware = false;
         try {
             if (mKeyStore != null && mKeyStore.containsAlias(mKeyAlias)) {
@@ -145,6 +144,7 @@ class EncryptionManagerAPI23 extends BaseEncryptionManager {
 
     @Override
     public boolean isUserAuthenticatedOnDevice() {
+        awaitPrepared();
         if (mCipher == null) {
             return false;
         }
@@ -170,6 +170,7 @@ class EncryptionManagerAPI23 extends BaseEncryptionManager {
 
     @Override
     public boolean isValidKeys() {
+        awaitPrepared();
         try {
             Cipher cipher = createCipher(mTransformationString);
             PrivateKey key = (PrivateKey) mKeyStore.getKey(mKeyAlias, null);
@@ -18,19 +18,33 @@ package com.okta.oidc.storage.security;
 import android.content.Context;
 import android.os.Build;
 
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.Executor;
+
 class EncryptionManagerFactory {
     static EncryptionManager createEncryptionManager(Context context, String keyStoreName,
                                                      String keyAlias,
                                                      boolean isAuthenticateUserRequired,
                                                      int userAuthenticationValidityDurationSeconds,
-                                                     boolean initCipherOnCreate) {
+                                                     boolean initCipherOnCreate,
+                                                     boolean envelopeEncryption,
+                                                     @Nullable Executor prepareExecutor) {
+        BaseEncryptionManager manager;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            return new EncryptionManagerAPI23(context, keyStoreName, keyAlias,
-                    isAuthenticateUserRequired, userAuthenticationValidityDurationSeconds,
-                    initCipherOnCreate);
+            manager = new EncryptionManagerAPI23(keyStoreName, keyAlias,
+                    isAuthenticateUserRequired, userAuthenticationValidityDurationSeconds);
         } else {
-            return new EncryptionManagerAPI18(context, keyStoreName, keyAlias, initCipherOnCreate,
+            manager = new EncryptionManagerAPI18(keyStoreName, keyAlias,
                     isAuthenticateUserRequired);
         }
+        manager.setEnvelopeEncryption(envelopeEncryption);
+        //without an executor the keys are ready when the manager is returned.
+        if (prepareExecutor != null) {
+            manager.prepareInBackground(context, initCipherOnCreate, prepareExecutor);
+        } else {
+            manager.prepare(context, initCipherOnCreate);
+        }
+        return manager;
     }
 }
@@ -18,6 +18,8 @@ package com.okta.oidc.storage.security;
 import android.content.Context;
 import android.os.Build;
 
+import com.okta.oidc.SharedExecutor;
+
 import java.io.UnsupportedEncodingException;
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
@@ -27,6 +29,12 @@ import javax.crypto.Cipher;
 /**
  * A implementation of {@link EncryptionManager} which requires user authentication when
  * using keys by OS. The private keys are locked in the key store.
+ * <p>
+ * The keys are generated in the background, an operation made before that finished waits
+ * for it, also when called on the main thread. Generating the keys fails while the device has
+ * no secure lock screen. The failure is thrown by the operation waiting for it and the next
+ * operation generates the keys again, {@link #recreateKeys(Context)} and {@link #removeKeys()}
+ * drop the failed attempt. The same manager can be used once the user set a lock screen.
  */
 @androidx.annotation.RequiresApi(Build.VERSION_CODES.M)
 public class GuardedEncryptionManager implements EncryptionManager {
@@ -37,7 +45,7 @@ public class GuardedEncryptionManager implements EncryptionManager {
 
     /**
      * Constructor requires a context. It create encryption manager which requires device
-     * authorization only once.
+     * authorization only once. The keys are prepared in the background.
      *
      * @param context context
      */
@@ -63,7 +71,9 @@ public class GuardedEncryptionManager implements EncryptionManager {
                         KEY_AUTHORIZE_ALIAS,
                         true,
                         Math.max(userAuthenticationValidityDurationSeconds, MIN_VALIDITY_DURATION),
-                        false);
+                        false,
+                        false,
+                        SharedExecutor.getDefault().getExecutor(SharedExecutor.Priority.DEFAULT));
     }
 
     @Override
@@ -76,6 +86,26 @@ public class GuardedEncryptionManager implements EncryptionManager {
         return mEncryptionManager.decrypt(value);
     }
 
+    @Override
+    public String encryptBytes(byte[] value) throws GeneralSecurityException {
+        return mEncryptionManager.encryptBytes(value);
+    }
+
+    @Override
+    public byte[] decryptBytes(String value) throws GeneralSecurityException {
+        return mEncryptionManager.decryptBytes(value);
+    }
+
+    @Override
+    public boolean isBinarySupported() {
+        return mEncryptionManager.isBinarySupported();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return mEncryptionManager.isThreadSafe();
+    }
+
     @Override
     public String getHashed(String value) throws NoSuchAlgorithmException,
             UnsupportedEncodingException {
@@ -543,6 +543,8 @@ public final class AuthorizationException extends Exception {
         public static final int ID_TOKEN_WRONG_ISSUED_TIME_ERROR = 6007;
         public static final int NONCE_MISMATCH_ERROR = 6008;
         public static final int AUTH_TIME_MISSING_ERROR = 6009;
+        public static final int INVALID_SIGNATURE_ERROR = 6010;
+        public static final int SIGNING_KEY_NOT_FOUND_ERROR = 6011;
 
         public static AuthorizationException createNotSupportedAlgorithmException(String alg) {
             return tokenValidationEx(NOT_SUPPORTED_ALGORITHM_ERROR,
@@ -584,6 +586,13 @@ public final class AuthorizationException extends Exception {
                 tokenValidationEx(AUTH_TIME_MISSING_ERROR,
                         "max_age provided but auth_time is missing");
 
+        public static final AuthorizationException INVALID_SIGNATURE =
+                tokenValidationEx(INVALID_SIGNATURE_ERROR, "Invalid ID Token signature");
+
+        public static final AuthorizationException SIGNING_KEY_NOT_FOUND =
+                tokenValidationEx(SIGNING_KEY_NOT_FOUND_ERROR,
+                        "No key of the provider matches the ID Token kid");
+
     }
 
     private static AuthorizationException generalEx(int code, @Nullable String errorDescription) {
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 The AppAuth for Android Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.okta.oidc.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.okta.oidc.net.request.ProviderConfiguration;
+import com.okta.oidc.net.response.IntrospectInfo;
+import com.okta.oidc.net.response.JsonWebKeySet;
+import com.okta.oidc.net.response.TokenResponse;
+import com.okta.oidc.net.response.web.AuthorizeResponse;
+import com.okta.oidc.net.response.web.LogoutResponse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * @hide The Gson instance shared by the library. Gson caches the adapter of every type it has
+ * seen, so a single instance only inspects a class once per process. The library models are
+ * read and written by hand written adapters instead of reflection.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public final class GsonUtil {
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(TokenResponse.class, TokenResponse.ADAPTER)
+            .registerTypeAdapter(ProviderConfiguration.class, ProviderConfiguration.ADAPTER)
+            .registerTypeAdapter(IntrospectInfo.class, IntrospectInfo.ADAPTER)
+            .registerTypeAdapter(AuthorizeResponse.class, AuthorizeResponse.ADAPTER)
+            .registerTypeAdapter(LogoutResponse.class, LogoutResponse.ADAPTER)
+            .registerTypeAdapter(JsonWebKeySet.class, JsonWebKeySet.ADAPTER)
+            .create();
+
+    private GsonUtil() {
+        throw new IllegalStateException("This type is not intended to be instantiated");
+    }
+
+    @NonNull
+    public static Gson getGson() {
+        return GSON;
+    }
+
+    @NonNull
+    public static <T> TypeAdapter<T> getAdapter(@NonNull Class<T> type) {
+        return GSON.getAdapter(type);
+    }
+
+    /**
+     * Writes a value with the given adapter the way {@link Gson#toJson(Object)} would.
+     *
+     * @param adapter the adapter of the value.
+     * @param value   the value.
+     * @param <T>     the type of the value.
+     * @return the json string.
+     */
+    @NonNull
+    public static <T> String toJson(@NonNull TypeAdapter<T> adapter, T value) {
+        StringWriter writer = new StringWriter();
+        try {
+            JsonWriter out = GSON.newJsonWriter(writer);
+            adapter.write(out, value);
+            out.flush();
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Reads a value with the given adapter the way {@link Gson#fromJson(String, Class)} would.
+     *
+     * @param adapter the adapter of the value.
+     * @param json    the json string.
+     * @param <T>     the type of the value.
+     * @return the value, null for an empty string.
+     * @throws JsonSyntaxException if the json can't be read as the type.
+     */
+    public static <T> T fromJson(@NonNull TypeAdapter<T> adapter, String json)
+            throws JsonSyntaxException {
+        if (json == null) {
+            return null;
+        }
+        JsonReader in = GSON.newJsonReader(new StringReader(json));
+        in.setLenient(true);
+        boolean empty = true;
+        try {
+            in.peek();
+            empty = false;
+            return adapter.read(in);
+        } catch (EOFException e) {
+            if (empty) {
+                return null;
+            }
+            throw new JsonSyntaxException(e);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+}
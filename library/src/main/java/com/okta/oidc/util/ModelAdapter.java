@@ -0,0 +1,196 @@
+/*
+ * Copyright 2015 The AppAuth for Android Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.okta.oidc.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @hide Base of the hand written adapters of the library models. Reads and writes the same json
+ * as the reflective Gson adapter: null members are omitted, unknown members are skipped and
+ * strings are read from numbers and booleans as well.
+ *
+ * @param <T> the model type.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public abstract class ModelAdapter<T> extends TypeAdapter<T> {
+    /**
+     * Creates an empty model that members are read into.
+     *
+     * @return a new model.
+     */
+    @NonNull
+    protected abstract T create();
+
+    /**
+     * Reads the value of one member into the model.
+     *
+     * @param model the model.
+     * @param name  the member name.
+     * @param in    the reader positioned at the member value.
+     * @return false if the member is unknown and its value wasn't consumed.
+     * @throws IOException if the value can't be read.
+     */
+    protected abstract boolean readMember(@NonNull T model, @NonNull String name,
+                                          @NonNull JsonReader in) throws IOException;
+
+    /**
+     * Writes the members of the model.
+     *
+     * @param model the model.
+     * @param out   the writer positioned inside the json object.
+     * @throws IOException if the value can't be written.
+     */
+    protected abstract void writeMembers(@NonNull T model, @NonNull JsonWriter out)
+            throws IOException;
+
+    @Override
+    public final T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        T model = create();
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!readMember(model, in.nextName(), in)) {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return model;
+    }
+
+    @Override
+    public final void write(JsonWriter out, T model) throws IOException {
+        if (model == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeMembers(model, out);
+        out.endObject();
+    }
+
+    public static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    public static long readLong(JsonReader in, long fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        return in.nextLong();
+    }
+
+    public static int readInt(JsonReader in, int fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        return in.nextInt();
+    }
+
+    public static boolean readBoolean(JsonReader in, boolean fallback) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    public static String[] readStringArray(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(readString(in));
+        }
+        in.endArray();
+        return values.toArray(new String[0]);
+    }
+
+    public static Map<String, String> readStringMap(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            values.put(in.nextName(), readString(in));
+        }
+        in.endObject();
+        return values;
+    }
+
+    public static void writeString(JsonWriter out, String name, String value)
+            throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    public static void writeStringArray(JsonWriter out, String name, String[] values)
+            throws IOException {
+        if (values == null) {
+            return;
+        }
+        out.name(name).beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    public static void writeStringMap(JsonWriter out, String name, Map<String, String> values)
+            throws IOException {
+        if (values == null) {
+            return;
+        }
+        out.name(name).beginObject();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            out.name(entry.getKey()).value(entry.getValue());
+        }
+        out.endObject();
+    }
+}
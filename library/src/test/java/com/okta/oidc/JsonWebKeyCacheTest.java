@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc;
+
+import android.content.Context;
+import android.util.Base64;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.okta.oidc.net.OktaHttpClient;
+import com.okta.oidc.net.request.HttpRequestBuilder;
+import com.okta.oidc.net.request.ProviderConfiguration;
+import com.okta.oidc.net.request.TokenRequest;
+import com.okta.oidc.net.response.JsonWebKeySet;
+import com.okta.oidc.storage.OktaRepository;
+import com.okta.oidc.util.AuthorizationException;
+import com.okta.oidc.util.CodeVerifierUtil;
+import com.okta.oidc.util.DateUtil;
+import com.okta.oidc.util.EncryptionManagerStub;
+import com.okta.oidc.util.HttpClientFactory;
+import com.okta.oidc.util.MockEndPoint;
+import com.okta.oidc.util.OktaStorageMock;
+import com.okta.oidc.util.TestValues;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.math.BigInteger;
+import java.net.SocketTimeoutException;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+import static com.okta.oidc.util.AuthorizationException.GeneralErrors.ID_TOKEN_VALIDATION_ERROR;
+import static com.okta.oidc.util.AuthorizationException.GeneralErrors.NETWORK_ERROR;
+import static com.okta.oidc.util.AuthorizationException.TokenValidationError.INVALID_SIGNATURE_ERROR;
+import static com.okta.oidc.util.AuthorizationException.TokenValidationError.SIGNING_KEY_NOT_FOUND_ERROR;
+import static com.okta.oidc.util.TestValues.CUSTOM_CODE;
+import static com.okta.oidc.util.TestValues.CUSTOM_NONCE;
+import static com.okta.oidc.util.TestValues.CUSTOM_STATE;
+import static com.okta.oidc.util.TestValues.getAuthorizeRequest;
+import static com.okta.oidc.util.TestValues.getAuthorizeResponse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class JsonWebKeyCacheTest {
+    private static final String KID = "key1";
+    private static final String ROTATED_KID = "key2";
+
+    private MockEndPoint mEndPoint;
+    private OktaState mOktaState;
+    private OIDCConfig mConfig;
+    private ProviderConfiguration mProviderConfig;
+    private OktaHttpClient mHttpClient;
+    private TokenRequest mRequest;
+    private KeyPair mKeyPair;
+    private KeyPair mRotatedKeyPair;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mEndPoint = new MockEndPoint();
+        String url = mEndPoint.getUrl();
+        mOktaState = new OktaState(new OktaRepository(new OktaStorageMock(context, false),
+                context, new EncryptionManagerStub(), false, false));
+        mConfig = new OIDCConfig.Builder()
+                .clientId(TestValues.CLIENT_ID)
+                .redirectUri(TestValues.REDIRECT_URI)
+                .endSessionRedirectUri(TestValues.END_SESSION_URI)
+                .scopes(TestValues.SCOPES)
+                .discoveryUri(url)
+                .verifyIdTokenSignature(true)
+                .create();
+        mProviderConfig = TestValues.getProviderConfiguration(url);
+        mHttpClient = new HttpClientFactory().build();
+        mRequest = HttpRequestBuilder.newTokenRequest()
+                .authRequest(getAuthorizeRequest(mConfig,
+                        CodeVerifierUtil.generateRandomCodeVerifier()))
+                .authResponse(getAuthorizeResponse(CUSTOM_STATE, CUSTOM_CODE))
+                .config(mConfig)
+                .providerConfiguration(mProviderConfig)
+                .keyCache(mOktaState.getJsonWebKeyCache())
+                .createRequest();
+        mKeyPair = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        mRotatedKeyPair = Keys.keyPairFor(SignatureAlgorithm.RS256);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mEndPoint.shutDown();
+    }
+
+    private static String encode(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            bytes = unsigned;
+        }
+        return Base64.encodeToString(bytes, Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP);
+    }
+
+    private static JSONObject jwk(String kid, KeyPair keyPair) throws Exception {
+        RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+        return new JSONObject()
+                .put("kty", "RSA")
+                .put("alg", "RS256")
+                .put("use", "sig")
+                .put("kid", kid)
+                .put("n", encode(key.getModulus()))
+                .put("e", encode(key.getPublicExponent()));
+    }
+
+    private static String jwks(JSONObject... keys) throws Exception {
+        JSONArray array = new JSONArray();
+        for (JSONObject key : keys) {
+            array.put(key);
+        }
+        return new JSONObject().put("keys", array).toString();
+    }
+
+    private OktaIdToken idToken(String kid, KeyPair keyPair) {
+        return OktaIdToken.parseIdToken(Jwts.builder()
+                .setHeaderParam("kid", kid)
+                .claim("nonce", CUSTOM_NONCE)
+                .setIssuer(mEndPoint.getUrl())
+                .setAudience(mConfig.getClientId())
+                .setSubject("sub")
+                .setExpiration(DateUtil.getTomorrow())
+                .setIssuedAt(DateUtil.getNow())
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+                .compact());
+    }
+
+    private void assertVerifyFails(JsonWebKeyCache cache, OktaIdToken idToken, int code) {
+        try {
+            cache.verify(idToken, mRequest, mHttpClient);
+            fail("verification should fail");
+        } catch (AuthorizationException e) {
+            assertEquals(ID_TOKEN_VALIDATION_ERROR.code, e.code);
+            assertEquals(code, ((AuthorizationException) e.getCause()).code);
+        }
+    }
+
+    @Test
+    public void verifyFetchesKeysOnce() throws Exception {
+        mEndPoint.enqueueJwks(jwks(jwk(KID, mKeyPair)));
+        JsonWebKeyCache cache = mOktaState.getJsonWebKeyCache();
+        cache.verify(idToken(KID, mKeyPair), mRequest, mHttpClient);
+        cache.verify(idToken(KID, mKeyPair), mRequest, mHttpClient);
+        assertEquals(1, mEndPoint.getRequestCount());
+        assertEquals(mProviderConfig.jwks_uri, mEndPoint.takeRequest().getRequestUrl().toString());
+    }
+
+    @Test
+    public void restoredKeysVerifyWithoutRequest() throws Exception {
+        mEndPoint.enqueueJwks(jwks(jwk(KID, mKeyPair)));
+        mOktaState.getJsonWebKeyCache().verify(idToken(KID, mKeyPair), mRequest, mHttpClient);
+        JsonWebKeySet persisted = mOktaState.getJsonWebKeySet();
+        assertNotNull(persisted);
+        assertEquals(mProviderConfig.jwks_uri, persisted.getJwksUri());
+
+        new JsonWebKeyCache(mOktaState).verify(idToken(KID, mKeyPair), mRequest, mHttpClient);
+        assertEquals(1, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void unknownKidRefreshesKeys() throws Exception {
+        mEndPoint.enqueueJwks(jwks(jwk(KID, mKeyPair)));
+        mOktaState.save(TestValues.getProviderConfiguration(mEndPoint.getUrl()));
+        mOktaState.getJsonWebKeyCache().verify(idToken(KID, mKeyPair), mRequest, mHttpClient);
+
+        //a restarted app with the persisted keys sees a token signed by a rotated key.
+        mEndPoint.enqueueJwks(jwks(jwk(KID, mKeyPair), jwk(ROTATED_KID, mRotatedKeyPair)));
+        new JsonWebKeyCache(mOktaState)
+                .verify(idToken(ROTATED_KID, mRotatedKeyPair), mRequest, mHttpClient);
+        assertEquals(2, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void unknownKidRefreshIsRateLimited() throws Exception {
+        mEndPoint.enqueueJwks(jwks(jwk(KID, mKeyPair)));
+        JsonWebKeyCache cache = mOktaState.getJsonWebKeyCache();
+        cache.verify(idToken(KID, mKeyPair), mRequest, mHttpClient);
+
+        assertVerifyFails(cache, idToken(ROTATED_KID, mRotatedKeyPair),
+                SIGNING_KEY_NOT_FOUND_ERROR);
+        assertVerifyFails(cache, idToken(ROTATED_KID, mRotatedKeyPair),
+                SIGNING_KEY_NOT_FOUND_ERROR);
+        assertEquals(1, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void slowKeySetFetchTimesOut() throws Exception {
+        mEndPoint.enqueueJwks(jwks(jwk(KID, mKeyPair)), 2);
+        JsonWebKeyCache cache = new JsonWebKeyCache(mOktaState, null, 200);
+        long start = System.nanoTime();
+        try {
+            cache.verify(idToken(KID, mKeyPair), mRequest, mHttpClient);
+            fail("verification should time out");
+        } catch (AuthorizationException e) {
+            assertEquals(NETWORK_ERROR.code, e.code);
+            assertTrue(e.getCause() instanceof SocketTimeoutException);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void invalidSignature() throws Exception {
+        mEndPoint.enqueueJwks(jwks(jwk(KID, mKeyPair)));
+        assertVerifyFails(mOktaState.getJsonWebKeyCache(), idToken(KID, mRotatedKeyPair),
+                INVALID_SIGNATURE_ERROR);
+    }
+
+    @Test
+    public void concurrentVerifyFetchesOnce() throws Exception {
+        mEndPoint.enqueueJwks(jwks(jwk(KID, mKeyPair)));
+        JsonWebKeyCache cache = mOktaState.getJsonWebKeyCache();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    cache.verify(idToken(KID, mKeyPair), mRequest, mHttpClient);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void tokenRequestRejectsInvalidSignature() throws Exception {
+        String jws = TestValues.getJwt(mEndPoint.getUrl(), CUSTOM_NONCE, mConfig.getClientId());
+        mEndPoint.enqueueTokenSuccess(jws);
+        mEndPoint.enqueueJwks(jwks(jwk(KID, mKeyPair)));
+        try {
+            mRequest.executeRequest(mHttpClient);
+            fail("token with an invalid signature should be rejected");
+        } catch (AuthorizationException e) {
+            assertEquals(ID_TOKEN_VALIDATION_ERROR.code, e.code);
+            assertEquals(INVALID_SIGNATURE_ERROR, ((AuthorizationException) e.getCause()).code);
+        }
+    }
+}
@@ -14,6 +14,8 @@
  */
 package com.okta.oidc;
 
+import android.util.Base64;
+
 import com.okta.oidc.net.request.ProviderConfiguration;
 import com.okta.oidc.net.request.TokenRequest;
 import com.okta.oidc.util.AuthorizationException;
@@ -29,14 +31,21 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.Collections;
+
 import static com.okta.oidc.util.TestValues.CUSTOM_CODE;
 import static com.okta.oidc.util.TestValues.CUSTOM_NONCE;
 import static com.okta.oidc.util.TestValues.CUSTOM_STATE;
 import static com.okta.oidc.util.TestValues.CUSTOM_URL;
 import static com.okta.oidc.util.TestValues.getAuthorizeRequest;
 import static com.okta.oidc.util.TestValues.getAuthorizeResponse;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -68,8 +77,8 @@ public class OktaIdTokenTest {
                         getAuthorizeResponse(CUSTOM_STATE, CUSTOM_CODE), mConfiguration);
         idToken.validate(tokenRequest, new OktaIdToken.DefaultValidator(System::currentTimeMillis));
         assertNotNull(idToken);
-        assertNotNull(idToken.mHeader);
-        assertNotNull(idToken.mClaims);
+        assertNotNull(idToken.getHeader());
+        assertNotNull(idToken.getClaims());
     }
 
     @Test
@@ -161,10 +170,63 @@ public class OktaIdTokenTest {
     @Test
     public void parseValidIdToken() {
         OktaIdToken token = OktaIdToken.parseIdToken(JsonStrings.VALID_ID_TOKEN);
-        assertNotNull(token.mClaims);
-        assertNotNull(token.mSignature);
-        assertNotNull(token.mHeader);
-        assertEquals("RS256", token.mHeader.alg);
+        assertNotNull(token.getClaims());
+        assertNotNull(token.getSignature());
+        assertNotNull(token.getHeader());
+        assertEquals("RS256", token.getHeader().alg);
+    }
+
+    @Test
+    public void parseIsLazy() {
+        String jwt = TestValues.getJwt(CUSTOM_URL, CUSTOM_NONCE, mConfig.getClientId());
+        OktaIdToken token = OktaIdToken.parseIdToken(jwt);
+        assertNull(token.mHeader);
+        assertNull(token.mClaims);
+        assertNull(token.mSignature);
+
+        assertEquals(CUSTOM_URL, token.getIssuer());
+        assertEquals(CUSTOM_NONCE, token.getNonce());
+        assertEquals(Collections.singletonList(mConfig.getClientId()), token.getAudience());
+        assertTrue(token.getExpiration() > token.getIssuedAt());
+        //the base claims don't materialize the full claims.
+        assertNull(token.mClaims);
+
+        OktaIdToken.Claims claims = token.getClaims();
+        assertSame(claims, token.getClaims());
+        assertEquals(claims.iss, token.getIssuer());
+        assertEquals(claims.exp, token.getExpiration());
+        assertEquals(claims.iat, token.getIssuedAt());
+        assertEquals(claims.aud, token.getAudience());
+    }
+
+    @Test
+    public void signatureBytes() {
+        OktaIdToken token = OktaIdToken.parseIdToken(JsonStrings.VALID_ID_TOKEN);
+        String signature = JsonStrings.VALID_ID_TOKEN
+                .substring(JsonStrings.VALID_ID_TOKEN.lastIndexOf('.') + 1);
+        byte[] expected = Base64.decode(signature, Base64.URL_SAFE);
+        assertArrayEquals(expected, token.getSignatureBytes());
+        assertNotSame(token.getSignatureBytes(), token.getSignatureBytes());
+        assertEquals(new String(expected), token.getSignature());
+    }
+
+    @Test
+    public void parseMissingSignature() {
+        mExpectedEx.expect(IllegalArgumentException.class);
+        String jwt = TestValues.getJwt(CUSTOM_URL, CUSTOM_NONCE, mConfig.getClientId());
+        OktaIdToken.parseIdToken(jwt.substring(0, jwt.lastIndexOf('.') + 1));
+    }
+
+    @Test
+    public void invalidClaimsOnAccess() {
+        String header = Base64.encodeToString("{\"alg\":\"RS256\"}".getBytes(),
+                Base64.URL_SAFE | Base64.NO_WRAP | Base64.NO_PADDING);
+        String claims = Base64.encodeToString("{\"iss\":".getBytes(),
+                Base64.URL_SAFE | Base64.NO_WRAP | Base64.NO_PADDING);
+        OktaIdToken token = OktaIdToken.parseIdToken(header + "." + claims + ".c2ln");
+        assertEquals("RS256", token.getHeader().alg);
+        mExpectedEx.expect(IllegalArgumentException.class);
+        token.getIssuer();
     }
 
     @Test
@@ -34,6 +34,8 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static com.okta.oidc.util.TestValues.CUSTOM_URL;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -99,4 +101,22 @@ public class OktaStateTest {
         assertNotNull(mOktaState.getProviderConfiguration());
 
     }
+
+    @Test
+    public void tokenListener() throws OktaRepository.EncryptionException {
+        AtomicInteger changes = new AtomicInteger();
+        Runnable listener = changes::incrementAndGet;
+        mOktaState.addTokenListener(listener);
+        mOktaState.save(TestValues.getTokenResponse());
+        mOktaState.save(TestValues.getProviderConfiguration(CUSTOM_URL));
+        assertEquals(1, changes.get());
+
+        mOktaState.deleteAll(ProviderConfiguration.RESTORE.getKey(),
+                TokenResponse.RESTORE.getKey());
+        assertEquals(2, changes.get());
+
+        mOktaState.removeTokenListener(listener);
+        mOktaState.save(TestValues.getTokenResponse());
+        assertEquals(2, changes.get());
+    }
 }
@@ -28,8 +28,10 @@ import org.robolectric.annotation.Config;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
@@ -113,4 +115,50 @@ public class RequestDispatcherTest {
         mDispatcher.shutdown();
         assertTrue(mDispatcher.isShutdown());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void completedTasksRemoved() throws Exception {
+        Future<?> future = mDispatcher.submit(() -> {
+        });
+        future.get(1, TimeUnit.SECONDS);
+        for (int i = 0; i < 100 && mDispatcher.getInFlightCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, mDispatcher.getInFlightCount());
+    }
+
+    @Test
+    public void cancelTasks() throws Exception {
+        final Object group = new Object();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Future<?> inGroup = mDispatcher.submit(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, SharedExecutor.Priority.DEFAULT, null, group);
+        Future<?> other = mDispatcher.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, SharedExecutor.Priority.DEFAULT, null);
+        started.await(1, TimeUnit.SECONDS);
+        assertEquals(2, mDispatcher.getInFlightCount());
+        assertEquals(1, mDispatcher.getInFlightCount(group));
+
+        assertEquals(1, mDispatcher.cancelTasks(group));
+        assertTrue(inGroup.isCancelled());
+        assertFalse(other.isCancelled());
+        assertEquals(0, mDispatcher.getInFlightCount(group));
+
+        mDispatcher.stopAllTasks();
+        assertTrue(other.isCancelled());
+        assertEquals(0, mDispatcher.getInFlightCount());
+        release.countDown();
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc;
+
+import android.os.Process;
+
+import com.okta.oidc.SharedExecutor.Priority;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SharedExecutorTest {
+    private SharedExecutor mSharedExecutor;
+
+    @Before
+    public void setUp() {
+        mSharedExecutor = new SharedExecutor(2);
+    }
+
+    @After
+    public void tearDown() {
+        mSharedExecutor.shutdown();
+    }
+
+    @Test
+    public void threadsBounded() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 5; i++) {
+            mSharedExecutor.getExecutor(Priority.DEFAULT).execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        assertEquals(2, mSharedExecutor.getMaxThreads());
+        assertEquals(2, mSharedExecutor.getActiveCount());
+        assertEquals(2, mSharedExecutor.getThreadCount());
+        assertEquals(3, mSharedExecutor.getQueueDepth());
+
+        release.countDown();
+        mSharedExecutor.shutdown();
+        assertTrue(mSharedExecutor.awaitTermination(1, TimeUnit.SECONDS));
+        assertEquals(5, mSharedExecutor.getCompletedTaskCount());
+    }
+
+    //occupies the workers until release is counted down.
+    private CountDownLatch block(int tasks, String host, CountDownLatch release)
+            throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            mSharedExecutor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, Priority.INTERACTIVE, host);
+        }
+        return started;
+    }
+
+    @Test
+    public void startedByPriority() throws Exception {
+        mSharedExecutor.shutdown();
+        mSharedExecutor = new SharedExecutor(1);
+        CountDownLatch release = new CountDownLatch(1);
+        assertTrue(block(1, null, release).await(1, TimeUnit.SECONDS));
+        List<Priority> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(4);
+        for (Priority priority : Arrays.asList(Priority.BACKGROUND, Priority.DEFAULT,
+                Priority.INTERACTIVE, Priority.DEFAULT)) {
+            mSharedExecutor.execute(() -> {
+                order.add(priority);
+                done.countDown();
+            }, priority, null);
+        }
+        assertEquals(1, mSharedExecutor.getQueueDepth(Priority.INTERACTIVE));
+        assertEquals(2, mSharedExecutor.getQueueDepth(Priority.DEFAULT));
+        assertEquals(4, mSharedExecutor.getQueueDepth());
+
+        release.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(Priority.INTERACTIVE, Priority.DEFAULT, Priority.DEFAULT,
+                Priority.BACKGROUND), order);
+    }
+
+    @Test
+    public void tasksPerHostLimited() throws Exception {
+        mSharedExecutor.shutdown();
+        mSharedExecutor = new SharedExecutor(3, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = block(2, "a.okta.com", release);
+        CountDownLatch other = block(1, "b.okta.com", release);
+        assertTrue(other.await(1, TimeUnit.SECONDS));
+
+        assertEquals(1, started.getCount());
+        assertEquals(2, mSharedExecutor.getActiveCount());
+        assertEquals(1, mSharedExecutor.getQueueDepth());
+
+        release.countDown();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void queueTime() throws Exception {
+        mSharedExecutor.shutdown();
+        mSharedExecutor = new SharedExecutor(1);
+        CountDownLatch release = new CountDownLatch(1);
+        assertTrue(block(1, null, release).await(1, TimeUnit.SECONDS));
+        CountDownLatch done = new CountDownLatch(1);
+        mSharedExecutor.execute(done::countDown, Priority.BACKGROUND, null);
+        Thread.sleep(50);
+
+        assertTrue(mSharedExecutor.getOldestQueuedAge(Priority.BACKGROUND,
+                TimeUnit.MILLISECONDS) >= 50);
+        assertEquals(0, mSharedExecutor.getOldestQueuedAge(Priority.DEFAULT,
+                TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(0, mSharedExecutor.getOldestQueuedAge(Priority.BACKGROUND,
+                TimeUnit.MILLISECONDS));
+        assertTrue(mSharedExecutor.getMaxQueueTime(Priority.BACKGROUND,
+                TimeUnit.MILLISECONDS) >= 50);
+        assertTrue(mSharedExecutor.getAverageQueueTime(Priority.BACKGROUND,
+                TimeUnit.MILLISECONDS) >= 50);
+    }
+
+    @Test
+    public void scheduledCount() {
+        mSharedExecutor.getScheduler().schedule(() -> {
+        }, 1, TimeUnit.HOURS);
+        assertEquals(1, mSharedExecutor.getScheduledCount());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shutdown() {
+        mSharedExecutor.shutdown();
+        assertTrue(mSharedExecutor.isShutdown());
+        mSharedExecutor.getExecutor(Priority.DEFAULT).execute(() -> {
+        });
+    }
+
+    @Test
+    public void defaultRecreatedAfterShutdown() {
+        SharedExecutor shared = SharedExecutor.getDefault();
+        assertSame(shared, SharedExecutor.getDefault());
+        shared.shutdown();
+
+        SharedExecutor recreated = SharedExecutor.getDefault();
+        assertNotSame(shared, recreated);
+        assertFalse(recreated.isShutdown());
+    }
+
+    @Test
+    public void dispatchersShareThreads() throws Exception {
+        RequestDispatcher first = new RequestDispatcher(Runnable::run, mSharedExecutor);
+        RequestDispatcher second = new RequestDispatcher(Runnable::run, mSharedExecutor);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 2; i++) {
+            first.execute(done::countDown);
+            second.execute(done::countDown);
+        }
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        first.shutdown();
+
+        assertFalse(mSharedExecutor.isShutdown());
+        assertTrue(mSharedExecutor.getThreadCount() <= 2);
+    }
+
+    @Test
+    public void workersRunAtBackgroundPriority() throws Exception {
+        AtomicInteger priority = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        mSharedExecutor.execute(() -> {
+            priority.set(Process.getThreadPriority(Process.myTid()));
+            done.countDown();
+        }, Priority.INTERACTIVE, null);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+
+        assertEquals(Process.THREAD_PRIORITY_BACKGROUND, priority.get());
+    }
+}
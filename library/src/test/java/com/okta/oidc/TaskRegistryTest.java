@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+
+package com.okta.oidc;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class TaskRegistryTest {
+    private static final Object GROUP = new Object();
+    private TaskRegistry mRegistry;
+
+    @Before
+    public void setUp() {
+        mRegistry = new TaskRegistry();
+    }
+
+    private static Future<?> newTask() {
+        return new FutureTask<>(() -> null);
+    }
+
+    @Test
+    public void addAndRemove() {
+        Future<?> task = newTask();
+        mRegistry.add(task, null);
+        assertEquals(1, mRegistry.getInFlightCount());
+        mRegistry.remove(task);
+        assertEquals(0, mRegistry.getInFlightCount());
+    }
+
+    @Test
+    public void cancelGroup() {
+        Future<?> inGroup = newTask();
+        Future<?> other = newTask();
+        mRegistry.add(inGroup, GROUP);
+        mRegistry.add(other, null);
+        assertEquals(1, mRegistry.getInFlightCount(GROUP));
+
+        assertEquals(1, mRegistry.cancel(GROUP));
+        assertTrue(inGroup.isCancelled());
+        assertFalse(other.isCancelled());
+        assertEquals(0, mRegistry.getInFlightCount(GROUP));
+        assertEquals(1, mRegistry.getInFlightCount());
+    }
+
+    @Test
+    public void cancelAll() {
+        Future<?> inGroup = newTask();
+        Future<?> other = newTask();
+        mRegistry.add(inGroup, GROUP);
+        mRegistry.add(other, null);
+
+        assertEquals(2, mRegistry.cancelAll());
+        assertTrue(inGroup.isCancelled());
+        assertTrue(other.isCancelled());
+        assertEquals(0, mRegistry.getInFlightCount());
+    }
+}
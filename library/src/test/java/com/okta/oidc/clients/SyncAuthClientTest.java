@@ -16,14 +16,18 @@
 package com.okta.oidc.clients;
 
 import android.content.Context;
+import android.net.Uri;
 
+import androidx.annotation.NonNull;
 import androidx.test.platform.app.InstrumentationRegistry;
 
 import com.okta.oidc.AuthenticationPayload;
 import com.okta.oidc.OIDCConfig;
 import com.okta.oidc.Okta;
 import com.okta.oidc.OktaState;
+import com.okta.oidc.SharedExecutor;
 import com.okta.oidc.Tokens;
+import com.okta.oidc.net.ConnectionParameters;
 import com.okta.oidc.net.OktaHttpClient;
 import com.okta.oidc.net.request.NativeAuthorizeRequest;
 import com.okta.oidc.net.request.ProviderConfiguration;
@@ -40,6 +44,7 @@ import com.okta.oidc.util.MockEndPoint;
 import com.okta.oidc.util.MockRequestCallback;
 import com.okta.oidc.util.HttpClientFactory;
 import com.okta.oidc.util.MockResultCallback;
+import com.okta.oidc.util.OkHttp;
 import com.okta.oidc.util.TestValues;
 
 import org.junit.Before;
@@ -50,11 +55,16 @@ import org.junit.runner.RunWith;
 import org.robolectric.ParameterizedRobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import okhttp3.mockwebserver.RecordedRequest;
 
@@ -68,9 +78,13 @@ import static com.okta.oidc.util.TestValues.CUSTOM_STATE;
 import static com.okta.oidc.util.TestValues.EXCHANGE_CODE;
 import static com.okta.oidc.util.TestValues.SESSION_TOKEN;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -230,15 +244,7 @@ public class SyncAuthClientTest {
         mEndPoint.enqueueReturnSuccessEmptyBody();
         mEndPoint.enqueueReturnSuccessEmptyBody();
         int status = mSyncNativeAuth.signOut();
-        RecordedRequest recordedRequest = mEndPoint.takeRequest();
-
-        assertThat(recordedRequest.getPath(),
-                equalTo("/revoke?client_id=CLIENT_ID&token=ACCESS_TOKEN"));
-
-        recordedRequest = mEndPoint.takeRequest();
-
-        assertThat(recordedRequest.getPath(),
-                equalTo("/revoke?client_id=CLIENT_ID&token=REFRESH_TOKEN"));
+        assertRevokedBothTokens();
 
         assertEquals(status, SUCCESS);
     }
@@ -254,15 +260,7 @@ public class SyncAuthClientTest {
         mAuthClient.signOut(mockCallback);
         Thread.sleep(200); //wait for request to be created
 
-        RecordedRequest recordedRequest = mEndPoint.takeRequest();
-
-        assertThat(recordedRequest.getPath(),
-                equalTo("/revoke?client_id=CLIENT_ID&token=ACCESS_TOKEN"));
-
-        recordedRequest = mEndPoint.takeRequest();
-
-        assertThat(recordedRequest.getPath(),
-                equalTo("/revoke?client_id=CLIENT_ID&token=REFRESH_TOKEN"));
+        assertRevokedBothTokens();
         int status = mockCallback.getResult();
         assertEquals(status, SUCCESS);
     }
@@ -273,18 +271,55 @@ public class SyncAuthClientTest {
         mEndPoint.enqueueReturnInvalidClient();
 
         int status = mSyncNativeAuth.signOut();
-        RecordedRequest recordedRequest = mEndPoint.takeRequest();
+        assertRevokedBothTokens();
 
-        assertThat(recordedRequest.getPath(),
-                equalTo("/revoke?client_id=CLIENT_ID&token=ACCESS_TOKEN"));
+        assertEquals((status & FAILED_REVOKE_ACCESS_TOKEN), FAILED_REVOKE_ACCESS_TOKEN);
+        assertEquals((status & FAILED_REVOKE_REFRESH_TOKEN), FAILED_REVOKE_REFRESH_TOKEN);
+    }
 
-        recordedRequest = mEndPoint.takeRequest();
+    //Both tokens are revoked in parallel so the requests can arrive in any order.
+    private void assertRevokedBothTokens() throws InterruptedException {
+        Set<String> paths = new HashSet<>();
+        paths.add(mEndPoint.takeRequest().getPath());
+        paths.add(mEndPoint.takeRequest().getPath());
+        assertEquals(new HashSet<>(Arrays.asList(
+                "/revoke?client_id=CLIENT_ID&token=ACCESS_TOKEN",
+                "/revoke?client_id=CLIENT_ID&token=REFRESH_TOKEN")), paths);
+    }
 
-        assertThat(recordedRequest.getPath(),
-                equalTo("/revoke?client_id=CLIENT_ID&token=REFRESH_TOKEN"));
+    @Test
+    public void signOutWithLegacyClientRevokesSequentially() throws InterruptedException {
+        //a client that doesn't override execute keeps the response until cleanUp.
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        OktaHttpClient legacyClient = new OkHttp() {
+            @Override
+            public InputStream connect(@NonNull Uri uri, @NonNull ConnectionParameters param)
+                    throws Exception {
+                int opened = open.incrementAndGet();
+                maxOpen.set(Math.max(maxOpen.get(), opened));
+                return super.connect(uri, param);
+            }
+
+            @Override
+            public void cleanUp() {
+                open.decrementAndGet();
+                super.cleanUp();
+            }
+        };
+        SyncAuthClient client = new Okta.SyncAuthBuilder()
+                .withConfig(mConfig)
+                .withOktaHttpClient(legacyClient)
+                .withContext(mContext)
+                .withStorage(mStorage)
+                .withEncryptionManager(new EncryptionManagerStub())
+                .create();
+        mEndPoint.enqueueReturnSuccessEmptyBody();
+        mEndPoint.enqueueReturnSuccessEmptyBody();
 
-        assertEquals((status & FAILED_REVOKE_ACCESS_TOKEN), FAILED_REVOKE_ACCESS_TOKEN);
-        assertEquals((status & FAILED_REVOKE_REFRESH_TOKEN), FAILED_REVOKE_REFRESH_TOKEN);
+        assertEquals(SUCCESS, client.signOut());
+        assertRevokedBothTokens();
+        assertEquals(1, maxOpen.get());
     }
 
     @Test
@@ -303,4 +338,106 @@ public class SyncAuthClientTest {
         assertEquals((status & FAILED_REVOKE_ACCESS_TOKEN), SUCCESS);
         assertEquals(status, mSyncNativeAuth.getSignOutStatus());
     }
+
+    @Test
+    public void obtainNewConfigurationFresh() throws Exception {
+        ProviderConfiguration configuration = mSyncNativeAuth.obtainNewConfiguration();
+        assertSame(mProviderConfig, configuration);
+        assertEquals(0, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void obtainNewConfigurationStaleRevalidated() throws Exception {
+        mProviderConfig.setCacheState(null, 0);
+        mEndPoint.enqueueConfigurationSuccess(TestValues.getProviderConfiguration(
+                mEndPoint.getUrl()));
+
+        //the stale configuration is used without waiting for the network.
+        assertSame(mProviderConfig, mSyncNativeAuth.obtainNewConfiguration());
+        RecordedRequest recordedRequest = mEndPoint.takeRequest();
+        assertThat(recordedRequest.getPath(), startsWith(mConfig.getDiscoveryUri().getPath()));
+
+        ProviderConfiguration revalidated = mOktaState.getProviderConfiguration();
+        for (int i = 0; i < 100 && revalidated == mProviderConfig; i++) {
+            Thread.sleep(10);
+            revalidated = mOktaState.getProviderConfiguration();
+        }
+        assertNotSame(mProviderConfig, revalidated);
+        assertFalse(revalidated.isExpired());
+    }
+
+    @Test
+    public void configurationCacheStatePersistedWithoutCacheMode() throws Exception {
+        SharedExecutor sharedExecutor = new SharedExecutor();
+        SyncAuthClientImpl client = (SyncAuthClientImpl) new Okta.SyncAuthBuilder()
+                .withConfig(mConfig)
+                .withOktaHttpClient(mHttpClient)
+                .withContext(mContext)
+                .withStorage(mStorage)
+                .withEncryptionManager(new EncryptionManagerStub())
+                .withSharedExecutor(sharedExecutor)
+                .setCacheMode(false)
+                .create();
+
+        //a fresh configuration restored from storage isn't downloaded again.
+        ProviderConfiguration configuration = client.obtainNewConfiguration();
+        assertNotSame(mProviderConfig, configuration);
+        assertFalse(configuration.isExpired());
+        assertEquals(0, mEndPoint.getRequestCount());
+
+        configuration.setCacheState("\"v1\"", 0);
+        client.getOktaState().save(configuration);
+        mEndPoint.enqueueNotModified("\"v1\"", "max-age=600");
+        client.obtainNewConfiguration();
+        sharedExecutor.shutdown();
+        assertTrue(sharedExecutor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals("\"v1\"", mEndPoint.takeRequest().getHeader("If-None-Match"));
+        ProviderConfiguration revalidated = client.getOktaState().getProviderConfiguration();
+        assertEquals("\"v1\"", revalidated.getEtag());
+        assertFalse(revalidated.isExpired());
+    }
+
+    //warms up on its own executor and waits for it to finish.
+    private void warmUp() throws InterruptedException {
+        SharedExecutor sharedExecutor = new SharedExecutor();
+        SyncAuthClient client = new Okta.SyncAuthBuilder()
+                .withConfig(mConfig)
+                .withOktaHttpClient(mHttpClient)
+                .withContext(mContext)
+                .withStorage(mStorage)
+                .withEncryptionManager(new EncryptionManagerStub())
+                .withSharedExecutor(sharedExecutor)
+                .create();
+        client.warmUp();
+        sharedExecutor.shutdown();
+        assertTrue(sharedExecutor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void warmUpFetchesMissingConfiguration() throws Exception {
+        mOktaState.delete(mProviderConfig);
+        mEndPoint.enqueueConfigurationSuccess(TestValues.getProviderConfiguration(
+                mEndPoint.getUrl()));
+
+        warmUp();
+        RecordedRequest recordedRequest = mEndPoint.takeRequest();
+        assertThat(recordedRequest.getPath(), startsWith(mConfig.getDiscoveryUri().getPath()));
+        ProviderConfiguration configuration = mOktaState.getProviderConfiguration();
+        assertNotNull(configuration);
+        assertFalse(configuration.isExpired());
+    }
+
+    @Test
+    public void warmUpRevalidatesStaleConfiguration() throws Exception {
+        mProviderConfig.setCacheState(null, 0);
+        mEndPoint.enqueueConfigurationSuccess(TestValues.getProviderConfiguration(
+                mEndPoint.getUrl()));
+
+        warmUp();
+        assertEquals(1, mEndPoint.getRequestCount());
+        ProviderConfiguration revalidated = mOktaState.getProviderConfiguration();
+        assertNotSame(mProviderConfig, revalidated);
+        assertFalse(revalidated.isExpired());
+    }
 }
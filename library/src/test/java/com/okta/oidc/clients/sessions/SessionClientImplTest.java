@@ -26,9 +26,12 @@ import com.okta.oidc.OIDCConfig;
 import com.okta.oidc.Okta;
 import com.okta.oidc.OktaState;
 import com.okta.oidc.RequestCallback;
+import com.okta.oidc.SharedExecutor;
 import com.okta.oidc.Tokens;
 import com.okta.oidc.clients.web.WebAuthClient;
+import com.okta.oidc.net.AsyncOktaHttpClient;
 import com.okta.oidc.net.ConnectionParameters;
+import com.okta.oidc.net.OktaHttpClient;
 import com.okta.oidc.net.params.TokenTypeHint;
 import com.okta.oidc.net.request.ProviderConfiguration;
 import com.okta.oidc.net.response.IntrospectInfo;
@@ -63,6 +66,7 @@ import java.util.HashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import okhttp3.mockwebserver.RecordedRequest;
 
@@ -417,4 +421,63 @@ public class SessionClientImplTest {
         assertEquals(original.getRefreshToken(), result.getRefreshToken());
         assertEquals(original.getIdToken(), result.getIdToken());
     }
+
+    @Test
+    public void requestInFlightHoldsNoWorker() throws InterruptedException, JSONException {
+        SharedExecutor sharedExecutor = new SharedExecutor();
+        OktaHttpClient httpClient = mClientFactory.build();
+        SessionClient sessionClient = new Okta.WebAuthBuilder()
+                .withCallbackExecutor(mExecutor)
+                .withConfig(mConfig)
+                .withOktaHttpClient(httpClient)
+                .withContext(mContext)
+                .withStorage(mStorage)
+                .withEncryptionManager(new EncryptionManagerStub())
+                .withSharedExecutor(sharedExecutor)
+                .create()
+                .getSessionClient();
+        mEndPoint.enqueueUserInfoSuccess(2);
+        final CountDownLatch latch = new CountDownLatch(1);
+        MockRequestCallback<UserInfo, AuthorizationException> cb
+                = new MockRequestCallback<>(latch);
+        sessionClient.getUserProfile(cb);
+        mEndPoint.takeRequest();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (sharedExecutor.getActiveCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        int activeWorkers = sharedExecutor.getActiveCount();
+        assertEquals(1, latch.getCount());
+        latch.await();
+        sharedExecutor.shutdown();
+
+        assertEquals(httpClient instanceof AsyncOktaHttpClient ? 0 : 1, activeWorkers);
+        assertEquals("John Doe", cb.getResult().get("name"));
+    }
+
+    @Test
+    public void startAutoRefreshBeforeSignIn() throws Exception {
+        OktaState oktaState = new OktaState(new OktaRepository(mStorage, mContext,
+                new EncryptionManagerStub(), false, false));
+        oktaState.delete(mTokenResponse);
+        SessionClient sessionClient = new SessionClientImpl(mExecutor,
+                SharedExecutor.getDefault(), null,
+                new SyncSessionClientImpl(mConfig, oktaState, mClientFactory.build()));
+        String nonce = CodeVerifierUtil.generateRandomState();
+        String jws = TestValues.getJwt(mEndPoint.getUrl(), nonce, mConfig.getClientId());
+        mEndPoint.enqueueTokenSuccess(jws);
+        final CountDownLatch latch = new CountDownLatch(1);
+        MockRequestCallback<Tokens, AuthorizationException> cb = new MockRequestCallback<>(latch);
+        sessionClient.startAutoRefresh(5, 0, TimeUnit.MINUTES, cb);
+
+        //signing in saves tokens that expire in two minutes.
+        JSONObject json = new JSONObject(TOKEN_RESPONSE);
+        json.put("expiresAt", System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(58));
+        oktaState.save(TokenResponse.RESTORE.restore(json.toString()));
+        boolean refreshed = latch.await(5, TimeUnit.SECONDS);
+        sessionClient.stopAutoRefresh();
+
+        assertTrue(refreshed);
+        assertEquals(jws, cb.getResult().getIdToken());
+    }
 }
@@ -34,6 +34,7 @@ import com.okta.oidc.net.request.ProviderConfiguration;
 import com.okta.oidc.net.request.RefreshTokenRequest;
 import com.okta.oidc.net.request.RevokeTokenRequest;
 import com.okta.oidc.net.response.IntrospectInfo;
+import com.okta.oidc.net.response.JsonWebKeySet;
 import com.okta.oidc.net.response.TokenResponse;
 import com.okta.oidc.storage.OktaRepository;
 import com.okta.oidc.storage.OktaStorage;
@@ -148,9 +149,11 @@ public class SyncSessionClientImplTest {
         mOktaState.save(mProviderConfig);
         mOktaState.save(mTokenResponse);
         mOktaState.save(TestValues.getAuthorizeRequest(mConfig, null));
+        mOktaState.save(JsonWebKeySet.RESTORE.restore("{\"keys\":[]}"));
 
         mSyncSessionClientImpl.clear();
 
+        assertNull(mOktaState.getJsonWebKeySet());
         assertNull(mOktaState.getAuthorizeRequest());
         assertNull(mOktaState.getProviderConfiguration());
         assertNull(mOktaState.getTokenResponse());
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.clients.sessions;
+
+import com.okta.oidc.RequestCallback;
+import com.okta.oidc.Tokens;
+import com.okta.oidc.net.response.TokenResponse;
+import com.okta.oidc.util.AuthorizationException;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.okta.oidc.util.JsonStrings.TOKEN_RESPONSE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class TokenRefreshSchedulerTest {
+    private static final long TOKEN_LIFETIME_MS = TimeUnit.HOURS.toMillis(1);
+    private SessionClient mSessionClient;
+    private TokenRefreshScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mSessionClient = mock(SessionClient.class);
+        mScheduler = new TokenRefreshScheduler(mSessionClient);
+    }
+
+    @After
+    public void tearDown() {
+        mScheduler.stop();
+    }
+
+    //tokens with a lifetime of one hour that expire in expiresInMs.
+    private static Tokens tokensExpiringIn(long expiresInMs) throws Exception {
+        JSONObject json = new JSONObject(TOKEN_RESPONSE);
+        json.put("expiresAt", System.currentTimeMillis() + expiresInMs - TOKEN_LIFETIME_MS);
+        return new Tokens(TokenResponse.RESTORE.restore(json.toString()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RequestCallback<Tokens, AuthorizationException> anyCallback() {
+        return any(RequestCallback.class);
+    }
+
+    private long awaitScheduledDelay() throws InterruptedException {
+        long delay = mScheduler.getScheduledDelay(TimeUnit.MINUTES);
+        for (int i = 0; i < 100 && delay < 1; i++) {
+            Thread.sleep(10);
+            delay = mScheduler.getScheduledDelay(TimeUnit.MINUTES);
+        }
+        return delay;
+    }
+
+    @Test
+    public void scheduleAheadOfExpiry() throws Exception {
+        when(mSessionClient.getTokens()).thenReturn(tokensExpiringIn(TOKEN_LIFETIME_MS));
+        mScheduler.start(5, 0, TimeUnit.MINUTES, null);
+
+        long delay = awaitScheduledDelay();
+        assertTrue(delay >= 54 && delay <= 55);
+        verify(mSessionClient, never()).refreshToken(anyCallback());
+    }
+
+    @Test
+    public void refreshWhenDue() throws Exception {
+        when(mSessionClient.getTokens()).thenReturn(tokensExpiringIn(
+                TimeUnit.MINUTES.toMillis(1)));
+        mScheduler.start(5, 1, TimeUnit.MINUTES, null);
+
+        verify(mSessionClient, timeout(1000)).refreshToken(anyCallback());
+    }
+
+    @Test
+    public void skewLimitedToHalfLifetime() throws Exception {
+        when(mSessionClient.getTokens()).thenReturn(tokensExpiringIn(TOKEN_LIFETIME_MS));
+        mScheduler.start(2, 0, TimeUnit.HOURS, null);
+
+        long delay = awaitScheduledDelay();
+        assertTrue(delay >= 29 && delay <= 30);
+        verify(mSessionClient, never()).refreshToken(anyCallback());
+    }
+
+    @Test
+    public void noTokensNotScheduled() throws Exception {
+        when(mSessionClient.getTokens()).thenReturn(null);
+        mScheduler.start(5, 0, TimeUnit.MINUTES, null);
+
+        verify(mSessionClient, after(100).never()).refreshToken(anyCallback());
+        assertEquals(-1, mScheduler.getScheduledDelay(TimeUnit.MINUTES));
+    }
+
+    @Test
+    public void stop() throws Exception {
+        when(mSessionClient.getTokens()).thenReturn(tokensExpiringIn(TOKEN_LIFETIME_MS));
+        mScheduler.start(5, 0, TimeUnit.MINUTES, null);
+        awaitScheduledDelay();
+        assertTrue(mScheduler.isStarted());
+
+        mScheduler.stop();
+        assertFalse(mScheduler.isStarted());
+        assertEquals(-1, mScheduler.getScheduledDelay(TimeUnit.MINUTES));
+    }
+}
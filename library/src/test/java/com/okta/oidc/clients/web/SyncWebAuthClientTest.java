@@ -158,8 +158,10 @@ public class SyncWebAuthClientTest {
         assertThat(recordedRequest.getPath(),
                 equalTo("//.well-known/openid-configuration?client_id=CLIENT_ID"));
         assertNotNull(configuration);
-        assertEquals(mGson.fromJson(PROVIDER_CONFIG, ProviderConfiguration.class).persist(),
-                configuration.persist());
+        ProviderConfiguration expected = mGson.fromJson(PROVIDER_CONFIG,
+                ProviderConfiguration.class);
+        expected.setCacheState(configuration.getEtag(), configuration.getExpiresAt());
+        assertEquals(expected.persist(), configuration.persist());
     }
 
     @Test
@@ -37,6 +37,8 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.concurrent.CountDownLatch;
 
@@ -58,13 +60,16 @@ public class HttpClientImplTest {
     @Before
     public void setUp() throws Exception {
         mEndPoint = new MockEndPoint();
+        mHttpClient = new HttpClientImpl();
+        mRequest = newRequest();
+    }
 
+    private AuthorizedRequest newRequest() throws AuthorizationException {
         String url = mEndPoint.getUrl();
         OIDCConfig config = TestValues.getConfigWithUrl(url);
         ProviderConfiguration providerConfiguration = TestValues.getProviderConfiguration(url);
         TokenResponse tokenResponse = new Gson().fromJson(JsonStrings.TOKEN_RESPONSE, TokenResponse.class);
-        mHttpClient = new HttpClientImpl();
-        mRequest = HttpRequestBuilder.newAuthorizedRequest()
+        return HttpRequestBuilder.newAuthorizedRequest()
                 .uri(Uri.parse(mEndPoint.getUrl()))
                 .httpRequestMethod(ConnectionParameters.RequestMethod.POST)
                 .config(config)
@@ -85,6 +90,91 @@ public class HttpClientImplTest {
         assertEquals("Jimmy", result.get("nickname"));
     }
 
+    @Test
+    public void execute() throws Exception {
+        mEndPoint.enqueueUserInfoSuccess();
+        HttpResponse response = mHttpClient.execute(Uri.parse(mEndPoint.getUrl()),
+                mRequest.mConnParams);
+        assertNull(mHttpClient.getUrlConnection());
+        assertEquals(HTTP_OK, response.getStatusCode());
+        assertEquals("OK", response.getResponseMessage());
+        assertNotNull(response.getHeaderField("content-length"));
+        JSONObject result = response.asJson();
+        response.disconnect();
+        assertEquals("John Doe", result.get("name"));
+    }
+
+    @Test
+    public void disconnectReleasesConnection() throws Exception {
+        mEndPoint.enqueueUserInfoSuccess();
+        HttpResponse response = mHttpClient.execute(Uri.parse(mEndPoint.getUrl()),
+                mRequest.mConnParams);
+        assertEquals(1, mHttpClient.getActiveConnectionCount());
+        //the body isn't read.
+        response.disconnect();
+        assertEquals(0, mHttpClient.getActiveConnectionCount());
+    }
+
+    @Test
+    public void executeConcurrently() throws Exception {
+        mEndPoint.enqueueUserInfoSuccess(1);
+        mEndPoint.enqueueIntrospectSuccess();
+        final HttpResponse[] other = new HttpResponse[1];
+        Thread t = new Thread(() -> {
+            try {
+                other[0] = mHttpClient.execute(Uri.parse(mEndPoint.getUrl()),
+                        mRequest.mConnParams);
+            } catch (Exception e) {
+                //NO-OP
+            }
+        });
+        t.start();
+        HttpResponse response = mHttpClient.execute(Uri.parse(mEndPoint.getUrl()),
+                mRequest.mConnParams);
+        t.join();
+        assertNotNull(other[0]);
+        //Each response keeps its own body regardless of which request finished first.
+        JSONObject first = response.asJson();
+        JSONObject second = other[0].asJson();
+        assertTrue(first.has("name") != second.has("name"));
+        assertTrue(first.has("active") != second.has("active"));
+        response.disconnect();
+        other[0].disconnect();
+    }
+
+    @Test
+    public void cancelRequestKeepsOtherRequests() throws Exception {
+        mEndPoint.enqueueUserInfoSuccess(1);
+        mEndPoint.enqueueUserInfoSuccess(1);
+        AuthorizedRequest other = newRequest();
+        final JSONObject[] result = new JSONObject[1];
+        final AuthorizationException[] exception = new AuthorizationException[2];
+        Thread canceled = new Thread(() -> {
+            try {
+                mRequest.executeRequest(mHttpClient);
+            } catch (AuthorizationException e) {
+                exception[0] = e;
+            }
+        });
+        Thread completed = new Thread(() -> {
+            try {
+                result[0] = other.executeRequest(mHttpClient);
+            } catch (AuthorizationException e) {
+                exception[1] = e;
+            }
+        });
+        canceled.start();
+        completed.start();
+        Thread.sleep(200); //wait for the requests to be sent
+        mRequest.cancelRequest();
+        canceled.join();
+        completed.join();
+
+        assertNotNull(exception[0]);
+        assertNull(exception[1]);
+        assertEquals("John Doe", result[0].get("name"));
+    }
+
     @Test
     public void cleanUp() {
         mHttpClient.cleanUp();
@@ -152,4 +242,53 @@ public class HttpClientImplTest {
         mHttpClient.connect(Uri.parse(mEndPoint.getUrl()), mRequest.mConnParams);
         assertEquals("OK", mHttpClient.getResponseMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void closeDrainsStream() throws Exception {
+        ByteArrayInputStream body = new ByteArrayInputStream(new byte[10_000]);
+        InputStream stream = HttpClientImpl.drainOnClose(body);
+        stream.read();
+        stream.close();
+        assertEquals(0, body.available());
+        assertNull(HttpClientImpl.drainOnClose(null));
+    }
+
+    @Test
+    public void connectionReused() throws Exception {
+        ConnectionParameters params = new ConnectionParameters.ParameterBuilder()
+                .setRequestMethod(ConnectionParameters.RequestMethod.GET)
+                .create();
+        mEndPoint.enqueueUserInfoSuccess();
+        mEndPoint.enqueueUserInfoSuccess();
+
+        mHttpClient.connect(Uri.parse(mEndPoint.getUrl()), params).close();
+        mHttpClient.cleanUp();
+        mHttpClient.connect(Uri.parse(mEndPoint.getUrl()), params).close();
+        mHttpClient.cleanUp();
+
+        assertEquals(0, mEndPoint.takeRequest().getSequenceNumber());
+        assertEquals(1, mEndPoint.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    public void preconnectSendsNoRequest() throws Exception {
+        mEndPoint.enqueueUserInfoSuccess();
+        mHttpClient.preconnect(Uri.parse(mEndPoint.getUrl()), 1000);
+        assertEquals(0, mEndPoint.getRequestCount());
+
+        HttpResponse response = mHttpClient.execute(Uri.parse(mEndPoint.getUrl()),
+                new ConnectionParameters.ParameterBuilder()
+                        .setRequestMethod(ConnectionParameters.RequestMethod.GET)
+                        .create());
+        assertEquals(HTTP_OK, response.getStatusCode());
+        response.disconnect();
+        assertEquals(1, mEndPoint.getRequestCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void preconnectFailure() throws Exception {
+        String url = mEndPoint.getUrl();
+        mEndPoint.shutDown();
+        mHttpClient.preconnect(Uri.parse(url), 1000);
+    }
+}
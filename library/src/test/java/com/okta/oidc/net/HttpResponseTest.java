@@ -21,8 +21,11 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
 import com.okta.oidc.net.response.TokenResponse;
 
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.Rule;
 import org.junit.Test;
@@ -32,11 +35,13 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -57,6 +62,7 @@ import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 import static java.net.HttpURLConnection.HTTP_OK;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertThrows;
 
@@ -277,4 +283,83 @@ public class HttpResponseTest {
             return mConnection.getResponseMessage();
         }
     }
-}
\ No newline at end of file
+
+    private static HttpResponse responseWithBody(int statusCode, String body) {
+        return new HttpResponse(statusCode, null, body.length(), null,
+                new ByteArrayInputStream(body.getBytes()));
+    }
+
+    @Test
+    public void streamedJsonResponse() throws Exception {
+        TypeAdapter<TokenResponse> adapter = new Gson().getAdapter(TokenResponse.class);
+        TokenResponse tokenResponse = responseWithBody(HTTP_OK, TOKEN_SUCCESS).asJson(adapter);
+        TokenResponse expected = new Gson().fromJson(TOKEN_SUCCESS, TokenResponse.class);
+        assertEquals(expected.persist(), tokenResponse.persist());
+    }
+
+    @Test
+    public void streamedJsonErrorResponse() throws Exception {
+        TypeAdapter<JsonObject> adapter = new Gson().getAdapter(JsonObject.class);
+        assertThrows(HttpStatusCodeException.class, () ->
+                responseWithBody(HTTP_NOT_FOUND, CONFIGURATION_NOT_FOUND).asJson(adapter));
+
+        JsonObject error = responseWithBody(HTTP_NOT_FOUND, "{\"error\":\"invalid_grant\"}")
+                .asJsonWithErrorDescription(adapter);
+        assertEquals("invalid_grant", error.get("error").getAsString());
+        assertThrows(HttpStatusCodeException.class, () ->
+                responseWithBody(HTTP_NOT_FOUND, "not json").asJsonWithErrorDescription(adapter));
+    }
+
+    @Test
+    public void streamedMalformedJson() {
+        TypeAdapter<JsonObject> adapter = new Gson().getAdapter(JsonObject.class);
+        assertThrows(JSONException.class, () -> responseWithBody(HTTP_OK, "").asJson(adapter));
+        assertThrows(JSONException.class, () ->
+                responseWithBody(HTTP_OK, "{\"a\":").asJson(adapter));
+        assertThrows(JSONException.class, () -> responseWithBody(HTTP_OK, "[]").asJson(adapter));
+    }
+
+    @Test
+    public void customClientResponse() throws Exception {
+        final boolean[] disconnected = new boolean[1];
+        OktaHttpResponse custom = new OktaHttpResponse() {
+            @Override
+            public int getStatusCode() {
+                return HTTP_NOT_FOUND;
+            }
+
+            @Override
+            public Map<String, List<String>> getHeaders() {
+                return Collections.singletonMap("Retry-After", Collections.singletonList("1"));
+            }
+
+            @Override
+            public String getResponseMessage() {
+                return "Not Found";
+            }
+
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public InputStream getContent() {
+                return new ByteArrayInputStream(CONFIGURATION_NOT_FOUND.getBytes());
+            }
+
+            @Override
+            public void disconnect() {
+                disconnected[0] = true;
+            }
+        };
+        HttpResponse response = HttpResponse.of(custom);
+        assertSame(response, HttpResponse.of(response));
+        assertEquals("1", response.getHeaderField("retry-after"));
+        HttpStatusCodeException exception = assertThrows(HttpStatusCodeException.class,
+                () -> response.asJson(new Gson().getAdapter(JsonObject.class)));
+        assertEquals("Not Found", exception.getStatusMessage());
+        response.disconnect();
+        assertTrue(disconnected[0]);
+    }
+}
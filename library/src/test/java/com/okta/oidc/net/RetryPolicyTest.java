@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.net;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class RetryPolicyTest {
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private final RetryPolicy mPolicy = new RetryPolicy(3, 100, 1000, TimeUnit.MILLISECONDS);
+
+    @Test
+    public void backoffWithinCappedBound() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(mPolicy.retryDelayMs(0, HTTP_UNAVAILABLE, null, true) < 100);
+            assertTrue(mPolicy.retryDelayMs(2, new IOException(), true) < 400);
+            assertTrue(new RetryPolicy(100, 100, 1000, TimeUnit.MILLISECONDS)
+                    .retryDelayMs(80, HTTP_INTERNAL_ERROR, null, true) < 1000);
+        }
+    }
+
+    @Test
+    public void maxRetries() {
+        assertTrue(mPolicy.retryDelayMs(2, HTTP_UNAVAILABLE, null, true) >= 0);
+        assertEquals(-1, mPolicy.retryDelayMs(3, HTTP_UNAVAILABLE, null, true));
+        assertEquals(-1, mPolicy.retryDelayMs(3, new IOException(), true));
+    }
+
+    @Test
+    public void nonIdempotentOnlyRetriedWhenNotProcessed() {
+        assertEquals(-1, mPolicy.retryDelayMs(0, HTTP_INTERNAL_ERROR, null, false));
+        assertEquals(-1, mPolicy.retryDelayMs(0, new SocketTimeoutException(), false));
+        assertTrue(mPolicy.retryDelayMs(0, HTTP_TOO_MANY_REQUESTS, null, false) >= 0);
+        assertTrue(mPolicy.retryDelayMs(0, new ConnectException(), false) >= 0);
+        assertTrue(mPolicy.retryDelayMs(0, HTTP_INTERNAL_ERROR, null, true) >= 0);
+        assertTrue(mPolicy.retryDelayMs(0, new SocketTimeoutException(), true) >= 0);
+    }
+
+    @Test
+    public void clientErrorNotRetried() {
+        assertEquals(-1, mPolicy.retryDelayMs(0, HTTP_BAD_REQUEST, null, true));
+    }
+
+    @Test
+    public void retryAfterHonored() {
+        assertEquals(1000, mPolicy.retryDelayMs(0, HTTP_TOO_MANY_REQUESTS, "1", false));
+        assertEquals(-1, mPolicy.retryDelayMs(0, HTTP_UNAVAILABLE, "2", true));
+        //only 429 and 503 tell when to come back.
+        assertTrue(mPolicy.retryDelayMs(0, HTTP_INTERNAL_ERROR, "1", true) < 100);
+    }
+
+    @Test
+    public void parseRetryAfter() {
+        long now = 1_445_412_480_000L;
+        assertEquals(120_000, RetryPolicy.parseRetryAfterMs("120", now));
+        assertEquals(0, RetryPolicy.parseRetryAfterMs("-5", now));
+        assertEquals(5000, RetryPolicy.parseRetryAfterMs("Wed, 21 Oct 2015 07:28:05 GMT", now));
+        assertEquals(0, RetryPolicy.parseRetryAfterMs("Wed, 21 Oct 2015 07:00:00 GMT", now));
+        assertEquals(-1, RetryPolicy.parseRetryAfterMs("soon", now));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidDelays() {
+        new RetryPolicy(1, 1000, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMaxBlockingDelay() {
+        new RetryPolicy(1, 100, 1000, -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void maxBlockingDelay() {
+        assertEquals(1000, mPolicy.getMaxBlockingDelayMs());
+        assertEquals(5000, new RetryPolicy(1, 1, 10, 5, TimeUnit.SECONDS)
+                .getMaxBlockingDelayMs());
+    }
+}
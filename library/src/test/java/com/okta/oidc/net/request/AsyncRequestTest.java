@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.net.request;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.okta.oidc.RequestCallback;
+import com.okta.oidc.SharedExecutor;
+import com.okta.oidc.net.ConnectionParameters;
+import com.okta.oidc.net.HttpClientImpl;
+import com.okta.oidc.net.HttpResponse;
+import com.okta.oidc.net.OktaHttpClient;
+import com.okta.oidc.net.RetryPolicy;
+import com.okta.oidc.util.AuthorizationException;
+import com.okta.oidc.util.MockEndPoint;
+import com.okta.oidc.util.OkHttp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class AsyncRequestTest {
+    private MockEndPoint mEndPoint;
+    private RetryingOkHttp mHttpClient;
+    private BaseRequest<Integer, AuthorizationException> mRequest;
+    private Result mResult;
+    private volatile boolean mParsedInTask;
+
+    @Before
+    public void setUp() throws Exception {
+        mEndPoint = new MockEndPoint();
+        mHttpClient = new RetryingOkHttp();
+        mResult = new Result();
+        mRequest = new BaseRequest<Integer, AuthorizationException>() {
+            @Override
+            public Integer executeRequest(OktaHttpClient client) throws AuthorizationException {
+                mParsedInTask = SharedExecutor.isRunningTask();
+                HttpResponse response = null;
+                try {
+                    response = openConnection(client);
+                    return response.asJson().length();
+                } catch (Exception e) {
+                    throw new AuthorizationException(e.getMessage(), e);
+                } finally {
+                    if (response != null) {
+                        response.disconnect();
+                    }
+                }
+            }
+        };
+        mRequest.mUri = Uri.parse(mEndPoint.getUrl());
+        mRequest.mConnParams = new ConnectionParameters.ParameterBuilder()
+                .setRequestMethod(ConnectionParameters.RequestMethod.GET)
+                .create();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mEndPoint.shutDown();
+    }
+
+    private static class RetryingOkHttp extends OkHttp {
+        private volatile RetryPolicy mRetryPolicy;
+
+        @Nullable
+        @Override
+        public RetryPolicy getRetryPolicy() {
+            return mRetryPolicy;
+        }
+    }
+
+    private static class Result implements RequestCallback<Integer, AuthorizationException> {
+        private final CountDownLatch mLatch = new CountDownLatch(1);
+        private volatile Integer mValue;
+        private volatile AuthorizationException mException;
+
+        @Override
+        public void onSuccess(@NonNull Integer result) {
+            mValue = result;
+            mLatch.countDown();
+        }
+
+        @Override
+        public void onError(String error, AuthorizationException exception) {
+            mException = exception;
+            mLatch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(mLatch.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void executeRequestAsync() throws Exception {
+        mEndPoint.enqueueConfigurationSuccess();
+        mRequest.executeRequestAsync(mHttpClient, mResult);
+        mResult.await();
+
+        assertNull(mResult.mException);
+        assertTrue(mResult.mValue > 0);
+        assertTrue(mParsedInTask);
+    }
+
+    @Test
+    public void runtimeExceptionReported() throws Exception {
+        BaseRequest<Integer, AuthorizationException> request
+                = new BaseRequest<Integer, AuthorizationException>() {
+            @Override
+            public Integer executeRequest(OktaHttpClient client) {
+                throw new IllegalStateException("invalid response");
+            }
+        };
+        request.mUri = mRequest.mUri;
+        request.mConnParams = mRequest.mConnParams;
+        mEndPoint.enqueueConfigurationSuccess();
+        request.executeRequestAsync(mHttpClient, mResult);
+        mResult.await();
+
+        assertNull(mResult.mValue);
+        assertEquals(AuthorizationException.TYPE_GENERAL_ERROR, mResult.mException.type);
+        assertTrue(mResult.mException.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void executeRequestAsyncFailure() throws Exception {
+        mEndPoint.enqueueServerError(HTTP_INTERNAL_ERROR, null);
+        mRequest.executeRequestAsync(mHttpClient, mResult);
+        mResult.await();
+
+        assertNull(mResult.mValue);
+        assertNotNull(mResult.mException);
+        assertEquals(1, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void executeRequestAsyncRetried() throws Exception {
+        mHttpClient.mRetryPolicy = new RetryPolicy(2, 10, 10_000, TimeUnit.MILLISECONDS);
+        mEndPoint.enqueueServerError(HTTP_INTERNAL_ERROR, null);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, "0");
+        mEndPoint.enqueueConfigurationSuccess();
+        mRequest.executeRequestAsync(mHttpClient, mResult);
+        mResult.await();
+
+        assertNull(mResult.mException);
+        assertTrue(mResult.mValue > 0);
+        assertEquals(3, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void cancelEndsRetryDelay() throws Exception {
+        mHttpClient.mRetryPolicy = new RetryPolicy(2, 10, 10_000, TimeUnit.MILLISECONDS);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, "5");
+        long start = System.nanoTime();
+        mRequest.executeRequestAsync(mHttpClient, mResult);
+        while (mEndPoint.getRequestCount() == 0) {
+            Thread.sleep(10);
+        }
+        //the response arrives after the request reached the server.
+        Thread.sleep(200);
+        mRequest.cancelRequest();
+        mResult.await();
+
+        assertTrue(mResult.mException.getCause() instanceof IOException);
+        assertEquals("Canceled", mResult.mException.getCause().getMessage());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void blockingClientRetryHoldsNoWorker() throws Exception {
+        HttpClientImpl httpClient = new HttpClientImpl();
+        httpClient.setRetryPolicy(new RetryPolicy(2, 10, 10_000, TimeUnit.MILLISECONDS));
+        SharedExecutor sharedExecutor = new SharedExecutor(1);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, "2");
+        mEndPoint.enqueueConfigurationSuccess();
+        mRequest.executeRequestAsync(httpClient, sharedExecutor,
+                SharedExecutor.Priority.DEFAULT, mResult);
+        while (sharedExecutor.getScheduledCount() == 0) {
+            Thread.sleep(10);
+        }
+        int activeWorkers = sharedExecutor.getActiveCount();
+        mResult.await();
+        sharedExecutor.shutdown();
+
+        assertEquals(0, activeWorkers);
+        assertNull(mResult.mException);
+        assertTrue(mResult.mValue > 0);
+        assertEquals(2, mEndPoint.getRequestCount());
+    }
+}
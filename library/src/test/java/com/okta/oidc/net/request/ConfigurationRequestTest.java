@@ -36,11 +36,18 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.RecordedRequest;
 
 import static com.okta.oidc.util.TestValues.WELL_KNOWN_OAUTH;
 import static org.hamcrest.CoreMatchers.startsWith;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(ParameterizedRobolectricTestRunner.class)
 @Config(sdk = 27)
@@ -101,6 +108,8 @@ public class ConfigurationRequestTest {
                 fromJson(JsonStrings.PROVIDER_CONFIG, ProviderConfiguration.class);
         assertNotNull(configuration);
         configuration.validate(false);
+        //the cache state is persisted too.
+        other.setCacheState(configuration.getEtag(), configuration.getExpiresAt());
         assertEquals(configuration.persist(), other.persist());
 
         //oauth2
@@ -109,6 +118,7 @@ public class ConfigurationRequestTest {
         ProviderConfiguration oauth2Config = new Gson().
                 fromJson(JsonStrings.PROVIDER_CONFIG_OAUTH2, ProviderConfiguration.class);
         assertNotNull(oauth2Result);
+        oauth2Config.setCacheState(oauth2Result.getEtag(), oauth2Result.getExpiresAt());
         oauth2Config.validate(true);
         assertEquals(oauth2Result.persist(), oauth2Config.persist());
     }
@@ -120,4 +130,68 @@ public class ConfigurationRequestTest {
         mEndPoint.enqueueConfigurationFailure();
         mRequest.executeRequest(mHttpClient);
     }
+
+    @Test
+    public void executeRequestCacheState() throws Exception {
+        mEndPoint.enqueueConfigurationSuccess("\"v1\"", "public, max-age=600");
+        long now = System.currentTimeMillis();
+        ProviderConfiguration configuration = mRequest.executeRequest(mHttpClient);
+        assertEquals("\"v1\"", configuration.getEtag());
+        assertTrue(configuration.getExpiresAt() >= now + TimeUnit.MINUTES.toMillis(10));
+        assertFalse(configuration.isExpired());
+        assertNull(mEndPoint.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void revalidateNotModified() throws Exception {
+        ProviderConfiguration cached = new Gson()
+                .fromJson(JsonStrings.PROVIDER_CONFIG, ProviderConfiguration.class);
+        cached.setCacheState("\"v1\"", 0);
+        assertTrue(cached.isExpired());
+        ConfigurationRequest request = HttpRequestBuilder.newConfigurationRequest()
+                .config(TestValues.getConfigWithUrl(mEndPoint.getUrl()))
+                .cachedConfiguration(cached)
+                .createRequest();
+
+        mEndPoint.enqueueNotModified("\"v1\"", "max-age=600");
+        ProviderConfiguration configuration = request.executeRequest(mHttpClient);
+        RecordedRequest recorded = mEndPoint.takeRequest();
+        assertEquals("\"v1\"", recorded.getHeader("If-None-Match"));
+        //the cached instance isn't changed, it could be in use.
+        assertNotSame(cached, configuration);
+        assertTrue(cached.isExpired());
+        assertFalse(configuration.isExpired());
+        assertEquals("\"v1\"", configuration.getEtag());
+        assertEquals(cached.issuer, configuration.issuer);
+    }
+
+    @Test
+    public void cacheStatePersisted() {
+        ProviderConfiguration configuration = ProviderConfiguration.RESTORE
+                .restore(JsonStrings.PROVIDER_CONFIG);
+        configuration.setCacheState("\"v1\"", 1000);
+        ProviderConfiguration restored = ProviderConfiguration.RESTORE
+                .restore(configuration.persist());
+        assertEquals("\"v1\"", restored.getEtag());
+        assertEquals(1000, restored.getExpiresAt());
+    }
+
+    @Test
+    public void restoredConfigurationIsExpired() {
+        ProviderConfiguration configuration = ProviderConfiguration.RESTORE
+                .restore(JsonStrings.PROVIDER_CONFIG);
+        assertNotNull(configuration);
+        assertNull(configuration.getEtag());
+        assertTrue(configuration.isExpired());
+    }
+
+    @Test
+    public void maxAge() {
+        assertEquals(TimeUnit.DAYS.toMillis(1), ConfigurationRequest.maxAgeMs(null));
+        assertEquals(TimeUnit.DAYS.toMillis(1), ConfigurationRequest.maxAgeMs("public"));
+        assertEquals(60_000, ConfigurationRequest.maxAgeMs("public, Max-Age=60"));
+        assertEquals(0, ConfigurationRequest.maxAgeMs("no-cache, max-age=60"));
+        assertEquals(0, ConfigurationRequest.maxAgeMs("no-store"));
+        assertEquals(0, ConfigurationRequest.maxAgeMs("max-age=abc"));
+    }
 }
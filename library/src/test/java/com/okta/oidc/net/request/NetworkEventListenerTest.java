@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.net.request;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+
+import com.okta.oidc.net.ConnectionParameters;
+import com.okta.oidc.net.HttpClientImpl;
+import com.okta.oidc.net.HttpResponse;
+import com.okta.oidc.net.NetworkCall;
+import com.okta.oidc.net.NetworkEventListener;
+import com.okta.oidc.net.OktaHttpClient;
+import com.okta.oidc.net.params.RequestType;
+import com.okta.oidc.util.AuthorizationException;
+import com.okta.oidc.util.MockEndPoint;
+
+import org.json.JSONException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.net.HttpURLConnection.HTTP_OK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class NetworkEventListenerTest {
+    private MockEndPoint mEndPoint;
+    private HttpClientImpl mHttpClient;
+    private RecordingListener mListener;
+    private BaseRequest<ProviderConfiguration, AuthorizationException> mRequest;
+
+    @Before
+    public void setUp() throws Exception {
+        mEndPoint = new MockEndPoint();
+        mListener = new RecordingListener();
+        mHttpClient = new HttpClientImpl();
+        mHttpClient.setEventListener(mListener);
+        mRequest = new BaseRequest<ProviderConfiguration, AuthorizationException>() {
+            @Override
+            public ProviderConfiguration executeRequest(OktaHttpClient client)
+                    throws AuthorizationException {
+                HttpResponse response = null;
+                try {
+                    response = openConnection(client);
+                    return response.asJson(ProviderConfiguration.ADAPTER);
+                } catch (Exception e) {
+                    throw new AuthorizationException(e.getMessage(), e);
+                } finally {
+                    if (response != null) {
+                        response.disconnect();
+                    }
+                }
+            }
+        };
+        mRequest.mRequestType = RequestType.CONFIGURATION;
+        mRequest.mUri = Uri.parse(mEndPoint.getUrl());
+        mRequest.mConnParams = new ConnectionParameters.ParameterBuilder()
+                .setRequestMethod(ConnectionParameters.RequestMethod.GET)
+                .create();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mEndPoint.shutDown();
+    }
+
+    @Test
+    public void eventsReportedInOrder() throws Exception {
+        mEndPoint.enqueueConfigurationSuccess();
+        mRequest.executeRequest(mHttpClient);
+
+        assertEquals(Arrays.asList("requestStart", "connectStart", "connectEnd",
+                "responseStart", "responseBodyEnd", "responseParsed", "requestEnd"),
+                mListener.mEvents);
+        NetworkCall call = mListener.mCall;
+        assertSame(RequestType.CONFIGURATION, call.getRequestType());
+        assertEquals(HTTP_OK, call.getStatusCode());
+        assertEquals(0, call.getBytesSent());
+        assertTrue(call.getBytesReceived() > 0);
+        assertTrue(call.getCreatedAtNanos() <= mListener.mStartedAtNanos);
+    }
+
+    @Test
+    public void parseFailureReported() throws Exception {
+        mEndPoint.enqueueJwks("not json");
+        try {
+            mRequest.executeRequest(mHttpClient);
+            fail("Expected AuthorizationException");
+        } catch (AuthorizationException e) {
+            assertTrue(e.getCause() instanceof JSONException);
+        }
+
+        //the body ends when the parser gives up or when the response is disconnected.
+        List<String> events = mListener.mEvents;
+        assertEquals(Arrays.asList("requestStart", "connectStart", "connectEnd",
+                "responseStart"), events.subList(0, 4));
+        assertTrue(events.contains("responseBodyEnd"));
+        assertTrue(events.indexOf("requestFailed") > 3);
+        assertEquals("requestEnd", events.get(events.size() - 1));
+        assertEquals(7, events.size());
+        assertTrue(mListener.mException instanceof JSONException);
+    }
+
+    @Test
+    public void noEventsWithoutListener() throws Exception {
+        mHttpClient.setEventListener(null);
+        mEndPoint.enqueueConfigurationSuccess();
+        mRequest.executeRequest(mHttpClient);
+
+        assertTrue(mListener.mEvents.isEmpty());
+        assertNull(mListener.mCall);
+    }
+
+    private static class RecordingListener extends NetworkEventListener {
+        private final List<String> mEvents = new ArrayList<>();
+        private NetworkCall mCall;
+        private Exception mException;
+        private long mStartedAtNanos;
+
+        @Override
+        public void requestStart(@NonNull NetworkCall call) {
+            mCall = call;
+            mStartedAtNanos = System.nanoTime();
+            mEvents.add("requestStart");
+        }
+
+        @Override
+        public void connectStart(@NonNull NetworkCall call) {
+            mEvents.add("connectStart");
+        }
+
+        @Override
+        public void connectEnd(@NonNull NetworkCall call) {
+            mEvents.add("connectEnd");
+        }
+
+        @Override
+        public void responseStart(@NonNull NetworkCall call) {
+            mEvents.add("responseStart");
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull NetworkCall call) {
+            mEvents.add("responseBodyEnd");
+        }
+
+        @Override
+        public void responseParsed(@NonNull NetworkCall call) {
+            mEvents.add("responseParsed");
+        }
+
+        @Override
+        public void requestFailed(@NonNull NetworkCall call, @NonNull Exception exception) {
+            mException = exception;
+            mEvents.add("requestFailed");
+        }
+
+        @Override
+        public void requestEnd(@NonNull NetworkCall call) {
+            mEvents.add("requestEnd");
+        }
+    }
+}
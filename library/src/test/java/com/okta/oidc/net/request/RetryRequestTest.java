@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.net.request;
+
+import android.net.Uri;
+
+import com.okta.oidc.SharedExecutor;
+import com.okta.oidc.net.ConnectionParameters;
+import com.okta.oidc.net.HttpClientImpl;
+import com.okta.oidc.net.HttpResponse;
+import com.okta.oidc.net.OktaHttpClient;
+import com.okta.oidc.net.RetryPolicy;
+import com.okta.oidc.util.AuthorizationException;
+import com.okta.oidc.util.MockEndPoint;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class RetryRequestTest {
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private MockEndPoint mEndPoint;
+    private HttpClientImpl mHttpClient;
+    private BaseRequest<String, AuthorizationException> mRequest;
+
+    @Before
+    public void setUp() throws Exception {
+        mEndPoint = new MockEndPoint();
+        mHttpClient = new HttpClientImpl();
+        mHttpClient.setRetryPolicy(new RetryPolicy(2, 10, 10_000, TimeUnit.MILLISECONDS));
+        mRequest = new BaseRequest<String, AuthorizationException>() {
+            @Override
+            public String executeRequest(OktaHttpClient client) throws AuthorizationException {
+                return null;
+            }
+        };
+        mRequest.mUri = Uri.parse(mEndPoint.getUrl());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mEndPoint.shutDown();
+    }
+
+    private void setRequestMethod(ConnectionParameters.RequestMethod method) {
+        ConnectionParameters.ParameterBuilder builder = new ConnectionParameters.ParameterBuilder()
+                .setRequestMethod(method);
+        if (method == ConnectionParameters.RequestMethod.POST) {
+            builder.setPostParameters(Collections.singletonMap("code", "exchange_code"));
+        }
+        mRequest.mConnParams = builder.create();
+    }
+
+    private int execute() throws Exception {
+        HttpResponse response = mRequest.openConnection(mHttpClient);
+        try {
+            return response.getStatusCode();
+        } finally {
+            response.disconnect();
+        }
+    }
+
+    @Test
+    public void getRetriedAfterServerError() throws Exception {
+        setRequestMethod(ConnectionParameters.RequestMethod.GET);
+        mEndPoint.enqueueServerError(HTTP_INTERNAL_ERROR, null);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, "0");
+        mEndPoint.enqueueConfigurationSuccess();
+
+        assertEquals(HTTP_OK, execute());
+        assertEquals(3, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void retriesLimited() throws Exception {
+        setRequestMethod(ConnectionParameters.RequestMethod.GET);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, null);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, null);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, null);
+
+        assertEquals(HTTP_UNAVAILABLE, execute());
+        assertEquals(3, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void postNotRetriedAfterServerError() throws Exception {
+        setRequestMethod(ConnectionParameters.RequestMethod.POST);
+        mEndPoint.enqueueServerError(HTTP_INTERNAL_ERROR, null);
+
+        assertEquals(HTTP_INTERNAL_ERROR, execute());
+        assertEquals(1, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void postRetriedWhenThrottled() throws Exception {
+        setRequestMethod(ConnectionParameters.RequestMethod.POST);
+        mEndPoint.enqueueServerError(HTTP_TOO_MANY_REQUESTS, "0");
+        mEndPoint.enqueueTokenSuccess(null);
+
+        assertEquals(HTTP_OK, execute());
+        assertEquals(2, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void cancelEndsWait() throws Exception {
+        setRequestMethod(ConnectionParameters.RequestMethod.GET);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, "5");
+        AtomicReference<Exception> exception = new AtomicReference<>();
+        Thread t = new Thread(() -> {
+            try {
+                execute();
+            } catch (Exception e) {
+                exception.set(e);
+            }
+        });
+        long start = System.nanoTime();
+        t.start();
+        while (mEndPoint.getRequestCount() == 0) {
+            Thread.sleep(10);
+        }
+        mRequest.cancelRequest();
+        t.join();
+
+        assertTrue(exception.get() instanceof IOException);
+        assertEquals("Canceled", exception.get().getMessage());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, mEndPoint.getRequestCount());
+    }
+
+    private Object executeOnSharedWorker() throws Exception {
+        SharedExecutor sharedExecutor = new SharedExecutor(1);
+        AtomicReference<Object> result = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        sharedExecutor.execute(() -> {
+            try {
+                result.set(execute());
+            } catch (Exception e) {
+                result.set(e);
+            }
+            latch.countDown();
+        }, SharedExecutor.Priority.DEFAULT, null);
+        latch.await();
+        sharedExecutor.shutdown();
+        return result.get();
+    }
+
+    @Test
+    public void sharedWorkerRetriesShortDelay() throws Exception {
+        setRequestMethod(ConnectionParameters.RequestMethod.GET);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, "0");
+        mEndPoint.enqueueConfigurationSuccess();
+
+        assertEquals(HTTP_OK, executeOnSharedWorker());
+        assertEquals(2, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void sharedWorkerNotParkedForLongDelay() throws Exception {
+        setRequestMethod(ConnectionParameters.RequestMethod.GET);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, "5");
+        mEndPoint.enqueueConfigurationSuccess();
+        long start = System.nanoTime();
+
+        assertEquals(HTTP_UNAVAILABLE, executeOnSharedWorker());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void sharedWorkerWaitsUpToMaxBlockingDelay() throws Exception {
+        mHttpClient.setRetryPolicy(new RetryPolicy(2, 10, 10_000, 3_000,
+                TimeUnit.MILLISECONDS));
+        setRequestMethod(ConnectionParameters.RequestMethod.GET);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, "2");
+        mEndPoint.enqueueConfigurationSuccess();
+
+        assertEquals(HTTP_OK, executeOnSharedWorker());
+        assertEquals(2, mEndPoint.getRequestCount());
+    }
+
+    @Test
+    public void callerThreadWaitsLongDelay() throws Exception {
+        setRequestMethod(ConnectionParameters.RequestMethod.GET);
+        mEndPoint.enqueueServerError(HTTP_UNAVAILABLE, "2");
+        mEndPoint.enqueueConfigurationSuccess();
+
+        assertEquals(HTTP_OK, execute());
+        assertEquals(2, mEndPoint.getRequestCount());
+    }
+}
@@ -43,8 +43,10 @@ import static com.okta.oidc.util.TestValues.CUSTOM_STATE;
 import static com.okta.oidc.util.TestValues.getAuthorizeRequest;
 import static com.okta.oidc.util.TestValues.getAuthorizeResponse;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
 
 @RunWith(ParameterizedRobolectricTestRunner.class)
 @Config(sdk = 27)
@@ -132,4 +134,36 @@ public class TokenRequestTest {
         TokenResponse response = mRequest.executeRequest(mHttpClient);
         assertNull(response);
     }
+
+    @Test
+    public void executeRequestErrorDescription() {
+        mEndPoint.enqueueReturnInvalidClient();
+        AuthorizationException exception = assertThrows(AuthorizationException.class,
+                () -> mRequest.executeRequest(mHttpClient));
+        assertEquals("invalid_client", exception.error);
+        assertEquals("No client credentials found.", exception.errorDescription);
+    }
+
+    @Test
+    public void validatorErrorIsNotParsingError() throws AuthorizationException {
+        OIDCConfig config = new OIDCConfig.Builder()
+                .clientId(TestValues.CLIENT_ID)
+                .redirectUri(TestValues.REDIRECT_URI)
+                .endSessionRedirectUri(TestValues.END_SESSION_URI)
+                .scopes(TestValues.SCOPES)
+                .discoveryUri(mEndPoint.getUrl())
+                .idTokenValidator(idToken -> {
+                    throw new IllegalArgumentException("rejected by the validator");
+                })
+                .create();
+        TokenRequest request = TestValues.getTokenRequest(config,
+                getAuthorizeRequest(config, CodeVerifierUtil.generateRandomCodeVerifier()),
+                getAuthorizeResponse(CUSTOM_STATE, CUSTOM_CODE), mProviderConfig);
+        String jws = TestValues.getJwt(mEndPoint.getUrl(), CUSTOM_NONCE, config.getClientId());
+        mEndPoint.enqueueTokenSuccess(jws);
+        AuthorizationException exception = assertThrows(AuthorizationException.class,
+                () -> request.executeRequest(mHttpClient));
+        assertNotEquals(AuthorizationException.GeneralErrors.ID_TOKEN_PARSING_ERROR.code,
+                exception.code);
+    }
 }
@@ -17,8 +17,11 @@ package com.okta.oidc.storage;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
 import androidx.test.platform.app.InstrumentationRegistry;
 
+import com.google.gson.Gson;
+import com.okta.oidc.net.response.TokenResponse;
 import com.okta.oidc.util.EncryptedPersistableMock;
 import com.okta.oidc.util.EncryptionManagerStub;
 import com.okta.oidc.util.OktaStorageMock;
@@ -32,12 +35,23 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.okta.oidc.util.JsonStrings.TOKEN_RESPONSE;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(sdk = 27)
@@ -97,6 +111,236 @@ public class OktaRepositoryTest {
         assert (repository.cacheStorage.get(PersistableMock.RESTORE.getKey()) == null);
     }
 
+    @Test
+    public void cacheModeReturnsRestoredObject() throws OktaRepository.EncryptionException {
+        OktaRepository repository = new OktaRepository(mOktaStorageSoftware, mContext,
+                mSoftwareEncryption, false, true);
+        PersistableMock persistable = TestValues.getNotEncryptedPersistable();
+        repository.save(persistable);
+
+        assertSame(persistable, repository.get(PersistableMock.RESTORE));
+
+        //restored from storage once, then served from the cache.
+        repository.cacheStorage.clear();
+        PersistableMock restored = repository.get(PersistableMock.RESTORE);
+        assertNotSame(persistable, restored);
+        assertEquals(persistable.getData(), restored.getData());
+        assertSame(restored, repository.get(PersistableMock.RESTORE));
+
+        repository.delete(persistable);
+        assertNull(repository.get(PersistableMock.RESTORE));
+    }
+
+    @Test
+    public void legacyJsonRecordRestored() throws Exception {
+        EncryptionManagerStub binaryEncryption = new BinaryEncryptionManagerStub();
+        OktaRepository repository = new OktaRepository(mOktaStorageSoftware, mContext,
+                binaryEncryption, false, false);
+        mOktaStorageSoftware.save(binaryEncryption.getHashed(TokenResponse.RESTORE.getKey()),
+                binaryEncryption.encrypt(TOKEN_RESPONSE));
+
+        TokenResponse restored = repository.get(TokenResponse.RESTORE);
+        assertNotNull(restored);
+        assertEquals(TokenResponse.RESTORE.restore(TOKEN_RESPONSE).persist(), restored.persist());
+
+        //saved again as a binary record.
+        repository.save(restored);
+        String stored = mOktaStorageSoftware.get(
+                binaryEncryption.getHashed(TokenResponse.RESTORE.getKey()));
+        assertArrayEquals(RecordCodec.encode(restored.persist()),
+                binaryEncryption.decryptBytes(stored));
+        assertEquals(restored.persist(), repository.get(TokenResponse.RESTORE).persist());
+    }
+
+    @Test
+    public void managerWithoutBinarySupportStoresJson() throws Exception {
+        OktaRepository repository = new OktaRepository(mOktaStorageSoftware, mContext,
+                mSoftwareEncryption, false, false);
+        TokenResponse response = TokenResponse.RESTORE.restore(TOKEN_RESPONSE);
+        repository.save(response);
+
+        String stored = mOktaStorageSoftware.get(
+                mSoftwareEncryption.getHashed(TokenResponse.RESTORE.getKey()));
+        assertEquals(mSoftwareEncryption.encrypt(response.persist()), stored);
+        assertEquals(response.persist(), repository.get(TokenResponse.RESTORE).persist());
+    }
+
+    @Test
+    public void textEncodedBinaryRecordRestored() throws Exception {
+        OktaRepository repository = new OktaRepository(mOktaStorageSoftware, mContext,
+                mSoftwareEncryption, false, false);
+        String json = TokenResponse.RESTORE.restore(TOKEN_RESPONSE).persist();
+        mOktaStorageSoftware.save(mSoftwareEncryption.getHashed(TokenResponse.RESTORE.getKey()),
+                mSoftwareEncryption.encrypt(RecordCodec.toText(RecordCodec.encode(json))));
+
+        TokenResponse restored = repository.get(TokenResponse.RESTORE);
+        assertNotNull(restored);
+        assertEquals(json, restored.persist());
+    }
+
+    @Test
+    public void deleteAllInOneWrite() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        OktaStorageMock storage = new OktaStorageMock(mContext, PREF_NAME_SOFTWARE, false) {
+            @Override
+            public void apply(@NonNull Batch batch) {
+                writes.incrementAndGet();
+                super.apply(batch);
+            }
+        };
+        OktaRepository repository = new OktaRepository(storage, mContext,
+                mSoftwareEncryption, false, true);
+        repository.save(TestValues.getNotEncryptedPersistable());
+        repository.save(TokenResponse.RESTORE.restore(TOKEN_RESPONSE));
+
+        repository.deleteAll(PersistableMock.RESTORE.getKey(), TokenResponse.RESTORE.getKey());
+        assertEquals(1, writes.get());
+        assertNull(repository.get(PersistableMock.RESTORE));
+        assertNull(repository.get(TokenResponse.RESTORE));
+        assertNull(storage.get(mSoftwareEncryption.getHashed(TokenResponse.RESTORE.getKey())));
+    }
+
+    @Test
+    public void migrateToReencryptsRecords() throws Exception {
+        OktaRepository repository = new OktaRepository(mOktaStorageSoftware, mContext,
+                mSoftwareEncryption, false, true);
+        TokenResponse tokenResponse = TokenResponse.RESTORE.restore(TOKEN_RESPONSE);
+        repository.save(tokenResponse);
+
+        repository.migrateTo(null, TokenResponse.RESTORE.getKey(),
+                PersistableMock.RESTORE.getKey());
+        assertNull(mOktaStorageSoftware.get(
+                mSoftwareEncryption.getHashed(TokenResponse.RESTORE.getKey())));
+        assertEquals(tokenResponse.persist(),
+                mOktaStorageSoftware.get(TokenResponse.RESTORE.getKey()));
+        assertNull(mOktaStorageSoftware.get(PersistableMock.RESTORE.getKey()));
+        assertSame(tokenResponse, repository.get(TokenResponse.RESTORE));
+
+        repository.cacheStorage.clear();
+        assertEquals(tokenResponse.persist(), repository.get(TokenResponse.RESTORE).persist());
+    }
+
+    @Test
+    public void migrateToFailureKeepsRecords() throws Exception {
+        OktaRepository repository = new OktaRepository(mOktaStorageHardware, mContext,
+                mHardwareEncryption, true, false);
+        TokenResponse tokenResponse = TokenResponse.RESTORE.restore(TOKEN_RESPONSE);
+        repository.save(tokenResponse);
+        try {
+            repository.migrateTo(mSoftwareEncryption, TokenResponse.RESTORE.getKey());
+            fail("Expected EncryptionException");
+        } catch (OktaRepository.EncryptionException e) {
+            assertEquals(OktaRepository.EncryptionException.HARDWARE_BACKED_ERROR, e.getType());
+        }
+        assertEquals(tokenResponse.persist(), repository.get(TokenResponse.RESTORE).persist());
+    }
+
+    @Test
+    public void noCacheModeRestoresEveryTime() throws OktaRepository.EncryptionException {
+        OktaRepository repository = new OktaRepository(mOktaStorageSoftware, mContext,
+                mSoftwareEncryption, false, false);
+        PersistableMock persistable = TestValues.getNotEncryptedPersistable();
+        repository.save(persistable);
+
+        PersistableMock restored = repository.get(PersistableMock.RESTORE);
+        assertNotSame(persistable, restored);
+        assertNotSame(restored, repository.get(PersistableMock.RESTORE));
+        assertEquals(persistable.getData(), restored.getData());
+    }
+
+    @Test
+    public void cachedReadNotBlockedByDecrypt() throws Exception {
+        CountDownLatch decrypting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EncryptionManagerStub slowDecrypt = new EncryptionManagerStub(false) {
+            @Override
+            public String decrypt(String value) throws GeneralSecurityException {
+                decrypting.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    //NO-OP
+                }
+                return super.decrypt(value);
+            }
+        };
+        OktaRepository repository = new OktaRepository(mOktaStorageSoftware, mContext,
+                slowDecrypt, false, true);
+        PersistableMock persistable = TestValues.getNotEncryptedPersistable();
+        TokenResponse tokenResponse = new Gson().fromJson(TOKEN_RESPONSE, TokenResponse.class);
+        repository.save(persistable);
+        repository.save(tokenResponse);
+        repository.cacheStorage.remove(slowDecrypt.getHashed(persistable.getKey()));
+
+        Thread reader = new Thread(() -> {
+            try {
+                repository.get(PersistableMock.RESTORE);
+            } catch (OktaRepository.EncryptionException e) {
+                //NO-OP
+            }
+        });
+        reader.start();
+        assertTrue(decrypting.await(1, TimeUnit.SECONDS));
+
+        assertSame(tokenResponse, repository.get(TokenResponse.RESTORE));
+        assertTrue(repository.contains(TokenResponse.RESTORE));
+        release.countDown();
+        reader.join();
+        assertEquals(persistable.getData(), repository.get(PersistableMock.RESTORE).getData());
+    }
+
+    @Test
+    public void threadSafeManagerNotSerialized() throws Exception {
+        CountDownLatch decrypting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EncryptionManagerStub slowDecrypt = new EncryptionManagerStub(false) {
+            @Override
+            public String decrypt(String value) throws GeneralSecurityException {
+                decrypting.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    //NO-OP
+                }
+                return super.decrypt(value);
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        };
+        OktaRepository repository = new OktaRepository(mOktaStorageSoftware, mContext,
+                slowDecrypt, false, false);
+        PersistableMock persistable = TestValues.getNotEncryptedPersistable();
+        repository.save(persistable);
+
+        Thread reader = new Thread(() -> {
+            try {
+                repository.get(PersistableMock.RESTORE);
+            } catch (OktaRepository.EncryptionException e) {
+                //NO-OP
+            }
+        });
+        reader.start();
+        assertTrue(decrypting.await(1, TimeUnit.SECONDS));
+
+        CountDownLatch saved = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            try {
+                repository.save(new Gson().fromJson(TOKEN_RESPONSE, TokenResponse.class));
+                saved.countDown();
+            } catch (OktaRepository.EncryptionException e) {
+                //NO-OP
+            }
+        });
+        writer.start();
+        assertTrue(saved.await(1, TimeUnit.SECONDS));
+        release.countDown();
+        reader.join();
+        writer.join();
+    }
+
     @Test //should encrypt data and stored to device
     public void noHwRequiredAndNotSupported() throws UnsupportedEncodingException, NoSuchAlgorithmException, OktaRepository.EncryptionException {
         OktaRepository repository = new OktaRepository(mOktaStorageSoftware, mContext,
@@ -172,4 +416,31 @@ public class OktaRepositoryTest {
         assertNotEquals(valueFromCache, persistable.getData() +
                 EncryptionManagerStub.STUPID_SALT);
     }
+
+    //encrypts binary data without a text encoding.
+    private static class BinaryEncryptionManagerStub extends EncryptionManagerStub {
+        private static final String BINARY_PREFIX = "binary:";
+
+        BinaryEncryptionManagerStub() {
+            super(false);
+        }
+
+        @Override
+        public String encryptBytes(byte[] value) {
+            return BINARY_PREFIX + Base64.getEncoder().encodeToString(value);
+        }
+
+        @Override
+        public byte[] decryptBytes(String value) throws GeneralSecurityException {
+            if (value.startsWith(BINARY_PREFIX)) {
+                return Base64.getDecoder().decode(value.substring(BINARY_PREFIX.length()));
+            }
+            return super.decryptBytes(value);
+        }
+
+        @Override
+        public boolean isBinarySupported() {
+            return true;
+        }
+    }
 }
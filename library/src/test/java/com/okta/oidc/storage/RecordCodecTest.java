@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.storage;
+
+import com.google.gson.JsonParser;
+import com.okta.oidc.net.request.ProviderConfiguration;
+import com.okta.oidc.net.response.TokenResponse;
+import com.okta.oidc.util.TestValues;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.okta.oidc.util.JsonStrings.TOKEN_RESPONSE;
+import static com.okta.oidc.util.TestValues.CUSTOM_NONCE;
+import static com.okta.oidc.util.TestValues.CUSTOM_URL;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class RecordCodecTest {
+    private static void assertRoundTrip(String json) throws IOException {
+        byte[] record = RecordCodec.encode(json);
+        assertEquals(JsonParser.parseString(json),
+                JsonParser.parseString(RecordCodec.decode(record)));
+    }
+
+    private static String tokenResponse() throws Exception {
+        JSONObject json = new JSONObject(TOKEN_RESPONSE);
+        json.put("id_token", TestValues.getJwt(CUSTOM_URL, CUSTOM_NONCE, "CLIENT_ID"));
+        json.put("expiresAt", System.currentTimeMillis());
+        return TokenResponse.RESTORE.restore(json.toString()).persist();
+    }
+
+    @Test
+    public void tokenResponseRoundTrip() throws Exception {
+        String json = tokenResponse();
+        String decoded = RecordCodec.decode(RecordCodec.encode(json));
+        assertEquals(json, TokenResponse.RESTORE.restore(decoded).persist());
+    }
+
+    @Test
+    public void providerConfigurationRoundTrip() throws Exception {
+        String json = TestValues.getProviderConfiguration(CUSTOM_URL).persist();
+        String decoded = RecordCodec.decode(RecordCodec.encode(json));
+        assertEquals(json, ProviderConfiguration.RESTORE.restore(decoded).persist());
+    }
+
+    @Test
+    public void recordIsSmallerThanJson() throws Exception {
+        String json = tokenResponse();
+        int jsonLength = json.getBytes(StandardCharsets.UTF_8).length;
+        //member names are indexed and the tokens are stored decoded.
+        assertTrue(RecordCodec.encode(json).length < jsonLength * 0.85);
+    }
+
+    @Test
+    public void valuesRoundTrip() throws Exception {
+        assertRoundTrip("{}");
+        assertRoundTrip("{\"unknown\":null,\"active\":true,\"error\":false,\"n\":-42,"
+                + "\"e\":1.5,\"big\":12345678901234567890,\"zero\":\"0012\",\"neg\":-0,"
+                + "\"keys\":[1,\"two\",null,{\"nested\":[]},[true]],\"state\":{},"
+                + "\"code\":\"not.base64url+segments/\",\"id_token\":\"aGVsbG8gd29ybGQh.YQ.\","
+                + "\"unicode\":\"\\u00e9\\u4e2d\\ud83d\\ude00\"}");
+    }
+
+    @Test
+    public void legacyJsonIsDecoded() throws Exception {
+        String json = TestValues.getProviderConfiguration(CUSTOM_URL).persist();
+        assertEquals(json, RecordCodec.decode(json.getBytes(StandardCharsets.UTF_8)));
+        assertNull(RecordCodec.decode(null));
+        assertNull(RecordCodec.encode(null));
+    }
+
+    @Test
+    public void textIsKept() throws Exception {
+        for (String text : new String[]{"", "plain text", "[1,2]", "{\"a\":1} trailing"}) {
+            assertEquals(text, RecordCodec.decode(RecordCodec.encode(text)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void unsupportedVersion() throws Exception {
+        RecordCodec.decode(new byte[]{1, RecordCodec.VERSION + 1, 0});
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedRecord() throws Exception {
+        byte[] record = RecordCodec.encode(tokenResponse());
+        RecordCodec.decode(Arrays.copyOf(record, record.length - 1));
+    }
+
+    @Test
+    public void textForm() throws Exception {
+        byte[] record = RecordCodec.encode(tokenResponse());
+        assertArrayEquals(record, RecordCodec.fromText(RecordCodec.toText(record)));
+        assertArrayEquals("{}".getBytes(StandardCharsets.UTF_8), RecordCodec.fromText("{}"));
+        assertNull(RecordCodec.toText(null));
+        assertNull(RecordCodec.fromText(null));
+    }
+}
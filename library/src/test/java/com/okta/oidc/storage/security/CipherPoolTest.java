@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.storage.security;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class CipherPoolTest {
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private final AtomicInteger mCreated = new AtomicInteger();
+
+    private Cipher create() throws GeneralSecurityException {
+        mCreated.incrementAndGet();
+        return Cipher.getInstance(TRANSFORMATION);
+    }
+
+    @Test
+    public void releasedCipherReused() throws GeneralSecurityException {
+        CipherPool pool = new CipherPool(this::create);
+        Cipher cipher = pool.acquire();
+        pool.release(cipher);
+        assertSame(cipher, pool.acquire());
+        assertEquals(1, mCreated.get());
+    }
+
+    @Test
+    public void concurrentOperationsGetOwnCipher() throws GeneralSecurityException {
+        CipherPool pool = new CipherPool(this::create);
+        Cipher first = pool.acquire();
+        Cipher second = pool.acquire();
+        assertNotSame(first, second);
+        assertEquals(2, mCreated.get());
+    }
+
+    @Test
+    public void idleCiphersLimited() throws GeneralSecurityException {
+        CipherPool pool = new CipherPool(this::create, 2);
+        Cipher[] ciphers = {pool.acquire(), pool.acquire(), pool.acquire()};
+        for (Cipher cipher : ciphers) {
+            pool.release(cipher);
+        }
+        assertEquals(2, pool.getIdleCount());
+        pool.acquire();
+        pool.acquire();
+        pool.acquire();
+        assertEquals(4, mCreated.get());
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test(expected = GeneralSecurityException.class)
+    public void nullCipher() throws GeneralSecurityException {
+        new CipherPool(() -> null).acquire();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.storage.security;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.okta.oidc.net.response.TokenResponse;
+import com.okta.oidc.storage.OktaRepository;
+import com.okta.oidc.storage.RecordCodec;
+import com.okta.oidc.util.OktaStorageMock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+
+import static com.okta.oidc.util.JsonStrings.TOKEN_RESPONSE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class EnvelopeEncryptionTest {
+    private static final String ENVELOPE_PREFIX = "2:";
+    private static final String BINARY_ENVELOPE_PREFIX = "3:";
+    private static final String BINARY_CHUNKS_PREFIX = "4:";
+
+    private SoftwareEncryptionManager mChunked;
+    private SoftwareEncryptionManager mEnvelope;
+    private byte[] mRecord;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyPair keyPair = SoftwareEncryptionManager.newKeyPair();
+        mChunked = new SoftwareEncryptionManager(keyPair, false);
+        mEnvelope = new SoftwareEncryptionManager(keyPair, true);
+        mRecord = RecordCodec.encode(TOKEN_RESPONSE);
+    }
+
+    @Test
+    public void envelopeRoundTrip() throws GeneralSecurityException {
+        String encrypted = mEnvelope.encrypt(TOKEN_RESPONSE);
+        assertTrue(encrypted.startsWith(ENVELOPE_PREFIX));
+        assertEquals(TOKEN_RESPONSE, mEnvelope.decrypt(encrypted));
+        //a new iv every time.
+        assertNotEquals(encrypted, mEnvelope.encrypt(TOKEN_RESPONSE));
+
+        String encryptedRecord = mEnvelope.encryptBytes(mRecord);
+        assertTrue(encryptedRecord.startsWith(BINARY_ENVELOPE_PREFIX));
+        assertArrayEquals(mRecord, mEnvelope.decryptBytes(encryptedRecord));
+    }
+
+    @Test
+    public void chunkedDataReadWithEnvelopeEnabled() throws GeneralSecurityException {
+        String encrypted = mChunked.encrypt(TOKEN_RESPONSE);
+        String encryptedRecord = mChunked.encryptBytes(mRecord);
+        assertTrue(encryptedRecord.startsWith(BINARY_CHUNKS_PREFIX));
+
+        assertEquals(TOKEN_RESPONSE, mEnvelope.decrypt(encrypted));
+        assertArrayEquals(mRecord, mEnvelope.decryptBytes(encryptedRecord));
+
+        mChunked.setEnvelopeEncryption(true);
+        assertEquals(TOKEN_RESPONSE, mChunked.decrypt(encrypted));
+        assertArrayEquals(mRecord, mChunked.decryptBytes(encryptedRecord));
+    }
+
+    @Test
+    public void envelopeDataReadWithEnvelopeDisabled() throws GeneralSecurityException {
+        String encrypted = mEnvelope.encrypt(TOKEN_RESPONSE);
+        String encryptedRecord = mEnvelope.encryptBytes(mRecord);
+
+        assertEquals(TOKEN_RESPONSE, mChunked.decrypt(encrypted));
+        assertArrayEquals(mRecord, mChunked.decryptBytes(encryptedRecord));
+    }
+
+    @Test
+    public void migrateToBetweenModes() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        OktaStorageMock storage = new OktaStorageMock(context, false);
+        OktaRepository repository = new OktaRepository(storage, context, mChunked, false, false);
+        TokenResponse response = TokenResponse.RESTORE.restore(TOKEN_RESPONSE);
+        String key = mChunked.getHashed(TokenResponse.RESTORE.getKey());
+        repository.save(response);
+        assertTrue(storage.get(key).startsWith(BINARY_CHUNKS_PREFIX));
+
+        repository.migrateTo(mEnvelope, TokenResponse.RESTORE.getKey());
+        assertTrue(storage.get(key).startsWith(BINARY_ENVELOPE_PREFIX));
+        assertEquals(response.persist(), repository.get(TokenResponse.RESTORE).persist());
+
+        repository.migrateTo(mChunked, TokenResponse.RESTORE.getKey());
+        assertTrue(storage.get(key).startsWith(BINARY_CHUNKS_PREFIX));
+        assertEquals(response.persist(), repository.get(TokenResponse.RESTORE).persist());
+    }
+
+    @Test
+    public void tamperedCiphertextThrows() throws GeneralSecurityException {
+        String encrypted = mEnvelope.encryptBytes(mRecord);
+        int separator = encrypted.lastIndexOf(':');
+        assertDecryptFails(tamper(encrypted, separator + 1 + (encrypted.length() - separator) / 2));
+        //the tag is checked for the envelope of a string too.
+        String encryptedText = mEnvelope.encrypt(TOKEN_RESPONSE);
+        assertDecryptFails(tamper(encryptedText, encryptedText.length() - 3));
+    }
+
+    @Test
+    public void tamperedWrappedKeyThrows() throws GeneralSecurityException {
+        String encrypted = mEnvelope.encryptBytes(mRecord);
+        int wrappedKeyStart = BINARY_ENVELOPE_PREFIX.length();
+        int separator = encrypted.lastIndexOf(':');
+        String tampered = tamper(encrypted, (wrappedKeyStart + separator) / 2);
+        assertDecryptFails(tampered);
+        //a manager without the unwrapped data key fails the same way.
+        SoftwareEncryptionManager other = new SoftwareEncryptionManager(
+                SoftwareEncryptionManager.newKeyPair(), true);
+        try {
+            other.decryptBytes(encrypted);
+            fail("Decrypted with another key pair");
+        } catch (GeneralSecurityException e) {
+            //expected
+        }
+    }
+
+    private void assertDecryptFails(String tampered) {
+        try {
+            if (tampered.startsWith(ENVELOPE_PREFIX)) {
+                mEnvelope.decrypt(tampered);
+            } else {
+                mEnvelope.decryptBytes(tampered);
+            }
+            fail("Tampered data decrypted");
+        } catch (GeneralSecurityException e) {
+            //expected
+        }
+    }
+
+    //replaces one Base64 character, which changes the decoded bytes.
+    private static String tamper(String encrypted, int index) {
+        char replacement = encrypted.charAt(index) == 'A' ? 'B' : 'A';
+        return encrypted.substring(0, index) + replacement + encrypted.substring(index + 1);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+
+package com.okta.oidc.storage.security;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class KeyPreparationTest {
+    //records preparation instead of touching the key store.
+    private static class PreparingManager extends BaseEncryptionManager {
+        private final AtomicInteger mPrepared = new AtomicInteger();
+        private volatile Thread mPreparedOn;
+        private final CountDownLatch mRelease;
+        private volatile RuntimeException mFailure;
+
+        PreparingManager(CountDownLatch release, @Nullable RuntimeException failure) {
+            super("AndroidKeyStore", "alias");
+            mRelease = release;
+            mFailure = failure;
+        }
+
+        @Override
+        protected boolean prepare(Context context, boolean initCipher) {
+            try {
+                mRelease.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            mPrepared.incrementAndGet();
+            mPreparedOn = Thread.currentThread();
+            if (mFailure != null) {
+                throw mFailure;
+            }
+            return true;
+        }
+
+        @Override
+        boolean generateKeyPair(Context context, KeyPairGenerator generator, String keyAlias,
+                                int keySize, String encryptionPaddings, String blockMode,
+                                boolean isStrongBoxBacked, @Nullable byte[] seed) {
+            return true;
+        }
+
+        @Override
+        public boolean isHardwareBackedKeyStore() {
+            return false;
+        }
+
+        @Override
+        public boolean isUserAuthenticatedOnDevice() {
+            return true;
+        }
+
+        @Override
+        public boolean isValidKeys() {
+            return true;
+        }
+    }
+
+    @Test
+    public void operationWaitsForPreparation() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PreparingManager manager = new PreparingManager(release, null);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            manager.prepareInBackground(null, true, executor);
+            CountDownLatch encrypted = new CountDownLatch(1);
+            new Thread(() -> {
+                try {
+                    manager.encrypt(null);
+                    encrypted.countDown();
+                } catch (GeneralSecurityException e) {
+                    fail();
+                }
+            }).start();
+            assertFalse(encrypted.await(100, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            assertTrue(encrypted.await(1, TimeUnit.SECONDS));
+            assertEquals(1, manager.mPrepared.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void queuedPreparationRunsOnBackgroundCaller() throws Exception {
+        PreparingManager manager = new PreparingManager(new CountDownLatch(0), null);
+        List<Runnable> queued = new ArrayList<>();
+        manager.prepareInBackground(null, true, queued::add);
+
+        Thread caller = new Thread(() -> {
+            try {
+                manager.encrypt(null);
+            } catch (GeneralSecurityException e) {
+                fail();
+            }
+        });
+        caller.start();
+        caller.join(1000);
+        assertEquals(1, manager.mPrepared.get());
+        assertSame(caller, manager.mPreparedOn);
+        //the queued preparation doesn't run again.
+        queued.get(0).run();
+        assertEquals(1, manager.mPrepared.get());
+    }
+
+    @Test
+    public void mainThreadWaitsForExecutor() throws Exception {
+        Looper main = Looper.getMainLooper();
+        assumeTrue(main != null && main.getThread() == Thread.currentThread());
+        PreparingManager manager = new PreparingManager(new CountDownLatch(0), null);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            manager.prepareInBackground(null, true,
+                    task -> executor.schedule(task, 100, TimeUnit.MILLISECONDS));
+
+            assertNull(manager.encrypt(null));
+            assertEquals(1, manager.mPrepared.get());
+            assertNotSame(Thread.currentThread(), manager.mPreparedOn);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void failedPreparationRetried() throws GeneralSecurityException {
+        RuntimeException failure = new RuntimeException("Failed generate keys.");
+        PreparingManager manager = new PreparingManager(new CountDownLatch(0), failure);
+        manager.prepareInBackground(null, true, Runnable::run);
+
+        try {
+            manager.decrypt(null);
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals(failure, e);
+        }
+        //e.g. the user set a lock screen, the next operation prepares the keys again.
+        manager.mFailure = null;
+        assertNull(manager.decrypt(null));
+        assertNull(manager.decrypt(null));
+        assertEquals(2, manager.mPrepared.get());
+    }
+
+    @Test
+    public void recreateKeysDiscardsFailedPreparation() throws GeneralSecurityException {
+        RuntimeException failure = new RuntimeException("Failed generate keys.");
+        PreparingManager manager = new PreparingManager(new CountDownLatch(0), failure);
+        manager.prepareInBackground(null, true, Runnable::run);
+        manager.mFailure = null;
+
+        manager.recreateKeys(null);
+        assertNull(manager.decrypt(null));
+        assertEquals(2, manager.mPrepared.get());
+    }
+
+    @Test
+    public void removeKeysDiscardsPendingPreparation() throws GeneralSecurityException {
+        PreparingManager manager = new PreparingManager(new CountDownLatch(0), null);
+        List<Runnable> queued = new ArrayList<>();
+        manager.prepareInBackground(null, true, queued::add);
+
+        manager.removeKeys();
+        assertNull(manager.decrypt(null));
+        queued.get(0).run();
+        assertEquals(0, manager.mPrepared.get());
+    }
+}
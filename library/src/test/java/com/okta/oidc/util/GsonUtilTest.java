@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 The AppAuth for Android Authors. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.okta.oidc.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.okta.oidc.net.request.ProviderConfiguration;
+import com.okta.oidc.net.response.IntrospectInfo;
+import com.okta.oidc.net.response.TokenResponse;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.okta.oidc.util.JsonStrings.INTROSPECT_RESPONSE;
+import static com.okta.oidc.util.JsonStrings.PROVIDER_CONFIG;
+import static com.okta.oidc.util.JsonStrings.TOKEN_RESPONSE;
+import static com.okta.oidc.util.JsonStrings.TOKEN_SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class GsonUtilTest {
+    //the reflective adapter the models were persisted with before.
+    private final Gson mReflective = new Gson();
+
+    @Test
+    public void sharedAdapters() {
+        assertSame(TokenResponse.ADAPTER, GsonUtil.getAdapter(TokenResponse.class));
+        assertSame(ProviderConfiguration.ADAPTER,
+                GsonUtil.getAdapter(ProviderConfiguration.class));
+        assertSame(IntrospectInfo.ADAPTER, GsonUtil.getAdapter(IntrospectInfo.class));
+    }
+
+    @Test
+    public void tokenResponseSameAsReflective() throws Exception {
+        for (String json : new String[]{TOKEN_SUCCESS, TOKEN_RESPONSE}) {
+            TokenResponse reflective = mReflective.fromJson(json, TokenResponse.class);
+            TokenResponse adapted = GsonUtil.fromJson(TokenResponse.ADAPTER, json);
+            assertEquals(mReflective.toJson(reflective), adapted.persist());
+            assertEquals(reflective.persist(),
+                    TokenResponse.RESTORE.restore(mReflective.toJson(reflective)).persist());
+        }
+    }
+
+    @Test
+    public void providerConfigurationSameAsReflective() {
+        ProviderConfiguration reflective =
+                mReflective.fromJson(PROVIDER_CONFIG, ProviderConfiguration.class);
+        ProviderConfiguration adapted = ProviderConfiguration.RESTORE.restore(PROVIDER_CONFIG);
+        assertEquals(mReflective.toJson(reflective), adapted.persist());
+    }
+
+    @Test
+    public void introspectInfoSameAsReflective() {
+        IntrospectInfo reflective = mReflective.fromJson(INTROSPECT_RESPONSE, IntrospectInfo.class);
+        IntrospectInfo adapted = GsonUtil.fromJson(IntrospectInfo.ADAPTER, INTROSPECT_RESPONSE);
+        assertEquals(mReflective.toJson(reflective),
+                GsonUtil.toJson(IntrospectInfo.ADAPTER, adapted));
+    }
+
+    @Test
+    public void lenientValues() throws Exception {
+        JSONObject json = new JSONObject(TOKEN_RESPONSE);
+        json.put("expires_in", 3600);
+        json.put("expiresAt", "1000");
+        json.put("unknown", new JSONObject().put("nested", true));
+        TokenResponse response = GsonUtil.fromJson(TokenResponse.ADAPTER, json.toString());
+        assertEquals("3600", response.getExpiresIn());
+        assertEquals(1000 + 3600 * 1000, response.getExpiresAt());
+    }
+
+    @Test
+    public void emptyAndNull() {
+        assertNull(GsonUtil.fromJson(TokenResponse.ADAPTER, ""));
+        assertNull(GsonUtil.fromJson(TokenResponse.ADAPTER, null));
+        assertNull(GsonUtil.fromJson(TokenResponse.ADAPTER, "null"));
+        assertEquals("null", GsonUtil.toJson(TokenResponse.ADAPTER, null));
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void malformed() {
+        GsonUtil.fromJson(TokenResponse.ADAPTER, "{\"access_token\":{}}");
+    }
+}
@@ -57,6 +57,7 @@ import static com.okta.oidc.util.TestValues.EXCHANGE_CODE;
 import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
 import static java.net.HttpURLConnection.HTTP_MOVED_TEMP;
 import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_OK;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 
@@ -92,6 +93,10 @@ public class MockEndPoint {
         return mServer.takeRequest();
     }
 
+    public int getRequestCount() {
+        return mServer.getRequestCount();
+    }
+
     public MockResponse enqueueUserInfoSuccess() {
         return enqueueUserInfoSuccess(0);
     }
@@ -103,6 +108,15 @@ public class MockEndPoint {
         return response;
     }
 
+    public void enqueueJwks(String jwks) {
+        enqueueJwks(jwks, 0);
+    }
+
+    public void enqueueJwks(String jwks, int delaySeconds) {
+        mServer.enqueue(jsonResponse(HTTP_OK, jwks)
+                .setHeadersDelay(delaySeconds, TimeUnit.SECONDS));
+    }
+
     public MockResponse enqueueIntrospectSuccess() {
         MockResponse response = jsonResponse(HTTP_OK, INTROSPECT_RESPONSE);
         mServer.enqueue(response);
@@ -122,6 +136,18 @@ public class MockEndPoint {
         mServer.enqueue(jsonResponse(HTTP_OK, config));
     }
 
+    public void enqueueConfigurationSuccess(String etag, String cacheControl) {
+        mServer.enqueue(jsonResponse(HTTP_OK, PROVIDER_CONFIG)
+                .addHeader("ETag", etag)
+                .addHeader("Cache-Control", cacheControl));
+    }
+
+    public void enqueueNotModified(String etag, String cacheControl) {
+        mServer.enqueue(emptyResponse(HTTP_NOT_MODIFIED)
+                .addHeader("ETag", etag)
+                .addHeader("Cache-Control", cacheControl));
+    }
+
     public MockResponse enqueueConfigurationFailure() {
         MockResponse response = jsonResponse(HTTP_NOT_FOUND, CONFIGURATION_NOT_FOUND);
         mServer.enqueue(response);
@@ -176,6 +202,14 @@ public class MockEndPoint {
         mServer.enqueue(response);
     }
 
+    public void enqueueServerError(int code, String retryAfter) {
+        MockResponse response = textResponse(code, "Server error");
+        if (retryAfter != null) {
+            response.addHeader("Retry-After", retryAfter);
+        }
+        mServer.enqueue(response);
+    }
+
     private MockResponse emptyResponse(int code) {
         return new MockResponse().setResponseCode(code);
     }
@@ -20,8 +20,9 @@ import android.net.Uri;
 import androidx.annotation.NonNull;
 import androidx.annotation.WorkerThread;
 
+import com.okta.oidc.net.AsyncOktaHttpClient;
 import com.okta.oidc.net.ConnectionParameters;
-import com.okta.oidc.net.OktaHttpClient;
+import com.okta.oidc.net.HttpResponse;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -39,14 +40,14 @@ import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
 import okhttp3.Call;
-import okhttp3.Callback;
 import okhttp3.FormBody;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 
-public class OkHttp implements OktaHttpClient {
+public class OkHttp implements AsyncOktaHttpClient {
     private static String TAG = "OkHttp";
     protected static OkHttpClient sOkHttpClient;
     protected volatile Call mCall;
@@ -119,7 +120,7 @@ public class OkHttp implements OktaHttpClient {
         Request request = buildRequest(uri, param);
         mCall = sOkHttpClient.newCall(request);
         final CountDownLatch latch = new CountDownLatch(1);
-        mCall.enqueue(new Callback() {
+        mCall.enqueue(new okhttp3.Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
                 mException = e;
@@ -142,6 +143,30 @@ public class OkHttp implements OktaHttpClient {
         return null;
     }
 
+    @NonNull
+    @Override
+    public PendingRequest enqueue(@NonNull Uri uri, @NonNull ConnectionParameters param,
+                                  @NonNull Callback callback) {
+        Request request = buildRequest(uri, param);
+        Call call = sOkHttpClient.newCall(request);
+        call.enqueue(new okhttp3.Callback() {
+            @Override
+            public void onFailure(Call failed, IOException e) {
+                callback.onFailure(e);
+            }
+
+            @Override
+            public void onResponse(Call completed, Response response) {
+                ResponseBody body = response.body();
+                callback.onResponse(new HttpResponse(response.code(),
+                        response.headers().toMultimap(),
+                        body == null ? -1 : (int) body.contentLength(), response.message(),
+                        body == null ? null : body.byteStream()));
+            }
+        });
+        return call::cancel;
+    }
+
     @Override
     public void cleanUp() {
         //NO-OP
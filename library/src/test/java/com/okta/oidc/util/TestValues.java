@@ -119,6 +119,7 @@ public class TestValues {
         configuration.registration_endpoint = url + REGISTRATION_ENDPOINT;
         configuration.end_session_endpoint = url + END_SESSION_ENDPOINT;
         configuration.userinfo_endpoint = url + USERINFO_ENDPOINT;
+        configuration.setCacheState(null, Long.MAX_VALUE);
         return configuration;
     }
 
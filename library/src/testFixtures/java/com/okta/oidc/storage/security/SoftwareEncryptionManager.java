@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2019, Okta, Inc. and/or its affiliates. All rights reserved.
+ * The Okta software accompanied by this notice is provided pursuant to the Apache License,
+ * Version 2.0 (the "License.")
+ *
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations under the
+ * License.
+ */
+
+package com.okta.oidc.storage.security;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.KeyStoreSpi;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+
+/**
+ * A {@link BaseEncryptionManager} backed by an in memory key store, a stand-in for the Android
+ * key store in unit tests and benchmarks on the JVM. Encryption goes through the same code as on
+ * a device, only key storage differs. Managers created with the same key pair read each other's
+ * data.
+ */
+public class SoftwareEncryptionManager extends BaseEncryptionManager {
+    private static final String KEY_STORE_NAME = "SoftwareKeyStore";
+    private static final String KEY_ALIAS = "test";
+    private static final int KEY_SIZE = 2048;
+
+    public SoftwareEncryptionManager(boolean envelopeEncryption)
+            throws GeneralSecurityException {
+        this(newKeyPair(), envelopeEncryption);
+    }
+
+    public SoftwareEncryptionManager(KeyPair keyPair, boolean envelopeEncryption)
+            throws GeneralSecurityException {
+        super(KEY_STORE_NAME, KEY_ALIAS);
+        mKeyStoreAlgorithm = "RSA";
+        mBlockMode = "ECB";
+        mEncryptionPadding = "OAEPPadding";
+        mTransformationString = mKeyStoreAlgorithm + "/" + mBlockMode
+                + "/OAEPWithSHA-256AndMGF1Padding";
+        // The JDK uses MGF1 with SHA-256 when decrypting without a spec, the Android key store
+        // uses SHA-1. Skip the workaround spec so encrypt and decrypt agree on the JDK.
+        mIsStrongBoxBacked = true;
+
+        mKeyStore = new SoftwareKeyStore(KEY_ALIAS, keyPair);
+        try {
+            mKeyStore.load(null);
+        } catch (IOException e) {
+            throw new GeneralSecurityException(e);
+        }
+        mCipher = createCipher(mTransformationString);
+        setEnvelopeEncryption(envelopeEncryption);
+    }
+
+    public static KeyPair newKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(KEY_SIZE);
+        return generator.generateKeyPair();
+    }
+
+    @Override
+    boolean generateKeyPair(Context context, KeyPairGenerator generator, String keyAlias,
+                            int keySize, String encryptionPaddings, String blockMode,
+                            boolean isStrongBoxBacked, @Nullable byte[] seed) {
+        return false;
+    }
+
+    @Override
+    public boolean isHardwareBackedKeyStore() {
+        return false;
+    }
+
+    @Override
+    public boolean isUserAuthenticatedOnDevice() {
+        return true;
+    }
+
+    @Override
+    public boolean isValidKeys() {
+        return true;
+    }
+
+    private static final class SoftwareKeyStore extends KeyStore {
+        SoftwareKeyStore(String alias, KeyPair keyPair) {
+            super(new Spi(alias, keyPair), null, KEY_STORE_NAME);
+        }
+    }
+
+    private static final class Spi extends KeyStoreSpi {
+        private final String mAlias;
+        private final KeyPair mKeyPair;
+        private final Certificate mCertificate;
+
+        Spi(String alias, KeyPair keyPair) {
+            mAlias = alias;
+            mKeyPair = keyPair;
+            mCertificate = new PublicKeyCertificate(keyPair.getPublic());
+        }
+
+        @Override
+        public Key engineGetKey(String alias, char[] password) {
+            return mAlias.equals(alias) ? mKeyPair.getPrivate() : null;
+        }
+
+        @Override
+        public Certificate[] engineGetCertificateChain(String alias) {
+            return mAlias.equals(alias) ? new Certificate[]{mCertificate} : null;
+        }
+
+        @Override
+        public Certificate engineGetCertificate(String alias) {
+            return mAlias.equals(alias) ? mCertificate : null;
+        }
+
+        @Override
+        public Date engineGetCreationDate(String alias) {
+            return null;
+        }
+
+        @Override
+        public void engineSetKeyEntry(String alias, Key key, char[] password,
+                                      Certificate[] chain) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineSetKeyEntry(String alias, byte[] key, Certificate[] chain) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineSetCertificateEntry(String alias, Certificate cert) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineDeleteEntry(String alias) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Enumeration<String> engineAliases() {
+            return Collections.enumeration(Collections.singleton(mAlias));
+        }
+
+        @Override
+        public boolean engineContainsAlias(String alias) {
+            return mAlias.equals(alias);
+        }
+
+        @Override
+        public int engineSize() {
+            return 1;
+        }
+
+        @Override
+        public boolean engineIsKeyEntry(String alias) {
+            return mAlias.equals(alias);
+        }
+
+        @Override
+        public boolean engineIsCertificateEntry(String alias) {
+            return false;
+        }
+
+        @Override
+        public String engineGetCertificateAlias(Certificate cert) {
+            return mCertificate.equals(cert) ? mAlias : null;
+        }
+
+        @Override
+        public void engineStore(OutputStream stream, char[] password) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void engineLoad(InputStream stream, char[] password) {
+            //keys are only kept in memory.
+        }
+    }
+
+    private static final class PublicKeyCertificate extends Certificate {
+        private final PublicKey mPublicKey;
+
+        PublicKeyCertificate(PublicKey publicKey) {
+            super("X.509");
+            mPublicKey = publicKey;
+        }
+
+        @Override
+        public byte[] getEncoded() {
+            return mPublicKey.getEncoded();
+        }
+
+        @Override
+        public void verify(PublicKey key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void verify(PublicKey key, String sigProvider) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String toString() {
+            return mPublicKey.toString();
+        }
+
+        @Override
+        public PublicKey getPublicKey() {
+            return mPublicKey;
+        }
+    }
+}